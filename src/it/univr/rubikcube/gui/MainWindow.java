@@ -3,21 +3,14 @@ package it.univr.rubikcube.gui;
 import it.univr.rubikcube.model.Move;
 import it.univr.rubikcube.model.RubikCubeModel;
 import it.univr.rubikcube.model.RubikCubeSide;
-import it.univr.rubikcube.moves.B;
-import it.univr.rubikcube.moves.D;
-import it.univr.rubikcube.moves.E;
-import it.univr.rubikcube.moves.F;
-import it.univr.rubikcube.moves.L;
-import it.univr.rubikcube.moves.M;
-import it.univr.rubikcube.moves.R;
-import it.univr.rubikcube.moves.S;
-import it.univr.rubikcube.moves.U;
-import it.univr.rubikcube.moves.X;
-import it.univr.rubikcube.moves.Y;
-import it.univr.rubikcube.moves.Z;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
 import it.univr.rubikcube.resolutionstrategies.IDAStar;
 import it.univr.rubikcube.resolutionstrategies.KociembaLib;
+import it.univr.rubikcube.resolutionstrategies.PocketCube;
+import it.univr.rubikcube.resolutionstrategies.Reduction;
 import it.univr.rubikcube.resolutionstrategies.ResolutionStrategy;
+import it.univr.rubikcube.resolutionstrategies.SearchBudget;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
@@ -26,6 +19,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
@@ -42,6 +37,12 @@ public class MainWindow extends javax.swing.JFrame {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Seconds a strategy can search for a solution (and then for shorter
+     * ones) before the interface is unlocked.
+     */
+    private static final long SOLVER_TIME_LIMIT = 5;
+
     /**
      * Creates a new instance of the main window.
      */
@@ -1523,15 +1524,21 @@ public class MainWindow extends javax.swing.JFrame {
     }//GEN-LAST:event_menu_help_creditsActionPerformed
 
     private void nextmoves_doitActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_nextmoves_doitActionPerformed
-        String[] moves = this.nextmoves_value.getText().split(" ");
-        for (String move : moves) {
-            boolean inverted = move.contains("'");
-            this.move_inverse_yes.setSelected(inverted);
-            this.move_inverse_no.setSelected(!inverted);
-            move = move.replaceAll("'", "");
+        // The solutions of the larger cubes turn inner layers (e.g. 3R'),
+        // which only the sequences can parse.
+        final List<Move> moves;
+        try {
+            moves = MoveSequence.parse(this.nextmoves_value.getText())
+                .toMoves(this.cube);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Invalid moves", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        for (Move move : moves) {
             this.performMove(move);
         }
         this.nextmoves_value.setText("");
+        this.nextmoves_doit.setEnabled(false);
     }//GEN-LAST:event_nextmoves_doitActionPerformed
 
     private void move_inverse_yesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_move_inverse_yesActionPerformed
@@ -1641,7 +1648,9 @@ public class MainWindow extends javax.swing.JFrame {
         if (this.strategySolver == null || this.strategySolver.isDone()) {
             this.nextmoves_progressbar.setIndeterminate(true);
             this.nextmoves_progressbar.setStringPainted(true);
-            this.nextmoves_progressbar.setString("Please wait");
+            this.nextmoves_progressbar.setString(
+                this.actualStrategy.getReadiness().isDone() ? "Please wait"
+                : "Loading tables");
             this.control_reset.setEnabled(false);
             this.control_shuffle.setEnabled(false);
             this.control_toString.setEnabled(false);
@@ -1662,6 +1671,7 @@ public class MainWindow extends javax.swing.JFrame {
             this.move_inverse_no.setEnabled(false);
             this.move_inverse_yes.setEnabled(false);
             this.nextmoves_calculate.setText("Cancel");
+            this.nextmoves_value.setText("");
             this.nextmoves_doit.setEnabled(false);
             this.strategySolver = new SolverStrategyWorker();
             strategySolver.execute();
@@ -1838,13 +1848,36 @@ public class MainWindow extends javax.swing.JFrame {
 
         this.availableStrategy = new LinkedList<>();
         // TODO: add more algorithms if needed
-        this.availableStrategy.add(new IDAStar(this.cube));
-        this.availableStrategy.add(new KociembaLib(this.cube));
+        if (this.cube.getDimension() == 2) {
+            this.availableStrategy.add(new PocketCube(this.cube));
+        } else if (this.cube.getDimension() > 3) {
+            this.availableStrategy.add(new Reduction(this.cube));
+        } else {
+            this.availableStrategy.add(new IDAStar(this.cube,
+                    Runtime.getRuntime().availableProcessors()));
+            this.availableStrategy.add(new KociembaLib(this.cube));
+        }
+        // Limit the time of every search, so that the cube is not locked
+        // until the search is stopped, and start loading the tables of every
+        // strategy in the background, so that the first search does not have
+        // to wait for them.
+        for (ResolutionStrategy s : this.availableStrategy) {
+            s.setBudget(SearchBudget.ofTime(SOLVER_TIME_LIMIT,
+                                            TimeUnit.SECONDS));
+            s.getReadiness().whenComplete((r, e) ->
+                java.awt.EventQueue.invokeLater(this::updateInterface));
+        }
         
         this.actualStrategy = this.availableStrategy.get(0);
 
         this.MovesCounter = 0;
         
+        // The slice turns act on 3x3 cubes only.
+        final boolean slices = this.cube.getDimension() == 3;
+        this.move_E.setEnabled(slices);
+        this.move_M.setEnabled(slices);
+        this.move_S.setEnabled(slices);
+
         this.previousmoves_value.setText("");
         this.nextmoves_value.setText("");
         this.nextmoves_doit.setEnabled(false);
@@ -1895,47 +1928,25 @@ public class MainWindow extends javax.swing.JFrame {
     }
 
     private void performMove(String move) {
-        ++this.MovesCounter;
-        this.previousmoves_value.setText(this.previousmoves_value.getText() + move + (this.move_inverse_yes.isSelected() ? "'" : "") + "\n");
-
-        switch (move) {
-            case "L":
-                new L(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "R":
-                new R(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "U":
-                new U(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "D":
-                new D(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "F":
-                new F(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "B":
-                new B(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "M":
-                new M(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "S":
-                new S(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "E":
-                new E(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "X":
-                new X(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "Y":
-                new Y(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
-            case "Z":
-                new Z(this.cube, this.move_inverse_yes.isSelected()).perform();
-                break;
+        Turn turn = Turn.fromString(move);
+        if (this.move_inverse_yes.isSelected()) {
+            turn = turn.inverse();
         }
+        // Apply the turn first, so that a turn the cube does not support is
+        // not recorded.
+        turn.apply(this.cube);
+
+        ++this.MovesCounter;
+        this.previousmoves_value.setText(this.previousmoves_value.getText() + turn + "\n");
+
+        updateInterface();
+    }
+
+    private void performMove(Move move) {
+        move.perform();
+
+        ++this.MovesCounter;
+        this.previousmoves_value.setText(this.previousmoves_value.getText() + move + "\n");
 
         updateInterface();
     }
@@ -1945,7 +1956,16 @@ public class MainWindow extends javax.swing.JFrame {
      */
     public final void updateInterface() {
         this.cubedimension_value.setText("" + this.RubikCubeDimension);
-        this.algorithm_value.setText("" + this.actualStrategy.toString());
+        final CompletableFuture<Void> ready =
+            this.actualStrategy.getReadiness();
+        String readiness = "";
+        if (!ready.isDone()) {
+            readiness = " (loading tables)";
+        } else if (ready.isCompletedExceptionally()) {
+            readiness = " (tables unavailable)";
+        }
+        this.algorithm_value.setText(this.actualStrategy.toString()
+                                     + readiness);
         this.nummoves_value.setText("" + this.MovesCounter);
 
         this.F11.setBackground(this.cube.getFace(RubikCubeSide.FRONT, 0, 0).getColor());
@@ -2012,7 +2032,9 @@ public class MainWindow extends javax.swing.JFrame {
 
     /**
      * Callable that executes a solver strategy on a cube and returns
-     * a list of moves.
+     * a list of moves. The improved solutions found by the strategy are
+     * shown as soon as they are found; stopping the search keeps the last
+     * one.
      * @author Alessandro Menti
      * @author Mattia Zago <dev@zagomattia.it>
      */
@@ -2024,14 +2046,45 @@ public class MainWindow extends javax.swing.JFrame {
             // Nothing to do
         }
         /**
-         * Executes the solver.
+         * Executes the solver, after waiting for its tables to be loaded
+         * (unlike the loading itself, the wait can be cancelled), and
+         * publishes every improved solution.
          * @return List of next moves (possibly empty).
-         * @throws Exception Thrown if no solution is found or a timeout is reached.
+         * @throws Exception Thrown if no solution is found, a timeout is
+         * reached or the tables can not be loaded.
          */
         @Override
         protected final List<Move> doInBackground() throws Exception {
             // CHECKSTYLE:OFF Rationale: no this. in inner classes
-            return actualStrategy.getNextMoves();
+            final CompletableFuture<Void> ready =
+                actualStrategy.getReadiness();
+            if (!ready.isDone()) {
+                ready.get();
+                this.publish("Please wait");
+            }
+            return actualStrategy.getImprovingMoveSequences(
+                s -> this.publish(s)).toMoves(actualStrategy.getModel());
+            // CHECKSTYLE:ON
+        }
+        /**
+         * Shows the progress of the solver.
+         * @param chunks Progress messages and improved solutions.
+         */
+        @Override
+        protected final void process(final List<Object> chunks) {
+            // CHECKSTYLE:OFF Rationale: no this. in inner classes
+            for (Object c : chunks) {
+                if (c instanceof MoveSequence) {
+                    nextmoves_value.setText(c.toString());
+                    nextmoves_progressbar.setString(
+                        "Looking for shorter solutions");
+                    if (!this.isCancelled()) {
+                        nextmoves_calculate.setText("Stop");
+                    }
+                } else {
+                    nextmoves_progressbar.setString(c.toString());
+                }
+            }
             // CHECKSTYLE:ON
         }
         @Override
@@ -2046,9 +2099,6 @@ public class MainWindow extends javax.swing.JFrame {
                     }
                 }
                 nextmoves_value.setText(sb.toString());
-                if (!nextmoves_value.getText().isEmpty()) {
-                    nextmoves_doit.setEnabled(true);
-                }
             } catch (Exception e) {
                 // Empty, nothing to do
             } finally {
@@ -2062,12 +2112,12 @@ public class MainWindow extends javax.swing.JFrame {
                 menu_edit_numfaces.setEnabled(true);
                 move_B.setEnabled(true);
                 move_D.setEnabled(true);
-                move_E.setEnabled(true);
+                move_E.setEnabled(cube.getDimension() == 3);
                 move_F.setEnabled(true);
                 move_L.setEnabled(true);
-                move_M.setEnabled(true);
+                move_M.setEnabled(cube.getDimension() == 3);
                 move_R.setEnabled(true);
-                move_S.setEnabled(true);
+                move_S.setEnabled(cube.getDimension() == 3);
                 move_U.setEnabled(true);
                 move_X.setEnabled(true);
                 move_Y.setEnabled(true);
@@ -2076,7 +2126,9 @@ public class MainWindow extends javax.swing.JFrame {
                 move_inverse_yes.setEnabled(true);
                 nextmoves_calculate.setText("Calculate");
                 nextmoves_calculate.setEnabled(true);
-                nextmoves_doit.setEnabled(true);
+                // A stopped search keeps the last solution shown, if any.
+                nextmoves_doit.setEnabled(
+                    !nextmoves_value.getText().trim().isEmpty());
             }
         }
     }
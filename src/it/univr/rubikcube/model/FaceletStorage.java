@@ -0,0 +1,155 @@
+package it.univr.rubikcube.model;
+
+import java.io.IOException;
+
+/**
+ * Storage of the facelets of a <tt>RubikCubeModel</tt>.
+ *
+ * The facelets are numbered as in the facelet array of the model, and every
+ * facelet holds the ordinal of its color. The storage may also keep the
+ * orientation of the sides and the Zobrist hashes of the model, so that a
+ * persistent storage can give the configuration back when it is opened
+ * again; the storages kept in memory ignore them.
+ * @author Alessandro Menti
+ */
+abstract class FaceletStorage {
+    /**
+     * Creates a new storage.
+     */
+    FaceletStorage() {
+        // Empty, nothing to do
+    }
+    /**
+     * Gets the dimension of the cube held by the storage.
+     * @return Dimension of the cube, or zero if the storage does not hold a
+     * cube yet.
+     */
+    abstract int getDimension();
+    /**
+     * Discards the facelets held by the storage and makes room for the
+     * facelets of a cube of the given dimension, whose content is
+     * undefined.
+     * @param dim Dimension of the cube.
+     */
+    abstract void allocate(int dim);
+    /**
+     * Gets the color of a facelet.
+     * @param i Index of the facelet.
+     * @return Ordinal of the color of the facelet.
+     */
+    abstract byte get(int i);
+    /**
+     * Sets the color of a facelet.
+     * @param i Index of the facelet.
+     * @param c Ordinal of the color of the facelet.
+     */
+    abstract void set(int i, byte c);
+    /**
+     * Copies consecutive facelets to other facelets, which must not overlap
+     * them.
+     * @param src Index of the first facelet to be copied.
+     * @param dst Index of the first facelet to be overwritten.
+     * @param length Number of facelets.
+     */
+    void copy(final int src, final int dst, final int length) {
+        for (int k = 0; k < length; ++k) {
+            this.set(dst + k, this.get(src + k));
+        }
+    }
+    /**
+     * Copies consecutive facelets to a buffer.
+     * @param src Index of the first facelet to be copied.
+     * @param dst Buffer.
+     * @param length Number of facelets.
+     */
+    void load(final int src, final byte[] dst, final int length) {
+        for (int k = 0; k < length; ++k) {
+            dst[k] = this.get(src + k);
+        }
+    }
+    /**
+     * Copies a buffer to consecutive facelets.
+     * @param src Buffer.
+     * @param dst Index of the first facelet to be overwritten.
+     * @param length Number of facelets.
+     */
+    void store(final byte[] src, final int dst, final int length) {
+        for (int k = 0; k < length; ++k) {
+            this.set(dst + k, src[k]);
+        }
+    }
+    /**
+     * Sets consecutive facelets to the same color.
+     * @param start Index of the first facelet.
+     * @param length Number of facelets.
+     * @param c Ordinal of the color.
+     */
+    void fill(final int start, final int length, final byte c) {
+        for (int k = start; k < start + length; ++k) {
+            this.set(k, c);
+        }
+    }
+    /**
+     * Checks whether the first facelets of this storage have the same
+     * colors as the ones of another storage.
+     * @param other Other storage.
+     * @param length Number of facelets to be compared.
+     * @return <tt>true</tt> if and only if the facelets have the same
+     * colors.
+     */
+    boolean contentEquals(final FaceletStorage other, final int length) {
+        for (int k = 0; k < length; ++k) {
+            if (this.get(k) != other.get(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * Gets the orientation of a side, as last set by
+     * <tt>setOrientation</tt>.
+     * @param side Side index.
+     * @return Number of clockwise quarter turns of the side.
+     */
+    int getOrientation(final int side) {
+        return 0;
+    }
+    /**
+     * Records the orientation of a side.
+     * @param side Side index.
+     * @param turns Number of clockwise quarter turns of the side.
+     */
+    void setOrientation(final int side, final int turns) {
+        // Nothing to record in memory
+    }
+    /**
+     * Checks whether the storage holds the Zobrist hashes of its facelets,
+     * i.e. whether no facelet changed since they were saved by
+     * <tt>flush</tt>.
+     * @return <tt>true</tt> if and only if the hashes can be loaded.
+     */
+    boolean hasHashes() {
+        return false;
+    }
+    /**
+     * Loads the Zobrist hashes saved by <tt>flush</tt>.
+     * @param sideHashes Array receiving the hashes of the sides, or
+     * <tt>null</tt>.
+     * @return Zobrist hash of the configuration.
+     * @throws IllegalStateException Thrown if the storage does not hold the
+     * hashes.
+     */
+    long loadHashes(final long[] sideHashes) throws IllegalStateException {
+        throw new IllegalStateException("No hashes were saved");
+    }
+    /**
+     * Saves the Zobrist hashes, and writes the facelets to persistent
+     * storage if the storage has one.
+     * @param hash Zobrist hash of the configuration.
+     * @param sideHashes Hashes of the sides, or <tt>null</tt>.
+     * @throws IOException Thrown if the facelets can not be written.
+     */
+    void flush(final long hash, final long[] sideHashes) throws IOException {
+        // Nothing to write in memory
+    }
+}
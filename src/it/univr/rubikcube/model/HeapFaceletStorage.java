@@ -0,0 +1,128 @@
+package it.univr.rubikcube.model;
+
+import java.util.Arrays;
+
+/**
+ * Storage of the facelets in a byte array on the heap, one byte per
+ * facelet. It is the default storage of the models, and the fastest one.
+ * @author Alessandro Menti
+ */
+final class HeapFaceletStorage extends FaceletStorage {
+    /**
+     * Dimension of the cube.
+     */
+    private int dimension;
+    /**
+     * Color of every facelet.
+     */
+    private byte[] facelets;
+    /**
+     * Creates a new, empty storage.
+     */
+    HeapFaceletStorage() {
+        this.dimension = 0;
+        this.facelets = new byte[0];
+    }
+    /**
+     * Gets the array storing the facelets. The array is not copied.
+     * @return Array storing the facelets.
+     */
+    byte[] getArray() {
+        return this.facelets;
+    }
+    /**
+     * Gets the dimension of the cube held by the storage.
+     * @return Dimension of the cube, or zero if the storage does not hold a
+     * cube yet.
+     */
+    @Override
+    int getDimension() {
+        return this.dimension;
+    }
+    /**
+     * Replaces the array with one large enough for a cube of the given
+     * dimension.
+     * @param dim Dimension of the cube.
+     */
+    @Override
+    void allocate(final int dim) {
+        this.dimension = dim;
+        this.facelets = new byte[RubikCubeSide.values().length * dim * dim];
+    }
+    /**
+     * Gets the color of a facelet.
+     * @param i Index of the facelet.
+     * @return Ordinal of the color of the facelet.
+     */
+    @Override
+    byte get(final int i) {
+        return this.facelets[i];
+    }
+    /**
+     * Sets the color of a facelet.
+     * @param i Index of the facelet.
+     * @param c Ordinal of the color of the facelet.
+     */
+    @Override
+    void set(final int i, final byte c) {
+        this.facelets[i] = c;
+    }
+    /**
+     * Copies consecutive facelets to other facelets with a block copy.
+     * @param src Index of the first facelet to be copied.
+     * @param dst Index of the first facelet to be overwritten.
+     * @param length Number of facelets.
+     */
+    @Override
+    void copy(final int src, final int dst, final int length) {
+        System.arraycopy(this.facelets, src, this.facelets, dst, length);
+    }
+    /**
+     * Copies consecutive facelets to a buffer with a block copy.
+     * @param src Index of the first facelet to be copied.
+     * @param dst Buffer.
+     * @param length Number of facelets.
+     */
+    @Override
+    void load(final int src, final byte[] dst, final int length) {
+        System.arraycopy(this.facelets, src, dst, 0, length);
+    }
+    /**
+     * Copies a buffer to consecutive facelets with a block copy.
+     * @param src Buffer.
+     * @param dst Index of the first facelet to be overwritten.
+     * @param length Number of facelets.
+     */
+    @Override
+    void store(final byte[] src, final int dst, final int length) {
+        System.arraycopy(src, 0, this.facelets, dst, length);
+    }
+    /**
+     * Sets consecutive facelets to the same color.
+     * @param start Index of the first facelet.
+     * @param length Number of facelets.
+     * @param c Ordinal of the color.
+     */
+    @Override
+    void fill(final int start, final int length, final byte c) {
+        Arrays.fill(this.facelets, start, start + length, c);
+    }
+    /**
+     * Checks whether the first facelets of this storage have the same
+     * colors as the ones of another storage, comparing the arrays directly
+     * if both storages are on the heap.
+     * @param other Other storage.
+     * @param length Number of facelets to be compared.
+     * @return <tt>true</tt> if and only if the facelets have the same
+     * colors.
+     */
+    @Override
+    boolean contentEquals(final FaceletStorage other, final int length) {
+        if (other instanceof HeapFaceletStorage) {
+            return Arrays.equals(this.facelets, 0, length,
+                                 ((HeapFaceletStorage) other).facelets, 0,
+                                 length);
+        }
+        return super.contentEquals(other, length);
+    }
+}
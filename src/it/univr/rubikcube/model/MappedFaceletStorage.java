@@ -0,0 +1,245 @@
+package it.univr.rubikcube.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Storage of the facelets in a memory-mapped file, packed in four bits each
+ * as in <tt>PackedFaceletStorage</tt>. The operating system pages the
+ * facelets in and out of memory, so cubes larger than the heap, or than the
+ * physical memory, can be used.
+ *
+ * The file starts with a header holding the dimension of the cube, the
+ * orientation of its sides and the Zobrist hashes saved by the last
+ * <tt>flush</tt>, followed by the facelets. The hashes are marked as stale
+ * on disk before the first change following a flush, so that a file which
+ * was not flushed after its last change is still read correctly, only more
+ * slowly since the hashes have to be computed again; its configuration is
+ * however only guaranteed to be consistent after a flush.
+ * @author Alessandro Menti
+ */
+final class MappedFaceletStorage extends PackedFaceletStorage {
+    /**
+     * Magic number identifying the files.
+     */
+    private static final int MAGIC = 0x5255424B;
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Position of the dimension in the header.
+     */
+    private static final int DIMENSION = 8;
+    /**
+     * Position of the flag telling whether the saved hashes are up to date.
+     */
+    private static final int CLEAN = 12;
+    /**
+     * Position of the orientations of the sides.
+     */
+    private static final int ORIENTATION = 16;
+    /**
+     * Position of the Zobrist hash of the configuration.
+     */
+    private static final int HASH = 24;
+    /**
+     * Position of the Zobrist hashes of the sides.
+     */
+    private static final int SIDE_HASHES = 32;
+    /**
+     * Size of the header, in bytes.
+     */
+    private static final int HEADER = 256;
+    /**
+     * Mapped file.
+     */
+    private final Path file;
+    /**
+     * Whether the saved hashes are up to date.
+     */
+    private boolean clean;
+    /**
+     * Creates a new storage mapping a file. The cube is only read by
+     * <tt>open</tt>.
+     * @param f Mapped file.
+     */
+    private MappedFaceletStorage(final Path f) {
+        super(HEADER);
+        this.file = f;
+        this.clean = false;
+    }
+    /**
+     * Opens a file, mapping the cube it holds if it is a valid one.
+     * @param f File to be mapped. It is created by <tt>allocate</tt> if it
+     * does not exist.
+     * @return Storage of the file, holding no cube if the file is missing or
+     * does not hold a valid cube.
+     * @throws IOException Thrown if the file can not be read.
+     */
+    static MappedFaceletStorage open(final Path f) throws IOException {
+        final MappedFaceletStorage s = new MappedFaceletStorage(f);
+        if (!Files.isRegularFile(f)) {
+            return s;
+        }
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE)) {
+            if (ch.size() < HEADER) {
+                return s;
+            }
+            final MappedByteBuffer h =
+                ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            final int dim = h.getInt(DIMENSION);
+            if (h.getInt(0) != MAGIC || h.getInt(Integer.BYTES) != VERSION
+                || dim < 2 || dim > RubikCubeModel.MAX_DIMENSION
+                || ch.size() != HEADER + (long) bytes(dim)) {
+                return s;
+            }
+            s.attach(dim, ch.map(FileChannel.MapMode.READ_WRITE, 0,
+                                 ch.size()));
+            s.clean = h.get(CLEAN) != 0;
+        }
+        return s;
+    }
+    /**
+     * Resizes the file for a cube of the given dimension, and maps it.
+     * @param dim Dimension of the cube.
+     * @throws UncheckedIOException Thrown if the file can not be written.
+     */
+    @Override
+    void allocate(final int dim) throws UncheckedIOException {
+        final long size = HEADER + (long) bytes(dim);
+        try (FileChannel ch = FileChannel.open(this.file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (ch.size() > size) {
+                ch.truncate(size);
+            }
+            // Mapping past the end of the file extends it.
+            final MappedByteBuffer b =
+                ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            b.putInt(0, MAGIC);
+            b.putInt(Integer.BYTES, VERSION);
+            b.putInt(DIMENSION, dim);
+            b.put(CLEAN, (byte) 0);
+            this.clean = false;
+            this.attach(dim, b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    /**
+     * Sets the color of a facelet.
+     * @param i Index of the facelet.
+     * @param c Ordinal of the color of the facelet.
+     */
+    @Override
+    void set(final int i, final byte c) {
+        if (this.clean) {
+            this.markStale();
+        }
+        super.set(i, c);
+    }
+    /**
+     * Sets consecutive facelets to the same color, a byte at a time.
+     * @param start Index of the first facelet.
+     * @param length Number of facelets.
+     * @param c Ordinal of the color.
+     */
+    @Override
+    void fill(final int start, final int length, final byte c) {
+        if (this.clean) {
+            this.markStale();
+        }
+        super.fill(start, length, c);
+    }
+    /**
+     * Gets the orientation of a side, as saved in the header.
+     * @param side Side index.
+     * @return Number of clockwise quarter turns of the side.
+     */
+    @Override
+    int getOrientation(final int side) {
+        return this.getBuffer().get(ORIENTATION + side);
+    }
+    /**
+     * Saves the orientation of a side in the header.
+     * @param side Side index.
+     * @param turns Number of clockwise quarter turns of the side.
+     */
+    @Override
+    void setOrientation(final int side, final int turns) {
+        if (this.clean) {
+            this.markStale();
+        }
+        this.getBuffer().put(ORIENTATION + side, (byte) turns);
+    }
+    /**
+     * Checks whether the header holds the Zobrist hashes of the facelets.
+     * @return <tt>true</tt> if and only if no facelet changed since the
+     * hashes were saved.
+     */
+    @Override
+    boolean hasHashes() {
+        return this.clean;
+    }
+    /**
+     * Loads the Zobrist hashes saved in the header.
+     * @param sideHashes Array receiving the hashes of the sides, or
+     * <tt>null</tt>.
+     * @return Zobrist hash of the configuration.
+     * @throws IllegalStateException Thrown if the hashes are stale.
+     */
+    @Override
+    long loadHashes(final long[] sideHashes) throws IllegalStateException {
+        if (!this.clean) {
+            throw new IllegalStateException("The saved hashes are stale");
+        }
+        final MappedByteBuffer b = (MappedByteBuffer) this.getBuffer();
+        if (sideHashes != null) {
+            for (int k = 0; k < sideHashes.length; ++k) {
+                sideHashes[k] = b.getLong(SIDE_HASHES + k * Long.BYTES);
+            }
+        }
+        return b.getLong(HASH);
+    }
+    /**
+     * Writes the facelets to the file, and then the hashes in the header.
+     * @param hash Zobrist hash of the configuration.
+     * @param sideHashes Hashes of the sides, or <tt>null</tt>.
+     * @throws IOException Thrown if the facelets can not be written.
+     */
+    @Override
+    void flush(final long hash, final long[] sideHashes) throws IOException {
+        final MappedByteBuffer b = (MappedByteBuffer) this.getBuffer();
+        try {
+            b.force();
+            b.putLong(HASH, hash);
+            if (sideHashes != null) {
+                for (int k = 0; k < sideHashes.length; ++k) {
+                    b.putLong(SIDE_HASHES + k * Long.BYTES, sideHashes[k]);
+                }
+            }
+            b.put(CLEAN, (byte) 1);
+            b.force(0, HEADER);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.clean = true;
+    }
+    /**
+     * Marks the saved hashes as stale on disk, before the first change
+     * following a flush.
+     */
+    private void markStale() {
+        final MappedByteBuffer b = (MappedByteBuffer) this.getBuffer();
+        b.put(CLEAN, (byte) 0);
+        b.force(0, HEADER);
+        this.clean = false;
+    }
+}
@@ -129,7 +129,7 @@ public abstract class Move {
             case "E'": return new E(cube, true);
             case "X'": return new X(cube, true);
             case "Y'": return new Y(cube, true);
-            case "Z'": return new Z(null, true);
+            case "Z'": return new Z(cube, true);
             default: throw new UnsupportedOperationException("Cannot cast");
         }
     }
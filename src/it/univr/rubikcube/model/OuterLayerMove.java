@@ -0,0 +1,29 @@
+package it.univr.rubikcube.model;
+
+/**
+ * Move turning an outer layer or the entire cube, which is defined for
+ * cubes of any dimension.
+ * @author Alessandro Menti
+ */
+public abstract class OuterLayerMove extends Move {
+    /**
+     * Creates a new move acting on the specified model.
+     * @param m Rubik cube model.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     */
+    public OuterLayerMove(final RubikCubeModel m)
+            throws NullPointerException {
+        this(m, false);
+    }
+    /**
+     * Creates a new move acting on the specified model.
+     * @param m Rubik cube model.
+     * @param reversed Specifies if the move is a reversed one (prime '
+     * notation).
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     */
+    public OuterLayerMove(final RubikCubeModel m, final boolean reversed)
+            throws NullPointerException {
+        super(m, reversed);
+    }
+}
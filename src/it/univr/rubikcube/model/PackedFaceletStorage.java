@@ -0,0 +1,140 @@
+package it.univr.rubikcube.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Storage of the facelets off the heap, packed in four bits each: the
+ * facelet <tt>i</tt> is in the low half of byte <tt>i / 2</tt> if
+ * <tt>i</tt> is even and in the high half otherwise. A cube takes half the
+ * memory of the heap storage, and none of it is scanned by the garbage
+ * collector.
+ *
+ * The buffer is a direct one, limited by the maximum direct memory of the
+ * JVM; subclasses may provide other buffers, such as mapped files.
+ * @author Alessandro Menti
+ */
+class PackedFaceletStorage extends FaceletStorage {
+    /**
+     * Mask of the bits of a facelet.
+     */
+    private static final int MASK = 0x0F;
+    /**
+     * Number of bits of a facelet.
+     */
+    private static final int BITS = 4;
+    /**
+     * Dimension of the cube.
+     */
+    private int dimension;
+    /**
+     * Buffer holding the facelets.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Position of the first facelet in the buffer, in bytes.
+     */
+    private final int offset;
+    /**
+     * Creates a new, empty storage in direct memory.
+     */
+    PackedFaceletStorage() {
+        this(0);
+    }
+    /**
+     * Creates a new, empty storage keeping the facelets after some other
+     * data in its buffer.
+     * @param start Position of the first facelet in the buffer, in bytes.
+     */
+    PackedFaceletStorage(final int start) {
+        this.dimension = 0;
+        this.buffer = ByteBuffer.allocate(start);
+        this.offset = start;
+    }
+    /**
+     * Gets the number of bytes taken by the facelets of a cube.
+     * @param dim Dimension of the cube.
+     * @return Number of bytes of the packed facelets.
+     */
+    static int bytes(final int dim) {
+        return (RubikCubeSide.values().length * dim * dim + 1) / 2;
+    }
+    /**
+     * Starts using a buffer holding the facelets of a cube.
+     * @param dim Dimension of the cube.
+     * @param b Buffer holding the facelets, after as many bytes as given
+     * to the constructor.
+     */
+    final void attach(final int dim, final ByteBuffer b) {
+        this.dimension = dim;
+        this.buffer = b;
+    }
+    /**
+     * Gets the buffer holding the facelets.
+     * @return Buffer holding the facelets.
+     */
+    final ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+    /**
+     * Gets the dimension of the cube held by the storage.
+     * @return Dimension of the cube, or zero if the storage does not hold a
+     * cube yet.
+     */
+    @Override
+    final int getDimension() {
+        return this.dimension;
+    }
+    /**
+     * Replaces the buffer with a direct one, large enough for a cube of the
+     * given dimension.
+     * @param dim Dimension of the cube.
+     */
+    @Override
+    void allocate(final int dim) {
+        this.attach(dim, ByteBuffer.allocateDirect(this.offset + bytes(dim)));
+    }
+    /**
+     * Gets the color of a facelet.
+     * @param i Index of the facelet.
+     * @return Ordinal of the color of the facelet.
+     */
+    @Override
+    final byte get(final int i) {
+        final int b = this.buffer.get(this.offset + (i >>> 1));
+        return (byte) ((b >> ((i & 1) * BITS)) & MASK);
+    }
+    /**
+     * Sets the color of a facelet.
+     * @param i Index of the facelet.
+     * @param c Ordinal of the color of the facelet.
+     */
+    @Override
+    void set(final int i, final byte c) {
+        final int k = this.offset + (i >>> 1);
+        final int shift = (i & 1) * BITS;
+        this.buffer.put(k, (byte) ((this.buffer.get(k) & ~(MASK << shift))
+                                   | (c << shift)));
+    }
+    /**
+     * Sets consecutive facelets to the same color, a byte at a time.
+     * @param start Index of the first facelet.
+     * @param length Number of facelets.
+     * @param c Ordinal of the color.
+     */
+    @Override
+    void fill(final int start, final int length, final byte c) {
+        final int end = start + length;
+        int k = start;
+        // Only the facelets at the ends may share a byte with other ones.
+        if ((k & 1) != 0 && k < end) {
+            this.set(k++, c);
+        }
+        final byte both = (byte) (c | (c << BITS));
+        for (; k + 1 < end; k += 2) {
+            this.buffer.put(this.offset + (k >>> 1), both);
+        }
+        if (k < end) {
+            this.set(k, c);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package it.univr.rubikcube.model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Observable;
 
 /**
@@ -31,33 +35,142 @@ public class RubikCubeModel extends Observable {
      */
     private int dimension;
     /**
-     * Array storing the cube configuration.
+     * Face colors, indexed by ordinal.
+     */
+    private static final RubikCubeFaceColor[] COLORS =
+            RubikCubeFaceColor.values();
+    /**
+     * Number of orientations of a side.
+     */
+    private static final int ORIENTATIONS = 4;
+    /**
+     * Maximum dimension of a cube, such that the facelets can be numbered
+     * with an <tt>int</tt>.
+     */
+    public static final int MAX_DIMENSION = 18918;
+    /**
+     * Storage of the cube configuration.
      * 
-     * The array is structured as follows.
-     * <ul>
-     * <li>The first index is the side index (use
-     * <tt>RubikCubeSide.ordinal()</tt> to get the array index corresponding
-     * to a side).</li>
-     * <li>The second index is the row index (<tt>0</tt> to <tt>getDimension()
-     * - 1</tt>).</li>
-     * <li>The third index is the column index (<tt>0</tt> to
-     * <tt>getDimension() - 1</tt>).</li>
-     * </ul>
+     * Each facelet is stored as the ordinal of its color, by default in a
+     * byte array on the heap; a side occupies a contiguous block of
+     * <tt>getDimension() * getDimension()</tt> facelets, starting at index
+     * <tt>s.ordinal() * getDimension() * getDimension()</tt>. The block is
+     * stored turned
+     * clockwise by the number of quarter turns in <tt>orientation</tt>, so
+     * the facelet in row <tt>i</tt> and column <tt>j</tt> of the side is
+     * found by <tt>index</tt>.
      * 
      * Rows are numbered progressively from top to bottom and columns are
      * numbered from the left to the right.
      */
-    private RubikCubeFaceColor[][][] configuration;
+    private FaceletStorage storage;
+    /**
+     * Number of clockwise quarter turns of every side with respect to its
+     * block in the facelet array. Turning a face only changes its
+     * orientation, so it takes constant time whatever the dimension of the
+     * cube. The sides of 3x3x3 cubes are never turned this way, since their
+     * permutation tables rely on the plain layout.
+     */
+    private byte[] orientation;
+    /**
+     * Zobrist hashes of every side in each of its four orientations, i.e.
+     * the exclusive or of the keys its facelets would have if it were
+     * turned that way, indexed by <tt>side * ORIENTATIONS +
+     * orientation</tt>. They let the hash follow a change of orientation in
+     * constant time. They are not kept for 3x3x3 cubes.
+     */
+    private long[] sideHashes;
+    /**
+     * Scratch buffer, large enough to hold a row, used by the rotations so
+     * that they do not need to allocate any memory.
+     */
+    private byte[] scratch;
+    /**
+     * Zobrist hash of the configuration: the exclusive or of the keys
+     * returned by <tt>zobristKey</tt> for every facelet. It is kept up to
+     * date by the methods changing the configuration, which only need to
+     * account for the facelets they actually move.
+     */
+    private long zobristHash;
     /**
      * Creates a new instance of a Rubik cube model.
      * @param dim The cube dimension.
      * @throws IllegalArgumentException Thrown if the cube has an unacceptable
-     * dimension (less than two).
+     * dimension (less than two or greater than <tt>MAX_DIMENSION</tt>).
      */
     public RubikCubeModel(final int dim) throws IllegalArgumentException {
+        this(dim, new HeapFaceletStorage());
+    }
+    /**
+     * Creates a new instance of a Rubik cube model keeping its facelets in
+     * a storage. If the storage already holds a cube of the given
+     * dimension, the model takes its configuration; otherwise the cube is
+     * created in the standard configuration.
+     * @param dim The cube dimension.
+     * @param s Storage of the facelets.
+     * @throws IllegalArgumentException Thrown if the cube has an unacceptable
+     * dimension (less than two or greater than <tt>MAX_DIMENSION</tt>).
+     */
+    private RubikCubeModel(final int dim, final FaceletStorage s)
+            throws IllegalArgumentException {
+        this.storage = s;
         // Force the data structures to be initialized
         this.dimension = 0;
-        this.setDimension(dim);
+        if (s.getDimension() == 0 || s.getDimension() != dim) {
+            this.setDimension(dim);
+            return;
+        }
+        this.createStructures(dim);
+        for (int i = 0; i < this.orientation.length; ++i) {
+            this.orientation[i] = (byte) s.getOrientation(i);
+        }
+        if (s.hasHashes()) {
+            this.zobristHash = s.loadHashes(this.sideHashes);
+        } else {
+            this.computeZobristHash();
+        }
+    }
+    /**
+     * Creates a new instance of a Rubik cube model in the standard
+     * configuration, keeping its facelets off the heap, packed in four bits
+     * each. The facelets take half the memory of the ones of the other
+     * cubes, and are not scanned by the garbage collector, but they are
+     * accessed more slowly.
+     * @param dim The cube dimension.
+     * @return The new cube.
+     * @throws IllegalArgumentException Thrown if the cube has an unacceptable
+     * dimension (less than two or greater than <tt>MAX_DIMENSION</tt>).
+     * @throws OutOfMemoryError Thrown if the direct memory of the JVM is not
+     * enough for the facelets.
+     */
+    public static RubikCubeModel offHeap(final int dim)
+            throws IllegalArgumentException, OutOfMemoryError {
+        return new RubikCubeModel(dim, new PackedFaceletStorage());
+    }
+    /**
+     * Creates a new instance of a Rubik cube model keeping its facelets in
+     * a memory-mapped file, packed in four bits each. If the file holds a
+     * cube of the given dimension, saved by <tt>flush</tt>, the model takes
+     * its configuration; otherwise the file is created, or overwritten, and
+     * the cube is created in the standard configuration.
+     *
+     * The changes to the cube are written to the file by the operating
+     * system at any time, but the file is only guaranteed to hold a
+     * consistent configuration after <tt>flush</tt>.
+     * @param file File holding the cube.
+     * @param dim The cube dimension.
+     * @return The cube held by the file.
+     * @throws IllegalArgumentException Thrown if the cube has an unacceptable
+     * dimension (less than two or greater than <tt>MAX_DIMENSION</tt>).
+     * @throws IOException Thrown if the file can not be read or written.
+     */
+    public static RubikCubeModel map(final Path file, final int dim)
+            throws IllegalArgumentException, IOException {
+        try {
+            return new RubikCubeModel(dim, MappedFaceletStorage.open(file));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
     /**
      * Creates a new instance of a Rubik cube model using an existing model
@@ -73,16 +186,27 @@ public class RubikCubeModel extends Observable {
             throw new NullPointerException("The model can not be null");
         }
         // Force the data structures to be initialized
+        this.storage = new HeapFaceletStorage();
         this.dimension = 0;
         this.setDimension(m.getDimension());
         // Copy the configuration.
-        for (RubikCubeSide s: RubikCubeSide.values()) {
-            for (int i = 0; i < m.getDimension(); ++i) {
-                for (int j = 0; j < m.getDimension(); ++j) {
-                    this.configuration[s.ordinal()][i][j] = m.getFace(s, i, j);
-                }
+        final int size = RubikCubeSide.values().length * this.dimension
+                * this.dimension;
+        if (m.storage instanceof HeapFaceletStorage) {
+            this.storage.store(((HeapFaceletStorage) m.storage).getArray(), 0,
+                               size);
+        } else {
+            for (int i = 0; i < size; ++i) {
+                this.storage.set(i, m.storage.get(i));
             }
         }
+        System.arraycopy(m.orientation, 0, this.orientation, 0,
+                         this.orientation.length);
+        if (m.sideHashes != null) {
+            System.arraycopy(m.sideHashes, 0, this.sideHashes, 0,
+                             this.sideHashes.length);
+        }
+        this.zobristHash = m.zobristHash;
     }
     /**
      * Gets the dimension of this cube.
@@ -96,23 +220,45 @@ public class RubikCubeModel extends Observable {
      * reinitialized in the standard configuration.
      * @param dim Dimension of the cube.
      * @throws IllegalArgumentException Thrown if the cube has an unacceptable
-     * dimension (less than two).
+     * dimension (less than two or greater than <tt>MAX_DIMENSION</tt>).
+     * @throws UncheckedIOException Thrown if the cube is kept in a file which
+     * can not be resized.
      */
     public final void setDimension(final int dim)
-            throws IllegalArgumentException {
+            throws IllegalArgumentException, UncheckedIOException {
         if (dim < 2) {
             throw new IllegalArgumentException("The dimension must be two or"
                                                + " greater.");
         }
+        if (dim > MAX_DIMENSION) {
+            throw new IllegalArgumentException("The dimension must be at most "
+                                               + MAX_DIMENSION + ".");
+        }
         if (dim != this.dimension) {
             // The value has changed, reinitialize the data structures.
-            this.dimension = dim;
-            notifyObservers(new RubikCubeModelDimensionChanged(dim));
-            this.configuration = new RubikCubeFaceColor[RubikCubeSide.values()
-                                                        .length][dim][dim];
+            this.storage.allocate(dim);
+            this.createStructures(dim);
+            if (this.countObservers() != 0) {
+                notifyObservers(new RubikCubeModelDimensionChanged(dim));
+            }
             this.resetToStandardConfiguration();
         }
     }
+    /**
+     * Creates the data structures of the cube, other than its storage.
+     * @param dim Dimension of the cube.
+     */
+    private void createStructures(final int dim) {
+        this.dimension = dim;
+        // 3x3x3 cubes gather all the facelets moved by a permutation in the
+        // scratch buffer.
+        this.scratch = new byte[dim == ThreeDimensionalMoveTable.DIMENSION
+                                ? RubikCubeSide.values().length * dim * dim
+                                : dim];
+        this.orientation = new byte[RubikCubeSide.values().length];
+        this.sideHashes = dim == ThreeDimensionalMoveTable.DIMENSION
+            ? null : new long[this.orientation.length * ORIENTATIONS];
+    }
     /**
      * Gets the side having a given color.
      * @param c The color to be searched for.
@@ -123,7 +269,7 @@ public class RubikCubeModel extends Observable {
         RubikCubeSide side = null;
         final int halfDim = this.dimension / 2;
         for (RubikCubeSide s: RubikCubeSide.values()) {
-            if (this.configuration[s.ordinal()][halfDim][halfDim] == c) {
+            if (this.getFace(s, halfDim, halfDim) == c) {
                 side = s;
                 break;
             }
@@ -139,7 +285,8 @@ public class RubikCubeModel extends Observable {
      */
     public final RubikCubeFaceColor getFace(final RubikCubeSide s, final int x,
                                             final int y) {
-        return this.configuration[s.ordinal()][x][y];
+        return COLORS[this.storage.get(this.checkedIndex(s.ordinal(), x,
+                                                         y))];
     }
     /**
      * Sets the color of a face. <strong>WARNING:</strong> this may leave the
@@ -152,7 +299,28 @@ public class RubikCubeModel extends Observable {
      */
     public final void setFace(final RubikCubeSide s, final int x,
                               final int y, final RubikCubeFaceColor c) {
-        this.configuration[s.ordinal()][x][y] = c;
+        final int i = this.checkedIndex(s.ordinal(), x, y);
+        this.hashFacelet(i);
+        this.storage.set(i, (byte) c.ordinal());
+        this.hashFacelet(i);
+    }
+    /**
+     * Writes the configuration of a cube kept in a file (see <tt>map</tt>)
+     * to the file, so that it is found again when the file is mapped, even
+     * by another process. Does nothing for the other cubes.
+     * @throws IOException Thrown if the file can not be written.
+     */
+    public final void flush() throws IOException {
+        this.storage.flush(this.zobristHash, this.sideHashes);
+    }
+    /**
+     * Gets the 64-bit Zobrist hash of the cube configuration. Two cubes
+     * having the same dimension and configuration always have the same
+     * hash; the converse holds with very high probability.
+     * @return Zobrist hash of the configuration.
+     */
+    public final long getZobristHash() {
+        return this.zobristHash;
     }
     /**
      * Gets the color of two edge facelets.
@@ -170,52 +338,52 @@ public class RubikCubeModel extends Observable {
         switch (e) {
             case UR:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][1][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][0][1]);
+                    this.getFace(RubikCubeSide.UP, 1, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 0, 1));
             case UF:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][2][1],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][0][1]);
+                    this.getFace(RubikCubeSide.UP, 2, 1),
+                    this.getFace(RubikCubeSide.FRONT, 0, 1));
             case UL:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][1][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][0][1]);
+                    this.getFace(RubikCubeSide.UP, 1, 0),
+                    this.getFace(RubikCubeSide.LEFT, 0, 1));
             case UB:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][0][1],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][0][1]);
+                    this.getFace(RubikCubeSide.UP, 0, 1),
+                    this.getFace(RubikCubeSide.BACK, 0, 1));
             case DR:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][1][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][2][1]);
+                    this.getFace(RubikCubeSide.DOWN, 1, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 2, 1));
             case DF:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][0][1],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][2][1]);
+                    this.getFace(RubikCubeSide.DOWN, 0, 1),
+                    this.getFace(RubikCubeSide.FRONT, 2, 1));
             case DL:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][1][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][2][1]);
+                    this.getFace(RubikCubeSide.DOWN, 1, 0),
+                    this.getFace(RubikCubeSide.LEFT, 2, 1));
             case DB:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][2][1],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][2][1]);
+                    this.getFace(RubikCubeSide.DOWN, 2, 1),
+                    this.getFace(RubikCubeSide.BACK, 2, 1));
             case FR:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][1][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][1][0]);
+                    this.getFace(RubikCubeSide.FRONT, 1, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 1, 0));
             case FL:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][1][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][1][2]);
+                    this.getFace(RubikCubeSide.FRONT, 1, 0),
+                    this.getFace(RubikCubeSide.LEFT, 1, 2));
             case BL:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.BACK.ordinal()][1][2],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][1][0]);
+                    this.getFace(RubikCubeSide.BACK, 1, 2),
+                    this.getFace(RubikCubeSide.LEFT, 1, 0));
             case BR:
                 return new RubikCubeEdgeColor(
-                    this.configuration[RubikCubeSide.BACK.ordinal()][1][0],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][1][2]);
+                    this.getFace(RubikCubeSide.BACK, 1, 0),
+                    this.getFace(RubikCubeSide.RIGHT, 1, 2));
             default:
                 throw new IllegalArgumentException("Edge not in enum");
         }
@@ -237,97 +405,97 @@ public class RubikCubeModel extends Observable {
         switch (e) {
             case UR:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.UP, 1, 2);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.RIGHT, 0, 1);
                 } else {
                     return null;
                 }
             case UF:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.UP, 2, 1);
                 } else if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.FRONT, 0, 1);
                 } else {
                     return null;
                 }
             case UL:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.UP, 1, 0);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.LEFT, 0, 1);
                 } else {
                     return null;
                 }
             case UB:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.UP, 0, 1);
                 } else if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.BACK, 0, 1);
                 } else {
                     return null;
                 }
             case DR:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.DOWN, 1, 2);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.RIGHT, 2, 1);
                 } else {
                     return null;
                 }
             case DF:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][0][1];
+                    return this.getFace(RubikCubeSide.DOWN, 0, 1);
                 } else if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.FRONT, 2, 1);
                 } else {
                     return null;
                 }
             case DL:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.DOWN, 1, 0);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.LEFT, 2, 1);
                 } else {
                     return null;
                 }
             case DB:
                 if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.DOWN, 2, 1);
                 } else if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][2][1];
+                    return this.getFace(RubikCubeSide.BACK, 2, 1);
                 } else {
                     return null;
                 }
             case FR:
                 if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.FRONT, 1, 2);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.RIGHT, 1, 0);
                 } else {
                     return null;
                 }
             case FL:
                 if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.FRONT, 1, 0);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.LEFT, 1, 2);
                 } else {
                     return null;
                 }
             case BL:
                 if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.BACK, 1, 2);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.LEFT, 1, 0);
                 } else {
                     return null;
                 }
             case BR:
                 if (a == RubikCubeModelAxis.Z) {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][1][0];
+                    return this.getFace(RubikCubeSide.BACK, 1, 0);
                 } else if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][1][2];
+                    return this.getFace(RubikCubeSide.RIGHT, 1, 2);
                 } else {
                     return null;
                 }
@@ -351,44 +519,44 @@ public class RubikCubeModel extends Observable {
         switch (c) {
             case URF:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][0][2]);
+                    this.getFace(RubikCubeSide.UP, 2, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 0, 0),
+                    this.getFace(RubikCubeSide.FRONT, 0, 2));
             case UFL:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][2][0],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][0][2]);
+                    this.getFace(RubikCubeSide.UP, 2, 0),
+                    this.getFace(RubikCubeSide.FRONT, 0, 0),
+                    this.getFace(RubikCubeSide.LEFT, 0, 2));
             case ULB:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][0][2]);
+                    this.getFace(RubikCubeSide.UP, 0, 0),
+                    this.getFace(RubikCubeSide.LEFT, 0, 0),
+                    this.getFace(RubikCubeSide.BACK, 0, 2));
             case UBR:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.UP.ordinal()][0][2],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][0][2]);
+                    this.getFace(RubikCubeSide.UP, 0, 2),
+                    this.getFace(RubikCubeSide.BACK, 0, 0),
+                    this.getFace(RubikCubeSide.RIGHT, 0, 2));
             case DFR:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][0][2],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][2][0]);
+                    this.getFace(RubikCubeSide.DOWN, 0, 2),
+                    this.getFace(RubikCubeSide.FRONT, 2, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 2, 0));
             case DLF:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][0][0],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.FRONT.ordinal()][2][0]);
+                    this.getFace(RubikCubeSide.DOWN, 0, 0),
+                    this.getFace(RubikCubeSide.LEFT, 2, 2),
+                    this.getFace(RubikCubeSide.FRONT, 2, 0));
             case DBL:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][2][0],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][2][0]);
+                    this.getFace(RubikCubeSide.DOWN, 2, 0),
+                    this.getFace(RubikCubeSide.BACK, 2, 2),
+                    this.getFace(RubikCubeSide.LEFT, 2, 0));
             case DRB:
                 return new RubikCubeCornerColor(
-                    this.configuration[RubikCubeSide.DOWN.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][2][2],
-                    this.configuration[RubikCubeSide.BACK.ordinal()][2][0]);
+                    this.getFace(RubikCubeSide.DOWN, 2, 2),
+                    this.getFace(RubikCubeSide.RIGHT, 2, 2),
+                    this.getFace(RubikCubeSide.BACK, 2, 0));
             default:
                 throw new IllegalArgumentException("Corner not in enum");
         }
@@ -413,67 +581,67 @@ public class RubikCubeModel extends Observable {
         switch (c) {
             case URF:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.RIGHT, 0, 0);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.UP, 2, 2);
                 } else {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.FRONT, 0, 2);
                 }
             case UFL:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.LEFT, 0, 2);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.UP, 2, 0);
                 } else {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.FRONT, 0, 0);
                 }
             case ULB:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.LEFT, 0, 0);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.UP, 0, 0);
                 } else {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.BACK, 0, 2);
                 }
             case UBR:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.RIGHT, 0, 2);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.UP.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.UP, 0, 2);
                 } else {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.BACK, 0, 0);
                 }
             case DFR:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.RIGHT, 2, 0);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][0][2];
+                    return this.getFace(RubikCubeSide.DOWN, 0, 2);
                 } else {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.FRONT, 2, 2);
                 }
             case DLF:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.LEFT, 2, 2);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][0][0];
+                    return this.getFace(RubikCubeSide.DOWN, 0, 0);
                 } else {
-                    return this.configuration[RubikCubeSide.FRONT.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.FRONT, 2, 0);
                 }
             case DBL:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.LEFT.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.LEFT, 2, 0);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.DOWN, 2, 0);
                 } else {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.BACK, 2, 2);
                 }
             case DRB:
                 if (a == RubikCubeModelAxis.X) {
-                    return this.configuration[RubikCubeSide.RIGHT.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.RIGHT, 2, 2);
                 } else if (a == RubikCubeModelAxis.Y) {
-                    return this.configuration[RubikCubeSide.DOWN.ordinal()][2][2];
+                    return this.getFace(RubikCubeSide.DOWN, 2, 2);
                 } else {
-                    return this.configuration[RubikCubeSide.BACK.ordinal()][2][0];
+                    return this.getFace(RubikCubeSide.BACK, 2, 0);
                 }
             default:
                 throw new IllegalArgumentException("Corner not in enum");
@@ -492,15 +660,21 @@ public class RubikCubeModel extends Observable {
      * </ul>
      */
     public final void resetToStandardConfiguration() {
+        final int sideSize = this.dimension * this.dimension;
         for (RubikCubeSide s : RubikCubeSide.values()) {
+            this.orient(s.ordinal(), 0);
+            this.storage.fill(s.ordinal() * sideSize, sideSize,
+                              (byte) s.getStandardColor().ordinal());
+            if (this.countObservers() == 0) {
+                continue;
+            }
             for (int i = 0; i < this.dimension; ++i) {
                 for (int j = 0; j < this.dimension; ++j) {
-                    this.configuration[s.ordinal()][i][j] = s
-                            .getStandardColor();
                     notifyObservers(new RubikCubeModelFaceChanged(i, j, s));
                 }
             }
         }
+        this.computeZobristHash();
     }
     /**
      * Rotates a row of the Rubik cube.
@@ -513,51 +687,64 @@ public class RubikCubeModel extends Observable {
      */
     public final void rotateRow(final int index, final RowRotation rotation)
             throws IndexOutOfBoundsException, IllegalArgumentException {
-        RubikCubeFaceColor[] tmpRow;
         if (index >= this.dimension || index < 0) {
             throw new IndexOutOfBoundsException("The row index must be between"
                     + " 0 and dimension - 1.");
         }
-        tmpRow = new RubikCubeFaceColor[this.dimension];
+        if (rotation == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.dimension == ThreeDimensionalMoveTable.DIMENSION) {
+            this.permute(ThreeDimensionalMoveTable.ofRow(index, rotation));
+        } else {
+            this.hashRow(index);
+            this.rotateRowFacelets(index, rotation);
+            this.hashRow(index);
+        }
+        // Notify the listeners that the row has changed
+        if (this.countObservers() != 0) {
+            notifyObservers(new RubikCubeModelRowRotated(index, rotation));
+        }
+    }
+    /**
+     * Moves the facelets affected by a row rotation, without checking the
+     * arguments, updating the hash or notifying the listeners.
+     * @param index Row index.
+     * @param rotation Direction of the rotation.
+     * @throws IllegalArgumentException Thrown if <tt>rotation</tt> has an
+     * invalid value.
+     */
+    final void rotateRowFacelets(final int index, final RowRotation rotation)
+            throws IllegalArgumentException {
+        final int front = RubikCubeSide.FRONT.ordinal();
+        final int left = RubikCubeSide.LEFT.ordinal();
+        final int back = RubikCubeSide.BACK.ordinal();
+        final int right = RubikCubeSide.RIGHT.ordinal();
         // Backup the front row and rotate the row in the specified direction
         for (int i = 0; i < this.dimension; ++i) {
-            tmpRow[i] = this.configuration[RubikCubeSide.FRONT.ordinal()][index][i];
+            this.scratch[i] = this.storage.get(this.index(front, index, i));
         }
         if (rotation == RowRotation.ANTICLOCKWISE) {
-            this.configuration[RubikCubeSide.FRONT.ordinal()][index] =
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][index];
-            this.configuration[RubikCubeSide.LEFT.ordinal()][index] =
-                    this.configuration[RubikCubeSide.BACK.ordinal()][index];
-            this.configuration[RubikCubeSide.BACK.ordinal()][index] =
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][index];
-            this.configuration[RubikCubeSide.RIGHT.ordinal()][index] = tmpRow;
+            this.copyRow(left, front, index);
+            this.copyRow(back, left, index);
+            this.copyRow(right, back, index);
+            this.restoreRow(right, index);
         } else if (rotation == RowRotation.CLOCKWISE) {
-            this.configuration[RubikCubeSide.FRONT.ordinal()][index] =
-                    this.configuration[RubikCubeSide.RIGHT.ordinal()][index];
-            this.configuration[RubikCubeSide.RIGHT.ordinal()][index] =
-                    this.configuration[RubikCubeSide.BACK.ordinal()][index];
-            this.configuration[RubikCubeSide.BACK.ordinal()][index] =
-                    this.configuration[RubikCubeSide.LEFT.ordinal()][index];
-            this.configuration[RubikCubeSide.LEFT.ordinal()][index] = tmpRow;
+            this.copyRow(right, front, index);
+            this.copyRow(back, right, index);
+            this.copyRow(left, back, index);
+            this.restoreRow(left, index);
         } else {
             throw new IllegalArgumentException();
         }
         // Rotate the top/bottom face if needed.
         if (index == 0) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.UP.ordinal()],
-                    tmp, rotation == RowRotation.ANTICLOCKWISE);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.UP.ordinal()]);
+            this.rotateFace(RubikCubeSide.UP.ordinal(),
+                    rotation == RowRotation.ANTICLOCKWISE);
         } else if (index == this.dimension - 1) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.DOWN.ordinal()],
-                    tmp, rotation == RowRotation.CLOCKWISE);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.DOWN.ordinal()]);
+            this.rotateFace(RubikCubeSide.DOWN.ordinal(),
+                    rotation == RowRotation.CLOCKWISE);
         }
-        // Notify the listeners that the row has changed
-        notifyObservers(new RubikCubeModelRowRotated(index, rotation));
     }
     /**
      * Rotates a column of the Rubik cube.
@@ -571,71 +758,91 @@ public class RubikCubeModel extends Observable {
     public final void rotateColumn(final int index,
                                    final ColumnRotation rotation)
             throws IndexOutOfBoundsException, IllegalArgumentException {
-        RubikCubeFaceColor[] tmpCol;
         if (index >= this.dimension || index < 0) {
             throw new IndexOutOfBoundsException("The column index must be"
                     + " between 0 and dimension - 1.");
         }
-        tmpCol = new RubikCubeFaceColor[this.dimension];
+        if (rotation == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.dimension == ThreeDimensionalMoveTable.DIMENSION) {
+            this.permute(ThreeDimensionalMoveTable.ofColumn(index, rotation));
+        } else {
+            this.hashColumn(index);
+            this.rotateColumnFacelets(index, rotation);
+            this.hashColumn(index);
+        }
+        // Notify the listeners that the column has changed.
+        if (this.countObservers() != 0) {
+            notifyObservers(new RubikCubeModelColumnRotated(index, rotation));
+        }
+    }
+    /**
+     * Moves the facelets affected by a column rotation, without checking the
+     * arguments, updating the hash or notifying the listeners.
+     * @param index Column index.
+     * @param rotation Direction of the rotation.
+     * @throws IllegalArgumentException Thrown if <tt>rotation</tt> has an
+     * invalid value.
+     */
+    final void rotateColumnFacelets(final int index,
+                                    final ColumnRotation rotation)
+            throws IllegalArgumentException {
+        final FaceletStorage f = this.storage;
+        final int d = this.dimension;
+        final int front = RubikCubeSide.FRONT.ordinal();
+        final int up = RubikCubeSide.UP.ordinal();
+        final int back = RubikCubeSide.BACK.ordinal();
+        final int down = RubikCubeSide.DOWN.ordinal();
+        final byte[] tmpCol = this.scratch;
         // Backup the front column and rotate the column in the specified
         // direction
-        for (int i = 0; i < this.dimension; ++i) {
-            tmpCol[i] = this.configuration[RubikCubeSide.FRONT.ordinal()][i]
-                    [index];
+        for (int i = 0; i < d; ++i) {
+            tmpCol[i] = f.get(this.index(front, i, index));
         }
         if (rotation == ColumnRotation.BOTTOM) {
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.FRONT.ordinal()][i][index]
-                        = this.configuration[RubikCubeSide.UP.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(front, i, index),
+                        f.get(this.index(up, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.UP.ordinal()][i][index]
-                        = this.configuration[RubikCubeSide.BACK.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(up, i, index),
+                        f.get(this.index(back, d - 1 - i, d - 1 - index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.BACK.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index]
-                        = this.configuration[RubikCubeSide.DOWN.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(back, d - 1 - i, d - 1 - index),
+                        f.get(this.index(down, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.DOWN.ordinal()][i][index]
-                        = tmpCol[i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(down, i, index), tmpCol[i]);
             }
         } else if (rotation == ColumnRotation.TOP) {
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.FRONT.ordinal()][i][index]
-                        = this.configuration[RubikCubeSide.DOWN.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(front, i, index),
+                        f.get(this.index(down, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.DOWN.ordinal()][i][index]
-                        = this.configuration[RubikCubeSide.BACK.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(down, i, index),
+                        f.get(this.index(back, d - 1 - i, d - 1 - index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.BACK.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index]
-                        = this.configuration[RubikCubeSide.UP.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(back, d - 1 - i, d - 1 - index),
+                        f.get(this.index(up, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.UP.ordinal()][i][index]
-                        = tmpCol[i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(up, i, index), tmpCol[i]);
             }
         } else {
             throw new IllegalArgumentException();
         }
         // Rotate the lateral faces if needed.
         if (index == 0) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.LEFT.ordinal()],
-                    tmp, rotation == ColumnRotation.TOP);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.LEFT.ordinal()]);
-        } else if (index == this.dimension - 1) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.RIGHT.ordinal()],
-                    tmp, rotation == ColumnRotation.BOTTOM);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.RIGHT.ordinal()]);
+            this.rotateFace(RubikCubeSide.LEFT.ordinal(),
+                    rotation == ColumnRotation.TOP);
+        } else if (index == d - 1) {
+            this.rotateFace(RubikCubeSide.RIGHT.ordinal(),
+                    rotation == ColumnRotation.BOTTOM);
         }
-        // Notify the listeners that the column has changed.
-        notifyObservers(new RubikCubeModelColumnRotated(index, rotation));
     }
     /**
      * Rotates a lateral column of the Rubik cube.
@@ -649,90 +856,92 @@ public class RubikCubeModel extends Observable {
     public final void rotateLateralColumn(final int index,
                                           final LateralColumnRotation rotation)
             throws IndexOutOfBoundsException, IllegalArgumentException {
-        this.rotateLateralColumnInternal(index, rotation, true);
+        if (index >= this.dimension || index < 0) {
+            throw new IndexOutOfBoundsException("The lateral column index must"
+                    + " be between 0 and dimension - 1.");
+        }
+        if (rotation == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.dimension == ThreeDimensionalMoveTable.DIMENSION) {
+            this.permute(ThreeDimensionalMoveTable.ofLateralColumn(index,
+                                                                   rotation));
+        } else {
+            this.hashLateralColumn(index);
+            this.rotateLateralColumnFacelets(index, rotation);
+            this.hashLateralColumn(index);
+        }
+        // Notify the listeners that the lateral column has changed.
+        if (this.countObservers() != 0) {
+            notifyObservers(new RubikCubeModelLateralColumnRotated(index,
+                                                                   rotation));
+        }
     }
     /**
-     * Rotates a lateral column of the Rubik cube.
+     * Moves the facelets affected by a lateral column rotation, without
+     * checking the arguments, updating the hash or notifying the listeners.
      * @param index Column index (counted from front to back on the right side).
      * @param rotation Direction of the rotation.
-     * @param fireEvents Whether the <tt>RubikCubeModelLateralColumnRotated</tt>
-     * event should be fired or not.
-     * @throws IndexOutOfBoundsException Thrown if <tt>index</tt> is greater or
-     * equal to the dimension of the cube or is less than zero.
      * @throws IllegalArgumentException Thrown if <tt>rotation</tt> has an
      * invalid value.
      */
-    private void rotateLateralColumnInternal(final int index,
-                                             final LateralColumnRotation rotation,
-                                             final boolean fireEvents)
-            throws IndexOutOfBoundsException, IllegalArgumentException {
-        RubikCubeFaceColor[] tmpLatCol;
-        if (index >= this.dimension || index < 0) {
-            throw new IndexOutOfBoundsException("The lateral column index must"
-                    + " be between 0 and dimension - 1.");
-        }
-        tmpLatCol = new RubikCubeFaceColor[this.dimension];
+    final void rotateLateralColumnFacelets(final int index,
+                                           final LateralColumnRotation rotation)
+            throws IllegalArgumentException {
+        final FaceletStorage f = this.storage;
+        final int d = this.dimension;
+        final int up = RubikCubeSide.UP.ordinal();
+        final int right = RubikCubeSide.RIGHT.ordinal();
+        final int down = RubikCubeSide.DOWN.ordinal();
+        final int left = RubikCubeSide.LEFT.ordinal();
+        final byte[] tmpLatCol = this.scratch;
         // Backup the row on the upper face and rotate the lateral column in
         // the specified direction
-        for (int i = 0; i < this.dimension; ++i) {
-            tmpLatCol[i] = this.configuration[RubikCubeSide.UP.ordinal()]
-                    [this.dimension - 1 - index][i];
+        for (int i = 0; i < d; ++i) {
+            tmpLatCol[i] = f.get(this.index(up, d - 1 - index, i));
         }
         if (rotation == LateralColumnRotation.LEFT) {
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.UP.ordinal()][this.dimension - 1 - index][i] =
-                        this.configuration[RubikCubeSide.RIGHT.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(up, d - 1 - index, i),
+                        f.get(this.index(right, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.RIGHT.ordinal()][this.dimension - 1 - i][index] =
-                        this.configuration[RubikCubeSide.DOWN.ordinal()][index][i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(right, d - 1 - i, index),
+                        f.get(this.index(down, index, i)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.DOWN.ordinal()][index][i] =
-                        this.configuration[RubikCubeSide.LEFT.ordinal()][i][this.dimension - 1 - index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(down, index, i),
+                        f.get(this.index(left, i, d - 1 - index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.LEFT.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index] =
-                        tmpLatCol[i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(left, d - 1 - i, d - 1 - index), tmpLatCol[i]);
             }
         } else if (rotation == LateralColumnRotation.RIGHT) {
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.UP.ordinal()][this.dimension - 1 - index][i] =
-                        this.configuration[RubikCubeSide.LEFT.ordinal()][this.dimension - 1 - i][this.dimension - 1 - index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(up, d - 1 - index, i),
+                        f.get(this.index(left, d - 1 - i, d - 1 - index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.LEFT.ordinal()][i][this.dimension - 1 - index] =
-                        this.configuration[RubikCubeSide.DOWN.ordinal()][index][i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(left, i, d - 1 - index),
+                        f.get(this.index(down, index, i)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.DOWN.ordinal()][index][this.dimension - 1 - i] =
-                        this.configuration[RubikCubeSide.RIGHT.ordinal()][i][index];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(down, index, d - 1 - i),
+                        f.get(this.index(right, i, index)));
             }
-            for (int i = 0; i < this.dimension; ++i) {
-                this.configuration[RubikCubeSide.RIGHT.ordinal()][i][index] =
-                        tmpLatCol[i];
+            for (int i = 0; i < d; ++i) {
+                f.set(this.index(right, i, index), tmpLatCol[i]);
             }
         } else {
             throw new IllegalArgumentException();
         }
         // Rotate the lateral faces if needed.
         if (index == 0) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.FRONT.ordinal()],
-                    tmp, rotation == LateralColumnRotation.LEFT);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.FRONT.ordinal()]);
-        } else if (index == this.dimension - 1) {
-            final RubikCubeFaceColor[][] tmp = new RubikCubeFaceColor
-                    [this.dimension][this.dimension];
-            this.rotateFace(this.configuration[RubikCubeSide.BACK.ordinal()],
-                    tmp, rotation == LateralColumnRotation.RIGHT);
-            this.copyArray(tmp, this.configuration[RubikCubeSide.BACK.ordinal()]);
-        }
-        // Notify the listeners that the lateral column has changed, if needed.
-        if (fireEvents) {
-            notifyObservers(new RubikCubeModelLateralColumnRotated(index,
-                                                                   rotation));
+            this.rotateFace(RubikCubeSide.FRONT.ordinal(),
+                    rotation == LateralColumnRotation.LEFT);
+        } else if (index == d - 1) {
+            this.rotateFace(RubikCubeSide.BACK.ordinal(),
+                    rotation == LateralColumnRotation.RIGHT);
         }
     }
     /**
@@ -743,111 +952,71 @@ public class RubikCubeModel extends Observable {
      */
     public final void rotateCube(final CubeRotation rotation)
             throws IllegalArgumentException {
-        // Save the front side in a temporary variable since this move is the
-        // same for every rotation
-        final RubikCubeFaceColor[][] tmp =
-                new RubikCubeFaceColor[this.dimension][this.dimension];
-        this.copyArray(this.configuration[RubikCubeSide.FRONT.ordinal()], tmp);
+        if (this.dimension == ThreeDimensionalMoveTable.DIMENSION) {
+            this.permute(ThreeDimensionalMoveTable.ofCube(rotation));
+        } else {
+            this.rotateCubeFacelets(rotation);
+            // Every facelet has moved: recompute the hash from scratch.
+            this.computeZobristHash();
+        }
+        // Notify the listeners that the cube was rotated.
+        if (this.countObservers() != 0) {
+            notifyObservers(new RubikCubeModelCubeRotated(rotation));
+        }
+    }
+    /**
+     * Moves the facelets of the cube as a rotation of the entire cube does,
+     * without updating the hash or notifying the listeners.
+     * @param rotation Direction of the rotation.
+     * @throws IllegalArgumentException Thrown if <tt>rotation</tt> is an
+     * invalid direction.
+     */
+    final void rotateCubeFacelets(final CubeRotation rotation)
+            throws IllegalArgumentException {
+        final int front = RubikCubeSide.FRONT.ordinal();
+        final int back = RubikCubeSide.BACK.ordinal();
+        final int up = RubikCubeSide.UP.ordinal();
+        final int down = RubikCubeSide.DOWN.ordinal();
+        final int left = RubikCubeSide.LEFT.ordinal();
+        final int right = RubikCubeSide.RIGHT.ordinal();
         switch (rotation) {
             case UPWISE:
-                this.copyArray(this.configuration[RubikCubeSide.DOWN.ordinal()],
-                               this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.BACK.ordinal()],
-                               this.configuration[RubikCubeSide.DOWN.ordinal()],
-                               true);
-                this.copyArray(this.configuration[RubikCubeSide.UP.ordinal()],
-                               this.configuration[RubikCubeSide.BACK.ordinal()],
-                               true);
-                this.copyArray(tmp,
-                               this.configuration[RubikCubeSide.UP.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.LEFT.ordinal()],
-                                tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.LEFT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.RIGHT.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.RIGHT.ordinal()]);
+                this.cycleSides(front, down, back, up, true);
+                this.rotateFace(left, true);
+                this.rotateFace(right, false);
                 break;
             case DOWNWISE:
-                this.copyArray(this.configuration[RubikCubeSide.UP.ordinal()],
-                               this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.BACK.ordinal()],
-                               this.configuration[RubikCubeSide.UP.ordinal()],
-                               true);
-                this.copyArray(this.configuration[RubikCubeSide.DOWN.ordinal()],
-                               this.configuration[RubikCubeSide.BACK.ordinal()],
-                               true);
-                this.copyArray(tmp,
-                               this.configuration[RubikCubeSide.DOWN.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.LEFT.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.LEFT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.RIGHT.ordinal()],
-                        tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.RIGHT.ordinal()]);
+                this.cycleSides(front, up, back, down, true);
+                this.rotateFace(left, false);
+                this.rotateFace(right, true);
                 break;
             case CLOCKWISE:
-                this.copyArray(this.configuration[RubikCubeSide.RIGHT.ordinal()],
-                               this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.BACK.ordinal()],
-                               this.configuration[RubikCubeSide.RIGHT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.LEFT.ordinal()],
-                               this.configuration[RubikCubeSide.BACK.ordinal()]);
-                this.copyArray(tmp,
-                               this.configuration[RubikCubeSide.LEFT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.UP.ordinal()],
-                        tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.UP.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.DOWN.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.DOWN.ordinal()]);
+                this.cycleSides(front, right, back, left, false);
+                this.rotateFace(up, false);
+                this.rotateFace(down, true);
                 break;
             case ANTICLOCKWISE:
-                this.copyArray(this.configuration[RubikCubeSide.LEFT.ordinal()],
-                               this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.BACK.ordinal()],
-                               this.configuration[RubikCubeSide.LEFT.ordinal()]);
-                this.copyArray(this.configuration[RubikCubeSide.RIGHT.ordinal()],
-                               this.configuration[RubikCubeSide.BACK.ordinal()]);
-                this.copyArray(tmp,
-                               this.configuration[RubikCubeSide.RIGHT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.UP.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.UP.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.DOWN.ordinal()],
-                        tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.DOWN.ordinal()]);
+                this.cycleSides(front, left, back, right, false);
+                this.rotateFace(up, true);
+                this.rotateFace(down, false);
                 break;
             case CLOCKWISE_FROM_FRONT:
+                // The lateral column rotations already turn the front and
+                // back sides.
                 for (int i = 0; i < this.dimension; ++i) {
-                    this.rotateLateralColumnInternal(i,
-                                                     LateralColumnRotation.RIGHT,
-                                                     false);
+                    this.rotateLateralColumnFacelets(i,
+                            LateralColumnRotation.RIGHT);
                 }
-                this.rotateFace(this.configuration[RubikCubeSide.FRONT.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.BACK.ordinal()],
-                        tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.BACK.ordinal()]);
                 break;
             case ANTICLOCKWISE_FROM_FRONT:
                 for (int i = 0; i < this.dimension; ++i) {
-                    this.rotateLateralColumnInternal(i,
-                                                     LateralColumnRotation.LEFT,
-                                                     false);
+                    this.rotateLateralColumnFacelets(i,
+                            LateralColumnRotation.LEFT);
                 }
-                this.rotateFace(this.configuration[RubikCubeSide.FRONT.ordinal()],
-                        tmp, true);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.FRONT.ordinal()]);
-                this.rotateFace(this.configuration[RubikCubeSide.BACK.ordinal()],
-                        tmp, false);
-                this.copyArray(tmp, this.configuration[RubikCubeSide.BACK.ordinal()]);
                 break;
             default:
                 throw new IllegalArgumentException();
         }
-        // Notify the listeners that the cube was rotated.
-        notifyObservers(new RubikCubeModelCubeRotated(rotation));
     }
     /**
      * Gets a textual representation of the cube, suitable for printing.
@@ -871,7 +1040,7 @@ public class RubikCubeModel extends Observable {
             }
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.UP.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.UP, i, j));
             }
             sb.append("|\n");
         }
@@ -884,19 +1053,19 @@ public class RubikCubeModel extends Observable {
         for (int i = 0; i < this.dimension; ++i) {
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.LEFT.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.LEFT, i, j));
             }
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.FRONT.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.FRONT, i, j));
             }
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.RIGHT.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.RIGHT, i, j));
             }
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.BACK.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.BACK, i, j));
             }
             sb.append("|\n");
         }
@@ -912,7 +1081,7 @@ public class RubikCubeModel extends Observable {
             }
             sb.append("|");
             for (int j = 0; j < this.dimension; ++j) {
-                sb.append(this.configuration[RubikCubeSide.DOWN.ordinal()][i][j]);
+                sb.append(this.getFace(RubikCubeSide.DOWN, i, j));
             }
             sb.append("|\n");
         }
@@ -922,6 +1091,56 @@ public class RubikCubeModel extends Observable {
         }
         return sb.toString();
     }
+    /**
+     * Checks whether this cube is equal to another object. Two cubes are equal
+     * if and only if they have the same dimension and the same color on every
+     * facelet; observers are not taken into account.
+     * <strong>WARNING:</strong> the cube is mutable, so it must not be
+     * changed while it is used as a key in a hash-based collection.
+     * @param obj Object to be compared.
+     * @return <tt>true</tt> if and only if <tt>obj</tt> is a cube equal to
+     * this one.
+     */
+    @Override
+    public final boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RubikCubeModel)) {
+            return false;
+        }
+        final RubikCubeModel m = (RubikCubeModel) obj;
+        if (this.dimension != m.dimension
+                || this.zobristHash != m.zobristHash) {
+            return false;
+        }
+        if (Arrays.equals(this.orientation, m.orientation)) {
+            return this.storage.contentEquals(m.storage,
+                    RubikCubeSide.values().length * this.dimension
+                    * this.dimension);
+        }
+        // Some sides are stored turned in different ways: compare them
+        // facelet by facelet.
+        for (int s = 0; s < this.orientation.length; ++s) {
+            for (int i = 0; i < this.dimension; ++i) {
+                for (int j = 0; j < this.dimension; ++j) {
+                    if (this.storage.get(this.index(s, i, j))
+                            != m.storage.get(m.index(s, i, j))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    /**
+     * Gets a hash code for the cube, derived from its Zobrist hash.
+     * @return Hash code of the cube configuration.
+     */
+    @Override
+    public final int hashCode() {
+        return (int) (this.zobristHash ^ (this.zobristHash >>> 32));
+    }
     /**
      * Checks whether a cube is in the standard configuration (each face has
      * all subfaces of the same, standard face color).
@@ -1213,63 +1432,344 @@ public class RubikCubeModel extends Observable {
         }
     }
     /**
-     * Deep copies a face of the Rubik cube to another face.
-     * @param src Source face.
-     * @param dst Destination face.
+     * Gets the array storing the configuration of the cube. The array is not
+     * copied: changing it changes the cube, without updating the hash. The
+     * sides of 3x3x3 cubes are always stored in the plain layout, with row
+     * <tt>i</tt> and column <tt>j</tt> of side <tt>s</tt> at index
+     * <tt>(s * 3 + i) * 3 + j</tt>.
+     * @return Array storing the configuration of the cube.
+     * @throws ClassCastException Thrown if the cube is not stored on the
+     * heap.
+     */
+    final byte[] getFacelets() throws ClassCastException {
+        return ((HeapFaceletStorage) this.storage).getArray();
+    }
+    /**
+     * Applies a precomputed permutation to the facelets of a 3x3x3 cube,
+     * updating the Zobrist hash of the moved facelets only.
+     * @param t Permutation to be applied.
+     */
+    private void permute(final ThreeDimensionalMoveTable t) {
+        final FaceletStorage f = this.storage;
+        final byte[] moved = this.scratch;
+        final int[] targets = t.getTargets();
+        final int[] sources = t.getSources();
+        final long[] keys = ThreeDimensionalMoveTable.ZOBRIST_KEYS;
+        final int colors = COLORS.length;
+        // Gather the moved facelets first, since the sources are overwritten
+        // while scattering them.
+        for (int k = 0; k < targets.length; ++k) {
+            moved[k] = f.get(sources[k]);
+        }
+        long h = this.zobristHash;
+        for (int k = 0; k < targets.length; ++k) {
+            final int i = targets[k];
+            h ^= keys[i * colors + f.get(i)] ^ keys[i * colors + moved[k]];
+            f.set(i, moved[k]);
+        }
+        this.zobristHash = h;
+    }
+    /**
+     * Gets the index of a facelet in the facelet array.
+     * @param side Side index.
+     * @param row Row index.
+     * @param col Column index.
+     * @return Index of the facelet.
      */
-    private void copyArray(final RubikCubeFaceColor[][] src,
-                           final RubikCubeFaceColor[][] dst) {
-        this.copyArray(src, dst, false);
+    private int index(final int side, final int row, final int col) {
+        return this.turnedIndex(side, row, col, this.orientation[side]);
     }
     /**
-     * Deep copies a face of the Rubik cube to another face.
-     * @param src Source face.
-     * @param dst Destination face.
-     * @param sw Whether to switch the face (perform the back rotation).
-     */
-    private void copyArray(final RubikCubeFaceColor[][] src,
-                           final RubikCubeFaceColor[][] dst,
-                           final boolean sw) {
-        
+     * Gets the index of a facelet in the facelet array, as if its side were
+     * stored with a given orientation.
+     * @param side Side index.
+     * @param row Row index.
+     * @param col Column index.
+     * @param turns Number of clockwise quarter turns of the side.
+     * @return Index of the facelet.
+     */
+    private int turnedIndex(final int side, final int row, final int col,
+                            final int turns) {
+        // After a clockwise quarter turn, the facelet in (i, j) is the one
+        // which was in (d - 1 - j, i).
+        final int d = this.dimension;
+        final int start = side * d * d;
+        switch (turns) {
+            case 1:
+                return start + (d - 1 - col) * d + row;
+            case 2:
+                return start + (d - 1 - row) * d + d - 1 - col;
+            case 3:
+                return start + col * d + d - 1 - row;
+            default:
+                return start + row * d + col;
+        }
+    }
+    /**
+     * Gets the index of a facelet in the facelet array, checking that the
+     * coordinates are valid.
+     * @param side Side index.
+     * @param row Row index.
+     * @param col Column index.
+     * @return Index of the facelet.
+     * @throws IndexOutOfBoundsException Thrown if <tt>row</tt> or
+     * <tt>col</tt> is not between <tt>0</tt> and the dimension of the cube
+     * minus one.
+     */
+    private int checkedIndex(final int side, final int row, final int col)
+            throws IndexOutOfBoundsException {
+        if (row < 0 || row >= this.dimension || col < 0
+                || col >= this.dimension) {
+            throw new IndexOutOfBoundsException("The coordinates must be"
+                    + " between 0 and dimension - 1.");
+        }
+        return this.index(side, row, col);
+    }
+    /**
+     * Copies a row of a side to the same row of another side.
+     * @param src Source side index.
+     * @param dst Destination side index.
+     * @param row Row index.
+     */
+    private void copyRow(final int src, final int dst, final int row) {
         for (int i = 0; i < this.dimension; ++i) {
-            for (int j = 0; j < this.dimension; ++j) {
-                if (sw) {
-                    dst[this.dimension - 1 - i][this.dimension - 1 - j]
-                            = src[i][j];
-                } else {
-                    dst[i][j] = src[i][j];
-                }
-            }
+            this.storage.set(this.index(dst, row, i),
+                    this.storage.get(this.index(src, row, i)));
         }
     }
     /**
-     * Rotates a face of the Rubik cube. <strong><tt>src</tt> and <tt>dst</tt>
-     * must not be the same array</strong> as the routine is not designed for
-     * a copy in place!
-     * @param src Source face.
-     * @param dst Destination face.
+     * Copies the scratch buffer to a row of a side.
+     * @param side Side index.
+     * @param row Row index.
+     */
+    private void restoreRow(final int side, final int row) {
+        for (int i = 0; i < this.dimension; ++i) {
+            this.storage.set(this.index(side, row, i), this.scratch[i]);
+        }
+    }
+    /**
+     * Moves four sides of the Rubik cube along a cycle, as a rotation of
+     * the entire cube does: the first side takes the facelets of the
+     * second one, the second side the ones of the third one, the third
+     * side the ones of the fourth one and the fourth side the ones of the
+     * first one. The sides are moved a row at a time through the scratch
+     * buffer.
+     * @param a First side index.
+     * @param b Second side index.
+     * @param c Third side index.
+     * @param d Fourth side index.
+     * @param sw Whether to switch the faces moved to and from the third
+     * side (perform the back rotation).
+     */
+    private void cycleSides(final int a, final int b, final int c,
+                            final int d, final boolean sw) {
+        final FaceletStorage f = this.storage;
+        final int sideSize = this.dimension * this.dimension;
+        for (int k = 0; k < sideSize; k += this.dimension) {
+            f.load(a * sideSize + k, this.scratch, this.dimension);
+            f.copy(b * sideSize + k, a * sideSize + k, this.dimension);
+            f.copy(c * sideSize + k, b * sideSize + k, this.dimension);
+            f.copy(d * sideSize + k, c * sideSize + k, this.dimension);
+            f.store(this.scratch, d * sideSize + k, this.dimension);
+        }
+        final int first = this.orientation[a];
+        this.orient(a, this.orientation[b]);
+        this.orient(b, this.orientation[c]);
+        this.orient(c, this.orientation[d]);
+        this.orient(d, first);
+        if (sw) {
+            this.rotateFace(b, false);
+            this.rotateFace(b, false);
+            this.rotateFace(c, false);
+            this.rotateFace(c, false);
+        }
+    }
+    /**
+     * Sets the orientation of a side, recording it in the storage.
+     * @param side Side index.
+     * @param turns Number of clockwise quarter turns of the side.
+     */
+    private void orient(final int side, final int turns) {
+        this.orientation[side] = (byte) turns;
+        this.storage.setOrientation(side, turns);
+    }
+    /**
+     * Rotates a side of the Rubik cube. The sides of 3x3x3 cubes are turned
+     * in place, moving the facelets along 4-cycles, one ring of the side at
+     * a time; the other sides are turned by changing their orientation.
+     * @param side Side index.
      * @param anticlockwise Specifies if the rotation should be anticlockwise
      * (it will be clockwise otherwise).
-     * @throws IllegalArgumentException Thrown if <tt>src</tt> and <tt>dst</tt>
-     * are the same array.
-     */
-    private void rotateFace(final RubikCubeFaceColor[][] src,
-                            final RubikCubeFaceColor[][] dst,
-                            final boolean anticlockwise)
-        throws IllegalArgumentException {
-        // The following == is intended as we're comparing references.
-        if (src == dst) {
-            throw new IllegalArgumentException("src and dst must be different"
-                                               + " references");
+     */
+    private void rotateFace(final int side, final boolean anticlockwise) {
+        if (this.dimension != ThreeDimensionalMoveTable.DIMENSION) {
+            this.orient(side, (this.orientation[side]
+                    + (anticlockwise ? ORIENTATIONS - 1 : 1)) % ORIENTATIONS);
+            return;
         }
-        for (int i = 0; i < this.dimension; ++i) {
-            for (int j = 0; j < this.dimension; ++j) {
+        final FaceletStorage f = this.storage;
+        final int d = this.dimension;
+        for (int i = 0; i < d / 2; ++i) {
+            for (int j = i; j < d - 1 - i; ++j) {
+                // A clockwise rotation moves (i, j) to (j, d - 1 - i), that
+                // to (d - 1 - i, d - 1 - j), that to (d - 1 - j, i) and that
+                // back to (i, j).
+                final int a = this.index(side, i, j);
+                final int b = this.index(side, j, d - 1 - i);
+                final int c = this.index(side, d - 1 - i, d - 1 - j);
+                final int e = this.index(side, d - 1 - j, i);
+                final byte t = f.get(a);
                 if (anticlockwise) {
-                    dst[this.dimension - 1 - j][i] = src[i][j];
+                    f.set(a, f.get(b));
+                    f.set(b, f.get(c));
+                    f.set(c, f.get(e));
+                    f.set(e, t);
                 } else {
-                    dst[j][this.dimension - 1 - i] = src[i][j];
+                    f.set(a, f.get(e));
+                    f.set(e, f.get(c));
+                    f.set(c, f.get(b));
+                    f.set(b, t);
                 }
             }
         }
     }
+    /**
+     * Gets the Zobrist key of a facelet having a given color. The keys are
+     * not stored in a table but computed by mixing the facelet position and
+     * color with the SplitMix64 finalizer, so that they are available for
+     * cubes of any dimension without using any memory.
+     * @param i Index of the facelet in the facelet array.
+     * @param c Ordinal of the color of the facelet.
+     * @return Zobrist key of the facelet.
+     */
+    static long zobristKey(final int i, final int c) {
+        long z = (long) i * COLORS.length + c;
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    /**
+     * Recomputes the Zobrist hash of the whole configuration, and the hashes
+     * of the sides in every orientation.
+     */
+    private void computeZobristHash() {
+        this.zobristHash = 0;
+        if (this.sideHashes != null) {
+            Arrays.fill(this.sideHashes, 0);
+        }
+        final int size = RubikCubeSide.values().length * this.dimension
+                * this.dimension;
+        for (int i = 0; i < size; ++i) {
+            this.hashFacelet(i);
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash, and in the hashes of its side, the keys
+     * of a facelet.
+     * @param i Index of the facelet in the facelet array.
+     */
+    private void hashFacelet(final int i) {
+        final int c = this.storage.get(i);
+        if (this.sideHashes == null) {
+            this.zobristHash ^= zobristKey(i, c);
+            return;
+        }
+        final int d = this.dimension;
+        final int side = i / (d * d);
+        final int row = i / d % d;
+        final int col = i % d;
+        for (int t = 0; t < ORIENTATIONS; ++t) {
+            // Turning the side back by t quarter turns gives the position
+            // the facelet has when the side is turned by t quarter turns.
+            final long k = zobristKey(this.turnedIndex(side, row, col,
+                    (ORIENTATIONS - t) % ORIENTATIONS), c);
+            this.sideHashes[side * ORIENTATIONS + t] ^= k;
+            if (t == this.orientation[side]) {
+                this.zobristHash ^= k;
+            }
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of a row of a side.
+     * @param side Side index.
+     * @param row Row index.
+     */
+    private void hashSideRow(final int side, final int row) {
+        for (int i = 0; i < this.dimension; ++i) {
+            this.hashFacelet(this.index(side, row, i));
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of a column of a side.
+     * @param side Side index.
+     * @param col Column index.
+     */
+    private void hashSideColumn(final int side, final int col) {
+        for (int i = 0; i < this.dimension; ++i) {
+            this.hashFacelet(this.index(side, i, col));
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of a whole side, in constant
+     * time.
+     * @param side Side index.
+     */
+    private void hashSide(final int side) {
+        this.zobristHash ^=
+                this.sideHashes[side * ORIENTATIONS + this.orientation[side]];
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of the facelets moved by a row
+     * rotation. Calling it both before and after the rotation updates the
+     * hash to the new configuration.
+     * @param index Row index.
+     */
+    private void hashRow(final int index) {
+        this.hashSideRow(RubikCubeSide.FRONT.ordinal(), index);
+        this.hashSideRow(RubikCubeSide.LEFT.ordinal(), index);
+        this.hashSideRow(RubikCubeSide.BACK.ordinal(), index);
+        this.hashSideRow(RubikCubeSide.RIGHT.ordinal(), index);
+        if (index == 0) {
+            this.hashSide(RubikCubeSide.UP.ordinal());
+        } else if (index == this.dimension - 1) {
+            this.hashSide(RubikCubeSide.DOWN.ordinal());
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of the facelets moved by a column
+     * rotation. Calling it both before and after the rotation updates the
+     * hash to the new configuration.
+     * @param index Column index.
+     */
+    private void hashColumn(final int index) {
+        this.hashSideColumn(RubikCubeSide.FRONT.ordinal(), index);
+        this.hashSideColumn(RubikCubeSide.UP.ordinal(), index);
+        this.hashSideColumn(RubikCubeSide.BACK.ordinal(),
+                            this.dimension - 1 - index);
+        this.hashSideColumn(RubikCubeSide.DOWN.ordinal(), index);
+        if (index == 0) {
+            this.hashSide(RubikCubeSide.LEFT.ordinal());
+        } else if (index == this.dimension - 1) {
+            this.hashSide(RubikCubeSide.RIGHT.ordinal());
+        }
+    }
+    /**
+     * Toggles in the Zobrist hash the keys of the facelets moved by a lateral
+     * column rotation. Calling it both before and after the rotation updates
+     * the hash to the new configuration.
+     * @param index Lateral column index.
+     */
+    private void hashLateralColumn(final int index) {
+        this.hashSideRow(RubikCubeSide.UP.ordinal(), this.dimension - 1 - index);
+        this.hashSideColumn(RubikCubeSide.RIGHT.ordinal(), index);
+        this.hashSideRow(RubikCubeSide.DOWN.ordinal(), index);
+        this.hashSideColumn(RubikCubeSide.LEFT.ordinal(),
+                            this.dimension - 1 - index);
+        if (index == 0) {
+            this.hashSide(RubikCubeSide.FRONT.ordinal());
+        } else if (index == this.dimension - 1) {
+            this.hashSide(RubikCubeSide.BACK.ordinal());
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package it.univr.rubikcube.model;
+
+/**
+ * Precomputed permutation of the facelets of a cube of dimension three,
+ * corresponding to one of the rotations of <tt>RubikCubeModel</tt>.
+ *
+ * Every row, column and lateral column rotation and every rotation of the
+ * entire cube of a 3x3x3 cube moves the 54 facelets in a fixed way. The
+ * permutations are computed once, by running the general rotation code on a
+ * cube whose facelets are labelled with their own index, and stored as the
+ * list of the facelets they change: after the rotation, the facelet at index
+ * <tt>getTargets()[k]</tt> holds the color previously found at index
+ * <tt>getSources()[k]</tt>.
+ * @author Alessandro Menti
+ */
+final class ThreeDimensionalMoveTable {
+    /**
+     * Dimension of the cubes the permutations apply to.
+     */
+    static final int DIMENSION = 3;
+    /**
+     * Zobrist keys of the facelets of a 3x3x3 cube, indexed by
+     * <tt>facelet index * number of colors + color ordinal</tt>.
+     */
+    static final long[] ZOBRIST_KEYS;
+    /**
+     * Number of facelets of a 3x3x3 cube.
+     */
+    private static final int FACELETS = RubikCubeSide.values().length
+        * DIMENSION * DIMENSION;
+    /**
+     * Permutations of the row rotations, indexed by
+     * <tt>row index * 2 + rotation ordinal</tt>.
+     */
+    private static final ThreeDimensionalMoveTable[] ROWS =
+        new ThreeDimensionalMoveTable[DIMENSION * 2];
+    /**
+     * Permutations of the column rotations, indexed by
+     * <tt>column index * 2 + rotation ordinal</tt>.
+     */
+    private static final ThreeDimensionalMoveTable[] COLUMNS =
+        new ThreeDimensionalMoveTable[DIMENSION * 2];
+    /**
+     * Permutations of the lateral column rotations, indexed by
+     * <tt>lateral column index * 2 + rotation ordinal</tt>.
+     */
+    private static final ThreeDimensionalMoveTable[] LATERAL_COLUMNS =
+        new ThreeDimensionalMoveTable[DIMENSION * 2];
+    /**
+     * Permutations of the rotations of the entire cube, indexed by rotation
+     * ordinal.
+     */
+    private static final ThreeDimensionalMoveTable[] CUBE =
+        new ThreeDimensionalMoveTable[CubeRotation.values().length];
+    static {
+        final int colors = RubikCubeFaceColor.values().length;
+        ZOBRIST_KEYS = new long[FACELETS * colors];
+        for (int i = 0; i < FACELETS; ++i) {
+            for (int c = 0; c < colors; ++c) {
+                ZOBRIST_KEYS[i * colors + c] = RubikCubeModel.zobristKey(i, c);
+            }
+        }
+        for (int i = 0; i < DIMENSION; ++i) {
+            for (RowRotation r : RowRotation.values()) {
+                final RubikCubeModel m = labelledCube();
+                m.rotateRowFacelets(i, r);
+                ROWS[i * 2 + r.ordinal()] = new ThreeDimensionalMoveTable(m);
+            }
+            for (ColumnRotation r : ColumnRotation.values()) {
+                final RubikCubeModel m = labelledCube();
+                m.rotateColumnFacelets(i, r);
+                COLUMNS[i * 2 + r.ordinal()] = new ThreeDimensionalMoveTable(m);
+            }
+            for (LateralColumnRotation r : LateralColumnRotation.values()) {
+                final RubikCubeModel m = labelledCube();
+                m.rotateLateralColumnFacelets(i, r);
+                LATERAL_COLUMNS[i * 2 + r.ordinal()] =
+                    new ThreeDimensionalMoveTable(m);
+            }
+        }
+        for (CubeRotation r : CubeRotation.values()) {
+            final RubikCubeModel m = labelledCube();
+            m.rotateCubeFacelets(r);
+            CUBE[r.ordinal()] = new ThreeDimensionalMoveTable(m);
+        }
+    }
+    /**
+     * Indexes of the facelets changed by the permutation.
+     */
+    private final int[] targets;
+    /**
+     * Indexes the changed facelets take their color from.
+     */
+    private final int[] sources;
+    /**
+     * Creates a new permutation from a labelled cube the corresponding
+     * rotation was applied to.
+     * @param m Labelled cube (see <tt>labelledCube</tt>).
+     */
+    private ThreeDimensionalMoveTable(final RubikCubeModel m) {
+        final byte[] f = m.getFacelets();
+        int changed = 0;
+        for (int i = 0; i < FACELETS; ++i) {
+            if (f[i] != i) {
+                ++changed;
+            }
+        }
+        this.targets = new int[changed];
+        this.sources = new int[changed];
+        int k = 0;
+        for (int i = 0; i < FACELETS; ++i) {
+            if (f[i] != i) {
+                this.targets[k] = i;
+                this.sources[k] = f[i];
+                ++k;
+            }
+        }
+    }
+    /**
+     * Creates a 3x3x3 cube in which every facelet is labelled with its own
+     * index instead of a color.
+     * @return Labelled cube.
+     */
+    private static RubikCubeModel labelledCube() {
+        final RubikCubeModel m = new RubikCubeModel(DIMENSION);
+        final byte[] f = m.getFacelets();
+        for (int i = 0; i < FACELETS; ++i) {
+            f[i] = (byte) i;
+        }
+        return m;
+    }
+    /**
+     * Gets the permutation of a row rotation.
+     * @param index Row index.
+     * @param rotation Direction of the rotation.
+     * @return Permutation of the rotation.
+     */
+    static ThreeDimensionalMoveTable ofRow(final int index,
+                                           final RowRotation rotation) {
+        return ROWS[index * 2 + rotation.ordinal()];
+    }
+    /**
+     * Gets the permutation of a column rotation.
+     * @param index Column index.
+     * @param rotation Direction of the rotation.
+     * @return Permutation of the rotation.
+     */
+    static ThreeDimensionalMoveTable ofColumn(final int index,
+                                              final ColumnRotation rotation) {
+        return COLUMNS[index * 2 + rotation.ordinal()];
+    }
+    /**
+     * Gets the permutation of a lateral column rotation.
+     * @param index Lateral column index.
+     * @param rotation Direction of the rotation.
+     * @return Permutation of the rotation.
+     */
+    static ThreeDimensionalMoveTable ofLateralColumn(
+            final int index, final LateralColumnRotation rotation) {
+        return LATERAL_COLUMNS[index * 2 + rotation.ordinal()];
+    }
+    /**
+     * Gets the permutation of a rotation of the entire cube.
+     * @param rotation Direction of the rotation.
+     * @return Permutation of the rotation.
+     */
+    static ThreeDimensionalMoveTable ofCube(final CubeRotation rotation) {
+        return CUBE[rotation.ordinal()];
+    }
+    /**
+     * Gets the indexes of the facelets changed by the permutation.
+     * @return Indexes of the changed facelets (not copied).
+     */
+    int[] getTargets() {
+        return this.targets;
+    }
+    /**
+     * Gets the indexes the changed facelets take their color from.
+     * @return Indexes of the source facelets (not copied), parallel to
+     * <tt>getTargets()</tt>.
+     */
+    int[] getSources() {
+        return this.sources;
+    }
+}
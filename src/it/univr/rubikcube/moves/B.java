@@ -1,23 +1,21 @@
 package it.univr.rubikcube.moves;
 
 import it.univr.rubikcube.model.LateralColumnRotation;
+import it.univr.rubikcube.model.OuterLayerMove;
 import it.univr.rubikcube.model.RubikCubeModel;
-import it.univr.rubikcube.model.ThreeDimensionalMove;
 
 /**
  * Quarter turn of the back face in the clockwise direction.
  * @author Alessandro Menti
  */
-public class B extends ThreeDimensionalMove {
+public class B extends OuterLayerMove {
     /**
      * Creates a new "B" move acting on the specified model.
      * @param m Rubik cube model.
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public B(final RubikCubeModel m)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m);
     }
     /**
@@ -26,11 +24,9 @@ public class B extends ThreeDimensionalMove {
      * @param reversed Specifies if the move is a reversed one (prime '
      * notation).
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public B(final RubikCubeModel m, final boolean reversed)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m, reversed);
     }
     /**
@@ -49,13 +45,17 @@ public class B extends ThreeDimensionalMove {
      */
     @Override
     public final void performInternal() {
-        this.getModel().rotateLateralColumn(2, LateralColumnRotation.LEFT);
+        final RubikCubeModel m = this.getModel();
+        m.rotateLateralColumn(m.getDimension() - 1,
+                              LateralColumnRotation.LEFT);
     }
     /**
      * Performs the reversed move.
      */
     @Override
     public final void reverseInternal() {
-        this.getModel().rotateLateralColumn(2, LateralColumnRotation.RIGHT);
+        final RubikCubeModel m = this.getModel();
+        m.rotateLateralColumn(m.getDimension() - 1,
+                              LateralColumnRotation.RIGHT);
     }
 }
@@ -1,23 +1,21 @@
 package it.univr.rubikcube.moves;
 
+import it.univr.rubikcube.model.OuterLayerMove;
 import it.univr.rubikcube.model.RowRotation;
 import it.univr.rubikcube.model.RubikCubeModel;
-import it.univr.rubikcube.model.ThreeDimensionalMove;
 
 /**
  * Quarter turn of the down face in the clockwise direction.
  * @author Alessandro Menti
  */
-public class D extends ThreeDimensionalMove {
+public class D extends OuterLayerMove {
     /**
      * Creates a new "D" move acting on the specified model.
      * @param m Rubik cube model.
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public D(final RubikCubeModel m)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m);
     }
     /**
@@ -26,11 +24,9 @@ public class D extends ThreeDimensionalMove {
      * @param reversed Specifies if the move is a reversed one (prime '
      * notation).
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public D(final RubikCubeModel m, final boolean reversed)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m, reversed);
     }
     /**
@@ -49,13 +45,15 @@ public class D extends ThreeDimensionalMove {
      */
     @Override
     public final void performInternal() {
-        this.getModel().rotateRow(2, RowRotation.ANTICLOCKWISE);
+        final RubikCubeModel m = this.getModel();
+        m.rotateRow(m.getDimension() - 1, RowRotation.ANTICLOCKWISE);
     }
     /**
      * Performs the reversed move.
      */
     @Override
     public final void reverseInternal() {
-        this.getModel().rotateRow(2, RowRotation.CLOCKWISE);
+        final RubikCubeModel m = this.getModel();
+        m.rotateRow(m.getDimension() - 1, RowRotation.CLOCKWISE);
     }
 }
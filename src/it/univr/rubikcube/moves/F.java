@@ -1,23 +1,21 @@
 package it.univr.rubikcube.moves;
 
 import it.univr.rubikcube.model.LateralColumnRotation;
+import it.univr.rubikcube.model.OuterLayerMove;
 import it.univr.rubikcube.model.RubikCubeModel;
-import it.univr.rubikcube.model.ThreeDimensionalMove;
 
 /**
  * Quarter turn of the front face in the clockwise direction.
  * @author Alessandro Menti
  */
-public class F extends ThreeDimensionalMove {
+public class F extends OuterLayerMove {
     /**
      * Creates a new "F" move acting on the specified model.
      * @param m Rubik cube model.
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public F(final RubikCubeModel m)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m);
     }
     /**
@@ -26,11 +24,9 @@ public class F extends ThreeDimensionalMove {
      * @param reversed Specifies if the move is a reversed one (prime '
      * notation).
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public F(final RubikCubeModel m, final boolean reversed)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m, reversed);
     }
     /**
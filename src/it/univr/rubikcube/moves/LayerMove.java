@@ -0,0 +1,153 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.ColumnRotation;
+import it.univr.rubikcube.model.LateralColumnRotation;
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RowRotation;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+
+/**
+ * Quarter turn of a single layer of a cube of any dimension, in the
+ * clockwise direction as seen from the side the layer is counted from.
+ *
+ * The layers are counted from zero, the outer one, so the layer
+ * <tt>depth</tt> of a side is written as the side letter preceded by
+ * <tt>depth + 1</tt> (e.g. <tt>3R</tt> is the third layer from the right
+ * face), or as the plain letter for the outer layer.
+ * @author Alessandro Menti
+ */
+public class LayerMove extends Move {
+    /**
+     * Side the layer is counted from.
+     */
+    private final RubikCubeSide side;
+    /**
+     * Depth of the layer (zero for the outer one).
+     */
+    private final int depth;
+    /**
+     * Creates a new layer move acting on the specified model.
+     * @param m Rubik cube model.
+     * @param s Side the layer is counted from.
+     * @param d Depth of the layer (zero for the outer one).
+     * @throws NullPointerException Thrown if <tt>m</tt> or <tt>s</tt> is
+     * <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if the depth is negative or not
+     * less than the dimension of the cube.
+     */
+    public LayerMove(final RubikCubeModel m, final RubikCubeSide s,
+                     final int d)
+            throws NullPointerException, IllegalArgumentException {
+        this(m, s, d, false);
+    }
+    /**
+     * Creates a new layer move acting on the specified model.
+     * @param m Rubik cube model.
+     * @param s Side the layer is counted from.
+     * @param d Depth of the layer (zero for the outer one).
+     * @param reversed Specifies if the move is a reversed one (prime '
+     * notation).
+     * @throws NullPointerException Thrown if <tt>m</tt> or <tt>s</tt> is
+     * <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if the depth is negative or not
+     * less than the dimension of the cube.
+     */
+    public LayerMove(final RubikCubeModel m, final RubikCubeSide s,
+                     final int d, final boolean reversed)
+            throws NullPointerException, IllegalArgumentException {
+        super(m, reversed);
+        if (s == null) {
+            throw new NullPointerException();
+        }
+        if (d < 0 || d >= m.getDimension()) {
+            throw new IllegalArgumentException("The depth of the layer must be"
+                                               + " between 0 and "
+                                               + (m.getDimension() - 1));
+        }
+        this.side = s;
+        this.depth = d;
+    }
+    /**
+     * Gets the side the layer is counted from.
+     * @return Side of the layer.
+     */
+    public final RubikCubeSide getSide() {
+        return this.side;
+    }
+    /**
+     * Gets the depth of the layer.
+     * @return Depth of the layer (zero for the outer one).
+     */
+    public final int getDepth() {
+        return this.depth;
+    }
+    /**
+     * Returns a string describing this move.
+     * @return The side letter, preceded by the number of the layer if it is
+     * not the outer one and followed by <tt>'</tt> if this move is
+     * reversed.
+     */
+    @Override
+    public final String toString() {
+        final StringBuilder b = new StringBuilder();
+        if (this.depth > 0) {
+            b.append(this.depth + 1);
+        }
+        b.append(this.side.name().charAt(0));
+        if (this.isReversed()) {
+            b.append('\'');
+        }
+        return b.toString();
+    }
+    /**
+     * Performs the move.
+     */
+    @Override
+    public final void performInternal() {
+        this.turn(false);
+    }
+    /**
+     * Performs the reversed move.
+     */
+    @Override
+    public final void reverseInternal() {
+        this.turn(true);
+    }
+    /**
+     * Turns the layer.
+     * @param inverse Specifies if the layer is turned anticlockwise.
+     */
+    private void turn(final boolean inverse) {
+        final RubikCubeModel m = this.getModel();
+        final int last = m.getDimension() - 1;
+        switch (this.side) {
+            case UP:
+                m.rotateRow(this.depth, inverse ? RowRotation.ANTICLOCKWISE
+                            : RowRotation.CLOCKWISE);
+                break;
+            case DOWN:
+                m.rotateRow(last - this.depth, inverse ? RowRotation.CLOCKWISE
+                            : RowRotation.ANTICLOCKWISE);
+                break;
+            case LEFT:
+                m.rotateColumn(this.depth, inverse ? ColumnRotation.TOP
+                               : ColumnRotation.BOTTOM);
+                break;
+            case RIGHT:
+                m.rotateColumn(last - this.depth, inverse
+                               ? ColumnRotation.BOTTOM : ColumnRotation.TOP);
+                break;
+            case FRONT:
+                m.rotateLateralColumn(this.depth, inverse
+                                      ? LateralColumnRotation.LEFT
+                                      : LateralColumnRotation.RIGHT);
+                break;
+            default:
+                m.rotateLateralColumn(last - this.depth, inverse
+                                      ? LateralColumnRotation.RIGHT
+                                      : LateralColumnRotation.LEFT);
+                break;
+        }
+    }
+}
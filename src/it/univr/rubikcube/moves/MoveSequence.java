@@ -0,0 +1,494 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sequence of turns (e.g. a scramble or a solution), storing each turn in a
+ * single byte.
+ *
+ * Sequences can be appended to like a <tt>StringBuilder</tt>; two sequences
+ * are equal if and only if they contain the same turns in the same order.
+ * The textual form lists the turns separated by spaces, using the notation
+ * of <tt>Move.toString()</tt> (e.g. <tt>R U' F</tt>).
+ *
+ * The face turns can also turn an inner layer of larger cubes, as a
+ * <tt>LayerMove</tt> does: the depth of the layers is kept in a second
+ * array, only allocated once an inner layer is turned, so that the
+ * sequences of the 3x3 strategies still take a byte per turn.
+ * @author Alessandro Menti
+ */
+public final class MoveSequence {
+    /**
+     * Turns, indexed by ordinal.
+     */
+    private static final Turn[] TURNS = Turn.values();
+    /**
+     * Default capacity of a new sequence.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * Sides turned by the face turns, indexed by half their ordinal.
+     */
+    private static final RubikCubeSide[] SIDES = {
+        RubikCubeSide.UP, RubikCubeSide.DOWN, RubikCubeSide.LEFT,
+        RubikCubeSide.RIGHT, RubikCubeSide.FRONT, RubikCubeSide.BACK,
+    };
+    /**
+     * Notation of a turn: the number of the layer, the turn and the
+     * optional half turn suffix.
+     */
+    private static final Pattern NOTATION =
+        Pattern.compile("(\\d*)(.*?)(2?)");
+    /**
+     * Ordinals of the turns of the sequence (only the first <tt>length</tt>
+     * bytes are used).
+     */
+    private byte[] turns;
+    /**
+     * Number of turns in the sequence.
+     */
+    private int length;
+    /**
+     * Depths of the layers turned by the turns of the sequence (zero for the
+     * outer one), or <tt>null</tt> if no inner layer is turned.
+     */
+    private int[] depths;
+    /**
+     * Creates a new empty sequence.
+     */
+    public MoveSequence() {
+        this(DEFAULT_CAPACITY);
+    }
+    /**
+     * Creates a new empty sequence able to hold a given number of turns
+     * before growing.
+     * @param capacity Initial capacity.
+     * @throws IllegalArgumentException Thrown if <tt>capacity</tt> is
+     * negative.
+     */
+    public MoveSequence(final int capacity) throws IllegalArgumentException {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity must not be"
+                                               + " negative");
+        }
+        this.turns = new byte[Math.max(capacity, 1)];
+        this.length = 0;
+    }
+    /**
+     * Creates a new sequence containing the given turns.
+     * @param t Turns of the sequence.
+     * @throws NullPointerException Thrown if <tt>t</tt> or any of its
+     * elements is <tt>null</tt>.
+     */
+    public MoveSequence(final Turn... t) throws NullPointerException {
+        this.turns = new byte[Math.max(t.length, DEFAULT_CAPACITY)];
+        this.length = 0;
+        for (Turn turn : t) {
+            this.append(turn);
+        }
+    }
+    /**
+     * Creates a new sequence equal to an existing one (copy constructor).
+     * @param s The existing sequence.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public MoveSequence(final MoveSequence s) throws NullPointerException {
+        this.turns = Arrays.copyOf(s.turns, Math.max(s.length, 1));
+        this.length = s.length;
+        if (s.depths != null) {
+            this.depths = Arrays.copyOf(s.depths, this.turns.length);
+        }
+    }
+    /**
+     * Gets the number of turns in the sequence.
+     * @return Length of the sequence.
+     */
+    public int length() {
+        return this.length;
+    }
+    /**
+     * Checks whether the sequence is empty.
+     * @return <tt>true</tt> if and only if the sequence has no turns.
+     */
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+    /**
+     * Gets a turn of the sequence.
+     * @param i Index of the turn.
+     * @return The <tt>i</tt>-th turn.
+     * @throws IndexOutOfBoundsException Thrown if <tt>i</tt> is negative or
+     * not less than the length of the sequence.
+     */
+    public Turn get(final int i) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= this.length) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", length: "
+                                                + this.length);
+        }
+        return TURNS[this.turns[i]];
+    }
+    /**
+     * Gets the depth of the layer turned by a turn of the sequence.
+     * @param i Index of the turn.
+     * @return Depth of the layer turned by the <tt>i</tt>-th turn, counted
+     * from the side of the turn (zero for the outer one and for the turns
+     * which are not face turns).
+     * @throws IndexOutOfBoundsException Thrown if <tt>i</tt> is negative or
+     * not less than the length of the sequence.
+     */
+    public int getDepth(final int i) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= this.length) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", length: "
+                                                + this.length);
+        }
+        return this.depth(i);
+    }
+    /**
+     * Checks whether the sequence turns an inner layer.
+     * @return <tt>true</tt> if and only if a turn of the sequence turns a
+     * layer other than the outer one.
+     */
+    public boolean hasInnerLayers() {
+        if (this.depths != null) {
+            for (int i = 0; i < this.length; ++i) {
+                if (this.depths[i] != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    /**
+     * Appends a turn to the sequence.
+     * @param t Turn to be appended.
+     * @return This sequence.
+     * @throws NullPointerException Thrown if <tt>t</tt> is <tt>null</tt>.
+     */
+    public MoveSequence append(final Turn t) throws NullPointerException {
+        return this.append(t, 0);
+    }
+    /**
+     * Appends a turn of a layer to the sequence.
+     * @param t Face turn giving the side and the direction of the turn.
+     * @param depth Depth of the layer, counted from the side of the turn
+     * (zero for the outer one).
+     * @return This sequence.
+     * @throws NullPointerException Thrown if <tt>t</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if <tt>depth</tt> is negative,
+     * or positive and <tt>t</tt> is not a face turn.
+     */
+    public MoveSequence append(final Turn t, final int depth)
+            throws NullPointerException, IllegalArgumentException {
+        if (depth != 0 && (depth < 0 || !t.isFaceTurn())) {
+            throw new IllegalArgumentException("Only face turns can turn an"
+                                               + " inner layer");
+        }
+        if (this.length == this.turns.length) {
+            this.grow(this.length * 2);
+        }
+        if (depth != 0 && this.depths == null) {
+            this.depths = new int[this.turns.length];
+        }
+        if (this.depths != null) {
+            this.depths[this.length] = depth;
+        }
+        this.turns[this.length++] = (byte) t.ordinal();
+        return this;
+    }
+    /**
+     * Appends all the turns of another sequence to this one.
+     * @param s Sequence to be appended.
+     * @return This sequence.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public MoveSequence append(final MoveSequence s)
+            throws NullPointerException {
+        final int n = s.length;
+        if (this.length + n > this.turns.length) {
+            this.grow(Math.max(this.turns.length * 2, this.length + n));
+        }
+        if (s.depths != null && this.depths == null) {
+            this.depths = new int[this.turns.length];
+        }
+        if (this.depths != null) {
+            if (s.depths != null) {
+                System.arraycopy(s.depths, 0, this.depths, this.length, n);
+            } else {
+                Arrays.fill(this.depths, this.length, this.length + n, 0);
+            }
+        }
+        System.arraycopy(s.turns, 0, this.turns, this.length, n);
+        this.length += n;
+        return this;
+    }
+    /**
+     * Grows the arrays of the sequence.
+     * @param capacity New capacity.
+     */
+    private void grow(final int capacity) {
+        this.turns = Arrays.copyOf(this.turns, capacity);
+        if (this.depths != null) {
+            this.depths = Arrays.copyOf(this.depths, capacity);
+        }
+    }
+    /**
+     * Gets the depth of the layer turned by a turn, without checking the
+     * index.
+     * @param i Index of the turn.
+     * @return Depth of the layer.
+     */
+    private int depth(final int i) {
+        return this.depths == null ? 0 : this.depths[i];
+    }
+    /**
+     * Removes the last turn of the sequence. Only the turn is returned: the
+     * depth of its layer, if needed, must be read with
+     * <tt>getDepth(length() - 1)</tt> before removing it.
+     * @return The removed turn.
+     * @throws IllegalStateException Thrown if the sequence is empty.
+     */
+    public Turn removeLast() throws IllegalStateException {
+        if (this.length == 0) {
+            throw new IllegalStateException("The sequence is empty");
+        }
+        return TURNS[this.turns[--this.length]];
+    }
+    /**
+     * Removes all the turns of the sequence.
+     */
+    public void clear() {
+        this.length = 0;
+    }
+    /**
+     * Releases the unused capacity of the sequence, so that it takes as little
+     * memory as possible while stored.
+     */
+    public void trimToSize() {
+        if (this.turns.length > this.length) {
+            this.grow(Math.max(this.length, 1));
+        }
+    }
+    /**
+     * Creates a new sequence made of the turns of this sequence followed by
+     * those of another one.
+     * @param s Sequence to be concatenated.
+     * @return The concatenation of the two sequences.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public MoveSequence concat(final MoveSequence s)
+            throws NullPointerException {
+        final MoveSequence r = new MoveSequence(this.length + s.length);
+        return r.append(this).append(s);
+    }
+    /**
+     * Creates the inverse of this sequence, i.e. the sequence undoing it: the
+     * inverses of the turns in reverse order.
+     * @return The inverse sequence.
+     */
+    public MoveSequence inverse() {
+        final MoveSequence r = new MoveSequence(this.length);
+        if (this.depths != null) {
+            r.depths = new int[r.turns.length];
+        }
+        for (int i = this.length - 1; i >= 0; --i) {
+            if (r.depths != null) {
+                r.depths[r.length] = this.depths[i];
+            }
+            // Every turn is paired with its inverse (see Turn).
+            r.turns[r.length++] = (byte) (this.turns[i] ^ 1);
+        }
+        return r;
+    }
+    /**
+     * Creates a simplified version of this sequence (see
+     * <tt>MoveSequenceSimplifier</tt>).
+     * @return A new sequence, not longer than this one, which leaves the cube
+     * in the same state.
+     */
+    public MoveSequence simplify() {
+        return MoveSequenceSimplifier.simplify(this);
+    }
+    /**
+     * Applies all the turns of the sequence to a cube.
+     * @param m Rubik cube model.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if the sequence contains slice
+     * turns and the dimension of the cube is not equal to three, or turns a
+     * layer the cube does not have.
+     */
+    public void applyTo(final RubikCubeModel m)
+            throws NullPointerException, IllegalArgumentException {
+        for (int i = 0; i < this.length; ++i) {
+            if (this.depth(i) == 0) {
+                TURNS[this.turns[i]].apply(m);
+            } else {
+                this.toLayerMove(i, m).perform();
+            }
+        }
+    }
+    /**
+     * Creates the move turning the inner layer of a turn of the sequence.
+     * @param i Index of the turn.
+     * @param m Rubik cube model the move will act on.
+     * @return Layer move equivalent to the turn.
+     * @throws IllegalArgumentException Thrown if the cube does not have the
+     * layer.
+     */
+    private LayerMove toLayerMove(final int i, final RubikCubeModel m)
+            throws IllegalArgumentException {
+        final Turn t = TURNS[this.turns[i]];
+        return new LayerMove(m, SIDES[t.ordinal() >> 1], this.depths[i],
+                             t.isReversed());
+    }
+    /**
+     * Creates the list of moves performing this sequence on a given cube.
+     * @param m Rubik cube model the moves will act on.
+     * @return List of moves equivalent to this sequence.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if the sequence contains slice
+     * turns and the dimension of the cube is not equal to three, or turns a
+     * layer the cube does not have.
+     */
+    public List<Move> toMoves(final RubikCubeModel m)
+            throws NullPointerException, IllegalArgumentException {
+        final List<Move> moves = new ArrayList<Move>(this.length);
+        for (int i = 0; i < this.length; ++i) {
+            if (this.depth(i) == 0) {
+                moves.add(TURNS[this.turns[i]].toMove(m));
+            } else {
+                moves.add(this.toLayerMove(i, m));
+            }
+        }
+        return moves;
+    }
+    /**
+     * Creates a sequence from a list of moves.
+     * @param moves List of moves.
+     * @return Sequence of the turns performed by the moves.
+     * @throws IllegalArgumentException Thrown if a move has no corresponding
+     * turn.
+     * @throws NullPointerException Thrown if <tt>moves</tt> or any of its
+     * elements is <tt>null</tt>.
+     */
+    public static MoveSequence fromMoves(final List<? extends Move> moves)
+            throws IllegalArgumentException, NullPointerException {
+        final MoveSequence s = new MoveSequence(moves.size());
+        for (Move m : moves) {
+            if (m instanceof LayerMove) {
+                final LayerMove l = (LayerMove) m;
+                final Turn t = TURNS[2 * Arrays.asList(SIDES)
+                                     .indexOf(l.getSide())];
+                s.append(l.isReversed() ? t.inverse() : t, l.getDepth());
+            } else {
+                s.append(Turn.fromMove(m));
+            }
+        }
+        return s;
+    }
+    /**
+     * Parses a sequence. The turns must be written in the notation of
+     * <tt>Move.toString()</tt> and separated by spaces and/or commas; a
+     * trailing <tt>2</tt> (e.g. <tt>R2</tt>) stands for two consecutive
+     * turns, and the face turns may be preceded by the number of the layer
+     * they turn, as in the notation of <tt>LayerMove</tt> (e.g.
+     * <tt>3R'</tt>).
+     * @param s String to be parsed.
+     * @return The parsed sequence.
+     * @throws IllegalArgumentException Thrown if the string contains an
+     * unknown move.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public static MoveSequence parse(final String s)
+            throws IllegalArgumentException, NullPointerException {
+        final MoveSequence r = new MoveSequence();
+        for (String token : s.trim().split("[\\s,]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            final Matcher m = NOTATION.matcher(token);
+            m.matches();
+            final Turn t = Turn.fromString(m.group(2));
+            int depth = 0;
+            if (!m.group(1).isEmpty()) {
+                try {
+                    depth = Integer.parseInt(m.group(1)) - 1;
+                } catch (NumberFormatException e) {
+                    depth = -1;
+                }
+                if (depth < 0 || depth > 0 && !t.isFaceTurn()) {
+                    throw new IllegalArgumentException("Unknown move: "
+                                                       + token);
+                }
+            }
+            r.append(t, depth);
+            if (!m.group(3).isEmpty()) {
+                r.append(t, depth);
+            }
+        }
+        return r;
+    }
+    /**
+     * Returns the turns of the sequence separated by spaces.
+     * @return Textual representation of the sequence.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(this.length * 3);
+        for (int i = 0; i < this.length; ++i) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            if (this.depth(i) != 0) {
+                sb.append(this.depth(i) + 1);
+            }
+            sb.append(TURNS[this.turns[i]]);
+        }
+        return sb.toString();
+    }
+    /**
+     * Checks whether this sequence is equal to another object.
+     * @param obj Object to be compared.
+     * @return <tt>true</tt> if and only if <tt>obj</tt> is a sequence having
+     * the same turns of the same layers in the same order.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MoveSequence)) {
+            return false;
+        }
+        final MoveSequence s = (MoveSequence) obj;
+        if (!Arrays.equals(this.turns, 0, this.length, s.turns, 0,
+                           s.length)) {
+            return false;
+        }
+        for (int i = 0; i < this.length; ++i) {
+            if (this.depth(i) != s.depth(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * Gets a hash code for the sequence.
+     * @return Hash code of the turns of the sequence.
+     */
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < this.length; ++i) {
+            h = 31 * h + this.turns[i] + 37 * this.depth(i);
+        }
+        return h;
+    }
+}
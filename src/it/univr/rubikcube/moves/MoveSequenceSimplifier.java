@@ -0,0 +1,284 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simplifier of move sequences, producing a shorter sequence which leaves the
+ * cube in the same state.
+ *
+ * The sequence is scanned once. Rotations of the entire cube are not
+ * performed: every following turn is relabelled to the turn acting on the
+ * same layer of the unrotated cube (e.g. after <tt>X</tt>, <tt>U</tt>
+ * becomes <tt>F</tt>), and the overall rotation, if any, is appended at the
+ * end in its shortest form. Consecutive turns on the same axis commute, so
+ * they are collected on a stack of blocks holding the number of quarter
+ * turns of each of the three layers modulo four: a block that adds up to
+ * nothing is dropped (cancelling e.g. <tt>R U U' R'</tt>), while the other
+ * ones are written in a canonical order (layers by increasing turn ordinal,
+ * <tt>X X X</tt> as <tt>X'</tt>, half turns as two clockwise quarter turns).
+ * The sequences turning inner layers of larger cubes are only simplified by
+ * merging consecutive turns of the same layer.
+ * @author Alessandro Menti
+ */
+public final class MoveSequenceSimplifier {
+    /**
+     * Turns, indexed by ordinal.
+     */
+    private static final Turn[] TURNS = Turn.values();
+    /**
+     * Number of axes (and of layers per axis).
+     */
+    private static final int AXES = 3;
+    /**
+     * Scrambles used to tell the turns apart while computing the relabelling
+     * tables.
+     */
+    private static final String[] PROBES = {
+        "R U' F2 L D' B M E' S R' B2 U D F' L2",
+        "F' L U2 B R' D M' S' E F2 U' R L' B D2",
+    };
+    /**
+     * Relabelling performed by every rotation of the entire cube, indexed by
+     * turn ordinal: <tt>RELABEL[r][t]</tt> is the ordinal of the turn
+     * <tt>t'</tt> such that performing <tt>r</tt> and then <tt>t</tt> is the
+     * same as performing <tt>t'</tt> and then <tt>r</tt> (<tt>null</tt> for
+     * the turns which are not rotations of the entire cube).
+     */
+    private static final int[][] RELABEL = new int[TURNS.length][];
+    /**
+     * Shortest sequence of rotations of the entire cube reaching every
+     * orientation, indexed by the key of the orientation (see
+     * <tt>orientationKey</tt>).
+     */
+    private static final Map<Integer, Turn[]> ORIENTATIONS =
+        new HashMap<Integer, Turn[]>();
+    static {
+        final RubikCubeModel[] probes = new RubikCubeModel[PROBES.length];
+        for (int i = 0; i < PROBES.length; ++i) {
+            probes[i] = new RubikCubeModel(AXES);
+            MoveSequence.parse(PROBES[i]).applyTo(probes[i]);
+        }
+        for (Turn r : TURNS) {
+            if (r.isCubeRotation()) {
+                RELABEL[r.ordinal()] = relabelling(r, probes);
+            }
+        }
+        // Breadth-first visit of the 24 orientations.
+        final ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+        final int[] identity = new int[TURNS.length];
+        for (int t = 0; t < identity.length; ++t) {
+            identity[t] = t;
+        }
+        ORIENTATIONS.put(orientationKey(identity), new Turn[0]);
+        queue.add(identity);
+        while (!queue.isEmpty()) {
+            final int[] map = queue.remove();
+            final Turn[] path = ORIENTATIONS.get(orientationKey(map));
+            for (Turn r : TURNS) {
+                if (!r.isCubeRotation()) {
+                    continue;
+                }
+                final int[] next = compose(map, RELABEL[r.ordinal()]);
+                final Integer key = orientationKey(next);
+                if (!ORIENTATIONS.containsKey(key)) {
+                    final Turn[] p = Arrays.copyOf(path, path.length + 1);
+                    p[path.length] = r;
+                    ORIENTATIONS.put(key, p);
+                    queue.add(next);
+                }
+            }
+        }
+    }
+    /**
+     * Creates a new simplifier (not allowed, all methods are static).
+     */
+    private MoveSequenceSimplifier() {
+        // Empty, nothing to do
+    }
+    /**
+     * Computes the relabelling performed by a rotation of the entire cube by
+     * trying every pair of turns on some scrambled cubes.
+     * @param r Rotation of the entire cube.
+     * @param probes Scrambled cubes.
+     * @return The relabelling, indexed by turn ordinal (see
+     * <tt>RELABEL</tt>).
+     * @throws IllegalStateException Thrown if a turn can not be relabelled.
+     */
+    private static int[] relabelling(final Turn r,
+                                     final RubikCubeModel[] probes)
+            throws IllegalStateException {
+        final int[] map = new int[TURNS.length];
+        for (Turn t : TURNS) {
+            map[t.ordinal()] = -1;
+            for (Turn u : TURNS) {
+                boolean same = true;
+                for (RubikCubeModel p : probes) {
+                    final RubikCubeModel a = new RubikCubeModel(p);
+                    r.apply(a);
+                    t.apply(a);
+                    final RubikCubeModel b = new RubikCubeModel(p);
+                    u.apply(b);
+                    r.apply(b);
+                    if (!a.equals(b)) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    map[t.ordinal()] = u.ordinal();
+                    break;
+                }
+            }
+            if (map[t.ordinal()] < 0) {
+                throw new IllegalStateException("Can not relabel " + t
+                                                + " after " + r);
+            }
+        }
+        return map;
+    }
+    /**
+     * Composes the relabelling of an orientation with that of a following
+     * rotation of the entire cube.
+     * @param map Relabelling of the current orientation.
+     * @param rotation Relabelling of the rotation.
+     * @return Relabelling of the orientation reached after the rotation.
+     */
+    private static int[] compose(final int[] map, final int[] rotation) {
+        final int[] r = new int[map.length];
+        for (int t = 0; t < map.length; ++t) {
+            r[t] = map[rotation[t]];
+        }
+        return r;
+    }
+    /**
+     * Gets a key identifying an orientation of the cube, i.e. the turns the
+     * up and front faces are relabelled to.
+     * @param map Relabelling of the orientation.
+     * @return Key of the orientation.
+     */
+    private static Integer orientationKey(final int[] map) {
+        return map[Turn.U.ordinal()] * TURNS.length + map[Turn.F.ordinal()];
+    }
+    /**
+     * Simplifies a sequence of turns.
+     * @param s Sequence to be simplified.
+     * @return A new sequence, not longer than <tt>s</tt>, which leaves the
+     * cube in the same state as <tt>s</tt>.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public static MoveSequence simplify(final MoveSequence s)
+            throws NullPointerException {
+        if (s.hasInnerLayers()) {
+            return simplifyLayers(s);
+        }
+        final int n = s.length();
+        // Blocks of commuting turns: axis and quarter turns of each layer.
+        final int[] axes = new int[n];
+        final int[] quarters = new int[n * AXES];
+        int blocks = 0;
+        int[] map = null;
+        for (int i = 0; i < n; ++i) {
+            Turn t = s.get(i);
+            if (t.isCubeRotation()) {
+                map = map == null ? RELABEL[t.ordinal()]
+                    : compose(map, RELABEL[t.ordinal()]);
+                continue;
+            }
+            if (map != null) {
+                t = TURNS[map[t.ordinal()]];
+            }
+            final int axis = t.getAxis();
+            if (blocks == 0 || axes[blocks - 1] != axis) {
+                axes[blocks] = axis;
+                Arrays.fill(quarters, blocks * AXES, (blocks + 1) * AXES, 0);
+                ++blocks;
+            }
+            final int base = (blocks - 1) * AXES;
+            final int layer = base + t.getLayer();
+            quarters[layer] = (quarters[layer] + (t.isReversed() ? 3 : 1)) & 3;
+            if (quarters[base] == 0 && quarters[base + 1] == 0
+                && quarters[base + 2] == 0) {
+                --blocks;
+            }
+        }
+        final MoveSequence r = new MoveSequence(n);
+        for (int b = 0; b < blocks; ++b) {
+            for (Turn t : TURNS) {
+                if (t.isReversed() || t.getAxis() != axes[b]) {
+                    continue;
+                }
+                switch (quarters[b * AXES + t.getLayer()]) {
+                    case 1:
+                        r.append(t);
+                        break;
+                    case 2:
+                        r.append(t).append(t);
+                        break;
+                    case 3:
+                        r.append(t.inverse());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (map != null) {
+            for (Turn t : ORIENTATIONS.get(orientationKey(map))) {
+                r.append(t);
+            }
+        }
+        return r;
+    }
+    /**
+     * Simplifies a sequence turning inner layers by merging consecutive turns
+     * of the same layer, dropping them if they add up to nothing.
+     * @param s Sequence to be simplified.
+     * @return A new sequence, not longer than <tt>s</tt>, which leaves the
+     * cube in the same state as <tt>s</tt>.
+     */
+    private static MoveSequence simplifyLayers(final MoveSequence s) {
+        final int n = s.length();
+        // Runs of turns of the same layer: clockwise turn, depth and
+        // quarter turns modulo four.
+        final Turn[] turns = new Turn[n];
+        final int[] depths = new int[n];
+        final int[] quarters = new int[n];
+        int runs = 0;
+        for (int i = 0; i < n; ++i) {
+            final Turn t = s.get(i);
+            final Turn c = t.isReversed() ? t.inverse() : t;
+            final int d = s.getDepth(i);
+            if (runs == 0 || turns[runs - 1] != c || depths[runs - 1] != d) {
+                turns[runs] = c;
+                depths[runs] = d;
+                quarters[runs] = 0;
+                ++runs;
+            }
+            quarters[runs - 1] = (quarters[runs - 1]
+                                  + (t.isReversed() ? 3 : 1)) & 3;
+            if (quarters[runs - 1] == 0) {
+                --runs;
+            }
+        }
+        final MoveSequence r = new MoveSequence(n);
+        for (int k = 0; k < runs; ++k) {
+            switch (quarters[k]) {
+                case 1:
+                    r.append(turns[k], depths[k]);
+                    break;
+                case 2:
+                    r.append(turns[k], depths[k]).append(turns[k], depths[k]);
+                    break;
+                default:
+                    r.append(turns[k].inverse(), depths[k]);
+                    break;
+            }
+        }
+        return r;
+    }
+}
@@ -1,23 +1,21 @@
 package it.univr.rubikcube.moves;
 
 import it.univr.rubikcube.model.ColumnRotation;
+import it.univr.rubikcube.model.OuterLayerMove;
 import it.univr.rubikcube.model.RubikCubeModel;
-import it.univr.rubikcube.model.ThreeDimensionalMove;
 
 /**
  * Quarter turn of the right face in the clockwise direction.
  * @author Alessandro Menti
  */
-public class R extends ThreeDimensionalMove {
+public class R extends OuterLayerMove {
     /**
      * Creates a new "R" move acting on the specified model.
      * @param m Rubik cube model.
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public R(final RubikCubeModel m)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m);
     }
     /**
@@ -26,11 +24,9 @@ public class R extends ThreeDimensionalMove {
      * @param reversed Specifies if the move is a reversed one (prime '
      * notation).
      * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
-     * @throws IllegalArgumentException Thrown if the dimension of the cube is
-     * not equal to three.
      */
     public R(final RubikCubeModel m, final boolean reversed)
-            throws NullPointerException, IllegalArgumentException {
+            throws NullPointerException {
         super(m, reversed);
     }
     /**
@@ -49,13 +45,15 @@ public class R extends ThreeDimensionalMove {
      */
     @Override
     public final void performInternal() {
-        this.getModel().rotateColumn(2, ColumnRotation.TOP);
+        final RubikCubeModel m = this.getModel();
+        m.rotateColumn(m.getDimension() - 1, ColumnRotation.TOP);
     }
     /**
      * Performs the reversed move.
      */
     @Override
     public final void reverseInternal() {
-        this.getModel().rotateColumn(2, ColumnRotation.BOTTOM);
+        final RubikCubeModel m = this.getModel();
+        m.rotateColumn(m.getDimension() - 1, ColumnRotation.BOTTOM);
     }
 }
@@ -0,0 +1,312 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.ColumnRotation;
+import it.univr.rubikcube.model.CubeRotation;
+import it.univr.rubikcube.model.LateralColumnRotation;
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RowRotation;
+import it.univr.rubikcube.model.RubikCubeModel;
+
+/**
+ * Moves of a cube, as shared constants which are not bound to any cube. The
+ * face turns and the rotations of the entire cube act on cubes of any
+ * dimension (a face turn turns the outer layer only), the slice turns on
+ * cubes of dimension three only.
+ *
+ * Unlike the <tt>Move</tt> subclasses, which must be created for every cube
+ * they act on, a turn receives the cube when it is applied, so applying any
+ * number of turns does not allocate memory. Turns are listed in pairs, each
+ * move being immediately followed by its inverse; the first six pairs are the
+ * face turns U, D, L, R, F, B, so that opposite faces differ only in the
+ * lowest bit of <tt>ordinal() / 2</tt>.
+ * @author Alessandro Menti
+ */
+public enum Turn {
+    /** Quarter turn of the up face in the clockwise direction. */
+    U("U", 0, RowRotation.CLOCKWISE),
+    /** Quarter turn of the up face in the anticlockwise direction. */
+    U_PRIME("U'", 0, RowRotation.ANTICLOCKWISE),
+    /** Quarter turn of the down face in the clockwise direction. */
+    D("D", 2, RowRotation.ANTICLOCKWISE),
+    /** Quarter turn of the down face in the anticlockwise direction. */
+    D_PRIME("D'", 2, RowRotation.CLOCKWISE),
+    /** Quarter turn of the left face in the clockwise direction. */
+    L("L", 0, ColumnRotation.BOTTOM),
+    /** Quarter turn of the left face in the anticlockwise direction. */
+    L_PRIME("L'", 0, ColumnRotation.TOP),
+    /** Quarter turn of the right face in the clockwise direction. */
+    R("R", 2, ColumnRotation.TOP),
+    /** Quarter turn of the right face in the anticlockwise direction. */
+    R_PRIME("R'", 2, ColumnRotation.BOTTOM),
+    /** Quarter turn of the front face in the clockwise direction. */
+    F("F", 0, LateralColumnRotation.RIGHT),
+    /** Quarter turn of the front face in the anticlockwise direction. */
+    F_PRIME("F'", 0, LateralColumnRotation.LEFT),
+    /** Quarter turn of the back face in the clockwise direction. */
+    B("B", 2, LateralColumnRotation.LEFT),
+    /** Quarter turn of the back face in the anticlockwise direction. */
+    B_PRIME("B'", 2, LateralColumnRotation.RIGHT),
+    /** Middle move. */
+    M("M", 1, ColumnRotation.BOTTOM),
+    /** Reversed middle move. */
+    M_PRIME("M'", 1, ColumnRotation.TOP),
+    /** Equator move. */
+    E("E", 1, RowRotation.ANTICLOCKWISE),
+    /** Reversed equator move. */
+    E_PRIME("E'", 1, RowRotation.CLOCKWISE),
+    /** Standing move. */
+    S("S", 1, LateralColumnRotation.RIGHT),
+    /** Reversed standing move. */
+    S_PRIME("S'", 1, LateralColumnRotation.LEFT),
+    /** Clockwise rotation of the cube around the X axis. */
+    X("X", CubeRotation.UPWISE),
+    /** Anticlockwise rotation of the cube around the X axis. */
+    X_PRIME("X'", CubeRotation.DOWNWISE),
+    /** Clockwise rotation of the cube around the Y axis. */
+    Y("Y", CubeRotation.CLOCKWISE),
+    /** Anticlockwise rotation of the cube around the Y axis. */
+    Y_PRIME("Y'", CubeRotation.ANTICLOCKWISE),
+    /** Clockwise rotation of the cube around the Z axis. */
+    Z("Z", CubeRotation.CLOCKWISE_FROM_FRONT),
+    /** Anticlockwise rotation of the cube around the Z axis. */
+    Z_PRIME("Z'", CubeRotation.ANTICLOCKWISE_FROM_FRONT);
+    /**
+     * Dimension of the cubes the slice turns act on.
+     */
+    private static final int DIMENSION = 3;
+    /**
+     * All the turns, indexed by ordinal (<tt>values()</tt> copies the array
+     * on every call).
+     */
+    private static final Turn[] VALUES = values();
+    /**
+     * Notation of the turn.
+     */
+    private final String notation;
+    /**
+     * Index of the rotated row/column/lateral column (unused for rotations
+     * of the entire cube).
+     */
+    private final int index;
+    /**
+     * Row rotation performed, or <tt>null</tt> if the turn is not a row
+     * rotation.
+     */
+    private final RowRotation rowRotation;
+    /**
+     * Column rotation performed, or <tt>null</tt> if the turn is not a
+     * column rotation.
+     */
+    private final ColumnRotation columnRotation;
+    /**
+     * Lateral column rotation performed, or <tt>null</tt> if the turn is not
+     * a lateral column rotation.
+     */
+    private final LateralColumnRotation lateralColumnRotation;
+    /**
+     * Rotation of the entire cube performed, or <tt>null</tt> if the turn is
+     * a layer rotation.
+     */
+    private final CubeRotation cubeRotation;
+    /**
+     * Creates a new turn rotating a row.
+     * @param n Notation of the turn.
+     * @param i Row index.
+     * @param r Direction of the rotation.
+     */
+    Turn(final String n, final int i, final RowRotation r) {
+        this(n, i, r, null, null, null);
+    }
+    /**
+     * Creates a new turn rotating a column.
+     * @param n Notation of the turn.
+     * @param i Column index.
+     * @param r Direction of the rotation.
+     */
+    Turn(final String n, final int i, final ColumnRotation r) {
+        this(n, i, null, r, null, null);
+    }
+    /**
+     * Creates a new turn rotating a lateral column.
+     * @param n Notation of the turn.
+     * @param i Lateral column index.
+     * @param r Direction of the rotation.
+     */
+    Turn(final String n, final int i, final LateralColumnRotation r) {
+        this(n, i, null, null, r, null);
+    }
+    /**
+     * Creates a new turn rotating the entire cube.
+     * @param n Notation of the turn.
+     * @param r Direction of the rotation.
+     */
+    Turn(final String n, final CubeRotation r) {
+        this(n, 0, null, null, null, r);
+    }
+    /**
+     * Creates a new turn.
+     * @param n Notation of the turn.
+     * @param i Index of the rotated layer.
+     * @param row Row rotation, if any.
+     * @param column Column rotation, if any.
+     * @param lateral Lateral column rotation, if any.
+     * @param cube Rotation of the entire cube, if any.
+     */
+    Turn(final String n, final int i, final RowRotation row,
+         final ColumnRotation column, final LateralColumnRotation lateral,
+         final CubeRotation cube) {
+        this.notation = n;
+        this.index = i;
+        this.rowRotation = row;
+        this.columnRotation = column;
+        this.lateralColumnRotation = lateral;
+        this.cubeRotation = cube;
+    }
+    /**
+     * Applies the turn to a cube.
+     * @param m Rubik cube model.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if this is a slice turn and
+     * the dimension of the cube is not equal to three.
+     */
+    public void apply(final RubikCubeModel m)
+            throws NullPointerException, IllegalArgumentException {
+        int i = this.index;
+        if (i == DIMENSION - 1) {
+            // Last layer of a face turn
+            i = m.getDimension() - 1;
+        } else if (i > 0 && m.getDimension() != DIMENSION) {
+            throw new IllegalArgumentException("The dimension of the cube must"
+                                               + " be equal to three");
+        }
+        if (this.rowRotation != null) {
+            m.rotateRow(i, this.rowRotation);
+        } else if (this.columnRotation != null) {
+            m.rotateColumn(i, this.columnRotation);
+        } else if (this.lateralColumnRotation != null) {
+            m.rotateLateralColumn(i, this.lateralColumnRotation);
+        } else {
+            m.rotateCube(this.cubeRotation);
+        }
+    }
+    /**
+     * Applies the inverse of the turn to a cube.
+     * @param m Rubik cube model.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if this is a slice turn and
+     * the dimension of the cube is not equal to three.
+     */
+    public void applyInverse(final RubikCubeModel m)
+            throws NullPointerException, IllegalArgumentException {
+        this.inverse().apply(m);
+    }
+    /**
+     * Gets the inverse of this turn.
+     * @return The turn undoing this one.
+     */
+    public Turn inverse() {
+        return VALUES[this.ordinal() ^ 1];
+    }
+    /**
+     * Checks if this turn is a reversed one (prime notation).
+     * @return <tt>true</tt> if and only if this turn is a reversed one.
+     */
+    public boolean isReversed() {
+        return (this.ordinal() & 1) != 0;
+    }
+    /**
+     * Checks if this turn rotates the entire cube (X, Y, Z) instead of a
+     * layer.
+     * @return <tt>true</tt> if and only if this turn is a rotation of the
+     * entire cube.
+     */
+    public boolean isCubeRotation() {
+        return this.cubeRotation != null;
+    }
+    /**
+     * Gets the axis of the layer rotated by this turn. Turns on the same axis
+     * commute.
+     * @return <tt>0</tt> for L, M, R, <tt>1</tt> for U, E, D, <tt>2</tt> for
+     * F, S, B and <tt>-1</tt> for the rotations of the entire cube.
+     */
+    int getAxis() {
+        if (this.columnRotation != null) {
+            return 0;
+        } else if (this.rowRotation != null) {
+            return 1;
+        } else if (this.lateralColumnRotation != null) {
+            return 2;
+        }
+        return -1;
+    }
+    /**
+     * Checks if this turn rotates a face, i.e. the outer layer of a side.
+     * @return <tt>true</tt> if and only if this turn is one of U, D, L, R,
+     * F, B or their inverses.
+     */
+    boolean isFaceTurn() {
+        return this.cubeRotation == null && this.index != 1;
+    }
+    /**
+     * Gets the index of the layer rotated by this turn along its axis.
+     * @return Index of the layer (<tt>0</tt> for L, U, F, <tt>1</tt> for M,
+     * E, S, <tt>2</tt> for R, D, B), meaningless for the rotations of the
+     * entire cube.
+     */
+    int getLayer() {
+        return this.index;
+    }
+    /**
+     * Creates a move performing this turn on a given cube, for use with the
+     * APIs based on <tt>Move</tt>.
+     * @param m Rubik cube model.
+     * @return A new move equivalent to this turn, acting on <tt>m</tt>.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     * @throws IllegalArgumentException Thrown if this is a slice turn and
+     * the dimension of the cube is not equal to three.
+     */
+    public Move toMove(final RubikCubeModel m)
+            throws NullPointerException, IllegalArgumentException {
+        return Move.convertFromString(m, this.notation);
+    }
+    /**
+     * Gets the turn corresponding to a move.
+     * @param m Move.
+     * @return The turn performing the same rotation as <tt>m</tt>.
+     * @throws IllegalArgumentException Thrown if <tt>m</tt> has no
+     * corresponding turn.
+     * @throws NullPointerException Thrown if <tt>m</tt> is <tt>null</tt>.
+     */
+    public static Turn fromMove(final Move m)
+            throws IllegalArgumentException, NullPointerException {
+        return fromString(m.toString());
+    }
+    /**
+     * Gets the turn having a given notation.
+     * @param s Notation of the turn (e.g. <tt>R'</tt>).
+     * @return The turn having notation <tt>s</tt>.
+     * @throws IllegalArgumentException Thrown if no turn has notation
+     * <tt>s</tt>.
+     * @throws NullPointerException Thrown if <tt>s</tt> is <tt>null</tt>.
+     */
+    public static Turn fromString(final String s)
+            throws IllegalArgumentException, NullPointerException {
+        if (s == null) {
+            throw new NullPointerException("The notation can not be null");
+        }
+        for (Turn t : VALUES) {
+            if (t.notation.equals(s)) {
+                return t;
+            }
+        }
+        throw new IllegalArgumentException("Unknown move: " + s);
+    }
+    /**
+     * Returns the notation of this turn.
+     * @return Notation of the turn (e.g. <tt>R'</tt>).
+     */
+    @Override
+    public String toString() {
+        return this.notation;
+    }
+}
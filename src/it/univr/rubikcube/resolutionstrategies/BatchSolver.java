@@ -0,0 +1,236 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Solver of large batches of cubes.
+ *
+ * Every line of the input holds a cube as a facelet string (see
+ * <tt>KociembaLib.mapOurCubeModelToKociemba</tt>); blank lines are skipped.
+ * The cubes are solved by a pool of worker threads, each with its own
+ * strategy instance (the tables of the strategies are shared), and every
+ * output line holds, separated by tabs, the input cube, its solution (or
+ * <tt>ERROR</tt> followed by the reason it could not be solved) and the
+ * time spent solving it in microseconds. The output lines are written in
+ * the order of the input as soon as they are available. At most
+ * <tt>capacity</tt> cubes are read ahead of the last line written, so the
+ * memory used does not depend on the size of the input.
+ * @author Alessandro Menti
+ */
+public final class BatchSolver {
+    /**
+     * Default number of cubes which can be read ahead of the output.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Number of facelets of a cube.
+     */
+    private static final int FACELETS = 54;
+    /**
+     * Marker of the end of the input in the queue of the pending cubes.
+     */
+    private static final Future<String> END =
+        CompletableFuture.completedFuture(null);
+    /**
+     * Number of worker threads.
+     */
+    private final int threads;
+    /**
+     * Maximum number of cubes read ahead of the output.
+     */
+    private final int capacity;
+    /**
+     * Factory of the strategies solving the cubes.
+     */
+    private final Function<RubikCubeModel, ResolutionStrategy> strategies;
+    /**
+     * Creates a new batch solver.
+     * @param t Number of worker threads.
+     * @param c Maximum number of cubes read ahead of the output.
+     * @param f Factory of the strategies solving the cubes, called once for
+     * every cube (it can set the budget of the strategy).
+     * @throws IllegalArgumentException Thrown if <tt>t</tt> or <tt>c</tt> is
+     * not positive.
+     * @throws NullPointerException Thrown if <tt>f</tt> is <tt>null</tt>.
+     */
+    public BatchSolver(final int t, final int c,
+                       final Function<RubikCubeModel, ResolutionStrategy> f)
+            throws IllegalArgumentException, NullPointerException {
+        if (t <= 0 || c <= 0) {
+            throw new IllegalArgumentException("The number of threads and the"
+                                               + " capacity must be positive");
+        }
+        if (f == null) {
+            throw new NullPointerException();
+        }
+        this.threads = t;
+        this.capacity = c;
+        this.strategies = f;
+    }
+    /**
+     * Solves all the cubes of an input.
+     * @param in Input, one facelet string per line.
+     * @param out Output, one line per cube (flushed at the end).
+     * @return Number of cubes read.
+     * @throws IOException Thrown if the input can not be read or the output
+     * can not be written.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    public long solve(final BufferedReader in, final Writer out)
+            throws IOException, InterruptedException {
+        final ExecutorService workers =
+            Executors.newFixedThreadPool(this.threads);
+        final ExecutorService writer = Executors.newSingleThreadExecutor();
+        final BlockingQueue<Future<String>> pending =
+            new ArrayBlockingQueue<>(this.capacity);
+        try {
+            final Future<Void> written =
+                writer.submit(() -> write(pending, out));
+            long n = 0;
+            try {
+                for (String line = in.readLine(); line != null;
+                     line = in.readLine()) {
+                    final String cube = line.trim();
+                    if (!cube.isEmpty()) {
+                        pending.put(workers.submit(
+                            () -> this.solveCube(cube)));
+                        ++n;
+                    }
+                }
+            } finally {
+                pending.put(END);
+            }
+            try {
+                written.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            return n;
+        } finally {
+            workers.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+    /**
+     * Solves a cube.
+     * @param cube Facelet string of the cube.
+     * @return Output line of the cube.
+     */
+    private String solveCube(final String cube) {
+        final long start = System.nanoTime();
+        String result;
+        try {
+            if (cube.length() != FACELETS) {
+                throw new IllegalArgumentException("A cube must have "
+                                                   + FACELETS + " facelets");
+            }
+            result = this.strategies.apply(
+                KociembaLib.mapKociembaModelToOurCube(cube))
+                .getNextMoveSequence().toString();
+        } catch (NoSolutionException | TimeoutException
+                 | RuntimeException e) {
+            result = "ERROR " + e.getMessage();
+        }
+        return cube + '\t' + result + '\t'
+            + (System.nanoTime() - start) / 1000;
+    }
+    /**
+     * Writes the output lines in the order of the input, flushing them
+     * whenever the next one is not ready yet. After an error,
+     * the remaining lines are discarded, so that the input is never blocked
+     * by a full queue.
+     * @param pending Output lines being computed, in the order of the input,
+     * followed by <tt>END</tt>.
+     * @param out Output.
+     * @return Nothing.
+     * @throws Exception Thrown if the output can not be written
+     * (<tt>IOException</tt>), if a worker failed
+     * (<tt>ExecutionException</tt>) or if the thread is interrupted.
+     */
+    private static Void write(final BlockingQueue<Future<String>> pending,
+                              final Writer out) throws Exception {
+        Exception error = null;
+        for (Future<String> f = pending.take(); f != END;
+             f = pending.take()) {
+            try {
+                final String line = f.get();
+                if (error == null) {
+                    out.write(line);
+                    out.write(System.lineSeparator());
+                    // Flush whenever the writer catches up with the
+                    // workers, so that every line is seen as soon as it is
+                    // solved without a flush per line.
+                    final Future<String> next = pending.peek();
+                    if (next == null || !next.isDone()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | ExecutionException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        out.flush();
+        return null;
+    }
+    /**
+     * Solves the cubes of a file with Kociemba's two-phase algorithm.
+     * @param args Input file, output file (<tt>-</tt> for the standard input
+     * or output) and, optionally, number of worker threads (by default, the
+     * number of processors).
+     * @throws IOException Thrown if the input can not be read or the output
+     * can not be written.
+     * @throws InterruptedException Thrown if the thread is interrupted.
+     */
+    public static void main(final String[] args)
+            throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BatchSolver input output [threads]");
+            System.exit(1);
+        }
+        final int t = args.length > 2 ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+        try (BufferedReader in = "-".equals(args[0])
+                 ? new BufferedReader(new InputStreamReader(System.in,
+                                          StandardCharsets.US_ASCII))
+                 : Files.newBufferedReader(Paths.get(args[0]),
+                                           StandardCharsets.US_ASCII);
+             Writer out = "-".equals(args[1])
+                 ? new BufferedWriter(new OutputStreamWriter(System.out,
+                                          StandardCharsets.US_ASCII))
+                 : Files.newBufferedWriter(Paths.get(args[1]),
+                                           StandardCharsets.US_ASCII)) {
+            // Load the tables first, so that they are not part of the time
+            // spent solving the first cubes.
+            TableWarmUp.kociemba().join();
+            new BatchSolver(t, DEFAULT_CAPACITY, KociembaLib::new)
+                .solve(in, out);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.moves.MoveSequence;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resolution strategy answering from a <tt>SolutionCache</tt> whenever
+ * possible, and asking another strategy otherwise.
+ *
+ * Only the sequences solving the cube are cached, so strategies solving a
+ * cube in several phases are asked every time. The budget of this strategy
+ * is passed to the other one before every search.
+ * @author Alessandro Menti
+ */
+public class CachingStrategy extends ResolutionStrategy {
+    /**
+     * Strategy searching the solutions not found in the cache.
+     */
+    private final ResolutionStrategy strategy;
+    /**
+     * Cache of the solutions.
+     */
+    private final SolutionCache cache;
+    /**
+     * Creates a new caching strategy.
+     * @param s Strategy searching the solutions not found in the cache (the
+     * model of this strategy is the model of <tt>s</tt>).
+     * @param c Cache of the solutions, possibly shared with other
+     * strategies.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * not equal to three, if the cube has not nine faces per color, if there
+     * isn't a single facelet per color.
+     * @throws NullPointerException Thrown if <tt>s</tt> or <tt>c</tt> is
+     * <tt>null</tt>.
+     */
+    public CachingStrategy(final ResolutionStrategy s, final SolutionCache c)
+            throws IllegalArgumentException, NullPointerException {
+        super(s.getModel());
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (s.getModel().getDimension() != 3) {
+            throw new IllegalArgumentException("The dimension of the cube must"
+                                               + " be equal to three");
+        }
+        if (!RubikCubeModel.isWithSaneColors(s.getModel())) {
+            throw new IllegalArgumentException("The cube has not sane colors");
+        }
+        this.strategy = s;
+        this.cache = c;
+    }
+    /**
+     * Gets a list of next moves.
+     * @return List of next moves.
+     * @throws NoSolutionException Thrown in case the strategy does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the strategy exhausts its
+     * search budget or was interrupted.
+     */
+    @Override
+    public final List<Move> getNextMoves() throws NoSolutionException,
+            TimeoutException {
+        return this.getNextMoveSequence().toMoves(this.getModel());
+    }
+    /**
+     * Gets the sequence of next moves, from the cache if possible.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the strategy does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the strategy exhausts its
+     * search budget or was interrupted.
+     */
+    @Override
+    public final MoveSequence getNextMoveSequence()
+            throws NoSolutionException, TimeoutException {
+        this.strategy.setBudget(this.getBudget());
+        return this.cache.solve(this.strategy);
+    }
+    /**
+     * Gets the readiness of the tables of the other strategy.
+     * @return Future completed when the tables are ready.
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+        return this.strategy.getReadiness();
+    }
+    /**
+     * Gets the name of this method.
+     * @return Name of the other strategy, marked as cached.
+     */
+    @Override
+    public final String toString() {
+        return this.strategy.toString() + " (cached)";
+    }
+    /**
+     * Gets a textual description of this method.
+     * @return Description of the other strategy.
+     */
+    @Override
+    public final String getDescription() {
+        return this.strategy.getDescription() + " Solutions are cached.";
+    }
+}
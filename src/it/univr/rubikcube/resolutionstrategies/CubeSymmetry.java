@@ -0,0 +1,235 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Symmetry of a 3x3 cube: one of the 24 rotations of the entire cube,
+ * possibly followed by the reflection swapping the left and right sides.
+ *
+ * A symmetry transforms a cube into another one which is solved by the
+ * same moves, up to a relabelling of the turns: the turns solving the
+ * transformed cube are mapped back by <tt>toCube</tt>, and the turns
+ * solving the cube are mapped to the transformed one by <tt>fromCube</tt>.
+ * The transformed cubes are recolored so that their centers have their
+ * standard colors, since the colors do not matter to the moves solving a
+ * cube.
+ * @author Alessandro Menti
+ */
+final class CubeSymmetry {
+    /**
+     * Number of symmetries of the cube.
+     */
+    static final int COUNT = 48;
+    /**
+     * Rotations of the entire cube generating all the others.
+     */
+    private static final Turn[] ROTATIONS = {Turn.X, Turn.Y, Turn.Z};
+    /**
+     * Turns of the cube equivalent to the turns of the cube rotated by each
+     * of <tt>ROTATIONS</tt>, indexed by ordinal: rotating the cube, turning
+     * it and rotating it back is the same as the turn of the cube.
+     */
+    private static final Turn[][] CONJUGATES = {
+        {
+            Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME, Turn.L, Turn.L_PRIME,
+            Turn.R, Turn.R_PRIME, Turn.D, Turn.D_PRIME, Turn.U, Turn.U_PRIME,
+            Turn.M, Turn.M_PRIME, Turn.S_PRIME, Turn.S, Turn.E, Turn.E_PRIME,
+            Turn.X, Turn.X_PRIME, Turn.Z, Turn.Z_PRIME, Turn.Y_PRIME, Turn.Y,
+        },
+        {
+            Turn.U, Turn.U_PRIME, Turn.D, Turn.D_PRIME, Turn.F, Turn.F_PRIME,
+            Turn.B, Turn.B_PRIME, Turn.R, Turn.R_PRIME, Turn.L, Turn.L_PRIME,
+            Turn.S, Turn.S_PRIME, Turn.E, Turn.E_PRIME, Turn.M_PRIME, Turn.M,
+            Turn.Z_PRIME, Turn.Z, Turn.Y, Turn.Y_PRIME, Turn.X, Turn.X_PRIME,
+        },
+        {
+            Turn.L, Turn.L_PRIME, Turn.R, Turn.R_PRIME, Turn.D, Turn.D_PRIME,
+            Turn.U, Turn.U_PRIME, Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME,
+            Turn.E, Turn.E_PRIME, Turn.M_PRIME, Turn.M, Turn.S, Turn.S_PRIME,
+            Turn.Y, Turn.Y_PRIME, Turn.X_PRIME, Turn.X, Turn.Z, Turn.Z_PRIME,
+        },
+    };
+    /**
+     * Turns of the cube equivalent to the turns of its mirror image,
+     * indexed by ordinal (the reflection is its own inverse).
+     */
+    private static final Turn[] MIRRORS = {
+        Turn.U_PRIME, Turn.U, Turn.D_PRIME, Turn.D, Turn.R_PRIME, Turn.R,
+        Turn.L_PRIME, Turn.L, Turn.F_PRIME, Turn.F, Turn.B_PRIME, Turn.B,
+        Turn.M, Turn.M_PRIME, Turn.E_PRIME, Turn.E, Turn.S_PRIME, Turn.S,
+        Turn.X, Turn.X_PRIME, Turn.Y_PRIME, Turn.Y, Turn.Z_PRIME, Turn.Z,
+    };
+    /**
+     * All the symmetries, the identity first.
+     */
+    private static final List<CubeSymmetry> ALL = generate();
+    /**
+     * Rotations of the entire cube applied first.
+     */
+    private final MoveSequence rotation;
+    /**
+     * Whether the rotated cube is then reflected.
+     */
+    private final boolean mirrored;
+    /**
+     * Turns of the cube equivalent to the turns of the transformed cube,
+     * indexed by ordinal.
+     */
+    private final Turn[] toCube;
+    /**
+     * Turns of the transformed cube equivalent to the turns of the cube,
+     * indexed by ordinal.
+     */
+    private final Turn[] fromCube;
+    /**
+     * Creates a new symmetry.
+     * @param r Rotations of the entire cube applied first.
+     * @param m Whether the rotated cube is then reflected.
+     * @param t Turns of the cube equivalent to the turns of the transformed
+     * cube, indexed by ordinal.
+     */
+    private CubeSymmetry(final MoveSequence r, final boolean m,
+                         final Turn[] t) {
+        this.rotation = r;
+        this.mirrored = m;
+        this.toCube = t;
+        this.fromCube = new Turn[t.length];
+        for (Turn turn : Turn.values()) {
+            this.fromCube[t[turn.ordinal()].ordinal()] = turn;
+        }
+    }
+    /**
+     * Generates the symmetries by breadth-first search over the rotations,
+     * two rotations being the same if they bring the centers to the same
+     * places.
+     * @return All the symmetries.
+     */
+    private static List<CubeSymmetry> generate() {
+        final List<CubeSymmetry> rotations = new ArrayList<>(COUNT / 2);
+        final Set<RubikCubeModel> seen = new HashSet<>();
+        rotations.add(new CubeSymmetry(new MoveSequence(), false,
+                                       Turn.values()));
+        seen.add(new RubikCubeModel(3));
+        for (int i = 0; i < rotations.size(); ++i) {
+            final CubeSymmetry s = rotations.get(i);
+            for (int r = 0; r < ROTATIONS.length; ++r) {
+                final MoveSequence rotation =
+                    new MoveSequence(s.rotation).append(ROTATIONS[r]);
+                final RubikCubeModel c = new RubikCubeModel(3);
+                rotation.applyTo(c);
+                if (seen.add(c)) {
+                    final Turn[] t = new Turn[s.toCube.length];
+                    for (int j = 0; j < t.length; ++j) {
+                        t[j] = s.toCube[CONJUGATES[r][j].ordinal()];
+                    }
+                    rotations.add(new CubeSymmetry(rotation, false, t));
+                }
+            }
+        }
+        final List<CubeSymmetry> all = new ArrayList<>(rotations);
+        for (CubeSymmetry s : rotations) {
+            final Turn[] t = new Turn[s.toCube.length];
+            for (int j = 0; j < t.length; ++j) {
+                t[j] = s.toCube[MIRRORS[j].ordinal()];
+            }
+            all.add(new CubeSymmetry(s.rotation, true, t));
+        }
+        return all;
+    }
+    /**
+     * Gets all the symmetries of the cube.
+     * @return The symmetries, the identity first.
+     */
+    static List<CubeSymmetry> all() {
+        return ALL;
+    }
+    /**
+     * Transforms a cube.
+     * @param cube Cube (of dimension three).
+     * @return The transformed cube, recolored so that its centers have
+     * their standard colors.
+     */
+    RubikCubeModel transform(final RubikCubeModel cube) {
+        RubikCubeModel c = new RubikCubeModel(cube);
+        this.rotation.applyTo(c);
+        if (this.mirrored) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            for (RubikCubeSide side : RubikCubeSide.values()) {
+                RubikCubeSide to = side;
+                if (side == RubikCubeSide.LEFT) {
+                    to = RubikCubeSide.RIGHT;
+                } else if (side == RubikCubeSide.RIGHT) {
+                    to = RubikCubeSide.LEFT;
+                }
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        m.setFace(to, i, 2 - j, c.getFace(side, i, j));
+                    }
+                }
+            }
+            c = m;
+        }
+        recolor(c);
+        return c;
+    }
+    /**
+     * Maps the turns solving the transformed cube to the cube.
+     * @param s Turns solving the transformed cube.
+     * @return The turns solving the cube.
+     */
+    MoveSequence toCube(final MoveSequence s) {
+        return map(s, this.toCube);
+    }
+    /**
+     * Maps the turns solving the cube to the transformed cube.
+     * @param s Turns solving the cube.
+     * @return The turns solving the transformed cube.
+     */
+    MoveSequence fromCube(final MoveSequence s) {
+        return map(s, this.fromCube);
+    }
+    /**
+     * Maps every turn of a sequence.
+     * @param s Sequence.
+     * @param turns Image of every turn, indexed by ordinal.
+     * @return The mapped sequence.
+     */
+    private static MoveSequence map(final MoveSequence s,
+                                    final Turn[] turns) {
+        final MoveSequence r = new MoveSequence(s.length());
+        for (int i = 0; i < s.length(); ++i) {
+            r.append(turns[s.get(i).ordinal()]);
+        }
+        return r;
+    }
+    /**
+     * Recolors a cube so that its centers have their standard colors.
+     * @param cube Cube (of dimension three), with a center of every color.
+     */
+    static void recolor(final RubikCubeModel cube) {
+        final Map<RubikCubeFaceColor, RubikCubeFaceColor> colors =
+            new EnumMap<>(RubikCubeFaceColor.class);
+        for (RubikCubeSide side : RubikCubeSide.values()) {
+            colors.put(cube.getFace(side, 1, 1), side.getStandardColor());
+        }
+        for (RubikCubeSide side : RubikCubeSide.values()) {
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    cube.setFace(side, i, j,
+                                 colors.get(cube.getFace(side, i, j)));
+                }
+            }
+        }
+    }
+}
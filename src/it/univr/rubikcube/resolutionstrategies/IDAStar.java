@@ -1,54 +1,134 @@
 package it.univr.rubikcube.resolutionstrategies;
 
 import it.univr.rubikcube.model.Move;
-import it.univr.rubikcube.model.RubikCubeCorner;
-import it.univr.rubikcube.model.RubikCubeCornerColor;
-import it.univr.rubikcube.model.RubikCubeEdgeColor;
 import it.univr.rubikcube.model.RubikCubeModel;
-import it.univr.rubikcube.model.RubikCubeModel3Edge;
-import it.univr.rubikcube.model.RubikCubeModelAxis;
-import it.univr.rubikcube.model.RubikCubeSide;
-import it.univr.rubikcube.moves.B;
-import it.univr.rubikcube.moves.D;
-import it.univr.rubikcube.moves.F;
-import it.univr.rubikcube.moves.L;
-import it.univr.rubikcube.moves.NullMove;
-import it.univr.rubikcube.moves.R;
-import it.univr.rubikcube.moves.U;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * IDA* resolution strategy inspired by the Uday Bondhugula solver.
+ *
+ * The search is a depth-first iterative deepening on the positions and
+ * orientations of the cubies: every move is performed in place and reversed
+ * on backtrack, so only the current path is kept in memory. The distance of
+ * every node is bounded from below by Korf's pattern databases (see
+ * <tt>PatternDatabase</tt>), so the solutions found are optimal in the
+ * quarter turn metric.
+ *
+ * When more than one thread is requested, every iteration expands the nodes
+ * up to depth <tt>SPLIT_DEPTH</tt> and searches the subtrees rooted there as
+ * tasks of a <tt>ForkJoinPool</tt>. The tasks share the threshold of the
+ * iteration and a flag stopping all of them as soon as one finds a solution;
+ * the threshold of the next iteration is the minimum of the ones they
+ * compute.
+ *
+ * A <tt>TranspositionTable</tt> can be attached to the strategy: every
+ * subtree searched without success leaves there the lower bound it proved
+ * for the distance of its root, which is then used instead of the pattern
+ * databases whenever it is higher, so that transpositions are not explored
+ * again. The part of the subtree which is explored depends on the last moves
+ * (see <tt>isRedundant</tt>), so these are part of the key of a state.
  * @author Alessandro Menti
  */
 public class IDAStar extends ResolutionStrategy {
     /**
-     * Open branches hash map.
+     * Maximum length of a solution (path) explored by the search.
      */
-    private Map<RubikCubeModel, IDAStarNode> openBranches;
+    private static final int MAX_DEPTH = 40;
     /**
-     * Closed branches hash map.
+     * Number of moves which can be applied at every node: the face turns,
+     * which are the first ones in <tt>Turn</tt>. The move with index
+     * <tt>i</tt> turns the face <tt>i / 2</tt> (U, D, L, R, F, B) and is
+     * reversed if and only if <tt>i</tt> is odd, so that opposite faces differ
+     * only in the lowest bit of the face index.
      */
-    private Map<RubikCubeModel, IDAStarNode> closedBranches;
+    private static final int NUM_MOVES = 12;
     /**
-     * Priority queue containing the nodes.
+     * Moves which can be applied at every node (see <tt>NUM_MOVES</tt>).
      */
-    private TreeSet<IDAStarNode> nodesToAnalyze;
+    private static final Turn[] MOVES = Turn.values();
     /**
-     * Creates a new instance of the IDA* method.
+     * Depth of the roots of the subtrees searched in parallel (about a
+     * thousand subtrees, enough to keep dozens of threads busy).
+     */
+    private static final int SPLIT_DEPTH = 3;
+    /**
+     * Smallest difference between the threshold and the <tt>f</tt> value of
+     * a node for the node to be looked up in and stored into the
+     * transposition table: smaller subtrees are cheaper to search again than
+     * to remember.
+     */
+    private static final int TABLE_MIN_SLACK = 1;
+    /**
+     * Keys of the corner codes, indexed by <tt>corner * 24 + code</tt>.
+     */
+    private static final long[] CORNER_KEYS = new long[8 * 24];
+    /**
+     * Keys of the edge codes, indexed by <tt>edge * 24 + code</tt>.
+     */
+    private static final long[] EDGE_KEYS = new long[12 * 24];
+    /**
+     * Keys of the last moves of the path, indexed by
+     * <tt>last move * 2 + (1 if it repeats the previous move)</tt>, with the
+     * last one used for the root.
+     */
+    private static final long[] HISTORY_KEYS = new long[NUM_MOVES * 2 + 1];
+    static {
+        long seed = 0;
+        for (long[] keys : new long[][] {CORNER_KEYS, EDGE_KEYS,
+                                         HISTORY_KEYS}) {
+            for (int i = 0; i < keys.length; ++i) {
+                // SplitMix64
+                seed += 0x9E3779B97F4A7C15L;
+                long z = seed;
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                keys[i] = z ^ (z >>> 31);
+            }
+        }
+    }
+    /**
+     * Number of threads searching the tree.
+     */
+    private final int threads;
+    /**
+     * Transposition table used by the search, if any.
+     */
+    private TranspositionTable transpositionTable;
+    /**
+     * Creates a new instance of the IDA* method, searching on a single
+     * thread.
      * @param m Rubik cube model.
      * @throws IllegalArgumentException Thrown if the dimension of the cube is
      * not equal to three, if the cube has not nine faces per color, if there
      * isn't a single facelet per color.
      */
     public IDAStar(final RubikCubeModel m) throws IllegalArgumentException {
+        this(m, 1);
+    }
+    /**
+     * Creates a new instance of the IDA* method.
+     * @param m Rubik cube model.
+     * @param t Number of threads searching the tree.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * not equal to three, if the cube has not nine faces per color, if there
+     * isn't a single facelet per color, or if <tt>t</tt> is not positive.
+     */
+    public IDAStar(final RubikCubeModel m, final int t)
+            throws IllegalArgumentException {
         super(m);
         if (m.getDimension() != 3) {
             throw new IllegalArgumentException("The dimension of the cube must"
@@ -57,154 +137,195 @@ public class IDAStar extends ResolutionStrategy {
         if (!RubikCubeModel.isWithSaneColors(m)) {
             throw new IllegalArgumentException("The cube has not sane colors");
         }
+        if (t <= 0) {
+            throw new IllegalArgumentException("The number of threads must be"
+                                               + " positive");
+        }
+        this.threads = t;
+    }
+    /**
+     * Gets the number of threads searching the tree.
+     * @return Number of threads.
+     */
+    public final int getThreads() {
+        return this.threads;
+    }
+    /**
+     * Gets the transposition table used by the search.
+     * @return The transposition table, or <tt>null</tt> if none is used.
+     */
+    public final TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+    /**
+     * Sets the transposition table used by every subsequent search. The same
+     * table can be shared by several strategies, even if they search at the
+     * same time.
+     * @param t The transposition table, or <tt>null</tt> to search without
+     * one.
+     */
+    public final void setTranspositionTable(final TranspositionTable t) {
+        this.transpositionTable = t;
     }
     /**
      * Gets a list of next moves.
      * @return List of next moves.
      * @throws NoSolutionException Thrown in case the algorithm does not find a
      * solution.
-     * @throws TimeoutException Thrown in case the algorithm fails to find a
-     * solution before the timeout (if any) or was interrupted.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or was interrupted.
      */
     @Override
     public final List<Move> getNextMoves() throws NoSolutionException,
             TimeoutException {
-        // Set the search threshold and min_exceed.
-        float threshold = 5;
-        float searchFactor = 1000;
-        while (true) {
-            // If it's the first time we're running the cycle or there are
-            // no more open branches, (re)initialize the search.
-            if (this.openBranches == null || this.openBranches.isEmpty()) {
-                if (this.openBranches != null) {
-                    // Increment the threshold.
-                    threshold += searchFactor;
-                }
-                // Initialize the IDA* "open" and "closed" branches and the priority queue.
-                // The comparator will keep the nodes sorted by f.
-                this.openBranches = new HashMap<RubikCubeModel, IDAStarNode>();
-                this.closedBranches = new HashMap<RubikCubeModel, IDAStarNode>();
-                this.nodesToAnalyze = new TreeSet<IDAStarNode>(new IDAStarComparator());
-                // Set the current cube configuration as the start node.
-                final IDAStarNode initialNode = new IDAStarNode();
-                initialNode.depth = 0;
-                initialNode.f = initialNode.heuristicCoefficient = getHeuristicCoefficient(this.getModel());
-                initialNode.cost = 0;
-                initialNode.move = new NullMove(this.getModel());
-                initialNode.parent = null;
-                this.openBranches.put(this.getModel(), initialNode);
-                this.nodesToAnalyze.add(initialNode);
-            }
-            // Sleep to allow the GUI to repaint and to check if the execution
-            // was interrupted.
-            try {
-                Thread.sleep(5L);
-            } catch (InterruptedException e) {
-                throw new TimeoutException("Execution interrupted");
-            }
-            // Remove the best node from the queue, then remove the branch from the
-            // "open" list and add it to the "closed" list.
-            final IDAStarNode bestNode = this.nodesToAnalyze.first();
-            this.nodesToAnalyze.remove(bestNode);
-            this.openBranches.remove(bestNode.move.getModel());
-            this.closedBranches.put(bestNode.move.getModel(), bestNode);
-            // If we've got a solution, reconstruct it and return.
-            if (RubikCubeModel.isSolved(bestNode.move.getModel())) {
-                final List<Move> solutionMoves = new ArrayList<Move>();
-                IDAStarNode currentNode = bestNode;
-                while (currentNode.parent != null) {
-                    solutionMoves.add(0, currentNode.move);
-                    currentNode = currentNode.parent;
-                }
-                // Force the search to restart next time
-                this.openBranches = null;
-                return solutionMoves;
-            }
-            // Generate all possible moves, making sure not to include already
-            // open/closed branches.
-            final IDAStarNode[] successors = new IDAStarNode[12];
-            for (int i = 0; i < 12; ++i) {
-                successors[i] = new IDAStarNode();
-                switch (i) {
-                    case 0:
-                        successors[i].move = new U(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 1:
-                        successors[i].move = new U(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    case 2:
-                        successors[i].move = new D(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 3:
-                        successors[i].move = new D(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    case 4:
-                        successors[i].move = new L(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 5:
-                        successors[i].move = new L(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    case 6:
-                        successors[i].move = new R(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 7:
-                        successors[i].move = new R(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    case 8:
-                        successors[i].move = new F(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 9:
-                        successors[i].move = new F(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    case 10:
-                        successors[i].move = new B(new RubikCubeModel(bestNode.move.getModel()));
-                        break;
-                    case 11:
-                        successors[i].move = new B(new RubikCubeModel(bestNode.move.getModel()), true);
-                        break;
-                    default:
-                        throw new IllegalStateException();
-                }
-                successors[i].move.perform();
-                successors[i].depth = bestNode.depth + 1;
-                successors[i].heuristicCoefficient = getHeuristicCoefficient(successors[i].move.getModel());
-                successors[i].cost = bestNode.cost + 1;
-                // Check if the node is already in the open/closed list.
-                if (this.openBranches.containsKey(successors[i].move.getModel())) {
-                    // If the path we're currently on has a total cost lower
-                    // than the already found path, update the "old" node
-                    final IDAStarNode oldNode = this.openBranches.get(successors[i].move.getModel());
-                    if (successors[i].cost < oldNode.cost) {
-                        oldNode.cost = successors[i].cost;
-                        oldNode.f = oldNode.cost + oldNode.heuristicCoefficient;
-                        oldNode.parent = bestNode;
-                        oldNode.depth = successors[i].depth;
-                    }
-                    continue;
-                }
-                if (this.closedBranches.containsKey(successors[i].move.getModel())) {
-                    final IDAStarNode oldNode = this.closedBranches.get(successors[i].move.getModel());
-                    if (successors[i].cost < oldNode.cost) {
-                        oldNode.cost = successors[i].cost;
-                        oldNode.f = oldNode.cost + 1;
-                        oldNode.parent = bestNode;
-                        oldNode.depth = successors[i].depth;
-                        // Update the successors using a DFS
-                        updateSuccessorsDFS(oldNode);
+        return this.getNextMoveSequence().toMoves(this.getModel());
+    }
+    /**
+     * Gets the sequence of next moves. If the centers are not in their
+     * standard position, the sequence starts with the rotations of the entire
+     * cube bringing them back.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the algorithm does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or was interrupted.
+     */
+    @Override
+    public final MoveSequence getNextMoveSequence()
+            throws NoSolutionException, TimeoutException {
+        // Work on a copy so that the original model remains untouched.
+        final RubikCubeModel cube = new RubikCubeModel(this.getModel());
+        final MoveSequence solution = orient(cube);
+        final Searcher root = searcher(cube, this.getBudget().start(),
+                                       this.transpositionTable);
+        final ForkJoinPool pool = this.threads > 1
+            ? new ForkJoinPool(this.threads) : null;
+        try {
+            int threshold = root.estimate();
+            while (true) {
+                final int length = pool == null
+                    ? root.iterate(threshold)
+                    : parallelIterate(pool, root, threshold);
+                if (length >= 0) {
+                    for (int i = 0; i < length; ++i) {
+                        solution.append(MOVES[root.path[i]]);
                     }
-                    continue;
+                    return solution;
                 }
-                // The node is new - update the search factor
-                successors[i].f = successors[i].cost + successors[i].heuristicCoefficient;
-                if (successors[i].f > threshold && successors[i].f - threshold < searchFactor) {
-                    searchFactor = successors[i].f - threshold;
-                } else {
-                    successors[i].parent = bestNode;
-                    bestNode.successors.add(successors[i]);
-                    this.openBranches.put(successors[i].move.getModel(), successors[i]);
-                    this.nodesToAnalyze.add(successors[i]);
+                if (root.nextThreshold > MAX_DEPTH) {
+                    throw new NoSolutionException("No solution exists within "
+                                                  + MAX_DEPTH + " moves");
                 }
+                threshold = root.nextThreshold;
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+    /**
+     * Creates the searcher of the root of the search.
+     * @param cube Cube whose centers are in their standard position.
+     * @param monitor Monitor of the search budget.
+     * @param table Transposition table, if any.
+     * @return The searcher of the root.
+     * @throws NoSolutionException Thrown if the cube can not be solved.
+     */
+    static Searcher searcher(final RubikCubeModel cube,
+                             final SearchBudget.Monitor monitor,
+                             final TranspositionTable table)
+            throws NoSolutionException {
+        final KociembaCubieCube cc = KociembaCubieCube.modelToCubieCube(cube);
+        if (!cc.isSolvable()) {
+            throw new NoSolutionException("The cube can not be solved");
+        }
+        final int[] corners = new int[PatternDatabase.CORNERS];
+        for (int i = 0; i < PatternDatabase.CORNERS; ++i) {
+            corners[cc.getCorner(i).ordinal()] =
+                i * 3 + cc.getCornerOrientation(i);
+        }
+        final int[] edges = new int[PatternDatabase.EDGES];
+        for (int i = 0; i < PatternDatabase.EDGES; ++i) {
+            edges[cc.getEdge(i).ordinal()] = i * 2 + cc.getEdgeOrientation(i);
+        }
+        return new Searcher(corners, edges, new int[MAX_DEPTH], monitor,
+                            table);
+    }
+    /**
+     * Performs an iteration of the search in parallel.
+     * @param pool Pool running the subtrees.
+     * @param root Searcher of the root (on return, its path holds the
+     * solution, if any, and its next threshold is that of the whole
+     * iteration).
+     * @param threshold Threshold of the iteration.
+     * @return The length of the solution if one was found, <tt>-1</tt>
+     * otherwise.
+     * @throws TimeoutException Thrown if the search budget was exhausted or
+     * the execution was interrupted.
+     */
+    static int parallelIterate(final ForkJoinPool pool, final Searcher root,
+                               final int threshold)
+            throws TimeoutException {
+        root.subtrees = new ArrayList<Searcher>();
+        final int length = root.iterate(threshold);
+        final List<Searcher> subtrees = root.subtrees;
+        root.subtrees = null;
+        // Report the nodes of the root against the whole search.
+        root.monitor.check();
+        if (length >= 0 || subtrees.isEmpty()) {
+            return length;
+        }
+        final Iteration it = new Iteration(threshold);
+        final List<Subtree> tasks = new ArrayList<Subtree>(subtrees.size());
+        for (Searcher s : subtrees) {
+            s.stop = it.stop;
+            tasks.add(new Subtree(s, it));
+        }
+        final ForkJoinTask<?> all = pool.submit(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
             }
+        });
+        try {
+            all.get();
+        } catch (InterruptedException e) {
+            it.stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Execution interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        if (it.error.get() != null) {
+            throw it.error.get();
+        }
+        root.nextThreshold = Math.min(root.nextThreshold,
+                                      it.nextThreshold.get());
+        final int[] found = it.solution.get();
+        if (found == null) {
+            return -1;
+        }
+        System.arraycopy(found, 0, root.path, 0, found.length);
+        return found.length;
+    }
+    /**
+     * Performs a move on the cubies.
+     * @param corners Codes of the corners.
+     * @param edges Codes of the edges.
+     * @param move Index of the move (the inverse of move <tt>i</tt> is
+     * <tt>i ^ 1</tt>).
+     */
+    private static void move(final int[] corners, final int[] edges,
+                             final int move) {
+        final int[] c = PatternDatabase.CORNER_MOVES[move];
+        for (int i = 0; i < corners.length; ++i) {
+            corners[i] = c[corners[i]];
+        }
+        final int[] e = PatternDatabase.EDGE_MOVES[move];
+        for (int i = 0; i < edges.length; ++i) {
+            edges[i] = e[edges[i]];
         }
     }
     /**
@@ -224,98 +345,314 @@ public class IDAStar extends ResolutionStrategy {
         return "IDA*-based resolution strategy.";
     }
     /**
-     * Gets the heuristic coefficient for a cube.
-     * @param c Cube.
-     * @return Heuristic coefficient for c.
+     * Gets the readiness of the tables of the strategy, starting to load
+     * them in the background if needed.
+     * @return Future completed when the tables are ready.
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+        return TableWarmUp.korf();
+    }
+    /**
+     * Depth-first search of a subtree, run by a single thread.
      */
-    private static float getHeuristicCoefficient(final RubikCubeModel c) {
-        float cornerStrength = 0;
-        float edgeStrength = 0;
-        if (RubikCubeModel.isSolved(c)) {
-            // Nothing to do
-            return 0;
+    static final class Searcher {
+        /**
+         * Codes of the corners of the current node.
+         */
+        private final int[] corners;
+        /**
+         * Codes of the edges of the current node.
+         */
+        private final int[] edges;
+        /**
+         * Indexes of the moves on the current path.
+         */
+        final int[] path;
+        /**
+         * Number of moves from the root of the whole search to the root of
+         * this subtree.
+         */
+        private final int rootDepth;
+        /**
+         * Monitor of the search budget.
+         */
+        final SearchBudget.Monitor monitor;
+        /**
+         * Transposition table, or <tt>null</tt> if none is used.
+         */
+        private final TranspositionTable table;
+        /**
+         * Smallest <tt>f</tt> value exceeding the current threshold.
+         */
+        int nextThreshold;
+        /**
+         * Flag stopping the search, or <tt>null</tt> if the search can not be
+         * stopped by other threads.
+         */
+        AtomicBoolean stop;
+        /**
+         * List receiving the searchers of the subtrees rooted at depth
+         * <tt>SPLIT_DEPTH</tt> instead of exploring them, or <tt>null</tt>
+         * to explore the whole subtree.
+         */
+        List<Searcher> subtrees;
+        /**
+         * Creates a new searcher.
+         * @param c Codes of the corners of the root of the subtree (copied).
+         * @param e Codes of the edges of the root of the subtree (copied).
+         * @param p Moves leading to the root of the subtree (copied).
+         * @param m Monitor of the search budget.
+         * @param t Transposition table, if any.
+         */
+        Searcher(final int[] c, final int[] e, final int[] p,
+                 final SearchBudget.Monitor m, final TranspositionTable t) {
+            this(c, e, p, 0, m, t);
+        }
+        /**
+         * Creates a new searcher.
+         * @param c Codes of the corners of the root of the subtree (copied).
+         * @param e Codes of the edges of the root of the subtree (copied).
+         * @param p Moves leading to the root of the subtree (copied).
+         * @param d Number of moves leading to the root of the subtree.
+         * @param m Monitor of the search budget.
+         * @param t Transposition table, if any.
+         */
+        private Searcher(final int[] c, final int[] e, final int[] p,
+                         final int d, final SearchBudget.Monitor m,
+                         final TranspositionTable t) {
+            this.corners = c.clone();
+            this.edges = e.clone();
+            this.path = Arrays.copyOf(p, MAX_DEPTH);
+            this.rootDepth = d;
+            this.monitor = m;
+            this.table = t;
+        }
+        /**
+         * Estimates the distance of the root of the subtree from the solved
+         * cube.
+         * @return Lower bound given by the pattern databases.
+         */
+        int estimate() {
+            return PatternDatabase.estimate(this.corners, this.edges);
+        }
+        /**
+         * Searches the subtree with a given threshold.
+         * @param threshold Threshold of the iteration.
+         * @return The length of the solution if one was found (the moves are
+         * stored in <tt>path</tt>), <tt>-1</tt> otherwise.
+         * @throws TimeoutException Thrown if the search budget was exhausted
+         * or the execution was interrupted.
+         */
+        int iterate(final int threshold) throws TimeoutException {
+            this.nextThreshold = Integer.MAX_VALUE;
+            return this.search(this.rootDepth, threshold);
         }
-        for (RubikCubeCorner cv : RubikCubeCorner.values()) {
-            // Get the corner
-            final RubikCubeCornerColor corner = c.getCorner(cv);
-            // Calculate the offset w.r.t. the standard configuration.
-            final RubikCubeCorner standardCorner = RubikCubeCorner.getStandardCorner(
-                    corner.getFirstColor(), corner.getSecondColor(), corner.getThirdColor());
-            final int distance = Math.abs(cv.getX() - standardCorner.getX())
-                    + Math.abs(cv.getY() - standardCorner.getY()) + Math.abs(cv.getZ() - standardCorner.getZ());
-            if (distance == 0) {
-                // If the side acting on the X/Y coordinates of the face we're
-                // considering has the standard color of that face, do nothing,
-                // else increase the corner strength by 2
-                if (cv.getFaceOnAxis(RubikCubeModelAxis.X).getStandardColor()
-                        != c.getCornerFacelet(RubikCubeModelAxis.X, cv)
-                        || cv.getFaceOnAxis(RubikCubeModelAxis.Y).getStandardColor()
-                        != c.getCornerFacelet(RubikCubeModelAxis.Y, cv)) {
-                    cornerStrength += 2;
+        /**
+         * Explores the subtree rooted at the current node, without exceeding
+         * the threshold.
+         * @param depth Number of moves already on the path.
+         * @param threshold Current IDA* threshold.
+         * @return The length of the solution if one was found (the moves are
+         * stored in <tt>path</tt>), <tt>-1</tt> otherwise.
+         * @throws TimeoutException Thrown if the search budget was exhausted
+         * or the execution was interrupted.
+         */
+        private int search(final int depth, final int threshold)
+                throws TimeoutException {
+            if (this.stop != null && this.stop.get()) {
+                return -1;
+            }
+            this.monitor.visit();
+            int h = PatternDatabase.estimate(this.corners, this.edges);
+            long key = 0;
+            final boolean useTable = this.table != null
+                && threshold - depth - h >= TABLE_MIN_SLACK;
+            if (useTable) {
+                key = this.key(depth);
+                h = Math.max(h, this.table.probe(key));
+            }
+            final int f = depth + h;
+            if (f > threshold) {
+                if (f < this.nextThreshold) {
+                    this.nextThreshold = f;
                 }
-            } else {
-                cornerStrength += distance / 2.0 + 2;
+                return -1;
             }
-        }
-        for (RubikCubeModel3Edge edge : RubikCubeModel3Edge.values()) {
-            // Get the edge distances between the edge we're considering
-            // and the edge having the same colors in the standard configuration
-            final RubikCubeEdgeColor actualEdgeColors = c.get3DEdge(edge);
-            final RubikCubeModel3Edge standardEdge = RubikCubeModel3Edge.getStandardEdgeFromColors(
-                    actualEdgeColors.getFirstColor(),
-                    actualEdgeColors.getSecondColor());
-            final int[] edgeDeltas = new int[3];
-            edgeDeltas[0] = Math.abs(edge.getX() - standardEdge.getX());
-            edgeDeltas[1] = Math.abs(edge.getY() - standardEdge.getY());
-            edgeDeltas[2] = Math.abs(edge.getZ() - standardEdge.getZ());
-            if (edgeDeltas[0] == 0 && edgeDeltas[1] == 0 && edgeDeltas[2] == 0)  {
-                final RubikCubeSide xSide = edge.getFaceOnAxis(RubikCubeModelAxis.X);
-                if (xSide != null) {
-                    if (xSide.getStandardColor() != c.get3DEdgeFacelet(RubikCubeModelAxis.X, edge)) {
-                        edgeStrength += 3;
-                    }
-                } else {
-                    if (edge.getFaceOnAxis(RubikCubeModelAxis.Y).getStandardColor()
-                            != c.get3DEdgeFacelet(RubikCubeModelAxis.Y, edge)) {
-                        edgeStrength += 3;
-                    }
+            if (h == 0) {
+                // Every cubie is in its solved position and orientation.
+                return depth;
+            }
+            if (depth == MAX_DEPTH) {
+                return -1;
+            }
+            if (this.subtrees != null && depth == SPLIT_DEPTH) {
+                this.subtrees.add(new Searcher(this.corners, this.edges,
+                                               this.path, depth,
+                                               this.monitor.fork(),
+                                               this.table));
+                return -1;
+            }
+            final int outer = this.nextThreshold;
+            this.nextThreshold = Integer.MAX_VALUE;
+            for (int i = 0; i < NUM_MOVES; ++i) {
+                if (this.isRedundant(i, depth)) {
+                    continue;
                 }
-            } else if (edgeDeltas[0] != 0 && edgeDeltas[1] != 0 && edgeDeltas[2] != 0) {
-                edgeStrength += 5;
-            } else {
-                if ((edgeDeltas[0] == 0 && (edge == RubikCubeModel3Edge.UL || edge == RubikCubeModel3Edge.UR || edge == RubikCubeModel3Edge.DL || edge == RubikCubeModel3Edge.DR))
-                        || (edgeDeltas[1] == 0 && (edge == RubikCubeModel3Edge.FL || edge == RubikCubeModel3Edge.FR || edge == RubikCubeModel3Edge.BL || edge == RubikCubeModel3Edge.BR)) 
-                        && (edgeDeltas[2] == 0 && (edge == RubikCubeModel3Edge.DB || edge == RubikCubeModel3Edge.DF || edge == RubikCubeModel3Edge.UB || edge == RubikCubeModel3Edge.UF))) {
-                    edgeStrength += edgeDeltas[1] + edgeDeltas[2] + 3;
-                } else {
-                    edgeStrength += 1;
+                this.path[depth] = i;
+                move(this.corners, this.edges, i);
+                final int length = this.search(depth + 1, threshold);
+                move(this.corners, this.edges, i ^ 1);
+                if (length >= 0) {
+                    return length;
                 }
             }
+            final int inner = this.nextThreshold;
+            this.nextThreshold = Math.min(outer, inner);
+            // Subtrees left to other threads or stopped early prove nothing.
+            if (useTable && inner != Integer.MAX_VALUE
+                && this.subtrees == null
+                && (this.stop == null || !this.stop.get())) {
+                // No solution is shorter than the smallest f value found.
+                this.table.store(key, threshold - depth, inner - depth);
+            }
+            return -1;
+        }
+        /**
+         * Computes the key of the current node in the transposition table.
+         * @param depth Number of moves on the path.
+         * @return Key of the configuration of the cubies and of the last
+         * moves of the path.
+         */
+        private long key(final int depth) {
+            long k;
+            if (depth == 0) {
+                k = HISTORY_KEYS[NUM_MOVES * 2];
+            } else {
+                final int last = this.path[depth - 1];
+                k = HISTORY_KEYS[last * 2 + (depth >= 2
+                                             && this.path[depth - 2] == last
+                                             ? 1 : 0)];
+            }
+            for (int i = 0; i < this.corners.length; ++i) {
+                k ^= CORNER_KEYS[i * 24 + this.corners[i]];
+            }
+            for (int i = 0; i < this.edges.length; ++i) {
+                k ^= EDGE_KEYS[i * 24 + this.edges[i]];
+            }
+            return k;
         }
-        if (cornerStrength >= edgeStrength) {
-            return cornerStrength / (float) 4;
-        } else {
-            return edgeStrength / (float) 4;
+        /**
+         * Checks whether a move can be skipped because the resulting sequence
+         * is equivalent to a shorter one or to one already explored.
+         * @param move Index of the candidate move.
+         * @param depth Number of moves already on the path.
+         * @return <tt>true</tt> if and only if the move can be skipped.
+         */
+        private boolean isRedundant(final int move, final int depth) {
+            if (depth == 0) {
+                return false;
+            }
+            final int last = this.path[depth - 1];
+            final int face = move / 2;
+            final int lastFace = last / 2;
+            if (face == lastFace) {
+                // X X' is a null move, X' X' is the same as X X and X X X is
+                // X'.
+                return move != last || (move & 1) != 0
+                    || (depth >= 2 && this.path[depth - 2] == move);
+            }
+            // Opposite faces commute: explore them in one order only.
+            return (face ^ 1) == lastFace && face < lastFace;
+        }
+    }
+    /**
+     * State shared by the tasks of a parallel iteration.
+     */
+    static final class Iteration {
+        /**
+         * Threshold of the iteration.
+         */
+        private final int threshold;
+        /**
+         * Flag set as soon as a task finds a solution or fails, stopping all
+         * the others.
+         */
+        final AtomicBoolean stop = new AtomicBoolean();
+        /**
+         * Moves of the first solution found.
+         */
+        final AtomicReference<int[]> solution =
+            new AtomicReference<int[]>();
+        /**
+         * Minimum of the next thresholds computed by the tasks.
+         */
+        private final AtomicInteger nextThreshold =
+            new AtomicInteger(Integer.MAX_VALUE);
+        /**
+         * First exhaustion of the search budget.
+         */
+        private final AtomicReference<TimeoutException> error =
+            new AtomicReference<TimeoutException>();
+        /**
+         * Creates the shared state of a new iteration.
+         * @param t Threshold of the iteration.
+         */
+        Iteration(final int t) {
+            this.threshold = t;
         }
     }
     /**
-     * Execute a DFS on <tt>n</tt> to update its successors.
-     * @param n IDA* node.
+     * Task searching a subtree of a parallel iteration.
      */
-    private static void updateSuccessorsDFS(final IDAStarNode n) {
-        final Iterator<IDAStarNode> i = n.successors.iterator();
-        while (i.hasNext()) {
-            final IDAStarNode s = i.next();
-            if (!s.parent.equals(n)) {
-                if (s.cost > n.cost + 1) {
-                    s.cost = n.cost + 1;
-                    s.f = s.heuristicCoefficient + s.cost;
-                    s.parent = n;
-                    s.depth = n.depth + 1;
-                    updateSuccessorsDFS(s);
+    static final class Subtree extends RecursiveAction {
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Searcher of the subtree.
+         */
+        private final transient Searcher searcher;
+        /**
+         * Shared state of the iteration.
+         */
+        private final transient Iteration iteration;
+        /**
+         * Creates a new task.
+         * @param s Searcher of the subtree.
+         * @param it Shared state of the iteration.
+         */
+        Subtree(final Searcher s, final Iteration it) {
+            this.searcher = s;
+            this.iteration = it;
+        }
+        /**
+         * Searches the subtree and publishes its results.
+         */
+        @Override
+        protected void compute() {
+            if (this.iteration.stop.get()) {
+                return;
+            }
+            try {
+                final int length =
+                    this.searcher.iterate(this.iteration.threshold);
+                // Most subtrees are smaller than the interval between two
+                // checks: report their nodes against the whole search.
+                this.searcher.monitor.check();
+                if (length >= 0) {
+                    if (this.iteration.solution.compareAndSet(null,
+                            Arrays.copyOf(this.searcher.path, length))) {
+                        this.iteration.stop.set(true);
+                    }
+                } else {
+                    this.iteration.nextThreshold.accumulateAndGet(
+                        this.searcher.nextThreshold, Math::min);
                 }
-            } else {
-                updateSuccessorsDFS(s);
+            } catch (TimeoutException e) {
+                this.iteration.error.compareAndSet(null, e);
+                this.iteration.stop.set(true);
             }
         }
     }
@@ -1,7 +1,27 @@
 package it.univr.rubikcube.resolutionstrategies;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntBinaryOperator;
+
 /**
  * Representation of the cube on the coordinate level in Kociemba's method.
+ *
+ * The move and pruning tables are generated once and saved in the directory
+ * of the tables (see <tt>PatternDatabase.getDirectory</tt>); every later run
+ * memory-maps the file read-only, so that processes on the same host share
+ * the pages of the tables. The file carries a version and a checksum: a
+ * stale or corrupt file is generated again. A move table is stored row by
+ * row, the coordinate after move <tt>m</tt> from coordinate <tt>c</tt>
+ * being the entry <tt>c * N_MOVE + m</tt> (see <tt>moveCoordinate</tt>).
+ * The tables are stored and generated by <tt>Tables</tt>.
  * @author Herbert Kociemba
  * @author Alessandro Menti
  */
@@ -66,6 +86,11 @@ public class KociembaCoordinateCube {
      * Number of possible edge flips (2^11).
      */
     private static final short N_FLIP = 2048;
+    /**
+     * Number of rows of the table merging the UR to UL and UB to DF
+     * coordinates (the coordinates of the edges not in the UD-slice).
+     */
+    static final short N_MERGE = 336;
     /**
      * Twist for a single move.
      */
@@ -117,381 +142,637 @@ public class KociembaCoordinateCube {
     // A move on the coordinate level
     // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
     void move(int m) {
-        this.twist = twistMove[this.twist][m];
-        this.flip = flipMove[this.flip][m];
+        this.twist = (short) moveCoordinate(twistMove, this.twist, m);
+        this.flip = (short) moveCoordinate(flipMove, this.flip, m);
         this.parity = parityMove[this.parity][m];
-        this.FRtoBR = FRtoBR_Move[this.FRtoBR][m];
-        this.URFtoDLF = URFtoDLF_Move[this.URFtoDLF][m];
-        this.URtoUL = URtoUL_Move[this.URtoUL][m];
-        this.UBtoDF = UBtoDF_Move[this.UBtoDF][m];
-        if (this.URtoUL < 336 && this.UBtoDF < 336)// updated only if UR,UF,UL,UB,DR,DF
+        this.FRtoBR = (short) moveCoordinate(FRtoBR_Move, this.FRtoBR, m);
+        this.URFtoDLF = (short) moveCoordinate(URFtoDLF_Move, this.URFtoDLF,
+                                               m);
+        this.URtoUL = (short) moveCoordinate(URtoUL_Move, this.URtoUL, m);
+        this.UBtoDF = (short) moveCoordinate(UBtoDF_Move, this.UBtoDF, m);
+        if (this.URtoUL < N_MERGE && this.UBtoDF < N_MERGE)// updated only if UR,UF,UL,UB,DR,DF
             // are not in UD-slice
-            this.URtoDF = MergeURtoULandUBtoDF[this.URtoUL][this.UBtoDF];
-    }
-
-    // ******************************************Phase 1 move
-    // tables*****************************************************
-
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the twists of the corners
-    // twist < 2187 in phase 2.
-    // twist = 0 in phase 2.
-    static short[][] twistMove = new short[N_TWIST][N_MOVE];
-    static {
-        final KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_TWIST; i++) {
-            a.setTwist(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.cornerMultiply(KociembaCubieCube.moveCube[j]);
-                    twistMove[i][3 * j + k] = a.getTwist();
-                }
-                a.cornerMultiply(KociembaCubieCube.moveCube[j]);// 4. faceturn restores
-            }
-        }
-    }
-
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the flips of the edges
-    // flip < 2048 in phase 1
-    // flip = 0 in phase 2.
-    static short[][] flipMove = new short[N_FLIP][N_MOVE];
-    static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_FLIP; i++) {
-            a.setFlip(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                    flipMove[i][3 * j + k] = a.getFlip();
-                }
-                a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                // a
-            }
-        }
+            this.URtoDF = MergeURtoULandUBtoDF.get(this.URtoUL * N_MERGE
+                                                   + this.UBtoDF);
     }
 
     // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
     // Parity of the corner permutation. This is the same as the parity for the
     // edge permutation of a valid cube.
     // parity has values 0 and 1
-    static short[][] parityMove = {
+    static final short[][] parityMove = {
         {1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 1},
         {0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0}};
 
-    // ***********************************Phase 1 and 2
-    // movetable********************************************************
-
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the four UD-slice edges FR, FL, Bl and BR
-    // FRtoBRMove < 11880 in phase 1
-    // FRtoBRMove < 24 in phase 2
-    // FRtoBRMove = 0 for solved cube
-    static short[][] FRtoBR_Move = new short[N_FRtoBR][N_MOVE];
+    /**
+     * Move table for the twists of the corners.
+     */
+    static final ShortBuffer twistMove;
+    /**
+     * Move table for the flips of the edges.
+     */
+    static final ShortBuffer flipMove;
+    /**
+     * Move table for the four UD-slice edges FR, FL, BL and BR.
+     */
+    static final ShortBuffer FRtoBR_Move;
+    /**
+     * Move table for the permutation of the URF to DLF corners.
+     */
+    static final ShortBuffer URFtoDLF_Move;
+    /**
+     * Move table for the permutation of the UR to DF edges (valid for the
+     * phase 2 moves only).
+     */
+    static final ShortBuffer URtoDF_Move;
+    /**
+     * Move table for the UR, UF and UL edges in phase 1.
+     */
+    static final ShortBuffer URtoUL_Move;
+    /**
+     * Move table for the UB, DR and DF edges in phase 1.
+     */
+    static final ShortBuffer UBtoDF_Move;
+    /**
+     * Table merging the UR to UL and UB to DF coordinates into the UR to DF
+     * one at the beginning of phase 2, indexed by
+     * <tt>URtoUL * N_MERGE + UBtoDF</tt>.
+     */
+    static final ShortBuffer MergeURtoULandUBtoDF;
+    /**
+     * Pruning table for the permutation of the corners and the UD-slice edges
+     * in phase 2.
+     */
+    static final ByteBuffer Slice_URFtoDLF_Parity_Prun;
+    /**
+     * Pruning table for the permutation of the edges in phase 2.
+     */
+    static final ByteBuffer Slice_URtoDF_Parity_Prun;
+    /**
+     * Pruning table for the twist of the corners and the position of the
+     * UD-slice edges in phase 1.
+     */
+    static final ByteBuffer Slice_Twist_Prun;
+    /**
+     * Pruning table for the flip of the edges and the position of the
+     * UD-slice edges in phase 1.
+     */
+    static final ByteBuffer Slice_Flip_Prun;
     static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_FRtoBR; i++) {
-            a.setFRtoBR(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                    FRtoBR_Move[i][3 * j + k] = a.getFRtoBR();
-                }
-                a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-            }
+        final ByteBuffer t = Tables.load(
+            PatternDatabase.getDirectory().resolve(Tables.FILE));
+        twistMove = nextTable(t, 2 * N_TWIST * N_MOVE).asShortBuffer();
+        flipMove = nextTable(t, 2 * N_FLIP * N_MOVE).asShortBuffer();
+        FRtoBR_Move = nextTable(t, 2 * N_FRtoBR * N_MOVE).asShortBuffer();
+        URFtoDLF_Move = nextTable(t, 2 * N_URFtoDLF * N_MOVE).asShortBuffer();
+        URtoDF_Move = nextTable(t, 2 * N_URtoDF * N_MOVE).asShortBuffer();
+        URtoUL_Move = nextTable(t, 2 * N_URtoUL * N_MOVE).asShortBuffer();
+        UBtoDF_Move = nextTable(t, 2 * N_UBtoDF * N_MOVE).asShortBuffer();
+        MergeURtoULandUBtoDF =
+            nextTable(t, 2 * N_MERGE * N_MERGE).asShortBuffer();
+        Slice_URFtoDLF_Parity_Prun =
+            nextTable(t, N_SLICE2 * N_URFtoDLF * N_PARITY / 2);
+        Slice_URtoDF_Parity_Prun =
+            nextTable(t, N_SLICE2 * N_URtoDF * N_PARITY / 2);
+        Slice_Twist_Prun = nextTable(t, N_SLICE1 * N_TWIST / 2 + 1);
+        Slice_Flip_Prun = nextTable(t, N_SLICE1 * N_FLIP / 2);
+    }
+    /**
+     * Loads (or generates) the tables, if not loaded yet.
+     */
+    static void load() {
+        // Empty: initializing the class loads the tables
+    }
+    /**
+     * Gets the coordinate after a move.
+     * @param table Move table of the coordinate.
+     * @param c Coordinate.
+     * @param m Index of the move.
+     * @return The coordinate after the move.
+     */
+    static int moveCoordinate(final ShortBuffer table, final int c,
+                              final int m) {
+        return table.get(c * N_MOVE + m);
+    }
+    /**
+     * Takes the next table from the buffer holding all of them.
+     * @param t Buffer of the tables, positioned at the start of the table
+     * (on return, positioned after it).
+     * @param size Size of the table in bytes.
+     * @return The table.
+     */
+    private static ByteBuffer nextTable(final ByteBuffer t, final int size) {
+        final ByteBuffer r = t.slice();
+        r.limit(size);
+        t.position(t.position() + size);
+        return r.slice();
+    }
+    /**
+     * Extract the pruning value for the IDA* algorithm from the lookup table.
+     * @param table Lookup table to be checked.
+     * @param index Index to be checked.
+     * @return The desired pruning value.
+     */
+    static byte getPruning(final ByteBuffer table, final int index) {
+        if ((index & 1) == 0) {
+            return (byte) (table.get(index / 2) & 0x0f);
         }
+        return (byte) ((table.get(index / 2) & 0xf0) >>> 4);
     }
+    /**
+     * Storage and generation of the tables.
+     */
+    static final class Tables {
+        /**
+         * Name of the file holding the tables.
+         */
+        static final String FILE = "kociemba.tables";
+        /**
+         * Identifier at the start of the file of the tables.
+         */
+        private static final int MAGIC = 0x4B544142;
+        /**
+         * Version of the file format, to be increased whenever the layout or
+         * the content of the tables change.
+         */
+        private static final int VERSION = 1;
+        /**
+         * Size in bytes of the tables.
+         */
+        private static final int SIZE = 2 * N_MOVE * (N_TWIST + N_FLIP
+            + N_FRtoBR + N_URFtoDLF + N_URtoDF + N_URtoUL + N_UBtoDF)
+            + 2 * N_MERGE * N_MERGE
+            + N_SLICE2 * N_URFtoDLF * N_PARITY / 2
+            + N_SLICE2 * N_URtoDF * N_PARITY / 2
+            + N_SLICE1 * N_TWIST / 2 + 1
+            + N_SLICE1 * N_FLIP / 2;
+        /**
+         * Format of the file of the tables.
+         */
+        private static final TableFile FORMAT =
+            new TableFile(MAGIC, VERSION, SIZE);
+        /**
+         * Moves expanding the entries of the phase 1 pruning tables (all).
+         */
+        private static final int[] PHASE1_MOVES = {
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17,
+        };
+        /**
+         * Moves expanding the entries of the phase 2 pruning tables (the
+         * turns of U and D and the half turns of the other faces).
+         */
+        private static final int[] PHASE2_MOVES = {
+            0, 1, 2, 4, 7, 9, 10, 11, 13, 16,
+        };
+        /**
+         * Atomic access to the bytes of the pruning tables being generated.
+         */
+        private static final VarHandle PRUNING_BYTE =
+            MethodHandles.arrayElementVarHandle(byte[].class);
+        /**
+         * Gets the tables, mapping them from a file or generating (and
+         * saving) them if the file is missing, stale or corrupt.
+         * @param file File of the tables.
+         * @return Buffer holding all the tables.
+         */
+        static ByteBuffer load(final Path file) {
+            return FORMAT.load(file, Tables::generate);
+        }
+        /**
+         * Reads the tables from a file, memory-mapping them.
+         * @param file File to be read.
+         * @return Buffer holding all the tables, or <tt>null</tt> if the file
+         * does not exist, has another version or is corrupt.
+         * @throws IOException Thrown if the file can not be read.
+         */
+        static ByteBuffer read(final Path file) throws IOException {
+            return FORMAT.read(file);
+        }
+        /**
+         * Writes the tables to a file.
+         * @param file File to be written.
+         * @param t Buffer holding all the tables.
+         * @throws IOException Thrown if the file can not be written.
+         */
+        static void write(final Path file, final ByteBuffer t)
+                throws IOException {
+            FORMAT.write(file, t);
+        }
+        /**
+         * Generates the tables using all the available processors.
+         * @return Buffer holding all the tables, in the order of the fields.
+         */
+        static ByteBuffer generate() {
+            return generate(Runtime.getRuntime().availableProcessors());
+        }
+        /**
+         * Generates the tables.
+         * @param threads Number of threads generating the pruning tables.
+         * @return Buffer holding all the tables, in the order of the fields.
+         */
+        static ByteBuffer generate(final int threads) {
+            // ******************************************Phase 1 move
+            // tables*****************************************************
 
-    // *******************************************Phase 1 and 2
-    // movetable************************************************
-
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for permutation of six corners. The positions of the DBL and
-    // DRB corners are determined by the parity.
-    // URFtoDLF < 20160 in phase 1
-    // URFtoDLF < 20160 in phase 2
-    // URFtoDLF = 0 for solved cube.
-    static short[][] URFtoDLF_Move = new short[N_URFtoDLF][N_MOVE];
-    static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_URFtoDLF; i++) {
-            a.setURFtoDLF(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.cornerMultiply(KociembaCubieCube.moveCube[j]);
-                    URFtoDLF_Move[i][3 * j + k] = a.getURFtoDLF();
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the twists of the corners
+            // twist < 2187 in phase 2.
+            // twist = 0 in phase 2.
+            final short[][] twistMove = new short[N_TWIST][N_MOVE];
+            {
+                final KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_TWIST; i++) {
+                    a.setTwist(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.cornerMultiply(KociembaCubieCube.moveCube[j]);
+                            twistMove[i][3 * j + k] = a.getTwist();
+                        }
+                        a.cornerMultiply(KociembaCubieCube.moveCube[j]);// 4. faceturn restores
+                    }
                 }
-                a.cornerMultiply(KociembaCubieCube.moveCube[j]);
             }
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the permutation of six U-face and D-face edges in phase2.
-    // The positions of the DL and DB edges are
-    // determined by the parity.
-    // URtoDF < 665280 in phase 1
-    // URtoDF < 20160 in phase 2
-    // URtoDF = 0 for solved cube.
-    static short[][] URtoDF_Move = new short[N_URtoDF][N_MOVE];
-    static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_URtoDF; i++) {
-            a.setURtoDF(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                    URtoDF_Move[i][3 * j + k] = (short) a.getURtoDF();
-                    // Table values are only valid for phase 2 moves!
-                    // For phase 1 moves, casting to short is not possible.
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the flips of the edges
+            // flip < 2048 in phase 1
+            // flip = 0 in phase 2.
+            final short[][] flipMove = new short[N_FLIP][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_FLIP; i++) {
+                    a.setFlip(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                            flipMove[i][3 * j + k] = a.getFlip();
+                        }
+                        a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                        // a
+                    }
                 }
-                a.edgeMultiply(KociembaCubieCube.moveCube[j]);
             }
-        }
-    }
 
-    // **************************helper move tables to compute URtoDF for the
-    // beginning of phase2************************
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the three edges UR,UF and UL in phase1.
-    static short[][] URtoUL_Move = new short[N_URtoUL][N_MOVE];
-    static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_URtoUL; i++) {
-            a.setURtoUL(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                    URtoUL_Move[i][3 * j + k] = a.getURtoUL();
+            // ***********************************Phase 1 and 2
+            // movetable********************************************************
+
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the four UD-slice edges FR, FL, Bl and BR
+            // FRtoBRMove < 11880 in phase 1
+            // FRtoBRMove < 24 in phase 2
+            // FRtoBRMove = 0 for solved cube
+            final short[][] FRtoBR_Move = new short[N_FRtoBR][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_FRtoBR; i++) {
+                    a.setFRtoBR(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                            FRtoBR_Move[i][3 * j + k] = a.getFRtoBR();
+                        }
+                        a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                    }
                 }
-                a.edgeMultiply(KociembaCubieCube.moveCube[j]);
             }
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Move table for the three edges UB,DR and DF in phase1.
-    static short[][] UBtoDF_Move = new short[N_UBtoDF][N_MOVE];
-    static {
-        KociembaCubieCube a = new KociembaCubieCube();
-        for (short i = 0; i < N_UBtoDF; i++) {
-            a.setUBtoDF(i);
-            for (int j = 0; j < 6; j++) {
-                for (int k = 0; k < 3; k++) {
-                    a.edgeMultiply(KociembaCubieCube.moveCube[j]);
-                    UBtoDF_Move[i][3 * j + k] = a.getUBtoDF();
+            // *******************************************Phase 1 and 2
+            // movetable************************************************
+
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for permutation of six corners. The positions of the DBL and
+            // DRB corners are determined by the parity.
+            // URFtoDLF < 20160 in phase 1
+            // URFtoDLF < 20160 in phase 2
+            // URFtoDLF = 0 for solved cube.
+            final short[][] URFtoDLF_Move = new short[N_URFtoDLF][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_URFtoDLF; i++) {
+                    a.setURFtoDLF(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.cornerMultiply(KociembaCubieCube.moveCube[j]);
+                            URFtoDLF_Move[i][3 * j + k] = a.getURFtoDLF();
+                        }
+                        a.cornerMultiply(KociembaCubieCube.moveCube[j]);
+                    }
                 }
-                a.edgeMultiply(KociembaCubieCube.moveCube[j]);
             }
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Table to merge the coordinates of the UR,UF,UL and UB,DR,DF edges at the
-    // beginning of phase2
-    static short[][] MergeURtoULandUBtoDF = new short[336][336];
-    static {
-        // for i, j <336 the six edges UR,UF,UL,UB,DR,DF are not in the
-        // UD-slice and the index is <20160
-        for (short uRtoUL = 0; uRtoUL < 336; uRtoUL++) {
-            for (short uBtoDF = 0; uBtoDF < 336; uBtoDF++) {
-                MergeURtoULandUBtoDF[uRtoUL][uBtoDF] = (short) KociembaCubieCube
-                        .getURtoDF(uRtoUL, uBtoDF);
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the permutation of six U-face and D-face edges in phase2.
+            // The positions of the DL and DB edges are
+            // determined by the parity.
+            // URtoDF < 665280 in phase 1
+            // URtoDF < 20160 in phase 2
+            // URtoDF = 0 for solved cube.
+            final short[][] URtoDF_Move = new short[N_URtoDF][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_URtoDF; i++) {
+                    a.setURtoDF(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                            URtoDF_Move[i][3 * j + k] = (short) a.getURtoDF();
+                            // Table values are only valid for phase 2 moves!
+                            // For phase 1 moves, casting to short is not possible.
+                        }
+                        a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                    }
+                }
             }
-        }
-    }
 
-    // ****************************************Pruning tables for the
-    // search*********************************************
+            // **************************helper move tables to compute URtoDF for the
+            // beginning of phase2************************
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Pruning table for the permutation of the corners and the UD-slice edges
-    // in phase2.
-    // The pruning table entries give a lower estimation for the number of moves
-    // to reach the solved cube.
-    static byte[] Slice_URFtoDLF_Parity_Prun = new byte[N_SLICE2 * N_URFtoDLF
-        * N_PARITY / 2];
-    static {
-        for (int i = 0; i < N_SLICE2 * N_URFtoDLF * N_PARITY / 2; i++)
-            Slice_URFtoDLF_Parity_Prun[i] = -1;
-        int depth = 0;
-        setPruning(Slice_URFtoDLF_Parity_Prun, 0, (byte) 0);
-        int done = 1;
-        while (done != N_SLICE2 * N_URFtoDLF * N_PARITY) {
-            for (int i = 0; i < N_SLICE2 * N_URFtoDLF * N_PARITY; i++) {
-                int parity = i % 2;
-                int URFtoDLF = (i / 2) / N_SLICE2;
-                int slice = (i / 2) % N_SLICE2;
-                if (getPruning(Slice_URFtoDLF_Parity_Prun, i) == depth) {
-                    for (int j = 0; j < 18; j++) {
-                        switch (j) {
-                            case 3:
-                            case 5:
-                            case 6:
-                            case 8:
-                            case 12:
-                            case 14:
-                            case 15:
-                            case 17:
-                                continue;
-                            default:
-                                int newSlice = FRtoBR_Move[slice][j];
-                                int newURFtoDLF = URFtoDLF_Move[URFtoDLF][j];
-                                int newParity = parityMove[parity][j];
-                                if (getPruning(Slice_URFtoDLF_Parity_Prun,
-                                               (N_SLICE2 * newURFtoDLF + newSlice)
-                                                   * 2 + newParity) == 0x0f) {
-                                    setPruning(Slice_URFtoDLF_Parity_Prun,
-                                               (N_SLICE2 * newURFtoDLF + newSlice)
-                                                   * 2 + newParity,
-                                               (byte) (depth + 1));
-                                    done++;
-                                }
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the three edges UR,UF and UL in phase1.
+            final short[][] URtoUL_Move = new short[N_URtoUL][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_URtoUL; i++) {
+                    a.setURtoUL(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                            URtoUL_Move[i][3 * j + k] = a.getURtoUL();
                         }
+                        a.edgeMultiply(KociembaCubieCube.moveCube[j]);
                     }
                 }
             }
-            depth++;
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Pruning table for the permutation of the edges in phase2.
-    // The pruning table entries give a lower estimation for the number of moves
-    // to reach the solved cube.
-    static byte[] Slice_URtoDF_Parity_Prun = new byte[N_SLICE2 * N_URtoDF
-        * N_PARITY / 2];
-    static {
-        for (int i = 0; i < N_SLICE2 * N_URtoDF * N_PARITY / 2; i++)
-            Slice_URtoDF_Parity_Prun[i] = -1;
-        int depth = 0;
-        setPruning(Slice_URtoDF_Parity_Prun, 0, (byte) 0);
-        int done = 1;
-        while (done != N_SLICE2 * N_URtoDF * N_PARITY) {
-            for (int i = 0; i < N_SLICE2 * N_URtoDF * N_PARITY; i++) {
-                int parity = i % 2;
-                int URtoDF = (i / 2) / N_SLICE2;
-                int slice = (i / 2) % N_SLICE2;
-                if (getPruning(Slice_URtoDF_Parity_Prun, i) == depth) {
-                    for (int j = 0; j < 18; j++) {
-                        switch (j) {
-                            case 3:
-                            case 5:
-                            case 6:
-                            case 8:
-                            case 12:
-                            case 14:
-                            case 15:
-                            case 17:
-                                continue;
-                            default:
-                                int newSlice = FRtoBR_Move[slice][j];
-                                int newURtoDF = URtoDF_Move[URtoDF][j];
-                                int newParity = parityMove[parity][j];
-                                if (getPruning(Slice_URtoDF_Parity_Prun,
-                                               (N_SLICE2 * newURtoDF + newSlice)
-                                                   * 2 + newParity) == 0x0f) {
-                                    setPruning(Slice_URtoDF_Parity_Prun,
-                                               (N_SLICE2 * newURtoDF + newSlice)
-                                                   * 2 + newParity,
-                                               (byte) (depth + 1));
-                                    done++;
-                                }
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Move table for the three edges UB,DR and DF in phase1.
+            final short[][] UBtoDF_Move = new short[N_UBtoDF][N_MOVE];
+            {
+                KociembaCubieCube a = new KociembaCubieCube();
+                for (short i = 0; i < N_UBtoDF; i++) {
+                    a.setUBtoDF(i);
+                    for (int j = 0; j < 6; j++) {
+                        for (int k = 0; k < 3; k++) {
+                            a.edgeMultiply(KociembaCubieCube.moveCube[j]);
+                            UBtoDF_Move[i][3 * j + k] = a.getUBtoDF();
                         }
+                        a.edgeMultiply(KociembaCubieCube.moveCube[j]);
                     }
                 }
             }
-            depth++;
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Pruning table for the twist of the corners and the position (not
-    // permutation) of the UD-slice edges in phase1
-    // The pruning table entries give a lower estimation for the number of moves
-    // to reach the H-subgroup.
-    static byte[] Slice_Twist_Prun = new byte[N_SLICE1 * N_TWIST / 2 + 1];
-    static {
-        for (int i = 0; i < N_SLICE1 * N_TWIST / 2 + 1; i++)
-            Slice_Twist_Prun[i] = -1;
-        int depth = 0;
-        setPruning(Slice_Twist_Prun, 0, (byte) 0);
-        int done = 1;
-        while (done != N_SLICE1 * N_TWIST) {
-            for (int i = 0; i < N_SLICE1 * N_TWIST; i++) {
-                int twist = i / N_SLICE1, slice = i % N_SLICE1;
-                if (getPruning(Slice_Twist_Prun, i) == depth) {
-                    for (int j = 0; j < 18; j++) {
-                        int newSlice = FRtoBR_Move[slice * 24][j] / 24;
-                        int newTwist = twistMove[twist][j];
-                        if (getPruning(Slice_Twist_Prun, N_SLICE1 * newTwist
-                            + newSlice) == 0x0f) {
-                            setPruning(Slice_Twist_Prun, N_SLICE1 * newTwist
-                                + newSlice, (byte) (depth + 1));
-                            done++;
-                        }
+            // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+            // Table to merge the coordinates of the UR,UF,UL and UB,DR,DF edges at the
+            // beginning of phase2
+            final short[][] MergeURtoULandUBtoDF = new short[N_MERGE][N_MERGE];
+            {
+                // for i, j <336 the six edges UR,UF,UL,UB,DR,DF are not in the
+                // UD-slice and the index is <20160
+                for (short uRtoUL = 0; uRtoUL < N_MERGE; uRtoUL++) {
+                    for (short uBtoDF = 0; uBtoDF < N_MERGE; uBtoDF++) {
+                        MergeURtoULandUBtoDF[uRtoUL][uBtoDF] = (short) KociembaCubieCube
+                                .getURtoDF(uRtoUL, uBtoDF);
                     }
                 }
             }
-            depth++;
-        }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Pruning table for the flip of the edges and the position (not
-    // permutation) of the UD-slice edges in phase1
-    // The pruning table entries give a lower estimation for the number of moves
-    // to reach the H-subgroup.
-    static byte[] Slice_Flip_Prun = new byte[N_SLICE1 * N_FLIP / 2];
-    static {
-        for (int i = 0; i < N_SLICE1 * N_FLIP / 2; i++)
-            Slice_Flip_Prun[i] = -1;
-        int depth = 0;
-        setPruning(Slice_Flip_Prun, 0, (byte) 0);
-        int done = 1;
-        while (done != N_SLICE1 * N_FLIP) {
-            for (int i = 0; i < N_SLICE1 * N_FLIP; i++) {
-                int flip = i / N_SLICE1, slice = i % N_SLICE1;
-                if (getPruning(Slice_Flip_Prun, i) == depth) {
-                    for (int j = 0; j < 18; j++) {
-                        int newSlice = FRtoBR_Move[slice * 24][j] / 24;
-                        int newFlip = flipMove[flip][j];
-                        if (getPruning(Slice_Flip_Prun, N_SLICE1 * newFlip
-                            + newSlice) == 0x0f) {
-                            setPruning(Slice_Flip_Prun, N_SLICE1 * newFlip
-                                + newSlice, (byte) (depth + 1));
-                            done++;
-                        }
+            // ****************************************Pruning tables for the
+            // search*********************************************
+            // The pruning table entries give a lower estimation for the number
+            // of moves to reach the H-subgroup (phase 1) or the solved cube
+            // (phase 2). They are generated by other threads, possibly while
+            // KociembaCoordinateCube is being initialized by this one: the
+            // other threads must not access its static fields, or they would
+            // wait for the initialization forever.
+            final short[][] parityMoves = parityMove;
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            final byte[] Slice_URFtoDLF_Parity_Prun;
+            final byte[] Slice_URtoDF_Parity_Prun;
+            final byte[] Slice_Twist_Prun;
+            final byte[] Slice_Flip_Prun;
+            try {
+                // Permutation of the corners and the UD-slice edges in phase 2.
+                Slice_URFtoDLF_Parity_Prun = pruningTable(pool,
+                    N_SLICE2 * N_URFtoDLF * N_PARITY, PHASE2_MOVES, (i, j) -> {
+                        final int parity = i % 2;
+                        final int URFtoDLF = (i / 2) / N_SLICE2;
+                        final int slice = (i / 2) % N_SLICE2;
+                        return (N_SLICE2 * URFtoDLF_Move[URFtoDLF][j]
+                                + FRtoBR_Move[slice][j]) * 2
+                            + parityMoves[parity][j];
+                    });
+                // Permutation of the edges in phase 2.
+                Slice_URtoDF_Parity_Prun = pruningTable(pool,
+                    N_SLICE2 * N_URtoDF * N_PARITY, PHASE2_MOVES, (i, j) -> {
+                        final int parity = i % 2;
+                        final int URtoDF = (i / 2) / N_SLICE2;
+                        final int slice = (i / 2) % N_SLICE2;
+                        return (N_SLICE2 * URtoDF_Move[URtoDF][j]
+                                + FRtoBR_Move[slice][j]) * 2
+                            + parityMoves[parity][j];
+                    });
+                // Twist of the corners and position (not permutation) of the
+                // UD-slice edges in phase 1.
+                Slice_Twist_Prun = pruningTable(pool, N_SLICE1 * N_TWIST,
+                                                PHASE1_MOVES, (i, j) -> {
+                        final int twist = i / N_SLICE1;
+                        final int slice = i % N_SLICE1;
+                        return N_SLICE1 * twistMove[twist][j]
+                            + FRtoBR_Move[slice * N_SLICE2][j] / N_SLICE2;
+                    });
+                // Flip of the edges and position (not permutation) of the
+                // UD-slice edges in phase 1.
+                Slice_Flip_Prun = pruningTable(pool, N_SLICE1 * N_FLIP,
+                                               PHASE1_MOVES, (i, j) -> {
+                        final int flip = i / N_SLICE1;
+                        final int slice = i % N_SLICE1;
+                        return N_SLICE1 * flipMove[flip][j]
+                            + FRtoBR_Move[slice * N_SLICE2][j] / N_SLICE2;
+                    });
+            } finally {
+                pool.shutdown();
+            }
+
+            final ByteBuffer t = ByteBuffer.allocate(SIZE);
+            for (short[][] table : new short[][][] {twistMove, flipMove,
+                    FRtoBR_Move, URFtoDLF_Move, URtoDF_Move, URtoUL_Move,
+                    UBtoDF_Move, MergeURtoULandUBtoDF}) {
+                for (short[] row : table) {
+                    for (short v : row) {
+                        t.putShort(v);
                     }
                 }
             }
-            depth++;
+            t.put(Slice_URFtoDLF_Parity_Prun).put(Slice_URtoDF_Parity_Prun)
+                .put(Slice_Twist_Prun).put(Slice_Flip_Prun);
+            t.flip();
+            return t;
         }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Set pruning value in table. Two values are stored in one byte.
-    static void setPruning(byte[] table, int index, byte value) {
-        if ((index & 1) == 0) {
-            table[index / 2] &= 0xf0 | value;
-        } else {
-            table[index / 2] &= 0x0f | (value << 4);
+        /**
+         * Generates a pruning table by breadth-first search from the solved
+         * cube (entry <tt>0</tt>). Each level is computed by scanning the
+         * table in parallel; since the entries of a level are all known before
+         * the level is expanded, the table does not depend on the order of the
+         * scan and is the same whatever the number of threads.
+         * @param pool Pool scanning the table.
+         * @param n Number of entries.
+         * @param moves Moves expanding an entry.
+         * @param next Index of the entry reached from an entry by a move.
+         * @return The pruning table, two entries per byte (see
+         * <tt>getPruning</tt>).
+         */
+        private static byte[] pruningTable(final ForkJoinPool pool,
+                                           final int n, final int[] moves,
+                                           final IntBinaryOperator next) {
+            final byte[] table = new byte[(n + 1) / 2];
+            Arrays.fill(table, (byte) -1);
+            setPruning(table, 0, 0);
+            int done = 1;
+            for (int depth = 0; done != n; ++depth) {
+                final int found = pool.invoke(new PruningLevel(table, 0, n,
+                    depth, moves, next));
+                if (found == 0) {
+                    throw new IllegalStateException("Only " + done + " of " + n
+                                                    + " entries reached");
+                }
+                done += found;
+            }
+            return table;
         }
-    }
 
-    // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
-    // Extract pruning value
-    /**
-     * Extract the pruning value for the IDA* algorithm from the lookup table.
-     * @param table Lookup table to be checked.
-     * @param index Index to be checked.
-     * @return The desired pruning value.
-     */
-    static byte getPruning(final byte[] table, final int index) {
-        if ((index & 1) == 0) {
-            return (byte) (table[index / 2] & 0x0f);
+        /**
+         * Sets an entry of a pruning table being generated, if it is still
+         * unknown. The byte holding the entry is updated atomically, so that
+         * the other entry of the byte can be set at the same time by another
+         * thread.
+         * @param table Pruning table.
+         * @param index Index of the entry.
+         * @param value Value of the entry.
+         * @return <tt>true</tt> if and only if the entry was unknown.
+         */
+        private static boolean setPruning(final byte[] table, final int index,
+                                          final int value) {
+            final int shift = (index & 1) * 4;
+            while (true) {
+                final byte old =
+                    (byte) PRUNING_BYTE.getVolatile(table, index / 2);
+                if ((old >>> shift & 0x0f) != 0x0f) {
+                    return false;
+                }
+                final byte b = (byte) (old & ~(0x0f << shift) | value << shift);
+                if (PRUNING_BYTE.compareAndSet(table, index / 2, old, b)) {
+                    return true;
+                }
+            }
+        }
+
+        // ++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+        // Extract pruning value
+        /**
+         * Extract the pruning value for the IDA* algorithm from the lookup
+         * table being generated.
+         * @param table Lookup table to be checked.
+         * @param index Index to be checked.
+         * @return The desired pruning value.
+         */
+        private static byte getPruning(final byte[] table, final int index) {
+            if ((index & 1) == 0) {
+                return (byte) (table[index / 2] & 0x0f);
+            }
+            return (byte) ((table[index / 2] & 0xf0) >>> 4);
+        }
+        /**
+         * Expansion of a level of a pruning table over a range of its entries.
+         */
+        private static final class PruningLevel extends RecursiveTask<Integer> {
+            /**
+             * Serial version UID (tasks are never serialized).
+             */
+            private static final long serialVersionUID = 1L;
+            /**
+             * Number of entries below which a range is not split further.
+             */
+            private static final int GRAIN = 1 << 15;
+            /**
+             * Pruning table.
+             */
+            private final transient byte[] table;
+            /**
+             * First entry of the range.
+             */
+            private final int from;
+            /**
+             * Entry after the last one of the range.
+             */
+            private final int to;
+            /**
+             * Depth of the entries expanded.
+             */
+            private final int depth;
+            /**
+             * Moves expanding an entry.
+             */
+            private final transient int[] moves;
+            /**
+             * Index of the entry reached from an entry by a move.
+             */
+            private final transient IntBinaryOperator next;
+            /**
+             * Creates a new expansion.
+             * @param t Pruning table.
+             * @param f First entry of the range.
+             * @param e Entry after the last one of the range.
+             * @param d Depth of the entries expanded.
+             * @param m Moves expanding an entry.
+             * @param n Index of the entry reached from an entry by a move.
+             */
+            PruningLevel(final byte[] t, final int f, final int e, final int d,
+                         final int[] m, final IntBinaryOperator n) {
+                this.table = t;
+                this.from = f;
+                this.to = e;
+                this.depth = d;
+                this.moves = m;
+                this.next = n;
+            }
+            /**
+             * Sets to <tt>depth + 1</tt> the unknown entries reached from the
+             * entries of the range at depth <tt>depth</tt>.
+             * @return Number of entries set.
+             */
+            @Override
+            protected Integer compute() {
+                if (this.to - this.from > GRAIN) {
+                    final int mid = (this.from + this.to) >>> 1;
+                    final PruningLevel left = new PruningLevel(this.table,
+                        this.from, mid, this.depth, this.moves, this.next);
+                    left.fork();
+                    final int right = new PruningLevel(this.table, mid, this.to,
+                        this.depth, this.moves, this.next).compute();
+                    return left.join() + right;
+                }
+                int found = 0;
+                for (int i = this.from; i < this.to; ++i) {
+                    if (getPruning(this.table, i) != this.depth) {
+                        continue;
+                    }
+                    for (int j : this.moves) {
+                        if (setPruning(this.table, this.next.applyAsInt(i, j),
+                                       this.depth + 1)) {
+                            ++found;
+                        }
+                    }
+                }
+                return found;
+            }
+        }
+        /**
+         * Creates a new instance (not used).
+         */
+        private Tables() {
+            // Empty, nothing to do
         }
-        return (byte) ((table[index / 2] & 0xf0) >>> 4);
     }
 }
@@ -498,6 +498,86 @@ public class KociembaCubieCube {
             this.eo[e.ordinal()] = eOri[e.ordinal()];
         }
     }
+    /**
+     * Gets the corner in a given position.
+     * @param i Position of the corner.
+     * @return The corner found in position <tt>i</tt>.
+     */
+    final RubikCubeModelCorner getCorner(final int i) {
+        return this.cp[i];
+    }
+    /**
+     * Gets the orientation of the corner in a given position.
+     * @param i Position of the corner.
+     * @return Orientation of the corner found in position <tt>i</tt>.
+     */
+    final byte getCornerOrientation(final int i) {
+        return this.co[i];
+    }
+    /**
+     * Gets the edge in a given position.
+     * @param i Position of the edge.
+     * @return The edge found in position <tt>i</tt>.
+     */
+    final RubikCubeModel3Edge getEdge(final int i) {
+        return this.ep[i];
+    }
+    /**
+     * Gets the orientation of the edge in a given position.
+     * @param i Position of the edge.
+     * @return Orientation of the edge found in position <tt>i</tt>.
+     */
+    final byte getEdgeOrientation(final int i) {
+        return this.eo[i];
+    }
+    /**
+     * Checks whether the cube can be solved, i.e. every corner and edge
+     * appears exactly once, the twist and flip add up to zero and the corner
+     * and edge permutations have the same parity.
+     * @return <tt>true</tt> if and only if the cube can be solved.
+     */
+    final boolean isSolvable() {
+        int corners = 0;
+        int twist = 0;
+        for (int i = 0; i < 8; ++i) {
+            corners |= 1 << this.cp[i].ordinal();
+            twist += this.co[i];
+        }
+        int edges = 0;
+        int flip = 0;
+        int edgeInversions = 0;
+        for (int i = 0; i < 12; ++i) {
+            edges |= 1 << this.ep[i].ordinal();
+            flip += this.eo[i];
+            for (int j = 0; j < i; ++j) {
+                if (this.ep[j].ordinal() > this.ep[i].ordinal()) {
+                    ++edgeInversions;
+                }
+            }
+        }
+        return corners == 0xFF && edges == 0xFFF && twist % 3 == 0
+            && flip % 2 == 0 && this.cornerParity() == edgeInversions % 2;
+    }
+    /**
+     * Gets the inverse of this cube, i.e. the cube solved by the inverse of
+     * the moves solving this one. Every corner and edge must appear exactly
+     * once.
+     * @return The inverse cube.
+     */
+    final KociembaCubieCube inverse() {
+        final KociembaCubieCube r = new KociembaCubieCube();
+        final RubikCubeModelCorner[] corners = RubikCubeModelCorner.values();
+        for (int i = 0; i < 8; ++i) {
+            r.cp[this.cp[i].ordinal()] = corners[i];
+            r.co[this.cp[i].ordinal()] = (byte) ((3 - this.co[i]) % 3);
+        }
+        final RubikCubeModel3Edge[] edges = RubikCubeModel3Edge.values();
+        for (int i = 0; i < 12; ++i) {
+            r.ep[this.ep[i].ordinal()] = edges[i];
+            r.eo[this.ep[i].ordinal()] = this.eo[i];
+        }
+        return r;
+    }
     /**
      * Get the twist of the eight corners.
      * @return The twist of the corners (0 <= twist < 3^7).
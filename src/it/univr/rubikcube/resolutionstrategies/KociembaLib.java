@@ -3,22 +3,91 @@ package it.univr.rubikcube.resolutionstrategies;
 import it.univr.rubikcube.model.Move;
 import it.univr.rubikcube.model.RubikCubeFaceColor;
 import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeModelFacelet;
 import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
-
-import org.kociemba.twophase.Facelet;
-import org.kociemba.twophase.Search;
+import java.util.function.Consumer;
 
 /**
  * Kociemba two-phase algorithm for 3x3 cubes.
- * 
+ *
+ * The search works directly on the cubies of the model (see
+ * <tt>KociembaSearch</tt>), so no facelet string is built. Every search
+ * keeps its state in its own <tt>KociembaSearch</tt> instance and only
+ * reads the shared tables, so any number of threads can solve different
+ * cubes at the same time, each with its own instance of this class, without
+ * any locking.
+ *
+ * When a target length is given, the cube is searched from six orientations
+ * in parallel: as it is, rotated so that its F-B or R-L axis becomes the U-D
+ * axis of the search (phase 1 treats the U-D axis differently from the
+ * others), and the inverses of the three. Every thread keeps searching for
+ * shorter solutions than the best one found by all of them, until one is
+ * not longer than the target, no thread finds a shorter two-phase solution
+ * or the budget is exhausted (the best solution found so far is then
+ * returned). The solutions of the rotated cubes are mapped back by
+ * relabelling their faces.
+ *
+ * <tt>getImprovingMoveSequences</tt> reports every improved solution as soon
+ * as it is found; without a target length it keeps searching the cube as it
+ * is for shorter solutions until no shorter two-phase solution is found or
+ * the budget is exhausted. Since the search skips some phase 1 endings,
+ * the last solution is not necessarily the shortest one.
+ *
  * @author Herbert Kociemba
  * @author Alessandro Menti
  */
 public class KociembaLib extends ResolutionStrategy {
+    /**
+     * Maximum length of the solutions searched by the algorithm.
+     */
+    private static final int MAX_DEPTH = 21;
+    /**
+     * Number of axes the cube is searched from when searching all the
+     * orientations.
+     */
+    private static final int AXES = 3;
+    /**
+     * Rotations bringing each axis of the cube to the U-D axis of the search
+     * (<tt>null</tt> for the U-D axis itself).
+     */
+    private static final Turn[] ROTATIONS = {null, Turn.X, Turn.Z};
+    /**
+     * Face turns of the original cube corresponding to the face turns of
+     * the cube rotated by each of <tt>ROTATIONS</tt>, indexed by ordinal.
+     */
+    private static final Turn[][] RELABELLINGS = {
+        {
+            Turn.U, Turn.U_PRIME, Turn.D, Turn.D_PRIME, Turn.L, Turn.L_PRIME,
+            Turn.R, Turn.R_PRIME, Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME,
+        },
+        {
+            Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME, Turn.L, Turn.L_PRIME,
+            Turn.R, Turn.R_PRIME, Turn.D, Turn.D_PRIME, Turn.U, Turn.U_PRIME,
+        },
+        {
+            Turn.L, Turn.L_PRIME, Turn.R, Turn.R_PRIME, Turn.D, Turn.D_PRIME,
+            Turn.U, Turn.U_PRIME, Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME,
+        },
+    };
+    /**
+     * Whether the cube is searched from all the orientations in parallel.
+     */
+    private final boolean allOrientations;
+    /**
+     * Length of the solutions good enough to stop looking for shorter ones.
+     */
+    private final int targetLength;
     /**
      * Creates a new instance of the Kociemba method.
      * 
@@ -30,7 +99,41 @@ public class KociembaLib extends ResolutionStrategy {
      *             single facelet per color.
      */
     public KociembaLib(final RubikCubeModel m) throws IllegalArgumentException {
+        this(m, false, 0);
+    }
+    /**
+     * Creates a new instance of the Kociemba method searching the cube from
+     * six orientations in parallel, each on its own thread.
+     * @param m Rubik cube model.
+     * @param target Length (in the half turn metric) of the solutions good
+     * enough to stop the search. With a short target, the search is bounded
+     * only by the budget.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * not equal to three, if the cube has not nine faces per color, if there
+     * isn't a single facelet per color, or if <tt>target</tt> is negative.
+     */
+    public KociembaLib(final RubikCubeModel m, final int target)
+            throws IllegalArgumentException {
+        this(m, true, target);
+        if (target < 0) {
+            throw new IllegalArgumentException("The target length must not be"
+                                               + " negative");
+        }
+    }
+    /**
+     * Creates a new instance of the Kociemba method.
+     * @param m Rubik cube model.
+     * @param all Whether the cube is searched from all the orientations.
+     * @param target Length of the solutions good enough to stop the search.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * not equal to three, if the cube has not nine faces per color, if there
+     * isn't a single facelet per color.
+     */
+    private KociembaLib(final RubikCubeModel m, final boolean all,
+                        final int target) throws IllegalArgumentException {
         super(m);
+        this.allOrientations = all;
+        this.targetLength = target;
         if (m.getDimension() != 3) {
             throw new IllegalArgumentException("The dimension of the cube must"
                     + " be equal to three");
@@ -61,64 +164,277 @@ public class KociembaLib extends ResolutionStrategy {
         return "The Kociemba two-phase algorithm searches for solutions in a"
                 + " game state tree using two groups of moves.";
     }
+    /**
+     * Gets the readiness of the tables of the strategy, starting to load
+     * them in the background if needed.
+     * @return Future completed when the tables are ready.
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+        return TableWarmUp.kociemba();
+    }
     /**
      * Gets a list of next moves.
      * @return List of next moves.
      * @throws NoSolutionException Thrown in case the algorithm does not find a
      * solution.
-     * @throws TimeoutException Thrown in case the algorithm fails to find a
-     * solution before the timeout (if any) or was interrupted.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or was interrupted.
      */
     @Override
     public final List<Move> getNextMoves() throws NoSolutionException,
             TimeoutException {
-        final List<Move> result = new LinkedList<Move>();
-        String solution = Search.solution(
-                KociembaLib.mapOurCubeModelToKociemba(getModel()), 21, 6000,
-                true);
-        if (solution.contains("rror")) {
-            if (solution.contains("1")) {
-                throw new NoSolutionException(
-                        "There is not exactly one facelet of each colour");
-            } else if (solution.contains("2")) {
-                throw new NoSolutionException(
-                        "Not all 12 edges exist exactly once");
-            } else if (solution.contains("3")) {
-                throw new NoSolutionException(
-                        "Flip error: One edge has to be flipped");
-            } else if (solution.contains("4")) {
-                throw new NoSolutionException(
-                        "Not all corners exist exactly once");
-            } else if (solution.contains("5")) {
-                throw new NoSolutionException(
-                        "Twist error: One corner has to be twisted");
-            } else if (solution.contains("6")) {
-                throw new NoSolutionException(
-                        "Parity error: Two corners or two edges have to be exchanged");
-            } else if (solution.contains("7")) {
-                throw new NoSolutionException(
-                        "No solution exists for the given maxDepth");
-            } else if (solution.contains("8")) {
-                throw new NoSolutionException(
-                        "Timeout, no solution within given time");
-            } else {
-                throw new NoSolutionException("Generic Exception");
+        return this.getNextMoveSequence().toMoves(this.getModel());
+    }
+    /**
+     * Gets the sequence of next moves. If the centers are not in their
+     * standard position, the sequence starts with the rotations of the entire
+     * cube bringing them back.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the algorithm does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or was interrupted.
+     */
+    @Override
+    public final MoveSequence getNextMoveSequence()
+            throws NoSolutionException, TimeoutException {
+        if (this.allOrientations) {
+            return this.getImprovingMoveSequences(s -> { });
+        }
+        // Work on a copy so that the original model remains untouched.
+        final RubikCubeModel cube = new RubikCubeModel(this.getModel());
+        final MoveSequence solution = orient(cube);
+        final SearchBudget.Monitor monitor = this.getBudget().start();
+        monitor.check();
+        return solution.append(new KociembaSearch(
+            KociembaCubieCube.modelToCubieCube(cube), MAX_DEPTH,
+            monitor).solve());
+    }
+    /**
+     * Searches for shorter and shorter sequences of next moves, passing each
+     * one to a listener as soon as it is found. If the centers are not in
+     * their standard position, the sequences start with the rotations of the
+     * entire cube bringing them back.
+     * @param listener Listener notified of every improved sequence.
+     * @return The shortest sequence of next moves found.
+     * @throws NoSolutionException Thrown in case the algorithm does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or is interrupted before finding a solution.
+     */
+    @Override
+    public final MoveSequence getImprovingMoveSequences(
+            final Consumer<? super MoveSequence> listener)
+            throws NoSolutionException, TimeoutException {
+        // Work on a copy so that the original model remains untouched.
+        final RubikCubeModel cube = new RubikCubeModel(this.getModel());
+        final MoveSequence rotations = orient(cube);
+        final SearchBudget.Monitor monitor = this.getBudget().start();
+        monitor.check();
+        final KociembaCubieCube c = KociembaCubieCube.modelToCubieCube(cube);
+        KociembaSearch.verify(c);
+        final Best best = new Best(rotations, listener);
+        boolean exhausted = false;
+        if (this.allOrientations) {
+            exhausted = this.searchAllOrientations(cube, c, best, monitor);
+        } else {
+            try {
+                this.search(c, 0, false, best, monitor);
+            } catch (TimeoutException e) {
+                exhausted = true;
             }
         }
-
-        String[] sols = solution.split(" ");
-
-        for (String sol : sols) {
-            if (sol.contains("2")) {
-                sol = sol.replaceAll("2", "");
-                result.add(Move.convertFromString(this.getModel(), sol));
+        final MoveSequence s = best.get();
+        if (s == null) {
+            if (exhausted) {
+                throw new TimeoutException("Search budget exhausted");
             }
-            if (sol.contains("."))
-                continue;
-            result.add(Move.convertFromString(this.getModel(), sol));
+            throw new NoSolutionException("No solution exists within "
+                                          + MAX_DEPTH + " moves");
+        }
+        return s;
+    }
+    /**
+     * Searches a cube from six orientations in parallel.
+     * @param cube Cube, with the centers in their standard position.
+     * @param c Cubies of <tt>cube</tt>.
+     * @param best Best solution found by all the searches.
+     * @param monitor Monitor of the search.
+     * @return <tt>true</tt> if and only if the search was stopped by the
+     * budget or by an interruption.
+     */
+    private boolean searchAllOrientations(final RubikCubeModel cube,
+                                          final KociembaCubieCube c,
+                                          final Best best,
+                                          final SearchBudget.Monitor monitor) {
+        final ExecutorService pool = Executors.newFixedThreadPool(2 * AXES);
+        final CompletionService<Boolean> searches =
+            new ExecutorCompletionService<>(pool);
+        boolean exhausted = false;
+        try {
+            for (int a = 0; a < AXES; ++a) {
+                final KociembaCubieCube r = a == 0 ? c
+                    : KociembaCubieCube.modelToCubieCube(rotate(cube, a));
+                final int axis = a;
+                final SearchBudget.Monitor m = monitor.fork();
+                final SearchBudget.Monitor mi = monitor.fork();
+                searches.submit(() -> this.search(r, axis, false, best, m));
+                searches.submit(() -> this.search(r.inverse(), axis, true,
+                                                  best, mi));
+            }
+            for (int i = 0; i < 2 * AXES; ++i) {
+                try {
+                    if (searches.take().get()) {
+                        break;
+                    }
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof TimeoutException)) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                    exhausted = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exhausted = true;
+        } finally {
+            // Stops the other searches (see SearchBudget.Monitor.check).
+            pool.shutdownNow();
+        }
+        return exhausted;
+    }
+    /**
+     * Searches a cube from one orientation, looking for shorter and shorter
+     * solutions.
+     * @param c Cube, rotated so that the axis being searched is the U-D axis
+     * (or its inverse).
+     * @param axis Index of the rotation applied to the cube.
+     * @param inverse Whether <tt>c</tt> is the inverse of the rotated cube.
+     * @param best Best solution found by all the searches.
+     * @param monitor Monitor of this search.
+     * @return <tt>true</tt> if and only if a solution not longer than the
+     * target has been found.
+     * @throws TimeoutException Thrown if the budget is exhausted or the
+     * search is interrupted.
+     */
+    private boolean search(final KociembaCubieCube c, final int axis,
+                           final boolean inverse, final Best best,
+                           final SearchBudget.Monitor monitor)
+            throws TimeoutException {
+        for (int limit = best.getLength() - 1; limit >= 0;
+             limit = best.getLength() - 1) {
+            MoveSequence s;
+            try {
+                s = new KociembaSearch(c, limit, monitor).solve();
+            } catch (NoSolutionException e) {
+                // No shorter two-phase solution from this orientation.
+                return false;
+            }
+            final int length = halfTurns(s);
+            if (inverse) {
+                s = s.inverse();
+            }
+            final MoveSequence r = new MoveSequence(s.length());
+            for (int i = 0; i < s.length(); ++i) {
+                r.append(RELABELLINGS[axis][s.get(i).ordinal()]);
+            }
+            best.offer(r, length);
+            if (length <= this.targetLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Rotates a cube so that one of its axes becomes the U-D axis, then
+     * recolors it so that its centers have their standard colors again.
+     * @param cube Cube, with the centers in their standard position.
+     * @param axis Index of the rotation in <tt>ROTATIONS</tt>.
+     * @return The rotated cube.
+     */
+    private static RubikCubeModel rotate(final RubikCubeModel cube,
+                                         final int axis) {
+        final RubikCubeModel r = new RubikCubeModel(cube);
+        ROTATIONS[axis].apply(r);
+        CubeSymmetry.recolor(r);
+        return r;
+    }
+    /**
+     * Counts the moves of a solution in the half turn metric.
+     * @param s Solution, where half turns are made of two equal turns.
+     * @return Number of moves.
+     */
+    static int halfTurns(final MoveSequence s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); ++i) {
+            if (i + 1 < s.length() && s.get(i + 1) == s.get(i)) {
+                ++i;
+            }
+            ++n;
+        }
+        return n;
+    }
+    /**
+     * Shortest solution found by the searches from the different
+     * orientations.
+     */
+    private static final class Best {
+        /**
+         * Rotations preceding every solution.
+         */
+        private final MoveSequence rotations;
+        /**
+         * Listener notified of every improved solution.
+         */
+        private final Consumer<? super MoveSequence> listener;
+        /**
+         * Shortest solution, preceded by the rotations, if any.
+         */
+        private MoveSequence solution;
+        /**
+         * Length of the shortest solution, or one more than the maximum
+         * length if there is none.
+         */
+        private int length = MAX_DEPTH + 1;
+        /**
+         * Creates a new holder of the shortest solution.
+         * @param r Rotations preceding every solution.
+         * @param l Listener notified of every improved solution.
+         */
+        Best(final MoveSequence r, final Consumer<? super MoveSequence> l) {
+            this.rotations = r;
+            this.listener = l;
+        }
+        /**
+         * Offers a solution, kept (and passed to the listener) if shorter
+         * than the best one.
+         * @param s Solution.
+         * @param l Length of the solution.
+         */
+        synchronized void offer(final MoveSequence s, final int l) {
+            if (l < this.length) {
+                this.solution = this.rotations.concat(s);
+                this.length = l;
+                this.listener.accept(this.solution);
+            }
+        }
+        /**
+         * Gets the length of the shortest solution.
+         * @return Length of the shortest solution, or one more than the
+         * maximum length if there is none.
+         */
+        synchronized int getLength() {
+            return this.length;
+        }
+        /**
+         * Gets the shortest solution.
+         * @return The shortest solution, preceded by the rotations, or
+         * <tt>null</tt> if there is none.
+         */
+        synchronized MoveSequence get() {
+            return this.solution;
         }
-
-        return result;
     }
 
     public static String mapOurCubeModelToKociemba(RubikCubeModel cube) {
@@ -160,7 +476,7 @@ public class KociembaLib extends ResolutionStrategy {
                             i,
                             j,
                             mapKociembaColorToOurCube(kociemba_model.charAt(f
-                                    * 6 + i * 3 + j)));
+                                    * 9 + i * 3 + j)));
 
         return cube;
     }
@@ -204,133 +520,43 @@ public class KociembaLib extends ResolutionStrategy {
         }
     }
 
-    public static Facelet mapFaceAndColorWithFacelet(RubikCubeSide side, int x,
-            int y) {
-        switch (side) {
-        case BACK:
-            if (x == 0 && y == 0) {
-                return Facelet.B1;
-            }
-            if (x == 0 && y == 1) {
-                return Facelet.B2;
-            }
-            if (x == 0 && y == 2)
-                return Facelet.B3;
-            if (x == 1 && y == 0)
-                return Facelet.B4;
-            if (x == 1 && y == 1)
-                return Facelet.B5;
-            if (x == 1 && y == 2)
-                return Facelet.B6;
-            if (x == 2 && y == 0)
-                return Facelet.B7;
-            if (x == 2 && y == 1)
-                return Facelet.B8;
-            if (x == 2 && y == 2)
-                return Facelet.B9;
-        case DOWN: {
-            if (x == 0 && y == 0)
-                return Facelet.D1;
-            if (x == 0 && y == 1)
-                return Facelet.D2;
-            if (x == 0 && y == 2)
-                return Facelet.D3;
-            if (x == 1 && y == 0)
-                return Facelet.D4;
-            if (x == 1 && y == 1)
-                return Facelet.D5;
-            if (x == 1 && y == 2)
-                return Facelet.D6;
-            if (x == 2 && y == 0)
-                return Facelet.D7;
-            if (x == 2 && y == 1)
-                return Facelet.D8;
-            if (x == 2 && y == 2)
-                return Facelet.D9;
-        }
-        case FRONT: {
-            if (x == 0 && y == 0)
-                return Facelet.F1;
-            if (x == 0 && y == 1)
-                return Facelet.F2;
-            if (x == 0 && y == 2)
-                return Facelet.F3;
-            if (x == 1 && y == 0)
-                return Facelet.F4;
-            if (x == 1 && y == 1)
-                return Facelet.F5;
-            if (x == 1 && y == 2)
-                return Facelet.F6;
-            if (x == 2 && y == 0)
-                return Facelet.F7;
-            if (x == 2 && y == 1)
-                return Facelet.F8;
-            if (x == 2 && y == 2)
-                return Facelet.F9;
-        }
-        case LEFT: {
-            if (x == 0 && y == 0)
-                return Facelet.L1;
-            if (x == 0 && y == 1)
-                return Facelet.L2;
-            if (x == 0 && y == 2)
-                return Facelet.L3;
-            if (x == 1 && y == 0)
-                return Facelet.L4;
-            if (x == 1 && y == 1)
-                return Facelet.L5;
-            if (x == 1 && y == 2)
-                return Facelet.L6;
-            if (x == 2 && y == 0)
-                return Facelet.L7;
-            if (x == 2 && y == 1)
-                return Facelet.L8;
-            if (x == 2 && y == 2)
-                return Facelet.L9;
-        }
-        case RIGHT: {
-            if (x == 0 && y == 0)
-                return Facelet.L1;
-            if (x == 0 && y == 1)
-                return Facelet.L2;
-            if (x == 0 && y == 2)
-                return Facelet.L3;
-            if (x == 1 && y == 0)
-                return Facelet.L4;
-            if (x == 1 && y == 1)
-                return Facelet.L5;
-            if (x == 1 && y == 2)
-                return Facelet.L6;
-            if (x == 2 && y == 0)
-                return Facelet.L7;
-            if (x == 2 && y == 1)
-                return Facelet.L8;
-            if (x == 2 && y == 2)
-                return Facelet.L9;
-        }
-        case UP: {
-            if (x == 0 && y == 0)
-                return Facelet.B1;
-            if (x == 0 && y == 1)
-                return Facelet.B2;
-            if (x == 0 && y == 2)
-                return Facelet.B3;
-            if (x == 1 && y == 0)
-                return Facelet.B4;
-            if (x == 1 && y == 1)
-                return Facelet.B5;
-            if (x == 1 && y == 2)
-                return Facelet.B6;
-            if (x == 2 && y == 0)
-                return Facelet.B7;
-            if (x == 2 && y == 1)
-                return Facelet.B8;
-            if (x == 2 && y == 2)
-                return Facelet.B9;
+    /**
+     * Gets the facelet of Kociemba's model at a position of our model.
+     * @param side Side of the cube.
+     * @param x Row of the facelet (<tt>0</tt> to <tt>2</tt>).
+     * @param y Column of the facelet (<tt>0</tt> to <tt>2</tt>).
+     * @return The facelet, numbered as in the facelet strings.
+     * @throws IllegalArgumentException Thrown if the row or the column is
+     * out of range.
+     */
+    public static RubikCubeModelFacelet mapFaceAndColorWithFacelet(
+            final RubikCubeSide side, final int x, final int y)
+            throws IllegalArgumentException {
+        if (x < 0 || x > 2 || y < 0 || y > 2) {
+            throw new IllegalArgumentException("The position must be between"
+                                               + " 0 and 2");
         }
+        final int face;
+        switch (side) {
+        case UP:
+            face = 0;
+            break;
+        case RIGHT:
+            face = 1;
+            break;
+        case FRONT:
+            face = 2;
+            break;
+        case DOWN:
+            face = 3;
+            break;
+        case LEFT:
+            face = 4;
+            break;
         default:
-            throw new UnsupportedOperationException(
-                    "Cannot convert this face: " + side.toString());
+            face = 5;
+            break;
         }
+        return RubikCubeModelFacelet.values()[face * 9 + x * 3 + y];
     }
 }
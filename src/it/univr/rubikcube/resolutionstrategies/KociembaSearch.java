@@ -0,0 +1,401 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Two-phase search of Kociemba's method on the coordinates of
+ * <tt>KociembaCoordinateCube</tt>.
+ *
+ * Phase 1 brings the cube into the subgroup
+ * <tt>H = &lt;U, D, R2, F2, L2, B2&gt;</tt>, where the corners are not
+ * twisted, the edges are not flipped and the UD-slice edges are in the
+ * UD-slice; phase 2 solves the cube with the moves of <tt>H</tt> only. Both
+ * phases are IDA* searches, bounded by the pruning tables of
+ * <tt>KociembaCoordinateCube</tt>. The phase 1 solutions are generated by
+ * increasing length, each one is completed by the shortest phase 2 solution
+ * and the first complete solution not longer than the maximum depth is
+ * returned.
+ *
+ * A move is identified by its axis (<tt>0</tt> to <tt>5</tt> for the U, R,
+ * F, D, L and B faces, as in <tt>KociembaCubieCube.moveCube</tt>) and its
+ * power (<tt>1</tt> to <tt>3</tt> clockwise quarter turns); its index in the
+ * move tables is <tt>3 * axis + power - 1</tt>.
+ *
+ * Every instance keeps the state of one search, while the tables are shared
+ * and never modified: searches on different instances can run at the same
+ * time.
+ * @author Herbert Kociemba
+ * @author Alessandro Menti
+ */
+final class KociembaSearch {
+    /**
+     * Number of axes (faces) of the moves.
+     */
+    private static final int NUM_AXES = 6;
+    /**
+     * Largest power of a move.
+     */
+    private static final int MAX_POWER = 3;
+    /**
+     * Maximum length of a phase 2 solution.
+     */
+    private static final int PHASE2_MAX_DEPTH = 10;
+    /**
+     * Phase 1 paths reaching <tt>H</tt> less than this number of moves before
+     * their end are cut, as in Kociemba's implementation: the phase 1
+     * solution ending there is completed by phase 2 anyway, and such short
+     * detours out of <tt>H</tt> rarely shorten the solution.
+     */
+    private static final int PHASE1_MIN_DETOUR = 5;
+    /**
+     * Faces turned by the moves of each axis.
+     */
+    private static final Turn[] FACES = {
+        Turn.U, Turn.R, Turn.F, Turn.D, Turn.L, Turn.B,
+    };
+    /**
+     * Maximum length of a solution.
+     */
+    private final int maxDepth;
+    /**
+     * Monitor of the search budget.
+     */
+    private final SearchBudget.Monitor monitor;
+    /**
+     * Axes of the moves on the current path.
+     */
+    private final int[] axis;
+    /**
+     * Powers of the moves on the current path.
+     */
+    private final int[] power;
+    /**
+     * Corner twists along the path (phase 1).
+     */
+    private final int[] twist;
+    /**
+     * Edge flips along the path (phase 1).
+     */
+    private final int[] flip;
+    /**
+     * Positions of the UD-slice edges along the path (phase 1).
+     */
+    private final int[] slice;
+    /**
+     * Corner parities along the path.
+     */
+    private final int[] parity;
+    /**
+     * Permutations of the URF to DLF corners along the path.
+     */
+    private final int[] urfToDlf;
+    /**
+     * Permutations of the UD-slice edges along the path.
+     */
+    private final int[] frToBr;
+    /**
+     * Permutations of the UR, UF and UL edges along the phase 1 path.
+     */
+    private final int[] urToUl;
+    /**
+     * Permutations of the UB, DR and DF edges along the phase 1 path.
+     */
+    private final int[] ubToDf;
+    /**
+     * Permutations of the UR to DF edges along the phase 2 path.
+     */
+    private final int[] urToDf;
+    /**
+     * Length of the phase 1 solutions currently searched.
+     */
+    private int depthPhase1;
+    /**
+     * Creates a new search.
+     * @param c Cube to be solved.
+     * @param d Maximum length of a solution.
+     * @param m Monitor of the search budget.
+     * @throws NoSolutionException Thrown if the cube can not be solved.
+     */
+    KociembaSearch(final KociembaCubieCube c, final int d,
+                   final SearchBudget.Monitor m) throws NoSolutionException {
+        verify(c);
+        this.maxDepth = d;
+        this.monitor = m;
+        this.axis = new int[d + 1];
+        this.power = new int[d + 1];
+        this.twist = new int[d + 1];
+        this.flip = new int[d + 1];
+        this.slice = new int[d + 1];
+        this.parity = new int[d + 1];
+        this.urfToDlf = new int[d + 1];
+        this.frToBr = new int[d + 1];
+        this.urToUl = new int[d + 1];
+        this.ubToDf = new int[d + 1];
+        this.urToDf = new int[d + 1];
+        final KociembaCoordinateCube cc = new KociembaCoordinateCube(c);
+        this.twist[0] = cc.twist;
+        this.flip[0] = cc.flip;
+        this.slice[0] = cc.FRtoBR / KociembaCoordinateCube.N_SLICE2;
+        this.parity[0] = cc.parity;
+        this.urfToDlf[0] = cc.URFtoDLF;
+        this.frToBr[0] = cc.FRtoBR;
+        this.urToUl[0] = cc.URtoUL;
+        this.ubToDf[0] = cc.UBtoDF;
+    }
+    /**
+     * Checks that a cube can be solved.
+     * @param c Cube.
+     * @throws NoSolutionException Thrown if the cube can not be solved.
+     */
+    static void verify(final KociembaCubieCube c) throws NoSolutionException {
+        final boolean[] edges = new boolean[PatternDatabase.EDGES];
+        int flips = 0;
+        for (int i = 0; i < PatternDatabase.EDGES; ++i) {
+            edges[c.getEdge(i).ordinal()] = true;
+            flips += c.getEdgeOrientation(i);
+        }
+        for (boolean e : edges) {
+            if (!e) {
+                throw new NoSolutionException("Not all 12 edges exist exactly"
+                                              + " once");
+            }
+        }
+        if (flips % 2 != 0) {
+            throw new NoSolutionException("Flip error: one edge has to be"
+                                          + " flipped");
+        }
+        final boolean[] corners = new boolean[PatternDatabase.CORNERS];
+        int twists = 0;
+        for (int i = 0; i < PatternDatabase.CORNERS; ++i) {
+            corners[c.getCorner(i).ordinal()] = true;
+            twists += c.getCornerOrientation(i);
+        }
+        for (boolean e : corners) {
+            if (!e) {
+                throw new NoSolutionException("Not all 8 corners exist exactly"
+                                              + " once");
+            }
+        }
+        if (twists % 3 != 0) {
+            throw new NoSolutionException("Twist error: one corner has to be"
+                                          + " twisted");
+        }
+        if (!c.isSolvable()) {
+            throw new NoSolutionException("Parity error: two corners or two"
+                                          + " edges have to be exchanged");
+        }
+    }
+    /**
+     * Searches a solution.
+     * @return The moves solving the cube.
+     * @throws NoSolutionException Thrown if no solution exists within the
+     * maximum length.
+     * @throws TimeoutException Thrown if the search budget was exhausted or
+     * the execution was interrupted.
+     */
+    MoveSequence solve() throws NoSolutionException, TimeoutException {
+        for (this.depthPhase1 = this.phase1Distance(0);
+             this.depthPhase1 <= this.maxDepth; ++this.depthPhase1) {
+            final int length = this.phase1(0, this.depthPhase1);
+            if (length >= 0) {
+                final MoveSequence s = new MoveSequence(length * 2);
+                for (int i = 0; i < length; ++i) {
+                    final Turn t = FACES[this.axis[i]];
+                    switch (this.power[i]) {
+                        case 1:
+                            s.append(t);
+                            break;
+                        case 2:
+                            s.append(t).append(t);
+                            break;
+                        default:
+                            s.append(t.inverse());
+                    }
+                }
+                return s;
+            }
+        }
+        throw new NoSolutionException("No solution exists within "
+                                      + this.maxDepth + " moves");
+    }
+    /**
+     * Checks whether a move can be skipped after another one: moves on the
+     * same face are merged, and moves on opposite faces commute, so they are
+     * searched in one order only.
+     * @param last Axis of the previous move.
+     * @param a Axis of the move.
+     * @return <tt>true</tt> if and only if the move can be skipped.
+     */
+    private static boolean isRedundant(final int last, final int a) {
+        return a == last || a == last - NUM_AXES / 2;
+    }
+    /**
+     * Gets the lower bound of the phase 1 distance of a node.
+     * @param n Depth of the node on the path.
+     * @return Lower bound of the number of moves bringing the node into
+     * <tt>H</tt>.
+     */
+    private int phase1Distance(final int n) {
+        return Math.max(
+            KociembaCoordinateCube.getPruning(
+                KociembaCoordinateCube.Slice_Flip_Prun,
+                KociembaCoordinateCube.N_SLICE1 * this.flip[n]
+                    + this.slice[n]),
+            KociembaCoordinateCube.getPruning(
+                KociembaCoordinateCube.Slice_Twist_Prun,
+                KociembaCoordinateCube.N_SLICE1 * this.twist[n]
+                    + this.slice[n]));
+    }
+    /**
+     * Gets the lower bound of the phase 2 distance of a node.
+     * @param n Depth of the node on the path.
+     * @return Lower bound of the number of moves solving the node.
+     */
+    private int phase2Distance(final int n) {
+        return Math.max(
+            KociembaCoordinateCube.getPruning(
+                KociembaCoordinateCube.Slice_URFtoDLF_Parity_Prun,
+                (KociembaCoordinateCube.N_SLICE2 * this.urfToDlf[n]
+                    + this.frToBr[n]) * 2 + this.parity[n]),
+            KociembaCoordinateCube.getPruning(
+                KociembaCoordinateCube.Slice_URtoDF_Parity_Prun,
+                (KociembaCoordinateCube.N_SLICE2 * this.urToDf[n]
+                    + this.frToBr[n]) * 2 + this.parity[n]));
+    }
+    /**
+     * Explores the phase 1 subtree rooted at a node.
+     * @param n Depth of the node on the path.
+     * @param togo Number of phase 1 moves left.
+     * @return The length of the solution if one was found (the moves are
+     * stored in <tt>axis</tt> and <tt>power</tt>), <tt>-1</tt> otherwise.
+     * @throws TimeoutException Thrown if the search budget was exhausted or
+     * the execution was interrupted.
+     */
+    private int phase1(final int n, final int togo) throws TimeoutException {
+        if (togo == 0) {
+            return this.startPhase2();
+        }
+        for (int a = 0; a < NUM_AXES; ++a) {
+            if (n > 0 && isRedundant(this.axis[n - 1], a)) {
+                continue;
+            }
+            for (int p = 1; p <= MAX_POWER; ++p) {
+                this.monitor.visit();
+                final int mv = 3 * a + p - 1;
+                this.twist[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.twistMove, this.twist[n], mv);
+                this.flip[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.flipMove, this.flip[n], mv);
+                this.slice[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.FRtoBR_Move,
+                    this.slice[n] * KociembaCoordinateCube.N_SLICE2, mv)
+                    / KociembaCoordinateCube.N_SLICE2;
+                final int h = this.phase1Distance(n + 1);
+                if (h >= togo
+                        || h == 0 && togo > 1 && togo <= PHASE1_MIN_DETOUR) {
+                    continue;
+                }
+                this.axis[n] = a;
+                this.power[n] = p;
+                final int length = this.phase1(n + 1, togo - 1);
+                if (length >= 0) {
+                    return length;
+                }
+            }
+        }
+        return -1;
+    }
+    /**
+     * Completes the phase 1 solution on the path with the shortest phase 2
+     * solution fitting in the maximum length.
+     * @return The length of the solution if one was found, <tt>-1</tt>
+     * otherwise.
+     * @throws TimeoutException Thrown if the search budget was exhausted or
+     * the execution was interrupted.
+     */
+    private int startPhase2() throws TimeoutException {
+        final int d1 = this.depthPhase1;
+        final int limit = Math.min(PHASE2_MAX_DEPTH, this.maxDepth - d1);
+        // The phase 2 coordinates are computed only now, since few phase 1
+        // solutions get here.
+        for (int i = 0; i < d1; ++i) {
+            final int mv = 3 * this.axis[i] + this.power[i] - 1;
+            this.urfToDlf[i + 1] = KociembaCoordinateCube.moveCoordinate(
+                KociembaCoordinateCube.URFtoDLF_Move, this.urfToDlf[i], mv);
+            this.frToBr[i + 1] = KociembaCoordinateCube.moveCoordinate(
+                KociembaCoordinateCube.FRtoBR_Move, this.frToBr[i], mv);
+            this.parity[i + 1] =
+                KociembaCoordinateCube.parityMove[this.parity[i]][mv];
+        }
+        if (KociembaCoordinateCube.getPruning(
+                KociembaCoordinateCube.Slice_URFtoDLF_Parity_Prun,
+                (KociembaCoordinateCube.N_SLICE2 * this.urfToDlf[d1]
+                    + this.frToBr[d1]) * 2 + this.parity[d1]) > limit) {
+            return -1;
+        }
+        for (int i = 0; i < d1; ++i) {
+            final int mv = 3 * this.axis[i] + this.power[i] - 1;
+            this.urToUl[i + 1] = KociembaCoordinateCube.moveCoordinate(
+                KociembaCoordinateCube.URtoUL_Move, this.urToUl[i], mv);
+            this.ubToDf[i + 1] = KociembaCoordinateCube.moveCoordinate(
+                KociembaCoordinateCube.UBtoDF_Move, this.ubToDf[i], mv);
+        }
+        this.urToDf[d1] = KociembaCoordinateCube.MergeURtoULandUBtoDF.get(
+            this.urToUl[d1] * KociembaCoordinateCube.N_MERGE
+            + this.ubToDf[d1]);
+        for (int d2 = this.phase2Distance(d1); d2 <= limit; ++d2) {
+            if (this.phase2(d1, d2)) {
+                return d1 + d2;
+            }
+        }
+        return -1;
+    }
+    /**
+     * Explores the phase 2 subtree rooted at a node.
+     * @param n Depth of the node on the path.
+     * @param togo Number of phase 2 moves left.
+     * @return <tt>true</tt> if and only if a solution was found (the moves
+     * are stored in <tt>axis</tt> and <tt>power</tt>).
+     * @throws TimeoutException Thrown if the search budget was exhausted or
+     * the execution was interrupted.
+     */
+    private boolean phase2(final int n, final int togo)
+            throws TimeoutException {
+        if (togo == 0) {
+            return true;
+        }
+        for (int a = 0; a < NUM_AXES; ++a) {
+            if (n > 0 && isRedundant(this.axis[n - 1], a)) {
+                continue;
+            }
+            // Only the U and D faces can be turned by a quarter.
+            final boolean quarter = a % (NUM_AXES / 2) == 0;
+            for (int p = quarter ? 1 : 2; p <= MAX_POWER;
+                 p += quarter ? 1 : 2) {
+                this.monitor.visit();
+                final int mv = 3 * a + p - 1;
+                this.urfToDlf[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.URFtoDLF_Move, this.urfToDlf[n],
+                    mv);
+                this.frToBr[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.FRtoBR_Move, this.frToBr[n], mv);
+                this.parity[n + 1] =
+                    KociembaCoordinateCube.parityMove[this.parity[n]][mv];
+                this.urToDf[n + 1] = KociembaCoordinateCube.moveCoordinate(
+                    KociembaCoordinateCube.URtoDF_Move, this.urToDf[n], mv);
+                if (this.phase2Distance(n + 1) >= togo) {
+                    continue;
+                }
+                this.axis[n] = a;
+                this.power[n] = p;
+                if (this.phase2(n + 1, togo - 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
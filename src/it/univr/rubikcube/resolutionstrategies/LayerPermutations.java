@@ -0,0 +1,380 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.ColumnRotation;
+import it.univr.rubikcube.model.LateralColumnRotation;
+import it.univr.rubikcube.model.RowRotation;
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Permutations of the facelets of a cube of any dimension by the quarter
+ * turns of its layers, and the orbits of the centers and of the wings they
+ * move.
+ *
+ * The facelet <tt>(side, i, j)</tt> is numbered
+ * <tt>side.ordinal() * n * n + i * n + j</tt>, and the layer
+ * <tt>index</tt> of a kind is numbered <tt>kind * n + index</tt>. The
+ * permutations are read from the model itself, turning cubes whose colors
+ * spell the digits in base six of the number of every facelet, and are
+ * shared by all the solvers of cubes of the same dimension.
+ * @author Alessandro Menti
+ */
+final class LayerPermutations {
+    /**
+     * Kind of the layers turned by <tt>RubikCubeModel.rotateRow</tt>
+     * (clockwise).
+     */
+    static final int ROW = 0;
+    /**
+     * Kind of the layers turned by <tt>RubikCubeModel.rotateColumn</tt>
+     * (towards the top).
+     */
+    static final int COLUMN = 1;
+    /**
+     * Kind of the layers turned by
+     * <tt>RubikCubeModel.rotateLateralColumn</tt> (towards the right).
+     */
+    static final int LATERAL = 2;
+    /**
+     * Number of kinds of layers.
+     */
+    static final int KINDS = 3;
+    /**
+     * Number of positions in every orbit of centers and wings.
+     */
+    static final int ORBIT = 24;
+    /**
+     * Permutations already computed, by dimension.
+     */
+    private static final ConcurrentMap<Integer, LayerPermutations> CACHE =
+        new ConcurrentHashMap<>();
+    /**
+     * Dimension of the cube.
+     */
+    private final int dimension;
+    /**
+     * Position reached by every facelet with a quarter turn of every layer.
+     */
+    private final int[][] next;
+    /**
+     * Facelets moved by a quarter turn of every layer.
+     */
+    private final int[][] moved;
+    /**
+     * Facelets of every orbit of centers.
+     */
+    private final List<int[]> centers;
+    /**
+     * Facelets of every orbit of wings: the facelets of the wings in the
+     * same place whichever position they are moved to, and the other
+     * facelets.
+     */
+    private final List<int[][]> wings;
+    /**
+     * Position of every facelet in its orbit of centers or wings, or -1.
+     */
+    private final int[] position;
+    /**
+     * Computes the permutations of a cube.
+     * @param n Dimension of the cube.
+     */
+    private LayerPermutations(final int n) {
+        this.dimension = n;
+        final int size = this.getFacelets();
+        final int layers = KINDS * n;
+        this.next = new int[layers][size];
+        final RubikCubeFaceColor[] colors = RubikCubeFaceColor.values();
+        for (int w = 1; w < size; w *= colors.length) {
+            final RubikCubeModel m = new RubikCubeModel(n);
+            for (int p = 0; p < size; ++p) {
+                m.setFace(side(p, n), p / n % n, p % n,
+                          colors[p / w % colors.length]);
+            }
+            for (int l = 0; l < layers; ++l) {
+                final RubikCubeModel c = new RubikCubeModel(m);
+                turn(c, l / n, l % n);
+                // The colors of every position spell the facelet moved
+                // there.
+                for (int p = 0; p < size; ++p) {
+                    this.next[l][p] += w * c.getFace(side(p, n), p / n % n,
+                                                     p % n).ordinal();
+                }
+            }
+        }
+        this.moved = new int[layers][];
+        for (int l = 0; l < layers; ++l) {
+            final int[] from = this.next[l];
+            final int[] to = new int[size];
+            int count = 0;
+            for (int p = 0; p < size; ++p) {
+                to[from[p]] = p;
+                if (from[p] != p) {
+                    ++count;
+                }
+            }
+            this.next[l] = to;
+            this.moved[l] = new int[count];
+            count = 0;
+            for (int p = 0; p < size; ++p) {
+                if (to[p] != p) {
+                    this.moved[l][count++] = p;
+                }
+            }
+        }
+        this.centers = new ArrayList<>();
+        this.wings = new ArrayList<>();
+        this.position = new int[size];
+        Arrays.fill(this.position, -1);
+        this.findOrbits();
+    }
+    /**
+     * Gets the permutations of the cubes of a dimension.
+     * @param n Dimension of the cube.
+     * @return The permutations, computed on first use.
+     */
+    static LayerPermutations of(final int n) {
+        return CACHE.computeIfAbsent(n, LayerPermutations::new);
+    }
+    /**
+     * Turns a layer of a cube by a quarter turn.
+     * @param m Cube.
+     * @param kind Kind of the layer.
+     * @param index Index of the layer.
+     */
+    private static void turn(final RubikCubeModel m, final int kind,
+                             final int index) {
+        switch (kind) {
+            case ROW:
+                m.rotateRow(index, RowRotation.CLOCKWISE);
+                break;
+            case COLUMN:
+                m.rotateColumn(index, ColumnRotation.TOP);
+                break;
+            default:
+                m.rotateLateralColumn(index, LateralColumnRotation.RIGHT);
+                break;
+        }
+    }
+    /**
+     * Gets the side of a facelet.
+     * @param p Facelet.
+     * @param n Dimension of the cube.
+     * @return Side of the facelet.
+     */
+    private static RubikCubeSide side(final int p, final int n) {
+        return RubikCubeSide.values()[p / (n * n)];
+    }
+    /**
+     * Groups the facelets in pieces, by the layers moving them, and the
+     * pieces in orbits, by the turns moving them into each other.
+     */
+    private void findOrbits() {
+        final int n = this.dimension;
+        final int size = this.getFacelets();
+        final int[] coordinates = new int[size];
+        final int[] root = new int[size];
+        for (int p = 0; p < size; ++p) {
+            root[p] = p;
+        }
+        for (int l = 0; l < this.next.length; ++l) {
+            final int shift = l / n * 8;
+            for (int p : this.moved[l]) {
+                coordinates[p] |= (l % n + 1) << shift;
+                final int a = find(root, p);
+                final int b = find(root, this.next[l][p]);
+                root[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+        final Map<Integer, List<Integer>> pieces = new HashMap<>();
+        for (int p = 0; p < size; ++p) {
+            pieces.computeIfAbsent(coordinates[p], k -> new ArrayList<>())
+                .add(p);
+        }
+        // The other facelet of every wing, and a facelet of every center
+        // and wing by orbit. The facelets of the wings are not moved into
+        // each other, so the orbit of a wing is the one of its first
+        // facelet.
+        final int[] mate = new int[size];
+        Arrays.fill(mate, -1);
+        final Map<Integer, List<Integer>> orbits = new HashMap<>();
+        for (List<Integer> piece : pieces.values()) {
+            int orbit = find(root, piece.get(0));
+            if (piece.size() == 2) {
+                mate[piece.get(0)] = piece.get(1);
+                mate[piece.get(1)] = piece.get(0);
+                orbit = Math.min(orbit, find(root, piece.get(1)));
+            }
+            if (piece.size() < 3) {
+                orbits.computeIfAbsent(orbit, k -> new ArrayList<>())
+                    .add(piece.get(0));
+            }
+        }
+        for (List<Integer> orbit : orbits.values()) {
+            // The fixed centers and the middle edges of odd cubes have
+            // smaller orbits.
+            if (orbit.size() != ORBIT) {
+                continue;
+            }
+            if (mate[orbit.get(0)] < 0) {
+                final int[] facelets = new int[ORBIT];
+                for (int k = 0; k < ORBIT; ++k) {
+                    facelets[k] = orbit.get(k);
+                }
+                Arrays.sort(facelets);
+                for (int k = 0; k < ORBIT; ++k) {
+                    this.position[facelets[k]] = k;
+                }
+                this.centers.add(facelets);
+            } else {
+                int first = orbit.get(0);
+                for (int p : orbit) {
+                    first = Math.min(first, Math.min(p, mate[p]));
+                }
+                this.wings.add(this.leadFacelets(first, mate));
+            }
+        }
+        this.centers.sort((a, b) -> Integer.compare(a[0], b[0]));
+        this.wings.sort((a, b) -> Integer.compare(a[0][0], b[0][0]));
+    }
+    /**
+     * Finds the facelets of the wings of an orbit which stay in the same
+     * place of the positions they are moved to (wings can not be flipped in
+     * place), starting from the first facelet of the orbit.
+     * @param first First facelet of the orbit.
+     * @param mate Other facelet of every wing.
+     * @return The lead facelets and the other facelets of the wings.
+     */
+    private int[][] leadFacelets(final int first, final int[] mate) {
+        final int[][] facelets = new int[2][ORBIT];
+        facelets[0][0] = first;
+        this.position[first] = 0;
+        this.position[mate[first]] = 0;
+        int count = 1;
+        for (int k = 0; k < count; ++k) {
+            for (int[] to : this.next) {
+                final int q = to[facelets[0][k]];
+                if (this.position[q] < 0) {
+                    this.position[q] = count;
+                    this.position[mate[q]] = count;
+                    facelets[0][count++] = q;
+                }
+            }
+        }
+        for (int k = 0; k < ORBIT; ++k) {
+            facelets[1][k] = mate[facelets[0][k]];
+        }
+        return facelets;
+    }
+    /**
+     * Finds the root of the set of a facelet.
+     * @param root Parent of every facelet.
+     * @param p Facelet.
+     * @return Root of the set of the facelet.
+     */
+    private static int find(final int[] root, final int p) {
+        int r = p;
+        while (root[r] != r) {
+            r = root[r];
+        }
+        return r;
+    }
+    /**
+     * Gets the dimension of the cube.
+     * @return Dimension of the cube.
+     */
+    int getDimension() {
+        return this.dimension;
+    }
+    /**
+     * Gets the number of facelets of the cube.
+     * @return Number of facelets.
+     */
+    int getFacelets() {
+        return RubikCubeSide.values().length * this.dimension
+            * this.dimension;
+    }
+    /**
+     * Gets the number of a facelet.
+     * @param s Side of the facelet.
+     * @param i Row of the facelet.
+     * @param j Column of the facelet.
+     * @return Number of the facelet.
+     */
+    int facelet(final RubikCubeSide s, final int i, final int j) {
+        return (s.ordinal() * this.dimension + i) * this.dimension + j;
+    }
+    /**
+     * Gets the side of a facelet.
+     * @param p Facelet.
+     * @return Side of the facelet.
+     */
+    RubikCubeSide side(final int p) {
+        return side(p, this.dimension);
+    }
+    /**
+     * Gets the position reached by a facelet with a quarter turn.
+     * @param layer Layer turned.
+     * @param p Facelet.
+     * @return Position reached by the facelet.
+     */
+    int next(final int layer, final int p) {
+        return this.next[layer][p];
+    }
+    /**
+     * Gets the facelets moved by a quarter turn.
+     * @param layer Layer turned.
+     * @return Facelets moved, which must not be modified.
+     */
+    int[] moved(final int layer) {
+        return this.moved[layer];
+    }
+    /**
+     * Gets the orbits of the centers, in the order of their first facelet.
+     * @return Facelets of every orbit, which must not be modified.
+     */
+    List<int[]> getCenters() {
+        return this.centers;
+    }
+    /**
+     * Gets the orbits of the wings, in the order of their first facelet.
+     * @return Lead facelets and other facelets of the wings of every
+     * orbit, which must not be modified.
+     */
+    List<int[][]> getWings() {
+        return this.wings;
+    }
+    /**
+     * Gets the position of a facelet in its orbit of centers or wings.
+     * @param p Facelet.
+     * @return Position of the facelet, or -1 if it is not part of an orbit
+     * of centers or wings.
+     */
+    int position(final int p) {
+        return this.position[p];
+    }
+    /**
+     * Turns a layer of a cube by a quarter turn.
+     * @param facelets Content of every facelet of the cube.
+     * @param layer Layer turned.
+     * @param scratch Buffer of at least <tt>n * n + 4 * n</tt> elements.
+     */
+    void apply(final int[] facelets, final int layer, final int[] scratch) {
+        final int[] from = this.moved[layer];
+        final int[] to = this.next[layer];
+        for (int k = 0; k < from.length; ++k) {
+            scratch[k] = facelets[from[k]];
+        }
+        for (int k = 0; k < from.length; ++k) {
+            facelets[to[from[k]]] = scratch[k];
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.moves.Turn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Pattern database in the style of Korf: the exact number of quarter turns
+ * needed to bring a subset of the corners or of the edges to their solved
+ * position and orientation, for every placement of the subset.
+ *
+ * The cubies are tracked by <em>code</em>: the code of a corner is
+ * <tt>position * 3 + orientation</tt>, the code of an edge is
+ * <tt>position * 2 + orientation</tt>, positions and orientations being
+ * those of <tt>KociembaCubieCube</tt>. The distances are stored in four bits
+ * each and computed once by breadth-first search from the solved cube; the
+ * table is then saved to a file and memory-mapped by every later run.
+ *
+ * The distance of a cube never exceeds its distance from the solved state,
+ * so the maximum of the distances of several databases is an admissible
+ * heuristic for IDA* (see <tt>estimate</tt>).
+ * @author Alessandro Menti
+ */
+final class PatternDatabase {
+    /**
+     * Number of moves (the quarter turns of the faces, which are the first
+     * ones in <tt>Turn</tt>).
+     */
+    static final int NUM_MOVES = 12;
+    /**
+     * Number of corners.
+     */
+    static final int CORNERS = 8;
+    /**
+     * Number of edges.
+     */
+    static final int EDGES = 12;
+    /**
+     * Codes of the corners after a move, indexed by move and previous code.
+     */
+    static final int[][] CORNER_MOVES = new int[NUM_MOVES][CORNERS * 3];
+    /**
+     * Codes of the edges after a move, indexed by move and previous code.
+     */
+    static final int[][] EDGE_MOVES = new int[NUM_MOVES][EDGES * 2];
+    /**
+     * Name of the system property holding the directory the tables are
+     * stored in.
+     */
+    static final String DIRECTORY_PROPERTY = "it.univr.rubikcube.tables";
+    /**
+     * Identifier at the start of every pattern database file.
+     */
+    private static final int MAGIC = 0x52504442;
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 2;
+    /**
+     * Distance of the entries not reached yet while generating a table.
+     */
+    private static final int UNKNOWN = 0xF;
+    static {
+        final Turn[] turns = Turn.values();
+        for (int m = 0; m < NUM_MOVES; ++m) {
+            final RubikCubeModel c = new RubikCubeModel(3);
+            turns[m].apply(c);
+            final KociembaCubieCube cc = KociembaCubieCube.modelToCubieCube(c);
+            // The cubie in position j comes from position cp[j] and its
+            // orientation is increased by co[j].
+            for (int j = 0; j < CORNERS; ++j) {
+                final int from = cc.getCorner(j).ordinal();
+                for (int o = 0; o < 3; ++o) {
+                    CORNER_MOVES[m][from * 3 + o] =
+                        j * 3 + (o + cc.getCornerOrientation(j)) % 3;
+                }
+            }
+            for (int j = 0; j < EDGES; ++j) {
+                final int from = cc.getEdge(j).ordinal();
+                for (int o = 0; o < 2; ++o) {
+                    EDGE_MOVES[m][from * 2 + o] =
+                        j * 2 + (o + cc.getEdgeOrientation(j)) % 2;
+                }
+            }
+        }
+    }
+    /**
+     * Number of cubies of the tracked kind (8 for the corners, 12 for the
+     * edges).
+     */
+    private final int cubies;
+    /**
+     * Index of the first tracked cubie.
+     */
+    private final int first;
+    /**
+     * Number of tracked cubies.
+     */
+    private final int count;
+    /**
+     * Number of orientations of a cubie (3 for the corners, 2 for the
+     * edges).
+     */
+    private final int orientations;
+    /**
+     * Number of tracked cubies whose orientation is part of the index: when
+     * all the cubies are tracked, the orientation of the last one is implied
+     * by the others.
+     */
+    private final int oriented;
+    /**
+     * Number of placements of the orientations of the tracked cubies.
+     */
+    private final int orientationCount;
+    /**
+     * Number of entries of the table.
+     */
+    private final int size;
+    /**
+     * Distances, two per byte (the entry with index <tt>i</tt> is in the
+     * lower nibble of byte <tt>i / 2</tt> if <tt>i</tt> is even, in the upper
+     * one otherwise).
+     */
+    private final ByteBuffer table;
+    /**
+     * Creates a new pattern database over existing distances.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param f Index of the first tracked cubie.
+     * @param n Number of tracked cubies.
+     * @param t Distances (see <tt>table</tt>), or <tt>null</tt> to allocate
+     * a table where every distance is unknown.
+     */
+    private PatternDatabase(final boolean corners, final int f, final int n,
+                            final ByteBuffer t) {
+        this.cubies = corners ? CORNERS : EDGES;
+        this.orientations = corners ? 3 : 2;
+        this.first = f;
+        this.count = n;
+        this.oriented = n == this.cubies ? n - 1 : n;
+        int o = 1;
+        for (int i = 0; i < this.oriented; ++i) {
+            o *= this.orientations;
+        }
+        this.orientationCount = o;
+        this.size = entries(corners, n);
+        if (t == null) {
+            final byte[] b = new byte[(this.size + 1) / 2];
+            Arrays.fill(b, (byte) (UNKNOWN | UNKNOWN << 4));
+            this.table = ByteBuffer.wrap(b);
+        } else {
+            this.table = t;
+        }
+    }
+    /**
+     * Gets the number of entries of the pattern database of a subset of the
+     * cubies.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param n Number of tracked cubies.
+     * @return Number of entries.
+     */
+    static int entries(final boolean corners, final int n) {
+        final int total = corners ? CORNERS : EDGES;
+        int e = 1;
+        for (int i = 0; i < n; ++i) {
+            e *= total - i;
+            if (i < n - 1 || n < total) {
+                e *= corners ? 3 : 2;
+            }
+        }
+        return e;
+    }
+    /**
+     * Gets the pattern database of a subset of the cubies, loading it from
+     * the directory of the tables or generating (and saving) it if the file
+     * is missing or invalid.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param f Index of the first tracked cubie.
+     * @param n Number of tracked cubies.
+     * @return The pattern database.
+     * @throws IllegalArgumentException Thrown if the subset is empty or
+     * exceeds the available cubies.
+     */
+    static PatternDatabase load(final boolean corners, final int f,
+                                final int n)
+            throws IllegalArgumentException {
+        final int total = corners ? CORNERS : EDGES;
+        if (f < 0 || n <= 0 || f + n > total) {
+            throw new IllegalArgumentException("Invalid subset of cubies");
+        }
+        final Path file = getDirectory().resolve((corners ? "corners" : "edges")
+                                                 + "-" + f + "-" + n + ".pdb");
+        final ByteBuffer t = format(corners, f, n).load(
+            file, () -> generate(corners, f, n).table);
+        return new PatternDatabase(corners, f, n, t);
+    }
+    /**
+     * Gets the directory the tables are stored in: the value of the system
+     * property <tt>it.univr.rubikcube.tables</tt> if set, the
+     * <tt>.rubikcube</tt> directory in the home of the user otherwise.
+     * @return Directory of the tables.
+     */
+    static Path getDirectory() {
+        final String d = System.getProperty(DIRECTORY_PROPERTY);
+        if (d != null) {
+            return Paths.get(d);
+        }
+        return Paths.get(System.getProperty("user.home"), ".rubikcube");
+    }
+    /**
+     * Generates a pattern database by breadth-first search from the solved
+     * cube. Each level is computed by a single scan of the table: while the
+     * frontier is small the moves are applied to the entries of the previous
+     * level, then (when most entries are known) every entry still unknown
+     * looks for a neighbor in the previous level.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param f Index of the first tracked cubie.
+     * @param n Number of tracked cubies.
+     * @return The generated pattern database.
+     * @throws IllegalStateException Thrown if some entries can not be
+     * reached or are too far to be stored in four bits.
+     */
+    static PatternDatabase generate(final boolean corners, final int f,
+                                    final int n) throws IllegalStateException {
+        final PatternDatabase db = new PatternDatabase(corners, f, n, null);
+        final int[][] moves = corners ? CORNER_MOVES : EDGE_MOVES;
+        final int[] codes = new int[n];
+        final int[] next = new int[n];
+        // The solved cube has every tracked cubie in its own position.
+        for (int k = 0; k < n; ++k) {
+            codes[k] = (f + k) * db.orientations;
+        }
+        db.set(db.index(codes, 0), 0);
+        int reached = 1;
+        int frontier = 1;
+        for (int depth = 0; frontier > 0; ++depth) {
+            final boolean backward = frontier > db.size - reached;
+            frontier = 0;
+            for (int i = 0; i < db.size; ++i) {
+                final int d = db.get(i);
+                if (backward ? d != UNKNOWN : d != depth) {
+                    continue;
+                }
+                db.decode(i, codes);
+                for (int m = 0; m < NUM_MOVES; ++m) {
+                    for (int k = 0; k < n; ++k) {
+                        next[k] = moves[m][codes[k]];
+                    }
+                    final int j = db.index(next, 0);
+                    if (backward) {
+                        if (db.get(j) == depth) {
+                            db.set(i, depth + 1);
+                            ++frontier;
+                            break;
+                        }
+                    } else if (db.get(j) == UNKNOWN) {
+                        db.set(j, depth + 1);
+                        ++frontier;
+                    }
+                }
+            }
+            if (frontier > 0 && depth + 1 >= UNKNOWN) {
+                throw new IllegalStateException("Distances exceed four bits");
+            }
+            reached += frontier;
+        }
+        if (reached != db.size) {
+            throw new IllegalStateException("Only " + reached + " of "
+                                            + db.size + " entries reached");
+        }
+        return db;
+    }
+    /**
+     * Gets the format of the file of a pattern database, identified by the
+     * tracked subset of the cubies.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param f Index of the first tracked cubie.
+     * @param n Number of tracked cubies.
+     * @return Format of the file.
+     */
+    private static TableFile format(final boolean corners, final int f,
+                                    final int n) {
+        return new TableFile(MAGIC, VERSION, (entries(corners, n) + 1) / 2,
+                             corners ? CORNERS : EDGES, f, n);
+    }
+    /**
+     * Reads a pattern database from a file, memory-mapping its distances.
+     * @param file File to be read.
+     * @param corners <tt>true</tt> to track corners, <tt>false</tt> to track
+     * edges.
+     * @param f Index of the first tracked cubie.
+     * @param n Number of tracked cubies.
+     * @return The pattern database, or <tt>null</tt> if the file does not
+     * exist, does not hold the requested table or is corrupt.
+     * @throws IOException Thrown if the file can not be read.
+     */
+    static PatternDatabase read(final Path file, final boolean corners,
+                                final int f, final int n) throws IOException {
+        final ByteBuffer t = format(corners, f, n).read(file);
+        if (t == null) {
+            return null;
+        }
+        return new PatternDatabase(corners, f, n, t);
+    }
+    /**
+     * Writes the pattern database to a file.
+     * @param file File to be written.
+     * @throws IOException Thrown if the file can not be written.
+     */
+    void write(final Path file) throws IOException {
+        format(this.cubies == CORNERS, this.first, this.count)
+            .write(file, this.table);
+    }
+    /**
+     * Gets the number of entries of the table.
+     * @return Number of entries.
+     */
+    int size() {
+        return this.size;
+    }
+    /**
+     * Gets the minimum number of quarter turns needed to solve the tracked
+     * cubies.
+     * @param codes Codes of all the cubies of the tracked kind, indexed by
+     * cubie.
+     * @return Distance of the tracked cubies from the solved state.
+     */
+    int distance(final int[] codes) {
+        return this.get(this.index(codes, this.first));
+    }
+    /**
+     * Gets the index of the entry of a placement of the tracked cubies: the
+     * rank of their positions as a partial permutation, followed by their
+     * orientations.
+     * @param codes Codes of the cubies.
+     * @param offset Index in <tt>codes</tt> of the first tracked cubie.
+     * @return Index of the entry.
+     */
+    private int index(final int[] codes, final int offset) {
+        int used = 0;
+        int rank = 0;
+        int ori = 0;
+        for (int i = 0; i < this.count; ++i) {
+            final int c = codes[offset + i];
+            final int p = c / this.orientations;
+            rank = rank * (this.cubies - i)
+                + p - Integer.bitCount(used & ((1 << p) - 1));
+            used |= 1 << p;
+            if (i < this.oriented) {
+                ori = ori * this.orientations + c % this.orientations;
+            }
+        }
+        return rank * this.orientationCount + ori;
+    }
+    /**
+     * Gets the codes of the tracked cubies from the index of an entry (the
+     * inverse of <tt>index</tt>).
+     * @param index Index of the entry.
+     * @param codes Array receiving the codes of the tracked cubies.
+     */
+    private void decode(final int index, final int[] codes) {
+        int ori = index % this.orientationCount;
+        int rank = index / this.orientationCount;
+        int sum = 0;
+        for (int i = this.count - 1; i >= 0; --i) {
+            int o;
+            if (i < this.oriented) {
+                o = ori % this.orientations;
+                ori /= this.orientations;
+                sum += o;
+            } else {
+                // The orientations of all the cubies add up to zero.
+                o = 0;
+            }
+            final int radix = this.cubies - i;
+            codes[i] = rank % radix * this.orientations + o;
+            rank /= radix;
+        }
+        if (this.oriented < this.count) {
+            codes[this.count - 1] += (this.orientations
+                                      - sum % this.orientations)
+                % this.orientations;
+        }
+        // Turn the digits of the rank into positions, skipping those in use.
+        int used = 0;
+        for (int i = 0; i < this.count; ++i) {
+            int digit = codes[i] / this.orientations;
+            int p = 0;
+            while (true) {
+                if ((used & (1 << p)) == 0) {
+                    if (digit == 0) {
+                        break;
+                    }
+                    --digit;
+                }
+                ++p;
+            }
+            used |= 1 << p;
+            codes[i] = p * this.orientations + codes[i] % this.orientations;
+        }
+    }
+    /**
+     * Gets the distance stored in an entry.
+     * @param i Index of the entry.
+     * @return Distance stored in the entry.
+     */
+    private int get(final int i) {
+        return (this.table.get(i >>> 1) >>> ((i & 1) << 2)) & 0xF;
+    }
+    /**
+     * Stores a distance in an entry.
+     * @param i Index of the entry.
+     * @param d Distance.
+     */
+    private void set(final int i, final int d) {
+        final int shift = (i & 1) << 2;
+        final int b = this.table.get(i >>> 1);
+        this.table.put(i >>> 1, (byte) ((b & ~(0xF << shift)) | d << shift));
+    }
+    /**
+     * Pattern databases of Korf's solver, loaded when first used: all the
+     * corners and two halves of the edges.
+     */
+    private static final class Korf {
+        /**
+         * Database of the eight corners (8! * 3^7 entries).
+         */
+        static final PatternDatabase CORNER_TABLE = load(true, 0, CORNERS);
+        /**
+         * Database of the edges UR, UF, UL, UB, DR, DF (12!/6! * 2^6 entries).
+         */
+        static final PatternDatabase FIRST_EDGE_TABLE =
+            load(false, 0, EDGES / 2);
+        /**
+         * Database of the edges DL, DB, FR, FL, BL, BR.
+         */
+        static final PatternDatabase SECOND_EDGE_TABLE =
+            load(false, EDGES / 2, EDGES / 2);
+        /**
+         * Creates a new holder (not allowed).
+         */
+        private Korf() {
+            // Empty, nothing to do
+        }
+        /**
+         * Loads (or generates) the databases, if not loaded yet.
+         */
+        static void initialize() {
+            // Empty: initializing the class loads the databases
+        }
+    }
+    /**
+     * Loads (or generates) Korf's pattern databases, if not loaded yet.
+     */
+    static void loadKorf() {
+        Korf.initialize();
+    }
+    /**
+     * Estimates the number of quarter turns needed to solve a cube as the
+     * maximum of the distances stored in Korf's pattern databases. The first
+     * call loads (or generates) the databases.
+     * @param corners Codes of the corners, indexed by corner.
+     * @param edges Codes of the edges, indexed by edge.
+     * @return Lower bound of the distance of the cube from the solved state.
+     */
+    static int estimate(final int[] corners, final int[] edges) {
+        return Math.max(Korf.CORNER_TABLE.distance(corners),
+                        Math.max(Korf.FIRST_EDGE_TABLE.distance(edges),
+                                 Korf.SECOND_EDGE_TABLE.distance(edges)));
+    }
+}
@@ -0,0 +1,549 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optimal solver of 2x2x2 cubes, reading the distance of every position
+ * from a complete table.
+ *
+ * The cube is solved with the quarter turns of the U, R and F faces, which
+ * never move the DBL corner, so a position is identified by the permutation
+ * and the orientations of the other seven corners and the colors of the
+ * DBL corner decide the colors of the faces. The table holds the distance
+ * of each of the <tt>7! * 3^6 = 3674160</tt> positions from the solved cube
+ * modulo three, in two bits: it is built once by breadth-first search and
+ * saved with the other tables. Since a turn changes the distance by one,
+ * the neighbours one turn nearer to the solved cube are known from the
+ * table, and following them gives an optimal solution (in the quarter turn
+ * metric, at most 14 turns) in a few table lookups.
+ * @author Alessandro Menti
+ */
+public class PocketCube extends ResolutionStrategy {
+    /**
+     * Dimension of the cubes solved by this strategy.
+     */
+    private static final int DIMENSION = 2;
+    /**
+     * Number of corners.
+     */
+    private static final int CORNERS = 8;
+    /**
+     * Number of permutations of the corners, the DBL corner being fixed.
+     */
+    private static final int N_PERMUTATION = 5040;
+    /**
+     * Number of orientations of the corners, the DBL corner being fixed.
+     */
+    private static final int N_TWIST = 729;
+    /**
+     * Number of positions.
+     */
+    static final int N_POSITIONS = N_PERMUTATION * N_TWIST;
+    /**
+     * Turns solving the cube.
+     */
+    private static final Turn[] MOVES = {
+        Turn.U, Turn.U_PRIME, Turn.R, Turn.R_PRIME, Turn.F, Turn.F_PRIME,
+    };
+    /**
+     * Sides of the facelets of every corner position, in the order URF,
+     * UFL, ULB, UBR, DFR, DLF, DRB, DBL; the facelet on the U or D side
+     * comes first, the others follow clockwise. The corner at a position
+     * is the one whose sides are these.
+     */
+    private static final RubikCubeSide[][] CORNER_SIDES = {
+        {RubikCubeSide.UP, RubikCubeSide.RIGHT, RubikCubeSide.FRONT},
+        {RubikCubeSide.UP, RubikCubeSide.FRONT, RubikCubeSide.LEFT},
+        {RubikCubeSide.UP, RubikCubeSide.LEFT, RubikCubeSide.BACK},
+        {RubikCubeSide.UP, RubikCubeSide.BACK, RubikCubeSide.RIGHT},
+        {RubikCubeSide.DOWN, RubikCubeSide.FRONT, RubikCubeSide.RIGHT},
+        {RubikCubeSide.DOWN, RubikCubeSide.LEFT, RubikCubeSide.FRONT},
+        {RubikCubeSide.DOWN, RubikCubeSide.RIGHT, RubikCubeSide.BACK},
+        {RubikCubeSide.DOWN, RubikCubeSide.BACK, RubikCubeSide.LEFT},
+    };
+    /**
+     * Cells (<tt>2 * row + column</tt>) of the facelets of every corner
+     * position on their sides.
+     */
+    private static final int[][] CORNER_CELLS = {
+        {3, 0, 1}, {2, 0, 1}, {0, 0, 1}, {1, 0, 1},
+        {1, 3, 2}, {0, 3, 2}, {3, 3, 2}, {2, 3, 2},
+    };
+    /**
+     * Position of the DBL corner, which is never moved.
+     */
+    private static final int DBL = 7;
+    /**
+     * Creates a new instance of the distance table solver.
+     * @param m Rubik cube model.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * not equal to two.
+     */
+    public PocketCube(final RubikCubeModel m) throws IllegalArgumentException {
+        super(m);
+        if (m.getDimension() != DIMENSION) {
+            throw new IllegalArgumentException("The dimension of the cube must"
+                                               + " be equal to two");
+        }
+    }
+    /**
+     * Gets the name of this method.
+     * @return <tt>2x2x2 distance table</tt>
+     */
+    @Override
+    public final String toString() {
+        return "2x2x2 distance table";
+    }
+    /**
+     * Gets a textual description of this method.
+     * @return <tt>The distance table holds how far every position of the
+     * 2x2x2 cube is from the solved one, so the shortest solutions are found
+     * by always turning towards a nearer position.</tt>
+     */
+    @Override
+    public final String getDescription() {
+        return "The distance table holds how far every position of the 2x2x2"
+            + " cube is from the solved one, so the shortest solutions are"
+            + " found by always turning towards a nearer position.";
+    }
+    /**
+     * Gets the readiness of the table of the strategy, starting to load it
+     * in the background if needed.
+     * @return Future completed when the table is ready.
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+        return TableWarmUp.pocketCube();
+    }
+    /**
+     * Gets a list of next moves.
+     * @return List of next moves.
+     * @throws NoSolutionException Thrown in case the cube can not be solved.
+     * @throws TimeoutException Thrown in case the search budget is exhausted
+     * or the thread was interrupted.
+     */
+    @Override
+    public final List<Move> getNextMoves() throws NoSolutionException,
+            TimeoutException {
+        return this.getNextMoveSequence().toMoves(this.getModel());
+    }
+    /**
+     * Gets the shortest sequence of next moves.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the cube can not be solved.
+     * @throws TimeoutException Thrown in case the search budget is exhausted
+     * or the thread was interrupted.
+     */
+    @Override
+    public final MoveSequence getNextMoveSequence()
+            throws NoSolutionException, TimeoutException {
+        this.getBudget().start().check();
+        final int[] cp = new int[CORNERS];
+        final int[] co = new int[CORNERS];
+        readCorners(this.getModel(), cp, co);
+        int perm = Table.permutation(cp);
+        int twist = Table.twist(co);
+        final MoveSequence s = new MoveSequence();
+        while (perm != 0 || twist != 0) {
+            final int nearer =
+                (Table.distance(perm * N_TWIST + twist) + 2) % 3;
+            int m = 0;
+            while (Table.distance(Table.movePermutation(perm, m) * N_TWIST
+                                  + Table.moveTwist(twist, m)) != nearer) {
+                if (++m == MOVES.length) {
+                    throw new IllegalStateException("The distance table is"
+                                                    + " not valid");
+                }
+            }
+            s.append(MOVES[m]);
+            perm = Table.movePermutation(perm, m);
+            twist = Table.moveTwist(twist, m);
+        }
+        return s;
+    }
+    /**
+     * Reads the corners of a cube.
+     * @param m Cube (of dimension two).
+     * @param cp Filled with the corner at every position.
+     * @param co Filled with the orientation of the corner at every position
+     * (the index of its U or D facelet in <tt>CORNER_SIDES</tt>).
+     * @throws NoSolutionException Thrown if the cube has not the colors of a
+     * cube, or a corner is twisted.
+     */
+    static void readCorners(final RubikCubeModel m, final int[] cp,
+                            final int[] co) throws NoSolutionException {
+        final RubikCubeSide[] sideOf = sidesOf(m);
+        final boolean[] found = new boolean[CORNERS];
+        int twist = 0;
+        for (int p = 0; p < CORNERS; ++p) {
+            final RubikCubeSide[] f = new RubikCubeSide[3];
+            int ori = -1;
+            for (int k = 0; k < 3; ++k) {
+                f[k] = sideOf[color(m, p, k).ordinal()];
+                if (f[k] == RubikCubeSide.UP || f[k] == RubikCubeSide.DOWN) {
+                    ori = k;
+                }
+            }
+            cp[p] = -1;
+            for (int j = 0; ori >= 0 && j < CORNERS; ++j) {
+                if (CORNER_SIDES[j][0] == f[ori]
+                    && CORNER_SIDES[j][1] == f[(ori + 1) % 3]
+                    && CORNER_SIDES[j][2] == f[(ori + 2) % 3]) {
+                    cp[p] = j;
+                }
+            }
+            if (cp[p] < 0 || found[cp[p]]) {
+                throw new NoSolutionException("The colors of the cube are not"
+                                              + " valid");
+            }
+            found[cp[p]] = true;
+            co[p] = ori;
+            twist += ori;
+        }
+        if (twist % 3 != 0) {
+            throw new NoSolutionException("A corner is twisted");
+        }
+    }
+    /**
+     * Gets the side of every color of a cube, decided by the colors of the
+     * DBL corner.
+     * @param m Cube (of dimension two).
+     * @return Side of every color, by ordinal.
+     * @throws NoSolutionException Thrown if the DBL corner has not the
+     * colors of a corner.
+     */
+    static RubikCubeSide[] sidesOf(final RubikCubeModel m)
+            throws NoSolutionException {
+        final RubikCubeSide[] sideOf =
+            new RubikCubeSide[RubikCubeFaceColor.values().length];
+        for (int k = 0; k < 3; ++k) {
+            final RubikCubeSide s = CORNER_SIDES[DBL][k];
+            final RubikCubeFaceColor c = color(m, DBL, k);
+            final RubikCubeFaceColor o =
+                opposite(standardSide(c)).getStandardColor();
+            if (sideOf[c.ordinal()] != null || sideOf[o.ordinal()] != null) {
+                throw new NoSolutionException("The colors of the cube are not"
+                                              + " valid");
+            }
+            sideOf[c.ordinal()] = s;
+            sideOf[o.ordinal()] = opposite(s);
+        }
+        return sideOf;
+    }
+    /**
+     * Gets the color of a facelet of a corner.
+     * @param m Cube (of dimension two).
+     * @param p Position of the corner.
+     * @param k Index of the facelet in <tt>CORNER_SIDES</tt>.
+     * @return Color of the facelet.
+     */
+    private static RubikCubeFaceColor color(final RubikCubeModel m,
+                                            final int p, final int k) {
+        final int cell = CORNER_CELLS[p][k];
+        return m.getFace(CORNER_SIDES[p][k], cell / 2, cell % 2);
+    }
+    /**
+     * Gets the side having a color in the standard configuration.
+     * @param c Color.
+     * @return Side of the color.
+     */
+    private static RubikCubeSide standardSide(final RubikCubeFaceColor c) {
+        for (RubikCubeSide s : RubikCubeSide.values()) {
+            if (s.getStandardColor() == c) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unknown color: " + c);
+    }
+    /**
+     * Gets the opposite side of a side.
+     * @param s Side.
+     * @return Opposite side.
+     */
+    private static RubikCubeSide opposite(final RubikCubeSide s) {
+        switch (s) {
+        case FRONT:
+            return RubikCubeSide.BACK;
+        case BACK:
+            return RubikCubeSide.FRONT;
+        case UP:
+            return RubikCubeSide.DOWN;
+        case DOWN:
+            return RubikCubeSide.UP;
+        case LEFT:
+            return RubikCubeSide.RIGHT;
+        default:
+            return RubikCubeSide.LEFT;
+        }
+    }
+    /**
+     * Move tables and distance table of the positions.
+     */
+    static final class Table {
+        /**
+         * Name of the file holding the distance table.
+         */
+        static final String FILE = "pocket.tables";
+        /**
+         * Identifier at the start of the file of the table.
+         */
+        private static final int MAGIC = 0x504B5443;
+        /**
+         * Version of the file format, to be increased whenever the layout or
+         * the content of the table change.
+         */
+        private static final int VERSION = 1;
+        /**
+         * Size in bytes of the distance table (four positions per byte).
+         */
+        private static final int SIZE = N_POSITIONS / 4;
+        /**
+         * Format of the file of the table.
+         */
+        private static final TableFile FORMAT =
+            new TableFile(MAGIC, VERSION, SIZE);
+        /**
+         * Entry of the positions whose distance is not known yet.
+         */
+        private static final int UNKNOWN = 3;
+        /**
+         * Permutation after every move, indexed by
+         * <tt>permutation * MOVES.length + move</tt>.
+         */
+        private static final short[] PERMUTATION_MOVE =
+            new short[N_PERMUTATION * MOVES.length];
+        /**
+         * Orientation after every move, indexed by
+         * <tt>twist * MOVES.length + move</tt>.
+         */
+        private static final short[] TWIST_MOVE =
+            new short[N_TWIST * MOVES.length];
+        /**
+         * Distance of every position from the solved cube modulo three, two
+         * bits per position.
+         */
+        private static final ByteBuffer DISTANCES;
+        static {
+            final int[] cp = new int[CORNERS];
+            final int[] co = new int[CORNERS];
+            final int[] p = new int[CORNERS];
+            final int[] o = new int[CORNERS];
+            for (int m = 0; m < MOVES.length; ++m) {
+                // Read the action of the move on the corners from the model.
+                final RubikCubeModel c = new RubikCubeModel(DIMENSION);
+                MOVES[m].apply(c);
+                try {
+                    readCorners(c, cp, co);
+                } catch (NoSolutionException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int i = 0; i < N_PERMUTATION; ++i) {
+                    setPermutation(i, p);
+                    for (int j = 0; j < CORNERS; ++j) {
+                        o[j] = p[cp[j]];
+                    }
+                    PERMUTATION_MOVE[i * MOVES.length + m] =
+                        (short) permutation(o);
+                }
+                for (int i = 0; i < N_TWIST; ++i) {
+                    setTwist(i, p);
+                    for (int j = 0; j < CORNERS; ++j) {
+                        o[j] = (p[cp[j]] + co[j]) % 3;
+                    }
+                    TWIST_MOVE[i * MOVES.length + m] = (short) twist(o);
+                }
+            }
+            DISTANCES = load(PatternDatabase.getDirectory().resolve(FILE));
+        }
+        /**
+         * Creates a new table holder (not allowed).
+         */
+        private Table() {
+            // Empty, nothing to do
+        }
+        /**
+         * Loads (or generates) the tables, if not loaded yet.
+         */
+        static void load() {
+            // Empty: initializing the class loads the tables
+        }
+        /**
+         * Gets the coordinate of the permutation of the corners.
+         * @param cp Corner at every position (the DBL corner being at its
+         * place).
+         * @return Rank of the permutation of the first seven corners.
+         */
+        static int permutation(final int[] cp) {
+            int r = 0;
+            for (int i = 0; i < DBL; ++i) {
+                int smaller = 0;
+                for (int j = i + 1; j < DBL; ++j) {
+                    if (cp[j] < cp[i]) {
+                        ++smaller;
+                    }
+                }
+                r = r * (DBL - i) + smaller;
+            }
+            return r;
+        }
+        /**
+         * Sets the permutation of the corners from its coordinate.
+         * @param r Rank of the permutation.
+         * @param cp Filled with the corner at every position.
+         */
+        static void setPermutation(final int r, final int[] cp) {
+            int n = r;
+            for (int i = DBL - 1; i >= 0; --i) {
+                cp[i] = n % (DBL - i);
+                n /= DBL - i;
+            }
+            // Turn the number of smaller corners following every position
+            // into the corners.
+            final boolean[] used = new boolean[CORNERS];
+            for (int i = 0; i < DBL; ++i) {
+                int j = 0;
+                for (int k = cp[i]; used[j] || k > 0; ++j) {
+                    if (!used[j]) {
+                        --k;
+                    }
+                }
+                used[j] = true;
+                cp[i] = j;
+            }
+            cp[DBL] = DBL;
+        }
+        /**
+         * Gets the coordinate of the orientations of the corners.
+         * @param co Orientation of the corner at every position.
+         * @return Orientations of the first six corners, in base three.
+         */
+        static int twist(final int[] co) {
+            int t = 0;
+            for (int i = 0; i < DBL - 1; ++i) {
+                t = t * 3 + co[i];
+            }
+            return t;
+        }
+        /**
+         * Sets the orientations of the corners from their coordinate.
+         * @param t Orientations of the first six corners, in base three.
+         * @param co Filled with the orientation of the corner at every
+         * position.
+         */
+        static void setTwist(final int t, final int[] co) {
+            int n = t;
+            int sum = 0;
+            for (int i = DBL - 2; i >= 0; --i) {
+                co[i] = n % 3;
+                sum += co[i];
+                n /= 3;
+            }
+            co[DBL - 1] = (3 - sum % 3) % 3;
+            co[DBL] = 0;
+        }
+        /**
+         * Gets the permutation after a move.
+         * @param perm Coordinate of the permutation.
+         * @param m Index of the move in <tt>MOVES</tt>.
+         * @return Coordinate of the permutation after the move.
+         */
+        static int movePermutation(final int perm, final int m) {
+            return PERMUTATION_MOVE[perm * MOVES.length + m];
+        }
+        /**
+         * Gets the orientations after a move.
+         * @param twist Coordinate of the orientations.
+         * @param m Index of the move in <tt>MOVES</tt>.
+         * @return Coordinate of the orientations after the move.
+         */
+        static int moveTwist(final int twist, final int m) {
+            return TWIST_MOVE[twist * MOVES.length + m];
+        }
+        /**
+         * Gets the distance of a position from the solved cube.
+         * @param position Coordinate of the position
+         * (<tt>permutation * 729 + twist</tt>).
+         * @return Distance modulo three.
+         */
+        static int distance(final int position) {
+            return (DISTANCES.get(position >>> 2) >>> ((position & 3) << 1))
+                & 3;
+        }
+        /**
+         * Gets the distance table, mapping it from a file or generating (and
+         * saving) it if the file is missing, stale or corrupt.
+         * @param file File of the table.
+         * @return Buffer holding the table.
+         */
+        static ByteBuffer load(final Path file) {
+            return FORMAT.load(file, () -> ByteBuffer.wrap(generate()));
+        }
+        /**
+         * Generates the distance table by breadth-first search from the
+         * solved cube. Every level is computed by a scan of the table,
+         * expanding the positions whose entry is the depth of the level
+         * modulo three: the positions three (or six, ...) levels nearer have
+         * the same entry, but all their neighbours are already known, so
+         * expanding them again does no harm.
+         * @return The distance table.
+         */
+        static byte[] generate() {
+            final byte[] t = new byte[SIZE];
+            Arrays.fill(t, (byte) 0xff);
+            set(t, 0, 0);
+            boolean found = true;
+            for (int depth = 0; found; ++depth) {
+                found = false;
+                final int entry = depth % 3;
+                final int next = (depth + 1) % 3;
+                for (int i = 0; i < N_POSITIONS; ++i) {
+                    if (get(t, i) != entry) {
+                        continue;
+                    }
+                    final int perm = i / N_TWIST;
+                    final int twist = i % N_TWIST;
+                    for (int m = 0; m < MOVES.length; ++m) {
+                        final int n = movePermutation(perm, m) * N_TWIST
+                            + moveTwist(twist, m);
+                        if (get(t, n) == UNKNOWN) {
+                            set(t, n, next);
+                            found = true;
+                        }
+                    }
+                }
+            }
+            return t;
+        }
+        /**
+         * Gets an entry of the distance table being generated.
+         * @param t Table.
+         * @param i Position.
+         * @return Entry of the position.
+         */
+        private static int get(final byte[] t, final int i) {
+            return (t[i >>> 2] >>> ((i & 3) << 1)) & 3;
+        }
+        /**
+         * Sets an entry of the distance table being generated.
+         * @param t Table.
+         * @param i Position.
+         * @param v Entry of the position.
+         */
+        private static void set(final byte[] t, final int i, final int v) {
+            final int shift = (i & 3) << 1;
+            t[i >>> 2] = (byte) (t[i >>> 2] & ~(3 << shift) | v << shift);
+        }
+    }
+}
@@ -0,0 +1,811 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Solver of cubes of dimension four or more by reduction to a 3x3 cube.
+ *
+ * The centers of every side are brought to a single color and the wings of
+ * every edge are paired, so that the cube is then solved as a 3x3 cube by
+ * <tt>KociembaLib</tt>, turning only the outer layers. The centers and the
+ * wings fall into orbits of 24 pieces, moved only among themselves; every
+ * orbit is solved by three-cycles, conjugating a commutator of an inner
+ * layer found once per orbit with the setup turns read from a table of the
+ * ordered triples of positions of the orbit, built by breadth-first search.
+ * Three-cycles do not change the parity of the permutation of the wings,
+ * so the parity of every orbit of wings is fixed by a quarter turn of an
+ * inner layer before the centers are solved, and the edges of even cubes
+ * are paired so that the parities of the 3x3 cube match: the 3x3 stage has
+ * no parity cases. Turns of parallel layers commute, so consecutive ones
+ * are merged into at most one turn per layer.
+ * @author Alessandro Menti
+ */
+public class Reduction extends ResolutionStrategy {
+    /**
+     * Minimum dimension of the cubes solved by this strategy.
+     */
+    private static final int MIN_DIMENSION = 4;
+    /**
+     * Number of positions in every orbit of centers and wings.
+     */
+    private static final int ORBIT = LayerPermutations.ORBIT;
+    /**
+     * Colors, by ordinal.
+     */
+    private static final RubikCubeFaceColor[] COLORS =
+        RubikCubeFaceColor.values();
+    /**
+     * Creates a new instance of the reduction solver.
+     * @param m Rubik cube model.
+     * @throws IllegalArgumentException Thrown if the dimension of the cube is
+     * less than four.
+     */
+    public Reduction(final RubikCubeModel m) throws IllegalArgumentException {
+        super(m);
+        if (m.getDimension() < MIN_DIMENSION) {
+            throw new IllegalArgumentException("The dimension of the cube must"
+                                               + " be at least four");
+        }
+    }
+    /**
+     * Gets the name of this method.
+     * @return <tt>Reduction</tt>
+     */
+    @Override
+    public final String toString() {
+        return "Reduction";
+    }
+    /**
+     * Gets a textual description of this method.
+     * @return <tt>The centers are grouped and the edges paired by
+     * commutators of the inner layers, then the cube is solved as a 3x3
+     * cube with the Kociemba algorithm.</tt>
+     */
+    @Override
+    public final String getDescription() {
+        return "The centers are grouped and the edges paired by commutators of"
+            + " the inner layers, then the cube is solved as a 3x3 cube with"
+            + " the Kociemba algorithm.";
+    }
+    /**
+     * Gets the readiness of the tables of the 3x3 stage, starting to load
+     * them in the background if needed.
+     * @return Future completed when the tables are ready.
+     */
+    @Override
+    public final CompletableFuture<Void> getReadiness() {
+        return TableWarmUp.kociemba();
+    }
+    /**
+     * Gets a list of next moves solving the cube.
+     * @return List of next moves.
+     * @throws NoSolutionException Thrown in case the cube can not be solved.
+     * @throws TimeoutException Thrown in case the search budget is exhausted
+     * or the thread was interrupted.
+     */
+    @Override
+    public final List<Move> getNextMoves() throws NoSolutionException,
+            TimeoutException {
+        return this.getNextMoveSequence().toMoves(this.getModel());
+    }
+    /**
+     * Gets a sequence of next moves solving the cube, turning its inner
+     * layers. The 3x3 stage is given what is left of the search budget.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the cube can not be solved.
+     * @throws TimeoutException Thrown in case the search budget is exhausted
+     * or the thread was interrupted.
+     */
+    @Override
+    public final MoveSequence getNextMoveSequence()
+            throws NoSolutionException, TimeoutException {
+        final SearchBudget.Monitor monitor = this.getBudget().start();
+        final Reducer r = new Reducer(this.getModel(), monitor);
+        r.reduce();
+        final KociembaLib k = new KociembaLib(r.toThreeByThree());
+        k.setBudget(monitor.remaining());
+        return r.toSequence().append(k.getNextMoveSequence());
+    }
+    /**
+     * Reduction of a copy of a cube, recording the turns made.
+     */
+    private static final class Reducer {
+        /**
+         * Dimension of the cube.
+         */
+        private final int n;
+        /**
+         * Permutations of the layers of the cube.
+         */
+        private final LayerPermutations layers;
+        /**
+         * Monitor of the search budget.
+         */
+        private final SearchBudget.Monitor monitor;
+        /**
+         * Color (ordinal) of every facelet.
+         */
+        private final int[] colors;
+        /**
+         * Color (ordinal) of every facelet of the centers and wings once
+         * reduced.
+         */
+        private final int[] targets;
+        /**
+         * Buffer of the turns.
+         */
+        private final int[] scratch;
+        /**
+         * Turns made, each coded as <tt>4 * layer + quarter turns</tt>.
+         */
+        private int[] turns;
+        /**
+         * Number of turns made.
+         */
+        private int count;
+        /**
+         * First of the last turns of parallel layers.
+         */
+        private int parallel;
+        /**
+         * Creates a new reduction of a copy of a cube.
+         * @param m Cube.
+         * @param mon Monitor of the search budget.
+         */
+        Reducer(final RubikCubeModel m, final SearchBudget.Monitor mon) {
+            this.n = m.getDimension();
+            this.layers = LayerPermutations.of(this.n);
+            this.monitor = mon;
+            this.colors = new int[this.layers.getFacelets()];
+            for (int p = 0; p < this.colors.length; ++p) {
+                this.colors[p] = m.getFace(this.layers.side(p),
+                                           p / this.n % this.n, p % this.n)
+                    .ordinal();
+            }
+            this.targets = new int[this.colors.length];
+            this.scratch = new int[this.n * this.n + 4 * this.n];
+            this.turns = new int[256];
+        }
+        /**
+         * Groups the centers and pairs the wings.
+         * @throws NoSolutionException Thrown if the cube has not the colors
+         * of a cube.
+         * @throws TimeoutException Thrown if the search budget is exhausted
+         * or the thread is interrupted.
+         */
+        void reduce() throws NoSolutionException, TimeoutException {
+            this.monitor.check();
+            final int[] found = new int[COLORS.length];
+            for (int c : this.colors) {
+                ++found[c];
+            }
+            for (int f : found) {
+                if (f != this.n * this.n) {
+                    throw new NoSolutionException("The colors of the cube are"
+                                                  + " not valid");
+                }
+            }
+            this.findTargets();
+            for (int[][] w : this.layers.getWings()) {
+                this.fixParity(w[0], w[1]);
+            }
+            for (int[] c : this.layers.getCenters()) {
+                this.solve(c, null);
+                this.monitor.check();
+            }
+            for (int[][] w : this.layers.getWings()) {
+                this.solve(w[0], w[1]);
+                this.monitor.check();
+            }
+        }
+        /**
+         * Finds the color of every side and the colors of the wings once
+         * paired. The centers of odd cubes decide the colors of the sides;
+         * on even cubes, the corners do, and the edges are paired so that
+         * the parity of their permutation matches the one of the corners.
+         * @throws NoSolutionException Thrown if the cube has not the colors
+         * of a cube.
+         */
+        private void findTargets() throws NoSolutionException {
+            final RubikCubeSide[] sides = RubikCubeSide.values();
+            final int[] side = new int[sides.length];
+            final int middle = this.n / 2;
+            final boolean odd = this.n % 2 == 1;
+            boolean swap = false;
+            if (odd) {
+                final boolean[] used = new boolean[COLORS.length];
+                for (RubikCubeSide s : sides) {
+                    side[s.ordinal()] = this.color(s, middle, middle);
+                    if (used[side[s.ordinal()]]) {
+                        throw new NoSolutionException("The colors of the cube"
+                                                      + " are not valid");
+                    }
+                    used[side[s.ordinal()]] = true;
+                }
+            } else {
+                final RubikCubeModel corners = new RubikCubeModel(2);
+                for (RubikCubeSide s : sides) {
+                    for (int i = 0; i < 2; ++i) {
+                        for (int j = 0; j < 2; ++j) {
+                            corners.setFace(s, i, j, COLORS[this.color(s,
+                                i * (this.n - 1), j * (this.n - 1))]);
+                        }
+                    }
+                }
+                final RubikCubeSide[] sideOf = PocketCube.sidesOf(corners);
+                for (int c = 0; c < COLORS.length; ++c) {
+                    side[sideOf[c].ordinal()] = c;
+                }
+                final int[] cp = new int[8];
+                PocketCube.readCorners(corners, cp, new int[8]);
+                swap = isOdd(cp);
+            }
+            for (int[] c : this.layers.getCenters()) {
+                for (int p : c) {
+                    this.targets[p] = side[this.layers.side(p).ordinal()];
+                }
+            }
+            for (int[][] w : this.layers.getWings()) {
+                for (int k = 0; k < ORBIT; ++k) {
+                    for (int f = 0; f < 2; ++f) {
+                        final int p = w[f][k];
+                        final int q = w[1 - f][k];
+                        final int i = p / this.n % this.n;
+                        final int j = p % this.n;
+                        final RubikCubeSide s = this.layers.side(p);
+                        if (odd) {
+                            // The middle edge of the same edge.
+                            this.targets[p] = i == 0 || i == this.n - 1
+                                ? this.color(s, i, middle)
+                                : this.color(s, middle, j);
+                        } else {
+                            this.targets[p] = side[this.swapped(s,
+                                this.layers.side(q), swap).ordinal()];
+                        }
+                    }
+                }
+            }
+        }
+        /**
+         * Gets the side whose color a wing facelet of an even cube takes:
+         * the UF and UR edges are exchanged if the permutation of the corners
+         * is odd.
+         * @param s Side of the facelet.
+         * @param t Side of the other facelet of the wing.
+         * @param swap Specifies if the UF and UR edges are exchanged.
+         * @return The side whose color the facelet takes.
+         */
+        private RubikCubeSide swapped(final RubikCubeSide s,
+                                      final RubikCubeSide t,
+                                      final boolean swap) {
+            if (swap && t == RubikCubeSide.UP) {
+                if (s == RubikCubeSide.FRONT) {
+                    return RubikCubeSide.RIGHT;
+                }
+                if (s == RubikCubeSide.RIGHT) {
+                    return RubikCubeSide.FRONT;
+                }
+            }
+            return s;
+        }
+        /**
+         * Checks whether a permutation is odd.
+         * @param p Permutation.
+         * @return <tt>true</tt> if and only if the permutation is odd.
+         */
+        private static boolean isOdd(final int[] p) {
+            final boolean[] seen = new boolean[p.length];
+            int cycles = 0;
+            for (int i = 0; i < p.length; ++i) {
+                if (!seen[i]) {
+                    ++cycles;
+                    for (int j = i; !seen[j]; j = p[j]) {
+                        seen[j] = true;
+                    }
+                }
+            }
+            return (p.length - cycles) % 2 == 1;
+        }
+        /**
+         * Gets the color of a facelet.
+         * @param s Side of the facelet.
+         * @param i Row of the facelet.
+         * @param j Column of the facelet.
+         * @return Color (ordinal) of the facelet.
+         */
+        private int color(final RubikCubeSide s, final int i, final int j) {
+            return this.colors[this.layers.facelet(s, i, j)];
+        }
+        /**
+         * Gets the piece at every position of an orbit, as the colors of
+         * its facelets.
+         * @param lead Lead facelet of every position.
+         * @param other Other facelet of every position, or <tt>null</tt>
+         * for the centers.
+         * @param c Color of every facelet.
+         * @return The pieces.
+         */
+        private static int[] pieces(final int[] lead, final int[] other,
+                                    final int[] c) {
+            final int[] pieces = new int[ORBIT];
+            for (int k = 0; k < ORBIT; ++k) {
+                pieces[k] = c[lead[k]] * COLORS.length
+                    + (other == null ? 0 : c[other[k]]);
+            }
+            return pieces;
+        }
+        /**
+         * Makes the permutation of an orbit of wings even with a quarter turn
+         * of an inner layer.
+         * @param lead Lead facelet of every wing.
+         * @param other Other facelet of every wing.
+         * @throws NoSolutionException Thrown if the wings have not the colors
+         * of the wings of a cube.
+         */
+        private void fixParity(final int[] lead, final int[] other)
+                throws NoSolutionException {
+            final int[] have = pieces(lead, other, this.colors);
+            final int[] want = pieces(lead, other, this.targets);
+            final int[] from = new int[ORBIT];
+            Arrays.fill(from, -1);
+            for (int k = 0; k < ORBIT; ++k) {
+                for (int h = 0; h < ORBIT; ++h) {
+                    if (have[h] == want[k]) {
+                        if (from[k] >= 0) {
+                            throw new NoSolutionException("The colors of the"
+                                                          + " cube are not"
+                                                          + " valid");
+                        }
+                        from[k] = h;
+                    }
+                }
+                if (from[k] < 0) {
+                    throw new NoSolutionException("The colors of the cube are"
+                                                  + " not valid");
+                }
+            }
+            if (isOdd(from)) {
+                // Any inner layer of the orbit cycles four of its wings.
+                for (int l : turning(this.layers, lead)) {
+                    final int index = l % this.n;
+                    if (index != 0 && index != this.n - 1) {
+                        this.turn(4 * l + 1);
+                        return;
+                    }
+                }
+            }
+        }
+        /**
+         * Gets the layers whose turns move the pieces of an orbit.
+         * @param layers Permutations of the layers of the cube.
+         * @param lead Lead facelet of every position of the orbit.
+         * @return The layers.
+         */
+        static List<Integer> turning(final LayerPermutations layers,
+                                     final int[] lead) {
+            final List<Integer> turning = new ArrayList<>();
+            for (int l = 0; l < LayerPermutations.KINDS
+                     * layers.getDimension(); ++l) {
+                for (int p : lead) {
+                    if (layers.next(l, p) != p) {
+                        turning.add(l);
+                        break;
+                    }
+                }
+            }
+            return turning;
+        }
+        /**
+         * Solves an orbit of centers or wings by three-cycles.
+         * @param lead Lead facelet of every position.
+         * @param other Other facelet of every position, or <tt>null</tt>
+         * for the centers.
+         * @throws NoSolutionException Thrown if the pieces have not the
+         * colors of the pieces of a cube.
+         * @throws TimeoutException Thrown if the search budget is exhausted
+         * or the thread is interrupted.
+         */
+        private void solve(final int[] lead, final int[] other)
+                throws NoSolutionException, TimeoutException {
+            final int[] want = pieces(lead, other, this.targets);
+            int[] have = pieces(lead, other, this.colors);
+            if (Arrays.equals(have, want)) {
+                return;
+            }
+            final Triples t = new Triples(this.layers, lead, other);
+            this.monitor.check();
+            final boolean[] done = new boolean[ORBIT];
+            for (int dst = 0; dst < ORBIT; ++dst) {
+                if (have[dst] == want[dst]) {
+                    done[dst] = true;
+                    continue;
+                }
+                int best = Integer.MAX_VALUE;
+                int triple = -1;
+                for (int src = 0; src < ORBIT; ++src) {
+                    if (done[src] || have[src] != want[dst]) {
+                        continue;
+                    }
+                    for (int buf = 0; buf < ORBIT; ++buf) {
+                        final int d = t.depth(src, dst, buf);
+                        if (done[buf] || d < 0) {
+                            continue;
+                        }
+                        // Pieces put in place or moved away by the cycle.
+                        final int fixed = (have[buf] == want[src] ? 1 : 0)
+                            - (have[src] == want[src] ? 1 : 0)
+                            + (have[dst] == want[buf] ? 1 : 0)
+                            - (have[buf] == want[buf] ? 1 : 0);
+                        final int cost = 2 * d - Triples.CYCLE * fixed;
+                        if (cost < best) {
+                            best = cost;
+                            triple = (src * ORBIT + dst) * ORBIT + buf;
+                        }
+                    }
+                }
+                if (triple < 0) {
+                    throw new NoSolutionException("The colors of the cube are"
+                                                  + " not valid");
+                }
+                final int[] setup = t.setup(triple);
+                for (int k = setup.length - 1; k >= 0; --k) {
+                    this.turn(inverse(setup[k]));
+                }
+                for (int c : t.getCommutator()) {
+                    this.turn(c);
+                }
+                for (int s : setup) {
+                    this.turn(s);
+                }
+                have = pieces(lead, other, this.colors);
+                if (have[dst] != want[dst]) {
+                    throw new IllegalStateException("The cycle did not move"
+                                                    + " the piece");
+                }
+                done[dst] = true;
+            }
+        }
+        /**
+         * Gets the inverse of a turn.
+         * @param turn Turn, coded as <tt>4 * layer + quarter turns</tt>.
+         * @return Inverse turn.
+         */
+        static int inverse(final int turn) {
+            return turn - turn % 4 + 4 - turn % 4;
+        }
+        /**
+         * Makes a turn, merging it with the last turns of parallel layers.
+         * @param turn Turn, coded as <tt>4 * layer + quarter turns</tt>.
+         */
+        private void turn(final int turn) {
+            final int layer = turn / 4;
+            for (int q = 0; q < turn % 4; ++q) {
+                this.layers.apply(this.colors, layer, this.scratch);
+            }
+            if (this.count > this.parallel
+                && this.turns[this.parallel] / 4 / this.n != layer / this.n) {
+                this.parallel = this.count;
+            }
+            for (int k = this.parallel; k < this.count; ++k) {
+                if (this.turns[k] / 4 == layer) {
+                    final int q = (this.turns[k] + turn) % 4;
+                    if (q == 0) {
+                        this.turns[k] = this.turns[--this.count];
+                    } else {
+                        this.turns[k] = 4 * layer + q;
+                    }
+                    return;
+                }
+            }
+            if (this.count == this.turns.length) {
+                this.turns = Arrays.copyOf(this.turns, 2 * this.count);
+            }
+            this.turns[this.count++] = turn;
+        }
+        /**
+         * Gets the turns made on the copy of the cube.
+         * @return The turns, as quarter turns.
+         */
+        MoveSequence toSequence() {
+            final MoveSequence s = new MoveSequence(this.count);
+            for (int k = 0; k < this.count; ++k) {
+                final int layer = this.turns[k] / 4;
+                final int kind = layer / this.n;
+                final int index = layer % this.n;
+                // The layers are named after the nearer side.
+                final boolean near = index <= (this.n - 1) / 2;
+                final int depth = near ? index : this.n - 1 - index;
+                final Turn t;
+                final boolean anticlockwise;
+                if (kind == LayerPermutations.ROW) {
+                    t = near ? Turn.U : Turn.D;
+                    anticlockwise = !near;
+                } else if (kind == LayerPermutations.COLUMN) {
+                    t = near ? Turn.L : Turn.R;
+                    anticlockwise = near;
+                } else {
+                    t = near ? Turn.F : Turn.B;
+                    anticlockwise = !near;
+                }
+                final int q = this.turns[k] % 4;
+                for (int i = 0; i < (q == 2 ? 2 : 1); ++i) {
+                    s.append(anticlockwise == (q != 3) ? t.inverse() : t,
+                             depth);
+                }
+            }
+            return s;
+        }
+        /**
+         * Gets the 3x3 cube made of the corners, the edges and the centers of
+         * the reduced cube.
+         * @return The 3x3 cube.
+         */
+        RubikCubeModel toThreeByThree() {
+            final RubikCubeModel c = new RubikCubeModel(3);
+            final int[] index = {0, this.n % 2 == 1 ? this.n / 2 : 1,
+                                 this.n - 1};
+            for (RubikCubeSide s : RubikCubeSide.values()) {
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        c.setFace(s, i, j,
+                                  COLORS[this.color(s, index[i], index[j])]);
+                    }
+                }
+            }
+            return c;
+        }
+    }
+    /**
+     * Three-cycles of an orbit: a commutator cycling three positions, and
+     * the setup turns moving any three positions to them, found by
+     * breadth-first search on the ordered triples of positions.
+     */
+    private static final class Triples {
+        /**
+         * Number of turns of the commutator.
+         */
+        static final int CYCLE = 8;
+        /**
+         * Number of ordered triples of positions (repeated positions
+         * included).
+         */
+        private static final int TRIPLES = ORBIT * ORBIT * ORBIT;
+        /**
+         * Turns of the commutator.
+         */
+        private final int[] commutator;
+        /**
+         * Turns of the setups, coded as <tt>4 * layer + quarter turns</tt>.
+         */
+        private final int[] moves;
+        /**
+         * Distance of every triple from the one cycled by the commutator,
+         * or -1 if unreachable.
+         */
+        private final byte[] depth;
+        /**
+         * Previous triple on the way from the one cycled by the commutator.
+         */
+        private final int[] parent;
+        /**
+         * Setup turn from the previous triple.
+         */
+        private final byte[] via;
+        /**
+         * Finds the commutator and the setups of an orbit.
+         * @param layers Permutations of the layers of the cube.
+         * @param lead Lead facelet of every position.
+         * @param other Other facelet of every position, or <tt>null</tt>
+         * for the centers.
+         */
+        Triples(final LayerPermutations layers, final int[] lead,
+                final int[] other) {
+            final int n = layers.getDimension();
+            // The turns moving the orbit, and their action on it.
+            final List<Integer> turning = Reducer.turning(layers, lead);
+            this.moves = new int[2 * turning.size()];
+            final int[][] action = new int[this.moves.length][ORBIT];
+            for (int g = 0; g < this.moves.length; ++g) {
+                final int l = turning.get(g / 2);
+                this.moves[g] = 4 * l + (g % 2 == 0 ? 1 : 3);
+                for (int k = 0; k < ORBIT; ++k) {
+                    int p = lead[k];
+                    for (int q = 0; q < this.moves[g] % 4; ++q) {
+                        p = layers.next(l, p);
+                    }
+                    action[g][k] = layers.position(p);
+                }
+            }
+            final int[] cycle = new int[3];
+            this.commutator = findCommutator(layers, lead, other, turning,
+                                             cycle);
+            this.depth = new byte[TRIPLES];
+            this.parent = new int[TRIPLES];
+            this.via = new byte[TRIPLES];
+            Arrays.fill(this.depth, (byte) -1);
+            final int[] queue = new int[TRIPLES];
+            queue[0] = (cycle[0] * ORBIT + cycle[1]) * ORBIT + cycle[2];
+            this.depth[queue[0]] = 0;
+            int size = 1;
+            for (int k = 0; k < size; ++k) {
+                final int t = queue[k];
+                final int a = t / (ORBIT * ORBIT);
+                final int b = t / ORBIT % ORBIT;
+                final int c = t % ORBIT;
+                for (int g = 0; g < this.moves.length; ++g) {
+                    final int u = (action[g][a] * ORBIT + action[g][b])
+                        * ORBIT + action[g][c];
+                    if (this.depth[u] < 0) {
+                        this.depth[u] = (byte) (this.depth[t] + 1);
+                        this.parent[u] = t;
+                        this.via[u] = (byte) g;
+                        queue[size++] = u;
+                    }
+                }
+            }
+        }
+        /**
+         * Finds a commutator cycling three positions of an orbit and no
+         * other piece, turning an inner layer and a conjugate of a parallel
+         * layer (an inner one for the centers, an outer one for the wings).
+         * @param layers Permutations of the layers of the cube.
+         * @param lead Lead facelet of every position.
+         * @param other Other facelet of every position, or <tt>null</tt>
+         * for the centers.
+         * @param turning Layers whose turns move the pieces of the orbit.
+         * @param cycle Filled with the positions cycled.
+         * @return Turns of the commutator.
+         */
+        private static int[] findCommutator(final LayerPermutations layers,
+                                            final int[] lead,
+                                            final int[] other,
+                                            final List<Integer> turning,
+                                            final int[] cycle) {
+            final int n = layers.getDimension();
+            final int[] facelets = new int[layers.getFacelets()];
+            for (int p = 0; p < facelets.length; ++p) {
+                facelets[p] = p;
+            }
+            final int[] scratch = new int[n * n + 4 * n];
+            final int[] turns = new int[CYCLE];
+            for (int la : turning) {
+                final int kind = la / n;
+                final int a = la % n;
+                if (a == 0 || a == n - 1) {
+                    continue;
+                }
+                for (int lb : turning) {
+                    final int b = lb % n;
+                    if (lb / n != kind || b == a
+                        || (other == null) == (b == 0 || b == n - 1)) {
+                        continue;
+                    }
+                    for (int g = 0; g < 2 * LayerPermutations.KINDS; ++g) {
+                        if (g / 2 == kind) {
+                            continue;
+                        }
+                        // An outer layer of another kind.
+                        final int z = 4 * (g / 2 * n
+                                           + (g % 2 == 0 ? 0 : n - 1)) + 1;
+                        turns[0] = 4 * la + 1;
+                        turns[1] = z;
+                        turns[2] = 4 * lb + 3;
+                        turns[3] = Reducer.inverse(z);
+                        turns[4] = 4 * la + 3;
+                        turns[5] = z;
+                        turns[6] = 4 * lb + 1;
+                        turns[7] = Reducer.inverse(z);
+                        if (isCycle(layers, lead, other, turns, facelets,
+                                    scratch, cycle)) {
+                            return turns;
+                        }
+                    }
+                }
+            }
+            throw new IllegalStateException("No commutator cycles the orbit");
+        }
+        /**
+         * Checks whether some turns cycle three positions of an orbit and no
+         * other piece.
+         * @param layers Permutations of the layers of the cube.
+         * @param lead Lead facelet of every position.
+         * @param other Other facelet of every position, or <tt>null</tt>
+         * for the centers.
+         * @param turns Turns.
+         * @param facelets Numbers of the facelets, left unchanged.
+         * @param scratch Buffer of the turns.
+         * @param cycle Filled with the positions cycled.
+         * @return <tt>true</tt> if and only if the turns cycle three
+         * positions of the orbit.
+         */
+        private static boolean isCycle(final LayerPermutations layers,
+                                       final int[] lead, final int[] other,
+                                       final int[] turns,
+                                       final int[] facelets,
+                                       final int[] scratch,
+                                       final int[] cycle) {
+            for (int t : turns) {
+                for (int q = 0; q < t % 4; ++q) {
+                    layers.apply(facelets, t / 4, scratch);
+                }
+            }
+            // Position reached by the piece at every position.
+            final int[] to = new int[ORBIT];
+            Arrays.fill(to, -1);
+            int moved = 0;
+            boolean inOrbit = true;
+            for (int p = 0; p < facelets.length; ++p) {
+                if (facelets[p] != p) {
+                    ++moved;
+                    final int k = layers.position(p);
+                    if (k < 0 || (lead[k] != p && (other == null
+                                                   || other[k] != p))) {
+                        inOrbit = false;
+                    } else if (lead[k] == p) {
+                        to[layers.position(facelets[p])] = k;
+                    }
+                    facelets[p] = p;
+                }
+            }
+            if (!inOrbit || moved != (other == null ? 3 : 6)) {
+                return false;
+            }
+            for (int k = 0; k < ORBIT; ++k) {
+                if (to[k] >= 0) {
+                    cycle[0] = k;
+                    cycle[1] = to[k];
+                    cycle[2] = to[cycle[1]];
+                    return cycle[2] >= 0 && to[cycle[2]] == k;
+                }
+            }
+            return false;
+        }
+        /**
+         * Gets the turns of the commutator, cycling the pieces of the first
+         * position of its triple to the second, third and first one.
+         * @return Turns of the commutator, which must not be modified.
+         */
+        int[] getCommutator() {
+            return this.commutator;
+        }
+        /**
+         * Gets the number of setup turns moving three positions to the ones
+         * cycled by the commutator.
+         * @param a First position.
+         * @param b Second position.
+         * @param c Third position.
+         * @return Number of setup turns, or -1 if the positions can not be
+         * moved there.
+         */
+        int depth(final int a, final int b, final int c) {
+            return this.depth[(a * ORBIT + b) * ORBIT + c];
+        }
+        /**
+         * Gets the turns moving the positions cycled by the commutator to a
+         * triple: the inverse turns, in the reverse order, move the triple
+         * to the cycled positions.
+         * @param triple Triple of positions.
+         * @return Setup turns.
+         */
+        int[] setup(final int triple) {
+            final int[] s = new int[this.depth[triple]];
+            int t = triple;
+            for (int k = s.length - 1; k >= 0; --k) {
+                s[k] = this.moves[this.via[t]];
+                t = this.parent[t];
+            }
+            return s;
+        }
+    }
+}
@@ -2,8 +2,14 @@ package it.univr.rubikcube.resolutionstrategies;
 
 import it.univr.rubikcube.model.Move;
 import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Interface for Rubik cube resolution strategies.
@@ -14,6 +20,10 @@ public abstract class ResolutionStrategy {
      * Rubik cube model.
      */
     private RubikCubeModel cubeModel;
+    /**
+     * Resources the strategy is allowed to use while searching.
+     */
+    private SearchBudget budget;
     /**
      * Creates a new resolution strategy that acts on the specified model.
      * @param m Model to be acted upon.
@@ -25,6 +35,7 @@ public abstract class ResolutionStrategy {
             throw new NullPointerException();
         }
         this.cubeModel = m;
+        this.budget = SearchBudget.UNLIMITED;
     }
     /**
      * Gets the cube model associated with this specific strategy.
@@ -33,17 +44,131 @@ public abstract class ResolutionStrategy {
     public final RubikCubeModel getModel() {
         return this.cubeModel;
     }
+    /**
+     * Gets the resources the strategy is allowed to use while searching.
+     * @return Search budget of this strategy.
+     */
+    public final SearchBudget getBudget() {
+        return this.budget;
+    }
+    /**
+     * Sets the resources the strategy is allowed to use while searching.
+     * The budget is honored by every subsequent call to
+     * {@link #getNextMoves()}.
+     * @param b New search budget.
+     * @throws NullPointerException Thrown if <tt>b</tt> is <tt>null</tt>.
+     */
+    public final void setBudget(final SearchBudget b)
+            throws NullPointerException {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        this.budget = b;
+    }
+    /**
+     * Gets the readiness of the tables the strategy needs, starting to load
+     * them in the background if needed. A search started before the tables
+     * are ready waits for them; callers can wait on the future (or choose
+     * another strategy) instead. The default implementation is for
+     * strategies without tables.
+     * @return Future completed when the strategy can search without
+     * loading tables (exceptionally if they can not be loaded).
+     */
+    public CompletableFuture<Void> getReadiness() {
+        return CompletableFuture.completedFuture(null);
+    }
     /**
      * Gets a list of next moves to be performed to get to the next phase of
      * the algorithm.
      * @return List of next moves.
      * @throws NoSolutionException Thrown in case the resolution strategy fails
      * to find a solution.
-     * @throws TimeoutException Thrown in case the resolution strategy fails to
-     * find a solution before the specified timeout (if any) or was interrupted.
+     * @throws TimeoutException Thrown in case the resolution strategy
+     * exhausts its search budget before finding a solution or was
+     * interrupted.
      */
     public abstract List<Move> getNextMoves() throws NoSolutionException,
         TimeoutException;
+    /**
+     * Gets the next moves to be performed to get to the next phase of the
+     * algorithm as a compact sequence. The default implementation converts
+     * the result of {@link #getNextMoves()}; strategies working with
+     * sequences internally can return them directly.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the resolution strategy fails
+     * to find a solution.
+     * @throws TimeoutException Thrown in case the resolution strategy
+     * exhausts its search budget before finding a solution or was
+     * interrupted.
+     */
+    public MoveSequence getNextMoveSequence() throws NoSolutionException,
+        TimeoutException {
+        return MoveSequence.fromMoves(this.getNextMoves());
+    }
+    /**
+     * Searches for shorter and shorter sequences of next moves, passing each
+     * one to a listener as soon as it is found, so that callers can use the
+     * first one at once or wait for better ones. The listener is called by
+     * the threads of the search, one call at a time, with sequences of
+     * decreasing length. The search ends when the strategy can not find
+     * shorter sequences, or when the budget is exhausted or the thread is
+     * interrupted after the first sequence has been found. The default
+     * implementation, for strategies finding a single sequence, passes the
+     * result of {@link #getNextMoveSequence()} to the listener.
+     * @param listener Listener notified of every improved sequence.
+     * @return The shortest sequence of next moves found.
+     * @throws NoSolutionException Thrown in case the resolution strategy fails
+     * to find a solution.
+     * @throws TimeoutException Thrown in case the resolution strategy
+     * exhausts its search budget or is interrupted before finding a
+     * solution.
+     */
+    public MoveSequence getImprovingMoveSequences(
+            final Consumer<? super MoveSequence> listener)
+            throws NoSolutionException, TimeoutException {
+        final MoveSequence s = this.getNextMoveSequence();
+        listener.accept(s);
+        return s;
+    }
+    /**
+     * Rotates a cube so that its centers are in their standard position, as
+     * required by the strategies working on the cubies.
+     * @param cube Cube to be rotated.
+     * @return The rotations performed.
+     */
+    static MoveSequence orient(final RubikCubeModel cube) {
+        final Turn[][] up = {
+            {}, {Turn.X}, {Turn.X, Turn.X}, {Turn.X_PRIME}, {Turn.Z},
+            {Turn.Z_PRIME},
+        };
+        final MoveSequence s = new MoveSequence();
+        for (Turn[] u : up) {
+            final MoveSequence r = new MoveSequence(u);
+            final RubikCubeModel c = new RubikCubeModel(cube);
+            r.applyTo(c);
+            if (isStandardCenter(c, RubikCubeSide.UP)) {
+                r.applyTo(cube);
+                s.append(r);
+                break;
+            }
+        }
+        for (int i = 0; i < 3 && !isStandardCenter(cube, RubikCubeSide.FRONT);
+             ++i) {
+            Turn.Y.apply(cube);
+            s.append(Turn.Y);
+        }
+        return s.simplify();
+    }
+    /**
+     * Checks whether the center of a side has the standard color of the side.
+     * @param cube Cube.
+     * @param side Side.
+     * @return <tt>true</tt> if and only if the center has the standard color.
+     */
+    private static boolean isStandardCenter(final RubikCubeModel cube,
+                                            final RubikCubeSide side) {
+        return cube.getFace(side, 1, 1) == side.getStandardColor();
+    }
     /**
      * Returns the name of the resolution strategy.
      * @return Name of the resolution strategy.
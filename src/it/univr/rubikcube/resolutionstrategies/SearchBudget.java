@@ -0,0 +1,290 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resources a resolution strategy is allowed to use while searching for a
+ * solution: a wall-clock time limit, a limit on the number of visited nodes
+ * and a ceiling on the memory used by the JVM. A value of zero means that the
+ * corresponding resource is not limited.
+ *
+ * Strategies honor the budget cooperatively through a {@link Monitor}, which
+ * is cheap enough to be notified of every visited node.
+ * @author Alessandro Menti
+ */
+public final class SearchBudget {
+    /**
+     * Budget without any limit (the search can only be stopped by
+     * interrupting the thread running it).
+     */
+    public static final SearchBudget UNLIMITED = new SearchBudget(0, 0, 0);
+    /**
+     * Number of visited nodes between two checks of the time, memory and
+     * interruption limits.
+     */
+    static final int CHECK_INTERVAL = 4096;
+    /**
+     * Maximum time allowed for the search, in milliseconds.
+     */
+    private final long timeLimit;
+    /**
+     * Maximum number of nodes the search can visit.
+     */
+    private final long nodeLimit;
+    /**
+     * Maximum amount of heap memory, in bytes, the JVM can be using while
+     * the search is running.
+     */
+    private final long memoryLimit;
+    /**
+     * Creates a new search budget.
+     * @param timeMillis Maximum time allowed for the search, in milliseconds
+     * (<tt>0</tt> if unlimited).
+     * @param nodes Maximum number of nodes the search can visit (<tt>0</tt>
+     * if unlimited).
+     * @param memoryBytes Maximum amount of used heap memory, in bytes
+     * (<tt>0</tt> if unlimited).
+     * @throws IllegalArgumentException Thrown if any of the limits is
+     * negative.
+     */
+    public SearchBudget(final long timeMillis, final long nodes,
+                        final long memoryBytes)
+            throws IllegalArgumentException {
+        if (timeMillis < 0 || nodes < 0 || memoryBytes < 0) {
+            throw new IllegalArgumentException("The limits must not be"
+                                               + " negative");
+        }
+        this.timeLimit = timeMillis;
+        this.nodeLimit = nodes;
+        this.memoryLimit = memoryBytes;
+    }
+    /**
+     * Creates a new search budget limiting only the wall-clock time.
+     * @param timeout Maximum time allowed for the search.
+     * @param unit Time unit of <tt>timeout</tt>.
+     * @return The new budget.
+     * @throws IllegalArgumentException Thrown if <tt>timeout</tt> is
+     * negative.
+     */
+    public static SearchBudget ofTime(final long timeout, final TimeUnit unit)
+            throws IllegalArgumentException {
+        return new SearchBudget(unit.toMillis(timeout), 0, 0);
+    }
+    /**
+     * Gets the maximum time allowed for the search.
+     * @return Time limit in milliseconds, <tt>0</tt> if unlimited.
+     */
+    public long getTimeLimit() {
+        return this.timeLimit;
+    }
+    /**
+     * Gets the maximum number of nodes the search can visit.
+     * @return Node limit, <tt>0</tt> if unlimited.
+     */
+    public long getNodeLimit() {
+        return this.nodeLimit;
+    }
+    /**
+     * Gets the maximum amount of heap memory the JVM can be using.
+     * @return Memory limit in bytes, <tt>0</tt> if unlimited.
+     */
+    public long getMemoryLimit() {
+        return this.memoryLimit;
+    }
+    /**
+     * Starts accounting a new search against this budget. The wall-clock
+     * time starts running when this method is called.
+     * @return The monitor of the new search.
+     */
+    public Monitor start() {
+        return new Monitor(this);
+    }
+    /**
+     * Returns a textual description of the budget.
+     * @return Description of the budget.
+     */
+    @Override
+    public String toString() {
+        return "SearchBudget[time=" + this.timeLimit + "ms, nodes="
+            + this.nodeLimit + ", memory=" + this.memoryLimit + "B]";
+    }
+    /**
+     * Accounts the resources used by a single search. A monitor is not
+     * thread-safe: each thread taking part in a search must use its own one,
+     * obtained through {@link #fork()}.
+     */
+    public static final class Monitor {
+        /**
+         * Budget being accounted.
+         */
+        private final SearchBudget budget;
+        /**
+         * Value of <tt>System.nanoTime()</tt> when the search started.
+         */
+        private final long startTime;
+        /**
+         * Number of nodes visited so far.
+         */
+        private long nodes;
+        /**
+         * Number of visited nodes at which the limits will be checked again.
+         */
+        private long nextCheck;
+        /**
+         * Number of nodes visited by all the monitors of the search, as last
+         * reported by each of them.
+         */
+        private final AtomicLong total;
+        /**
+         * Number of nodes of this monitor already added to <tt>total</tt>.
+         */
+        private long reported;
+        /**
+         * Creates a new monitor.
+         * @param b Budget to be accounted.
+         */
+        private Monitor(final SearchBudget b) {
+            this.budget = b;
+            this.startTime = System.nanoTime();
+            this.total = new AtomicLong();
+            this.nodes = 0;
+            this.reported = 0;
+            this.scheduleCheck();
+        }
+        /**
+         * Creates a new monitor accounting the same search as an existing
+         * one.
+         * @param m The existing monitor.
+         */
+        private Monitor(final Monitor m) {
+            this.budget = m.budget;
+            this.startTime = m.startTime;
+            this.total = m.total;
+            this.nodes = 0;
+            this.reported = 0;
+            this.scheduleCheck();
+        }
+        /**
+         * Creates a monitor for another thread taking part in the same
+         * search. The time limit runs from the start of the search, and the
+         * node limit applies to the nodes visited by all the monitors
+         * together (which are added up only when the limits are checked, so
+         * a parallel search can exceed it by a few intervals).
+         * @return The new monitor.
+         */
+        public Monitor fork() {
+            return new Monitor(this);
+        }
+        /**
+         * Notifies the monitor that a node has been visited. The limits are
+         * actually checked only every {@link SearchBudget#CHECK_INTERVAL}
+         * nodes (and exactly when the node limit is exceeded).
+         * @throws TimeoutException Thrown if the budget has been exhausted or
+         * the thread was interrupted.
+         */
+        public void visit() throws TimeoutException {
+            if (++this.nodes >= this.nextCheck) {
+                this.check();
+                this.scheduleCheck();
+            }
+        }
+        /**
+         * Checks immediately whether the budget has been exhausted or the
+         * thread was interrupted.
+         * @throws TimeoutException Thrown if the budget has been exhausted or
+         * the thread was interrupted.
+         */
+        public void check() throws TimeoutException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new TimeoutException("Execution interrupted");
+            }
+            final long all = this.total.addAndGet(this.nodes - this.reported);
+            this.reported = this.nodes;
+            if (this.budget.nodeLimit != 0 && all > this.budget.nodeLimit) {
+                throw new TimeoutException("Node limit reached");
+            }
+            if (this.budget.timeLimit != 0
+                    && this.getElapsedMillis() >= this.budget.timeLimit) {
+                throw new TimeoutException("Time limit reached");
+            }
+            if (this.budget.memoryLimit != 0) {
+                final Runtime rt = Runtime.getRuntime();
+                if (rt.totalMemory() - rt.freeMemory()
+                        >= this.budget.memoryLimit) {
+                    throw new TimeoutException("Memory limit reached");
+                }
+            }
+        }
+        /**
+         * Gets the number of nodes visited so far.
+         * @return Number of visited nodes.
+         */
+        public long getNodes() {
+            return this.nodes;
+        }
+        /**
+         * Gets the number of nodes visited so far by this monitor and by all
+         * the monitors of the same search (see {@link #fork()}), as last
+         * reported by them.
+         * @return Number of visited nodes of the whole search.
+         */
+        public long getTotalNodes() {
+            return this.total.get() + this.nodes - this.reported;
+        }
+        /**
+         * Gets the time elapsed since the search started.
+         * @return Elapsed time in milliseconds.
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+                                                 - this.startTime);
+        }
+        /**
+         * Gets the time left before the time limit is reached.
+         * @return Remaining time in milliseconds (never negative), or
+         * <tt>Long.MAX_VALUE</tt> if the time is not limited.
+         */
+        public long getRemainingMillis() {
+            if (this.budget.timeLimit == 0) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, this.budget.timeLimit
+                               - this.getElapsedMillis());
+        }
+        /**
+         * Gets the resources left to the search, so that a search started
+         * as a stage of this one (with a monitor of its own) does not make
+         * the whole exceed the budget.
+         * @return Budget holding the remaining time and nodes, and the same
+         * memory limit.
+         * @throws TimeoutException Thrown if the budget has been exhausted or
+         * the thread was interrupted.
+         */
+        public SearchBudget remaining() throws TimeoutException {
+            this.check();
+            long time = 0;
+            if (this.budget.timeLimit != 0) {
+                time = Math.max(1, this.getRemainingMillis());
+            }
+            long left = 0;
+            if (this.budget.nodeLimit != 0) {
+                left = Math.max(1, this.budget.nodeLimit
+                                   - this.getTotalNodes());
+            }
+            return new SearchBudget(time, left, this.budget.memoryLimit);
+        }
+        /**
+         * Computes the number of visited nodes at which the limits will be
+         * checked again.
+         */
+        private void scheduleCheck() {
+            this.nextCheck = this.nodes + CHECK_INTERVAL;
+            if (this.budget.nodeLimit != 0
+                    && this.nextCheck > this.budget.nodeLimit) {
+                this.nextCheck = this.budget.nodeLimit + 1;
+            }
+        }
+    }
+}
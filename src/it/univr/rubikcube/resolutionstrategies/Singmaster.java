@@ -8,12 +8,8 @@ import it.univr.rubikcube.model.RubikCubeFaceColor;
 import it.univr.rubikcube.model.RubikCubeModel;
 import it.univr.rubikcube.model.RubikCubeModel3Edge;
 import it.univr.rubikcube.model.RubikCubeSide;
-import it.univr.rubikcube.moves.D;
-import it.univr.rubikcube.moves.F;
-import it.univr.rubikcube.moves.R;
-import it.univr.rubikcube.moves.X;
-import it.univr.rubikcube.moves.Y;
-import it.univr.rubikcube.moves.Z;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,20 +45,26 @@ public class Singmaster extends ResolutionStrategy {
      * @return List of next moves.
      * @throws NoSolutionException Thrown in case the algorithm does not find a
      * solution.
-     * @throws TimeoutException Thrown in case the algorithm fails to find a
-     * solution before the timeout.
+     * @throws TimeoutException Thrown in case the algorithm exhausts its
+     * search budget or was interrupted.
      */
     @Override
     public final List<Move> getNextMoves() throws NoSolutionException,
         TimeoutException {
         final List<Move> listMoves = new ArrayList<Move>();
+        final SearchBudget.Monitor monitor = this.getBudget().start();
         // Create a copy of the current model so that the original one remains
         // untouched
         final RubikCubeModel m = new RubikCubeModel(this.getModel());
+        // The method is not a search: just check the budget between steps.
         this.stepOne(listMoves, m);
+        monitor.check();
         this.stepTwo(listMoves, m);
+        monitor.check();
         this.stepThree(listMoves, m);
-        return listMoves;
+        // The steps rotate the whole cube and often undo each other's turns.
+        return MoveSequence.fromMoves(listMoves).simplify()
+            .toMoves(this.getModel());
     }
     /**
      * Gets the name of this method.
@@ -86,31 +88,18 @@ public class Singmaster extends ResolutionStrategy {
      * @param m Cube model.
      */
     private void stepOne(final List<Move> listMoves, final RubikCubeModel m) {
-        Move currentMove;
         // Move the white side up.
         if (m.getFace(RubikCubeSide.BACK, 1, 1) == RubikCubeFaceColor.WHITE) {
-            currentMove = new X(m, true);
-            listMoves.add(currentMove);
-            currentMove.perform();
+            this.perform(listMoves, m, Turn.X_PRIME);
         } else if (m.getFace(RubikCubeSide.DOWN, 1, 1) == RubikCubeFaceColor.WHITE) {
-            currentMove = new X(m);
-            listMoves.add(currentMove);
-            currentMove.perform();
-            currentMove = new X(m);
-            listMoves.add(currentMove);
-            currentMove.perform();
+            this.perform(listMoves, m, Turn.X);
+            this.perform(listMoves, m, Turn.X);
         } else if (m.getFace(RubikCubeSide.FRONT, 1, 1) == RubikCubeFaceColor.WHITE) {
-            currentMove = new X(m);
-            listMoves.add(currentMove);
-            currentMove.perform();
+            this.perform(listMoves, m, Turn.X);
         } else if (m.getFace(RubikCubeSide.LEFT, 1, 1) == RubikCubeFaceColor.WHITE) {
-            currentMove = new Z(m);
-            listMoves.add(currentMove);
-            currentMove.perform();
+            this.perform(listMoves, m, Turn.Z);
         } else if (m.getFace(RubikCubeSide.RIGHT, 1, 1) == RubikCubeFaceColor.WHITE) {
-            currentMove = new Z(m, true);
-            listMoves.add(currentMove);
-            currentMove.perform();
+            this.perform(listMoves, m, Turn.Z_PRIME);
         }
         // For each edge in the first layer, check if it has a white face and
         // is not positioned correctly. If it does:
@@ -132,20 +121,12 @@ public class Singmaster extends ResolutionStrategy {
                 edgesPositioned = false;
                 // - perform Y to put the piece (ax) on the front face (it needs to be in UF, DF, FR);
                 if (e == RubikCubeModel3Edge.UB || e == RubikCubeModel3Edge.DB || e == RubikCubeModel3Edge.BL) {
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y);
+                    this.perform(listMoves, m, Turn.Y);
                 } else if (e == RubikCubeModel3Edge.UL || e == RubikCubeModel3Edge.DL) {
-                    currentMove = new Y(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y_PRIME);
                 } else if (e == RubikCubeModel3Edge.UR || e == RubikCubeModel3Edge.BR || e == RubikCubeModel3Edge.DR) {
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y);
                 }
                 if (e == RubikCubeModel3Edge.UB || e == RubikCubeModel3Edge.UL || e == RubikCubeModel3Edge.UR) {
                     e = RubikCubeModel3Edge.UF;
@@ -157,25 +138,13 @@ public class Singmaster extends ResolutionStrategy {
                 // - if ax is in the first row, perform F2 to move it to D;
                 // - if ax is in the second row, apply F D' F' D.
                 if (e == RubikCubeModel3Edge.UF) {
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.F);
+                    this.perform(listMoves, m, Turn.F);
                 } else if (e == RubikCubeModel3Edge.FR) {
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new F(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.F);
+                    this.perform(listMoves, m, Turn.D_PRIME);
+                    this.perform(listMoves, m, Turn.F_PRIME);
+                    this.perform(listMoves, m, Turn.D);
                 }
                 e = RubikCubeModel3Edge.DF;
                 // Rotate D to make the edge match the standard facelet.
@@ -186,55 +155,27 @@ public class Singmaster extends ResolutionStrategy {
                     centerFacelet = m.get3DEdge(e).getFirstColor();
                 }
                 if (centerFacelet == m.getFace(RubikCubeSide.RIGHT, 1, 1)) {
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y);
+                    this.perform(listMoves, m, Turn.D);
                 } else if (centerFacelet == m.getFace(RubikCubeSide.BACK, 1, 1)) {
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y);
+                    this.perform(listMoves, m, Turn.Y);
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.D);
                 } else if (centerFacelet == m.getFace(RubikCubeSide.LEFT, 1, 1)) {
-                    currentMove = new Y(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y_PRIME);
+                    this.perform(listMoves, m, Turn.D_PRIME);
                 }
                 // - If white is on D, apply F2;
                 // - else apply D R F' R'.
                 if (m.get3DEdge(e).getFirstColor() == RubikCubeFaceColor.WHITE) {
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.F);
+                    this.perform(listMoves, m, Turn.F);
                 } else {
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new F(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.R);
+                    this.perform(listMoves, m, Turn.F_PRIME);
+                    this.perform(listMoves, m, Turn.R_PRIME);
                 }
             }
         } while (!edgesPositioned);
@@ -245,7 +186,6 @@ public class Singmaster extends ResolutionStrategy {
      * @param m Cube model.
      */
     private void stepTwo(final List<Move> listMoves, final RubikCubeModel m) {
-        Move currentMove;
         // Get an incorrectly placed corner having a white side.
         boolean cornersPositioned;
         do {
@@ -268,24 +208,16 @@ public class Singmaster extends ResolutionStrategy {
                 switch (c) {
                     case ULB:
                     case DBL:
-                        currentMove = new Y(m);
-                        listMoves.add(currentMove);
-                        currentMove.perform();
-                        currentMove = new Y(m);
-                        listMoves.add(currentMove);
-                        currentMove.perform();
+                        this.perform(listMoves, m, Turn.Y);
+                        this.perform(listMoves, m, Turn.Y);
                         break;
                     case DRB:
                     case UBR:
-                        currentMove = new Y(m);
-                        listMoves.add(currentMove);
-                        currentMove.perform();
+                        this.perform(listMoves, m, Turn.Y);
                         break;
                     case DLF:
                     case UFL:
-                        currentMove = new Y(m, true);
-                        listMoves.add(currentMove);
-                        currentMove.perform();
+                        this.perform(listMoves, m, Turn.Y_PRIME);
                         break;
                     case DFR:
                     case URF:
@@ -298,71 +230,35 @@ public class Singmaster extends ResolutionStrategy {
                     c = RubikCubeCorner.DFR;
                 }
                 if (c == RubikCubeCorner.URF) {
-                    currentMove = new F(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new F(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.F);
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.F_PRIME);
+                    this.perform(listMoves, m, Turn.D_PRIME);
                     c = RubikCubeCorner.DFR;
                 }
                 // Rotate D until U, R and D have the same colors as the corner.
                 while (!RubikCubeModel.isCornerInPlaceMaybeFlipped(m, c)) {
-                    currentMove = new Y(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.Y);
+                    this.perform(listMoves, m, Turn.D_PRIME);
                 }
                 // If the bottom facelet is white, perform R' D2 R D.
                 if (m.getCorner(c).getFirstColor() == RubikCubeFaceColor.WHITE) {
-                    currentMove = new R(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.R_PRIME);
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.R);
+                    this.perform(listMoves, m, Turn.D);
                 }
                 // If white is on the right facelet, perform R' D' R, else if white is in the front facelet, perform D' R' D R.
                 if (m.getCorner(c).getThirdColor() == RubikCubeFaceColor.WHITE) {
-                    currentMove = new R(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.R_PRIME);
+                    this.perform(listMoves, m, Turn.D_PRIME);
+                    this.perform(listMoves, m, Turn.R);
                 } else if (m.getCorner(c).getSecondColor() == RubikCubeFaceColor.WHITE) {
-                    currentMove = new D(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m, true);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new D(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
-                    currentMove = new R(m);
-                    listMoves.add(currentMove);
-                    currentMove.perform();
+                    this.perform(listMoves, m, Turn.D_PRIME);
+                    this.perform(listMoves, m, Turn.R_PRIME);
+                    this.perform(listMoves, m, Turn.D);
+                    this.perform(listMoves, m, Turn.R);
                 }
             }
         } while (!cornersPositioned);
@@ -373,7 +269,6 @@ public class Singmaster extends ResolutionStrategy {
      * @param m Cube model.
      */
     private void stepThree(final List<Move> listMoves, final RubikCubeModel m) {
-        Move currentMove;
         // While the edges in the 2nd layer are not positioned:
         RubikCubeModel3Edge edgeToFix;
         do {
@@ -399,4 +294,16 @@ public class Singmaster extends ResolutionStrategy {
         // * Se y è il colore della faccia S, applicare F' B' F B S B S'
         // * Se y è il colore della faccia D, applicare F B F' B' D' B' D
     }
+    /**
+     * Performs a turn on the working cube and appends the corresponding move
+     * (acting on the original model) to the list of moves.
+     * @param listMoves List of moves.
+     * @param m Working cube model.
+     * @param t Turn to be performed.
+     */
+    private void perform(final List<Move> listMoves, final RubikCubeModel m,
+                         final Turn t) {
+        t.apply(m);
+        listMoves.add(t.toMove(this.getModel()));
+    }
 }
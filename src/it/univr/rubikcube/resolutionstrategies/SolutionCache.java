@@ -0,0 +1,286 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cache of the solutions of 3x3 cubes, shared by any number of
+ * <tt>CachingStrategy</tt> instances.
+ *
+ * The cubes are stored in a canonical form, the least of their images
+ * under the 48 symmetries of the cube (see <tt>CubeSymmetry</tt>), so that
+ * cubes differing by a rotation, a reflection or their colors share the
+ * same entry; the solutions are stored for the canonical cube and mapped
+ * back to every cube asking for them. The least recently used entries are
+ * evicted when the estimated size of the cache exceeds its bound. Several
+ * threads asking for the same canonical cube at the same time share a
+ * single search.
+ * @author Alessandro Menti
+ */
+public final class SolutionCache {
+    /**
+     * Estimated size in bytes of an entry, not counting the turns of its
+     * solution (one byte each).
+     */
+    static final int ENTRY_SIZE = 160;
+    /**
+     * Maximum estimated size of the entries, in bytes.
+     */
+    private final long maxSize;
+    /**
+     * Solutions of the canonical cubes, least recently used first.
+     */
+    private final LinkedHashMap<Key, MoveSequence> entries;
+    /**
+     * Searches running for canonical cubes, completed with the solution of
+     * the canonical cube (or <tt>null</tt> if the strategy did not solve
+     * it).
+     */
+    private final ConcurrentMap<Key, CompletableFuture<MoveSequence>> running;
+    /**
+     * Estimated size of the entries, in bytes.
+     */
+    private long size;
+    /**
+     * Number of solutions found in the cache or shared with another search.
+     */
+    private long hits;
+    /**
+     * Number of solutions searched.
+     */
+    private long misses;
+    /**
+     * Creates a new, empty cache.
+     * @param bytes Maximum estimated size of the entries, in bytes.
+     * @throws IllegalArgumentException Thrown if <tt>bytes</tt> is negative.
+     */
+    public SolutionCache(final long bytes) throws IllegalArgumentException {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("The size must not be"
+                                               + " negative");
+        }
+        this.maxSize = bytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.running = new ConcurrentHashMap<>();
+    }
+    /**
+     * Gets the next moves of a strategy, from the cache if possible. The
+     * solutions found by the strategy are cached only if they solve the
+     * cube.
+     * @param s Strategy acting on a 3x3 cube.
+     * @return Sequence of next moves.
+     * @throws NoSolutionException Thrown in case the strategy does not find
+     * a solution.
+     * @throws TimeoutException Thrown in case the strategy (or the one whose
+     * search is shared) exhausts its search budget, or the thread is
+     * interrupted.
+     */
+    MoveSequence solve(final ResolutionStrategy s)
+            throws NoSolutionException, TimeoutException {
+        final RubikCubeModel cube = new RubikCubeModel(s.getModel());
+        CubeSymmetry symmetry = null;
+        Key key = null;
+        for (CubeSymmetry sym : CubeSymmetry.all()) {
+            final Key k = new Key(sym.transform(cube));
+            if (key == null || k.compareTo(key) < 0) {
+                key = k;
+                symmetry = sym;
+            }
+        }
+        MoveSequence canonical = this.get(key);
+        if (canonical != null) {
+            return symmetry.toCube(canonical);
+        }
+        final CompletableFuture<MoveSequence> search =
+            new CompletableFuture<>();
+        final CompletableFuture<MoveSequence> other =
+            this.running.putIfAbsent(key, search);
+        if (other != null) {
+            canonical = await(other);
+            if (canonical != null) {
+                synchronized (this) {
+                    ++this.hits;
+                }
+                return symmetry.toCube(canonical);
+            }
+            return s.getNextMoveSequence();
+        }
+        try {
+            // The search for the same cube might have just ended.
+            canonical = this.get(key);
+            if (canonical != null) {
+                search.complete(canonical);
+                return symmetry.toCube(canonical);
+            }
+            synchronized (this) {
+                ++this.misses;
+            }
+            final MoveSequence solution = s.getNextMoveSequence();
+            final RubikCubeModel c = new RubikCubeModel(cube);
+            solution.applyTo(c);
+            if (RubikCubeModel.isSolved(c)) {
+                canonical = symmetry.fromCube(solution);
+                this.put(key, canonical);
+            }
+            search.complete(canonical);
+            return solution;
+        } catch (NoSolutionException | TimeoutException
+                 | RuntimeException e) {
+            search.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.running.remove(key, search);
+        }
+    }
+    /**
+     * Waits for a search running on another thread.
+     * @param search Search.
+     * @return Solution of the canonical cube, or <tt>null</tt> if the
+     * strategy did not solve it.
+     * @throws NoSolutionException Thrown in case the search does not find a
+     * solution.
+     * @throws TimeoutException Thrown in case the search exhausts its budget
+     * or this thread is interrupted.
+     */
+    private static MoveSequence await(
+            final CompletableFuture<MoveSequence> search)
+            throws NoSolutionException, TimeoutException {
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Execution interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NoSolutionException) {
+                throw (NoSolutionException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                throw (TimeoutException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    /**
+     * Gets the solution of a canonical cube from the cache.
+     * @param key Canonical cube.
+     * @return The solution, or <tt>null</tt> if it is not cached.
+     */
+    private synchronized MoveSequence get(final Key key) {
+        final MoveSequence s = this.entries.get(key);
+        if (s != null) {
+            ++this.hits;
+        }
+        return s;
+    }
+    /**
+     * Caches the solution of a canonical cube, evicting the least recently
+     * used entries if the cache grows too big.
+     * @param key Canonical cube.
+     * @param s Solution.
+     */
+    private synchronized void put(final Key key, final MoveSequence s) {
+        final MoveSequence old = this.entries.put(key, s);
+        if (old != null) {
+            this.size -= ENTRY_SIZE + old.length();
+        }
+        this.size += ENTRY_SIZE + s.length();
+        final Iterator<Map.Entry<Key, MoveSequence>> it =
+            this.entries.entrySet().iterator();
+        while (this.size > this.maxSize && it.hasNext()) {
+            this.size -= ENTRY_SIZE + it.next().getValue().length();
+            it.remove();
+        }
+    }
+    /**
+     * Gets the number of cubes in the cache.
+     * @return Number of entries.
+     */
+    public synchronized int getEntries() {
+        return this.entries.size();
+    }
+    /**
+     * Gets the estimated size of the cache.
+     * @return Estimated size of the entries, in bytes.
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+    /**
+     * Gets the number of solutions found in the cache or shared with
+     * another search.
+     * @return Number of hits.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+    /**
+     * Gets the number of solutions searched.
+     * @return Number of misses.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+    /**
+     * Facelets of a canonical cube, packed three bits each.
+     */
+    private static final class Key implements Comparable<Key> {
+        /**
+         * Number of facelets packed in every word.
+         */
+        private static final int PER_WORD = 21;
+        /**
+         * Packed facelets.
+         */
+        private final long[] words = new long[3];
+        /**
+         * Creates the key of a cube.
+         * @param cube Cube (of dimension three).
+         */
+        Key(final RubikCubeModel cube) {
+            int n = 0;
+            for (RubikCubeSide side : RubikCubeSide.values()) {
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        final int w = n / PER_WORD;
+                        this.words[w] = this.words[w] << 3
+                            | cube.getFace(side, i, j).ordinal();
+                        ++n;
+                    }
+                }
+            }
+        }
+        @Override
+        public int compareTo(final Key k) {
+            for (int i = 0; i < this.words.length; ++i) {
+                final int c = Long.compare(this.words[i], k.words[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && this.compareTo((Key) obj) == 0;
+        }
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.words[0] * 31 + this.words[1]) * 31
+                + Long.hashCode(this.words[2]);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Format of a file holding precomputed tables of a resolution strategy.
+ *
+ * The file starts with a header holding a magic number, the version of the
+ * format, some optional integers identifying the content (e.g. the cubies
+ * tracked by a pattern database), the size of the tables and their CRC-32,
+ * followed by the tables. Files are written under a temporary name and then
+ * renamed, so that partially written tables are never read, and read by
+ * memory-mapping the tables, so that they do not take heap space and are
+ * shared by all the processes using them. A file whose header or checksum
+ * does not match is ignored, and the tables are generated again.
+ * @author Alessandro Menti
+ */
+final class TableFile {
+    /**
+     * Identifier at the start of the file.
+     */
+    private final int magic;
+    /**
+     * Version of the file format, to be increased whenever the layout or
+     * the content of the tables change.
+     */
+    private final int version;
+    /**
+     * Integers identifying the content of the file.
+     */
+    private final int[] key;
+    /**
+     * Size in bytes of the tables.
+     */
+    private final long size;
+    /**
+     * Size of the file header: magic, version, key, size and checksum of the
+     * tables.
+     */
+    private final int header;
+    /**
+     * Creates a new file format.
+     * @param m Identifier at the start of the file.
+     * @param v Version of the file format.
+     * @param s Size in bytes of the tables.
+     * @param k Integers identifying the content of the file.
+     * @throws IllegalArgumentException Thrown if the size is negative.
+     */
+    TableFile(final int m, final int v, final long s, final int... k)
+            throws IllegalArgumentException {
+        if (s < 0) {
+            throw new IllegalArgumentException("The size can not be"
+                                               + " negative");
+        }
+        this.magic = m;
+        this.version = v;
+        this.size = s;
+        this.key = k.clone();
+        this.header = Integer.BYTES * (2 + k.length) + Long.BYTES * 2;
+    }
+    /**
+     * Gets the tables, mapping them from a file or generating (and saving)
+     * them if the file is missing, stale or corrupt.
+     * @param file File of the tables.
+     * @param generator Generator of the tables, called if the file can not
+     * be used.
+     * @return Buffer holding the tables.
+     */
+    ByteBuffer load(final Path file, final Supplier<ByteBuffer> generator) {
+        try {
+            final ByteBuffer t = this.read(file);
+            if (t != null) {
+                return t;
+            }
+        } catch (IOException e) {
+            // Unreadable file: generate the tables again
+        }
+        final ByteBuffer t = generator.get();
+        try {
+            this.write(file, t);
+            // Map the saved tables, so that they do not take heap space.
+            final ByteBuffer mapped = this.read(file);
+            if (mapped != null) {
+                return mapped;
+            }
+        } catch (IOException e) {
+            // Not fatal: the tables will be generated again on the next run
+        }
+        return t;
+    }
+    /**
+     * Reads the tables from a file, memory-mapping them.
+     * @param file File to be read.
+     * @return Buffer holding the tables, or <tt>null</tt> if the file does
+     * not exist, has another format or content, or is corrupt.
+     * @throws IOException Thrown if the file can not be read.
+     */
+    ByteBuffer read(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() != this.header + this.size) {
+                return null;
+            }
+            final ByteBuffer h = ByteBuffer.allocate(this.header);
+            while (h.hasRemaining() && ch.read(h) >= 0) {
+                // Keep reading the header
+            }
+            h.flip();
+            if (h.remaining() != this.header || h.getInt() != this.magic
+                || h.getInt() != this.version) {
+                return null;
+            }
+            for (int k : this.key) {
+                if (h.getInt() != k) {
+                    return null;
+                }
+            }
+            if (h.getLong() != this.size) {
+                return null;
+            }
+            final long checksum = h.getLong();
+            final MappedByteBuffer t = ch.map(FileChannel.MapMode.READ_ONLY,
+                                              this.header, this.size);
+            if (checksum(t) != checksum) {
+                return null;
+            }
+            return t;
+        }
+    }
+    /**
+     * Writes the tables to a file. The file is written under a temporary
+     * name and then renamed, so that partially written tables are never
+     * read.
+     * @param file File to be written.
+     * @param t Buffer holding the tables.
+     * @throws IOException Thrown if the file can not be written.
+     * @throws IllegalArgumentException Thrown if the size of the tables is
+     * not the one of the format.
+     */
+    void write(final Path file, final ByteBuffer t)
+            throws IOException, IllegalArgumentException {
+        if (t.capacity() != this.size) {
+            throw new IllegalArgumentException("The tables must be "
+                                               + this.size + " bytes long");
+        }
+        final Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final Path tmp = Files.createTempFile(dir, "tables", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer h = ByteBuffer.allocate(this.header);
+                h.putInt(this.magic).putInt(this.version);
+                for (int k : this.key) {
+                    h.putInt(k);
+                }
+                h.putLong(this.size).putLong(checksum(t));
+                h.flip();
+                while (h.hasRemaining()) {
+                    ch.write(h);
+                }
+                final ByteBuffer d = t.duplicate();
+                d.clear();
+                while (d.hasRemaining()) {
+                    ch.write(d);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+    /**
+     * Computes the checksum of the tables.
+     * @param t Buffer holding the tables.
+     * @return CRC-32 of the tables.
+     */
+    private static long checksum(final ByteBuffer t) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer d = t.duplicate();
+        d.clear();
+        crc.update(d);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,83 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background loading of the tables of the resolution strategies.
+ *
+ * The tables are loaded (or generated, the first time) when their classes
+ * are initialized, which would otherwise happen during the first search and
+ * stall it. Every set of tables is loaded by its own daemon thread the first
+ * time its future is requested, so that the application can start loading
+ * all of them at launch and still exit while they are being generated; a
+ * search started before its tables are ready waits for the thread loading
+ * them instead of loading them again.
+ * @author Alessandro Menti
+ */
+final class TableWarmUp {
+    /**
+     * Threads loading the tables.
+     */
+    private static final ExecutorService EXECUTOR =
+        Executors.newCachedThreadPool(r -> {
+            final Thread t = new Thread(r, "Table warm-up");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    /**
+     * Loading of the tables of Kociemba's two-phase algorithm, if started.
+     */
+    private static CompletableFuture<Void> kociemba;
+    /**
+     * Loading of Korf's pattern databases, if started.
+     */
+    private static CompletableFuture<Void> korf;
+    /**
+     * Loading of the distance table of the 2x2x2 cube, if started.
+     */
+    private static CompletableFuture<Void> pocketCube;
+    /**
+     * Creates a new warm-up service (not allowed).
+     */
+    private TableWarmUp() {
+        // Empty, nothing to do
+    }
+    /**
+     * Gets the loading of the tables of Kociemba's two-phase algorithm,
+     * starting it if needed.
+     * @return Future completed when the tables are ready.
+     */
+    static synchronized CompletableFuture<Void> kociemba() {
+        if (kociemba == null) {
+            kociemba = CompletableFuture.runAsync(KociembaCoordinateCube::load,
+                                                  EXECUTOR);
+        }
+        return kociemba;
+    }
+    /**
+     * Gets the loading of Korf's pattern databases, starting it if needed.
+     * @return Future completed when the databases are ready.
+     */
+    static synchronized CompletableFuture<Void> korf() {
+        if (korf == null) {
+            korf = CompletableFuture.runAsync(PatternDatabase::loadKorf,
+                                              EXECUTOR);
+        }
+        return korf;
+    }
+    /**
+     * Gets the loading of the distance table of the 2x2x2 cube, starting it
+     * if needed.
+     * @return Future completed when the table is ready.
+     */
+    static synchronized CompletableFuture<Void> pocketCube() {
+        if (pocketCube == null) {
+            pocketCube = CompletableFuture.runAsync(PocketCube.Table::load,
+                                                    EXECUTOR);
+        }
+        return pocketCube;
+    }
+}
@@ -0,0 +1,137 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size transposition table, remembering for the states already
+ * searched a lower bound of their distance from the solved state.
+ *
+ * The table is preallocated and never grows. Every slot is a single
+ * <tt>long</tt> packing the upper bits of the key of the state (its lower
+ * bits select the slot), the depth the state was searched to and the bound;
+ * since slots are read and written atomically, the table can be shared by
+ * any number of threads without locks. When two states compete for a slot,
+ * the one searched deeper is kept.
+ *
+ * Bounds are distances from the solved state, so they stay valid across
+ * searches and a table can be reused for several cubes. Two different states
+ * are mistaken for each other only if their 64-bit keys have the same slot
+ * and the same upper bits.
+ * @author Alessandro Menti
+ */
+public final class TranspositionTable {
+    /**
+     * Bytes in a megabyte.
+     */
+    private static final long MEGABYTE = 1L << 20;
+    /**
+     * Bytes in a slot.
+     */
+    private static final int SLOT_BYTES = Long.BYTES;
+    /**
+     * Largest number of slots (the size of the largest array).
+     */
+    private static final long MAX_SLOTS = 1L << 30;
+    /**
+     * Number of bits of the depth and of the bound.
+     */
+    private static final int FIELD_BITS = 8;
+    /**
+     * Mask of the depth and of the bound.
+     */
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+    /**
+     * Mask of the bits of a slot holding the key.
+     */
+    private static final long KEY_MASK = -1L << (2 * FIELD_BITS);
+    /**
+     * Slots (<tt>0</tt> if empty).
+     */
+    private final AtomicLongArray slots;
+    /**
+     * Mask selecting the index of the slot from a key.
+     */
+    private final int indexMask;
+    /**
+     * Creates a new transposition table.
+     * @param megabytes Memory taken by the table, in megabytes; the number of
+     * slots is rounded down to a power of two.
+     * @throws IllegalArgumentException Thrown if <tt>megabytes</tt> is not
+     * positive.
+     */
+    public TranspositionTable(final int megabytes)
+            throws IllegalArgumentException {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("The size of the table must be"
+                                               + " positive");
+        }
+        final long wanted = Math.min(megabytes * MEGABYTE / SLOT_BYTES,
+                                     MAX_SLOTS);
+        final int n = (int) Long.highestOneBit(wanted);
+        this.slots = new AtomicLongArray(n);
+        this.indexMask = n - 1;
+    }
+    /**
+     * Gets the number of slots of the table.
+     * @return Number of slots.
+     */
+    public int capacity() {
+        return this.slots.length();
+    }
+    /**
+     * Gets the memory taken by the table.
+     * @return Size of the table in megabytes.
+     */
+    public int getMegabytes() {
+        return (int) ((long) this.slots.length() * SLOT_BYTES / MEGABYTE);
+    }
+    /**
+     * Removes all the entries of the table. Not atomic: entries stored by
+     * other threads while the table is being cleared may survive.
+     */
+    public void clear() {
+        for (int i = 0; i < this.slots.length(); ++i) {
+            this.slots.set(i, 0);
+        }
+    }
+    /**
+     * Looks up the bound of a state.
+     * @param key Key of the state.
+     * @return The bound stored for the state, or <tt>-1</tt> if the state is
+     * not in the table.
+     */
+    int probe(final long key) {
+        final long e = this.slots.get((int) key & this.indexMask);
+        if (e == 0 || (e & KEY_MASK) != (key & KEY_MASK)) {
+            return -1;
+        }
+        return (int) e & FIELD_MASK;
+    }
+    /**
+     * Stores the bound of a state, unless its slot holds a different state
+     * searched deeper.
+     * @param key Key of the state.
+     * @param depth Depth the state was searched to.
+     * @param bound Lower bound of the distance of the state from the solved
+     * state (greater than zero).
+     */
+    void store(final long key, final int depth, final int bound) {
+        final int i = (int) key & this.indexMask;
+        final long old = this.slots.get(i);
+        int d = Math.min(depth, FIELD_MASK);
+        int b = Math.min(bound, FIELD_MASK);
+        if (old != 0) {
+            final int oldDepth = (int) (old >>> FIELD_BITS) & FIELD_MASK;
+            if ((old & KEY_MASK) == (key & KEY_MASK)) {
+                // Same state: keep the best of both entries.
+                d = Math.max(d, oldDepth);
+                b = Math.max(b, (int) old & FIELD_MASK);
+            } else if (oldDepth > d) {
+                return;
+            }
+        }
+        final long e = (key & KEY_MASK) | (long) d << FIELD_BITS | b;
+        // If another thread changed the slot meanwhile, keep its entry.
+        this.slots.compareAndSet(i, old, e);
+    }
+}
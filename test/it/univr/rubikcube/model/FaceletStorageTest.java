@@ -0,0 +1,94 @@
+package it.univr.rubikcube.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the cubes kept off the heap and in memory-mapped files.
+ * @author Alessandro Menti
+ */
+public class FaceletStorageTest {
+    /**
+     * Dimension of the cubes kept in files.
+     */
+    private static final int DIMENSION = 7;
+    /**
+     * Creates a new instance of the test class.
+     */
+    public FaceletStorageTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that the cubes kept off the heap are rotated as the other
+     * ones.
+     */
+    @Test
+    public final void offHeapCubes() {
+        for (int dim = 2; dim <= 6; ++dim) {
+            final RubikCubeModel c = new RubikCubeModel(dim);
+            final RubikCubeModel d = RubikCubeModel.offHeap(dim);
+            RubikCubeModelTest.scramble(c, new Random(dim), 200);
+            RubikCubeModelTest.scramble(d, new Random(dim), 200);
+            Assert.assertEquals("The " + dim + "x" + dim + " cubes have the"
+                                + " same hash", c.getZobristHash(),
+                                d.getZobristHash());
+            Assert.assertEquals("The " + dim + "x" + dim + " cubes are equal",
+                                c, d);
+            Assert.assertEquals("The " + dim + "x" + dim + " cubes are equal",
+                                d, c);
+            Assert.assertEquals("A copy of the " + dim + "x" + dim + " cube"
+                                + " is equal", d, new RubikCubeModel(d));
+        }
+    }
+    /**
+     * Checks that a cube kept in a file is found again after a flush, and
+     * after changes which were not flushed.
+     * @throws IOException Thrown if the file can not be used.
+     */
+    @Test
+    public final void mappedCubes() throws IOException {
+        final Path file = Files.createTempFile("cube", ".bin");
+        try {
+            final RubikCubeModel c = new RubikCubeModel(DIMENSION);
+            final RubikCubeModel d = RubikCubeModel.map(file, DIMENSION);
+            Assert.assertTrue("A new file holds a solved cube",
+                              RubikCubeModel.isSolved(d));
+            final Random rc = new Random(DIMENSION);
+            final Random rd = new Random(DIMENSION);
+            RubikCubeModelTest.scramble(c, rc, 200);
+            RubikCubeModelTest.scramble(d, rd, 200);
+            d.flush();
+            Assert.assertEquals("The flushed cube is found again", c,
+                                RubikCubeModel.map(file, DIMENSION));
+            Assert.assertEquals("The flushed cube keeps its hash",
+                                c.getZobristHash(),
+                                RubikCubeModel.map(file, DIMENSION)
+                                .getZobristHash());
+            RubikCubeModelTest.scramble(c, rc, 200);
+            RubikCubeModelTest.scramble(d, rd, 200);
+            final RubikCubeModel e = RubikCubeModel.map(file, DIMENSION);
+            Assert.assertEquals("The changes which were not flushed are found"
+                                + " again", c, e);
+            Assert.assertEquals("The hash of the changes which were not"
+                                + " flushed is computed again",
+                                c.getZobristHash(), e.getZobristHash());
+            Assert.assertTrue("A file holding another cube is overwritten",
+                              RubikCubeModel.isSolved(
+                                  RubikCubeModel.map(file, DIMENSION + 1)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    /**
+     * Checks that cubes whose facelets can not be numbered are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void tooLargeCube() {
+        RubikCubeModel.offHeap(RubikCubeModel.MAX_DIMENSION + 1);
+    }
+}
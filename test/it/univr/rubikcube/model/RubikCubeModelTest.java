@@ -1,5 +1,8 @@
 package it.univr.rubikcube.model;
 
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -308,6 +311,217 @@ public class RubikCubeModelTest {
         Assert.assertTrue("Anticlockwise cube rotation brings back to"
                 + " standard", RubikCubeModel.isInStandardConfiguration(c));
     }
+    /**
+     * Checks that cubes are compared by dimension and configuration.
+     */
+    @Test
+    public final void equalsAndHashCode() {
+        final RubikCubeModel c = new RubikCubeModel(this.standardCubeDimension);
+        final RubikCubeModel d = new RubikCubeModel(c);
+        Assert.assertEquals("A copy is equal to the original", c, d);
+        Assert.assertEquals("Equal cubes have the same hash code",
+                            c.hashCode(), d.hashCode());
+        Assert.assertFalse("Cubes of different dimensions are different",
+                           c.equals(new RubikCubeModel(2)));
+        d.rotateColumn(0, ColumnRotation.BOTTOM);
+        Assert.assertFalse("A rotation changes the configuration",
+                           c.equals(d));
+        c.rotateRow(1, RowRotation.CLOCKWISE);
+        c.rotateRow(1, RowRotation.ANTICLOCKWISE);
+        c.rotateColumn(0, ColumnRotation.BOTTOM);
+        Assert.assertEquals("The same configuration reached in different ways"
+                            + " is equal", c, d);
+        Assert.assertEquals("The same configuration reached in different ways"
+                            + " has the same hash", c.getZobristHash(),
+                            d.getZobristHash());
+    }
+    /**
+     * Checks that the Zobrist hash updated by the rotations is the same as
+     * the one of a cube built facelet by facelet.
+     */
+    @Test
+    public final void incrementalZobristHash() {
+        for (int dim = 2; dim <= 5; ++dim) {
+            final RubikCubeModel c = new RubikCubeModel(dim);
+            scramble(c, new Random(dim), 200);
+            final RubikCubeModel d = new RubikCubeModel(dim);
+            for (RubikCubeSide s : RubikCubeSide.values()) {
+                for (int i = 0; i < dim; ++i) {
+                    for (int j = 0; j < dim; ++j) {
+                        d.setFace(s, i, j, c.getFace(s, i, j));
+                    }
+                }
+            }
+            Assert.assertEquals("The hash of a " + dim + "x" + dim + " cube is"
+                                + " consistent", d.getZobristHash(),
+                                c.getZobristHash());
+            Assert.assertEquals("The " + dim + "x" + dim + " cubes are equal",
+                                d, c);
+        }
+    }
+    /**
+     * Checks that turning an outer layer turns the facelets of its face, as
+     * seen through <tt>getFace</tt>, whatever the orientation the face is
+     * stored with.
+     */
+    @Test
+    public final void faceTurnsKeepFaceletSemantics() {
+        final int dim = 50;
+        final RubikCubeModel c = new RubikCubeModel(dim);
+        final Random rnd = new Random(24);
+        for (int k = 0; k < 8; ++k) {
+            scramble(c, rnd, 20);
+            final RubikCubeModel d = new RubikCubeModel(c);
+            c.rotateRow(0, RowRotation.CLOCKWISE);
+            for (int i = 0; i < dim; ++i) {
+                for (int j = 0; j < dim; ++j) {
+                    Assert.assertEquals("The upper face is turned clockwise",
+                                        d.getFace(RubikCubeSide.UP,
+                                                  dim - 1 - j, i),
+                                        c.getFace(RubikCubeSide.UP, i, j));
+                }
+            }
+            c.setFace(RubikCubeSide.UP, 0, 1, RubikCubeFaceColor.RED);
+            Assert.assertEquals("A facelet of a turned face can be set",
+                                RubikCubeFaceColor.RED,
+                                c.getFace(RubikCubeSide.UP, 0, 1));
+        }
+        final RubikCubeModel e = new RubikCubeModel(dim);
+        for (RubikCubeSide s : RubikCubeSide.values()) {
+            for (int i = 0; i < dim; ++i) {
+                for (int j = 0; j < dim; ++j) {
+                    e.setFace(s, i, j, c.getFace(s, i, j));
+                }
+            }
+        }
+        Assert.assertEquals("The hash does not depend on the orientation of"
+                            + " the faces", e.getZobristHash(),
+                            c.getZobristHash());
+        Assert.assertEquals("The equality does not depend on the orientation"
+                            + " of the faces", e, c);
+    }
+    /**
+     * Checks that the precomputed permutations used for 3x3x3 cubes move the
+     * facelets as the general rotation code does.
+     */
+    @Test
+    public final void compiledRotationsMatchGeneralOnes() {
+        final RubikCubeModel c = new RubikCubeModel(this.standardCubeDimension);
+        scramble(c, new Random(0), 50);
+        for (int i = 0; i < c.getDimension(); ++i) {
+            for (RowRotation r : RowRotation.values()) {
+                final RubikCubeModel d = new RubikCubeModel(c);
+                final RubikCubeModel e = new RubikCubeModel(c);
+                d.rotateRow(i, r);
+                e.rotateRowFacelets(i, r);
+                assertSameFacelets("Row " + i + " " + r, e, d);
+            }
+            for (ColumnRotation r : ColumnRotation.values()) {
+                final RubikCubeModel d = new RubikCubeModel(c);
+                final RubikCubeModel e = new RubikCubeModel(c);
+                d.rotateColumn(i, r);
+                e.rotateColumnFacelets(i, r);
+                assertSameFacelets("Column " + i + " " + r, e, d);
+            }
+            for (LateralColumnRotation r : LateralColumnRotation.values()) {
+                final RubikCubeModel d = new RubikCubeModel(c);
+                final RubikCubeModel e = new RubikCubeModel(c);
+                d.rotateLateralColumn(i, r);
+                e.rotateLateralColumnFacelets(i, r);
+                assertSameFacelets("Lateral column " + i + " " + r, e, d);
+            }
+        }
+        for (CubeRotation r : CubeRotation.values()) {
+            final RubikCubeModel d = new RubikCubeModel(c);
+            final RubikCubeModel e = new RubikCubeModel(c);
+            d.rotateCube(r);
+            e.rotateCubeFacelets(r);
+            assertSameFacelets("Cube " + r, e, d);
+        }
+    }
+    /**
+     * Checks that rotating the entire cube is the same as rotating all of
+     * its layers in the same direction.
+     */
+    @Test
+    public final void cubeRotationsMatchLayerRotations() {
+        for (int dim = 2; dim <= 5; ++dim) {
+            final RubikCubeModel c = new RubikCubeModel(dim);
+            scramble(c, new Random(dim), 50);
+            for (CubeRotation r : CubeRotation.values()) {
+                final RubikCubeModel d = new RubikCubeModel(c);
+                final RubikCubeModel e = new RubikCubeModel(c);
+                d.rotateCube(r);
+                for (int i = 0; i < dim; ++i) {
+                    switch (r) {
+                        case UPWISE:
+                            e.rotateColumn(i, ColumnRotation.TOP);
+                            break;
+                        case DOWNWISE:
+                            e.rotateColumn(i, ColumnRotation.BOTTOM);
+                            break;
+                        case CLOCKWISE:
+                            e.rotateRow(i, RowRotation.CLOCKWISE);
+                            break;
+                        case ANTICLOCKWISE:
+                            e.rotateRow(i, RowRotation.ANTICLOCKWISE);
+                            break;
+                        case CLOCKWISE_FROM_FRONT:
+                            e.rotateLateralColumn(i,
+                                                  LateralColumnRotation.RIGHT);
+                            break;
+                        default:
+                            e.rotateLateralColumn(i,
+                                                  LateralColumnRotation.LEFT);
+                            break;
+                    }
+                }
+                Assert.assertEquals("Cube rotation " + r + " of a " + dim + "x"
+                                    + dim + " cube", e, d);
+            }
+        }
+    }
+    /**
+     * Checks that the rotations do not allocate any memory when nobody
+     * observes the cube. The test is skipped if the JVM can not measure the
+     * memory allocated by a thread.
+     */
+    @Test
+    public final void rotationsDoNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean()
+              instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        final com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        final long thread = Thread.currentThread().getId();
+        final RubikCubeModel c = new RubikCubeModel(5);
+        final RowRotation[] rows = RowRotation.values();
+        final ColumnRotation[] columns = ColumnRotation.values();
+        final LateralColumnRotation[] laterals =
+            LateralColumnRotation.values();
+        final CubeRotation[] cubes = CubeRotation.values();
+        // Warm up, then measure the allocation of the same sequence.
+        long allocated = 0;
+        for (int round = 0; round < 2; ++round) {
+            allocated = bean.getThreadAllocatedBytes(thread);
+            for (int k = 0; k < 10000; ++k) {
+                final int index = k % c.getDimension();
+                c.rotateRow(index, rows[k & 1]);
+                c.rotateColumn(index, columns[k & 1]);
+                c.rotateLateralColumn(index, laterals[k & 1]);
+                c.rotateCube(cubes[k % cubes.length]);
+            }
+            allocated = bean.getThreadAllocatedBytes(thread) - allocated;
+        }
+        Assert.assertEquals("The rotations do not allocate memory", 0,
+                            allocated);
+    }
     /**
      * Check that a cube in the standard configuration is sane.
      */
@@ -1190,4 +1404,51 @@ public class RubikCubeModelTest {
                && c.getFace(RubikCubeSide.FRONT, 2, 1) == RubikCubeFaceColor.BLUE
                && c.getFace(RubikCubeSide.FRONT, 2, 2) == RubikCubeFaceColor.RED;
     }
+    /**
+     * Performs random rotations of every kind on a cube.
+     * @param c Cube to be scrambled.
+     * @param rnd Random number generator.
+     * @param n Number of rotations.
+     */
+    static void scramble(final RubikCubeModel c, final Random rnd,
+                         final int n) {
+        for (int k = 0; k < n; ++k) {
+            final int index = rnd.nextInt(c.getDimension());
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    c.rotateRow(index, RowRotation.values()[rnd.nextInt(2)]);
+                    break;
+                case 1:
+                    c.rotateColumn(index,
+                                   ColumnRotation.values()[rnd.nextInt(2)]);
+                    break;
+                case 2:
+                    c.rotateLateralColumn(index, LateralColumnRotation
+                                          .values()[rnd.nextInt(2)]);
+                    break;
+                default:
+                    c.rotateCube(CubeRotation.values()[rnd.nextInt(
+                            CubeRotation.values().length)]);
+                    break;
+            }
+        }
+    }
+    /**
+     * Checks that two cubes have the same color on every facelet.
+     * @param message Message to be shown if the check fails.
+     * @param expected Expected cube.
+     * @param actual Actual cube.
+     */
+    private static void assertSameFacelets(final String message,
+                                           final RubikCubeModel expected,
+                                           final RubikCubeModel actual) {
+        for (RubikCubeSide s : RubikCubeSide.values()) {
+            for (int i = 0; i < expected.getDimension(); ++i) {
+                for (int j = 0; j < expected.getDimension(); ++j) {
+                    Assert.assertEquals(message, expected.getFace(s, i, j),
+                                        actual.getFace(s, i, j));
+                }
+            }
+        }
+    }
 }
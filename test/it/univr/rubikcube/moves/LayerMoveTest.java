@@ -0,0 +1,73 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the moves of single layers.
+ * @author Alessandro Menti
+ */
+public class LayerMoveTest {
+    /**
+     * Dimension of the cubes.
+     */
+    private static final int DIMENSION = 5;
+    /**
+     * Creates a new instance of the test class.
+     */
+    public LayerMoveTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that the outer layers are turned as the faces.
+     */
+    @Test
+    public final void outerLayers() {
+        final String[] faces = {"U", "D", "L", "R", "F", "B"};
+        for (String f : faces) {
+            final RubikCubeModel a = new RubikCubeModel(DIMENSION);
+            final RubikCubeModel b = new RubikCubeModel(DIMENSION);
+            final RubikCubeSide s = RubikCubeSide.values()[
+                "FBUDLR".indexOf(f)];
+            // Scramble the cubes a bit, so that every layer differs.
+            MoveSequence.parse("R U F").applyTo(a);
+            MoveSequence.parse("R U F").applyTo(b);
+            new LayerMove(a, s, 0).perform();
+            MoveSequence.parse(f).applyTo(b);
+            Assert.assertEquals("The outer layer turns as " + f, b, a);
+            Assert.assertEquals("The move is written as the face", f,
+                                new LayerMove(a, s, 0).toString());
+        }
+    }
+    /**
+     * Checks that the innermost layer from a side is the outer one from the
+     * opposite side, turned the other way.
+     */
+    @Test
+    public final void oppositeSides() {
+        final RubikCubeModel a = new RubikCubeModel(DIMENSION);
+        final RubikCubeModel b = new RubikCubeModel(DIMENSION);
+        new LayerMove(a, RubikCubeSide.RIGHT, 1).perform();
+        new LayerMove(a, RubikCubeSide.RIGHT, DIMENSION - 1).perform();
+        new LayerMove(b, RubikCubeSide.LEFT, DIMENSION - 2, true).perform();
+        new LayerMove(b, RubikCubeSide.LEFT, 0, true).perform();
+        Assert.assertEquals("The layers are turned the same way", b, a);
+        final LayerMove m = new LayerMove(a, RubikCubeSide.RIGHT, 2, true);
+        Assert.assertEquals("The inner layers are numbered", "3R'",
+                            m.toString());
+        m.perform();
+        m.reverse();
+        Assert.assertEquals("The reversed move undoes the move", b, a);
+    }
+    /**
+     * Checks that layers outside the cube are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void outsideLayer() {
+        new LayerMove(new RubikCubeModel(DIMENSION), RubikCubeSide.UP,
+                      DIMENSION);
+    }
+}
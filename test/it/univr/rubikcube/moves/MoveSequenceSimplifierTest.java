@@ -0,0 +1,111 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Move sequence simplifier test cases.
+ * @author Alessandro Menti
+ */
+public class MoveSequenceSimplifierTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public MoveSequenceSimplifierTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Simplifies a sequence written in the move notation.
+     * @param s Sequence to be simplified.
+     * @return Textual form of the simplified sequence.
+     */
+    private static String simplify(final String s) {
+        return MoveSequence.parse(s).simplify().toString();
+    }
+    /**
+     * Checks that inverse turns cancel out, even when separated by commuting
+     * turns.
+     */
+    @Test
+    public final void cancel() {
+        Assert.assertEquals("Inverse turns cancel out", "",
+                            simplify("R R'"));
+        Assert.assertEquals("Nested inverse turns cancel out", "F",
+                            simplify("F R U U' R'"));
+        Assert.assertEquals("Commuting turns do not prevent cancelling", "L",
+                            simplify("R L R'"));
+        Assert.assertEquals("Four quarter turns cancel out", "",
+                            simplify("M M M M"));
+    }
+    /**
+     * Checks that quarter turns are merged.
+     */
+    @Test
+    public final void merge() {
+        Assert.assertEquals("Three quarter turns are one reversed turn", "R'",
+                            simplify("R R R"));
+        Assert.assertEquals("Half turns are written as clockwise turns",
+                            "U U", simplify("U' U'"));
+        Assert.assertEquals("Half turns are merged", "D'",
+                            simplify("D2 D"));
+    }
+    /**
+     * Checks that commuting turns are written in a canonical order.
+     */
+    @Test
+    public final void canonicalOrder() {
+        Assert.assertEquals("Opposite faces are ordered", "L R",
+                            simplify("R L"));
+        Assert.assertEquals("Slices are ordered", "U D E'",
+                            simplify("E' D U"));
+        Assert.assertEquals("Commuting turns are merged", "F F B' R",
+                            simplify("F B' F R"));
+        Assert.assertEquals("The order of commuting turns does not matter",
+                            simplify("L R' M L"), simplify("M L R' L"));
+    }
+    /**
+     * Checks that rotations of the entire cube are absorbed.
+     */
+    @Test
+    public final void rotations() {
+        Assert.assertEquals("Turns are relabelled after a rotation", "F X",
+                            simplify("X U"));
+        Assert.assertEquals("Opposite rotations cancel out", "R",
+                            simplify("Y R' Y' B R"));
+        Assert.assertEquals("Rotations are merged", "Y'",
+                            simplify("Y Y Y"));
+    }
+    /**
+     * Checks that random sequences are never lengthened and leave the cube
+     * in the same state once simplified.
+     */
+    @Test
+    public final void sameState() {
+        final Random rnd = new Random(9);
+        final Turn[] turns = Turn.values();
+        for (int i = 0; i < 200; ++i) {
+            final MoveSequence s = new MoveSequence();
+            final int n = rnd.nextInt(40);
+            for (int j = 0; j < n; ++j) {
+                // Favour repeated turns, which can be simplified.
+                s.append(j > 0 && rnd.nextBoolean()
+                         ? s.get(j - 1 - rnd.nextInt(j))
+                         : turns[rnd.nextInt(turns.length)]);
+            }
+            final MoveSequence t = s.simplify();
+            Assert.assertTrue("The sequence is not lengthened",
+                              t.length() <= s.length());
+            final RubikCubeModel a = new RubikCubeModel(3);
+            s.applyTo(a);
+            final RubikCubeModel b = new RubikCubeModel(3);
+            t.applyTo(b);
+            Assert.assertEquals("The simplified sequence " + t + " of " + s
+                                + " leaves the cube in the same state", a, b);
+            Assert.assertEquals("The simplification is idempotent", t,
+                                t.simplify());
+        }
+    }
+}
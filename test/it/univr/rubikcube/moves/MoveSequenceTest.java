@@ -0,0 +1,147 @@
+package it.univr.rubikcube.moves;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Move sequence test cases.
+ * @author Alessandro Menti
+ */
+public class MoveSequenceTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public MoveSequenceTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that a sequence is printed and parsed back in the move notation.
+     */
+    @Test
+    public final void parseAndPrint() {
+        final MoveSequence s = MoveSequence.parse("R U' F, Z' M\tS");
+        Assert.assertEquals("The sequence has the right length", 6,
+                            s.length());
+        Assert.assertEquals("The sequence is printed in the move notation",
+                            "R U' F Z' M S", s.toString());
+        Assert.assertEquals("The printed sequence is parsed back", s,
+                            MoveSequence.parse(s.toString()));
+        Assert.assertEquals("Half turns are parsed as two quarter turns",
+                            MoveSequence.parse("R R U' U'"),
+                            MoveSequence.parse("R2 U'2"));
+        Assert.assertTrue("The empty string is the empty sequence",
+                          MoveSequence.parse("  ").isEmpty());
+    }
+    /**
+     * Checks that unknown moves are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void parseUnknownMove() {
+        MoveSequence.parse("R Q");
+    }
+    /**
+     * Checks appending, concatenation, equality and hashing.
+     */
+    @Test
+    public final void appendAndConcat() {
+        final MoveSequence a = new MoveSequence(Turn.R, Turn.U);
+        final MoveSequence b = new MoveSequence(0);
+        for (int i = 0; i < 100; ++i) {
+            b.append(Turn.values()[i % Turn.values().length]);
+        }
+        final MoveSequence c = a.concat(b);
+        Assert.assertEquals("The concatenation has the turns of both", 102,
+                            c.length());
+        Assert.assertEquals("The concatenation starts with the first sequence",
+                            Turn.U, c.get(1));
+        Assert.assertEquals("The concatenation ends with the second sequence",
+                            b.get(99), c.get(101));
+        final MoveSequence d = new MoveSequence(a).append(b);
+        d.trimToSize();
+        Assert.assertEquals("Appending is the same as concatenating", c, d);
+        Assert.assertEquals("Equal sequences have the same hash code",
+                            c.hashCode(), d.hashCode());
+        Assert.assertEquals("Concatenation does not change the operands", 2,
+                            a.length());
+        Assert.assertEquals("The last turn is removed", b.get(99),
+                            d.removeLast());
+        Assert.assertNotEquals("Sequences of different lengths differ", c, d);
+    }
+    /**
+     * Checks that the inverse of a sequence undoes it.
+     */
+    @Test
+    public final void inverse() {
+        final MoveSequence s = MoveSequence.parse("R U' F2 X M' B");
+        Assert.assertEquals("The inverse is reversed and inverted",
+                            MoveSequence.parse("B' M X' F' F' U R'"),
+                            s.inverse());
+        final RubikCubeModel c = new RubikCubeModel(3);
+        s.applyTo(c);
+        Assert.assertFalse("The sequence changes the cube",
+                           RubikCubeModel.isInStandardConfiguration(c));
+        s.inverse().applyTo(c);
+        Assert.assertTrue("The inverse undoes the sequence",
+                          RubikCubeModel.isInStandardConfiguration(c));
+    }
+    /**
+     * Checks the conversion from and to lists of moves.
+     */
+    @Test
+    public final void moves() {
+        final MoveSequence s = MoveSequence.parse("L' D E S' Y Z");
+        final RubikCubeModel c = new RubikCubeModel(3);
+        Assert.assertEquals("The sequence is converted to moves and back", s,
+                            MoveSequence.fromMoves(s.toMoves(c)));
+    }
+    /**
+     * Checks that the turns of the inner layers are printed, parsed, inverted
+     * and simplified as the moves of the layers.
+     */
+    @Test
+    public final void innerLayers() {
+        final MoveSequence s = MoveSequence.parse("3R' U 2F2 R 4D");
+        Assert.assertEquals("The layers are counted in the sequence", 6,
+                            s.length());
+        Assert.assertEquals("The depth of a layer is kept", 2,
+                            s.getDepth(0));
+        Assert.assertEquals("The outer layer has no depth", 0,
+                            s.getDepth(1));
+        Assert.assertEquals("The layers are printed in the move notation",
+                            "3R' U 2F 2F R 4D", s.toString());
+        Assert.assertEquals("The printed sequence is parsed back", s,
+                            MoveSequence.parse(s.toString()));
+        Assert.assertNotEquals("Inner and outer layers differ",
+                               MoveSequence.parse("2R"),
+                               MoveSequence.parse("R"));
+        Assert.assertEquals("The outer layer may be numbered",
+                            MoveSequence.parse("R"),
+                            MoveSequence.parse("1R"));
+        final RubikCubeModel c = new RubikCubeModel(5);
+        final RubikCubeModel d = new RubikCubeModel(5);
+        s.applyTo(c);
+        for (Move m : s.toMoves(d)) {
+            m.perform();
+        }
+        Assert.assertEquals("The sequence turns the layers of the moves", c,
+                            d);
+        Assert.assertEquals("The sequence is converted to moves and back", s,
+                            MoveSequence.fromMoves(s.toMoves(d)));
+        s.inverse().applyTo(c);
+        Assert.assertTrue("The inverse undoes the sequence",
+                          RubikCubeModel.isInStandardConfiguration(c));
+        final MoveSequence t =
+            MoveSequence.parse("3R 3R' 2U 2U2 U 2U 2U X X'").simplify();
+        Assert.assertEquals("The turns of the same layer are merged",
+                            "2U' U 2U 2U", t.toString());
+    }
+    /**
+     * Checks that only face turns can turn an inner layer.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void innerSlice() {
+        MoveSequence.parse("2M");
+    }
+}
@@ -388,6 +388,38 @@ public class SingmasterMovesTest {
                           RubikCubeModel.isInStandardConfiguration(this.cube));
         this.cube.resetToStandardConfiguration();
     }
+    /**
+     * Checks that the turn constants act as the corresponding moves.
+     */
+    @Test
+    public final void testTurns() {
+        // Start from a configuration in which every turn is distinguishable.
+        new R(this.cube).perform();
+        new U(this.cube).perform();
+        new F(this.cube, true).perform();
+        for (Turn t : Turn.values()) {
+            final RubikCubeModel expected = new RubikCubeModel(this.cube);
+            final RubikCubeModel actual = new RubikCubeModel(this.cube);
+            final Move m = t.toMove(expected);
+            Assert.assertEquals("The move of " + t + " has the same notation",
+                                t.toString(), m.toString());
+            Assert.assertSame("The notation of " + t + " is parsed back", t,
+                              Turn.fromMove(m));
+            m.perform();
+            t.apply(actual);
+            Assert.assertEquals(t + " acts as the corresponding move",
+                                expected, actual);
+            t.applyInverse(actual);
+            Assert.assertEquals(t + " is undone by its inverse", this.cube,
+                                actual);
+            Assert.assertSame("The inverse of the inverse of " + t
+                              + " is the turn itself", t,
+                              t.inverse().inverse());
+            Assert.assertTrue("Exactly one of " + t + " and its inverse is"
+                              + " reversed",
+                              t.isReversed() != t.inverse().isReversed());
+        }
+    }
     /**
      * Checks whether the reverse of the move puts the cube in the standard
      * configuration.
@@ -0,0 +1,126 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the batch solver.
+ * @author Alessandro Menti
+ */
+public class BatchSolverTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public BatchSolverTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that a batch is solved in the order of the input, with
+     * invalid cubes reported as errors.
+     * @throws IOException Thrown if the input or output fail.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     */
+    @Test
+    public final void solveBatch() throws IOException, InterruptedException {
+        final Random rnd = new Random(19);
+        final String[] cubes = new String[20];
+        final StringBuilder in = new StringBuilder();
+        for (int i = 0; i < cubes.length; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            for (int j = 0; j < 30; ++j) {
+                Turn.values()[rnd.nextInt(12)].apply(m);
+            }
+            cubes[i] = KociembaLib.mapOurCubeModelToKociemba(m);
+            in.append(cubes[i]).append('\n');
+            if (i == 5) {
+                in.append("\n  \n");
+            }
+        }
+        in.append("UUU\n");
+        final StringWriter out = new StringWriter();
+        final long n = new BatchSolver(2, 4, KociembaLib::new).solve(
+            new BufferedReader(new StringReader(in.toString())), out);
+        Assert.assertEquals("Blank lines are skipped", cubes.length + 1, n);
+        final String[] lines = out.toString().split(System.lineSeparator());
+        Assert.assertEquals("There is a line per cube", n, lines.length);
+        for (int i = 0; i < cubes.length; ++i) {
+            final String[] fields = lines[i].split("\t");
+            Assert.assertEquals("The line has three fields", 3,
+                                fields.length);
+            Assert.assertEquals("The lines are in the order of the input",
+                                cubes[i], fields[0]);
+            final RubikCubeModel m =
+                KociembaLib.mapKociembaModelToOurCube(cubes[i]);
+            MoveSequence.parse(fields[1]).applyTo(m);
+            Assert.assertTrue("The solution solves the cube",
+                              RubikCubeModel.isSolved(m));
+            Assert.assertTrue("The time is reported",
+                              Long.parseLong(fields[2]) >= 0);
+        }
+        Assert.assertTrue("An invalid cube is reported",
+                          lines[cubes.length].startsWith("UUU\tERROR "));
+    }
+    /**
+     * Checks that a solved cube is written out before the end of the input.
+     * @throws IOException Thrown if the input or output fail.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     */
+    @Test
+    public final void streaming() throws IOException, InterruptedException {
+        final PipedWriter input = new PipedWriter();
+        final BufferedReader in =
+            new BufferedReader(new PipedReader(input));
+        final CountDownLatch flushed = new CountDownLatch(1);
+        final StringWriter out = new StringWriter() {
+            @Override
+            public void flush() {
+                super.flush();
+                if (this.getBuffer().length() > 0) {
+                    flushed.countDown();
+                }
+            }
+        };
+        final Thread solver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new BatchSolver(1, 4, KociembaLib::new).solve(in, out);
+                } catch (IOException | InterruptedException e) {
+                    // Reported by the missing output
+                }
+            }
+        });
+        solver.start();
+        final RubikCubeModel m = new RubikCubeModel(3);
+        Turn.R.apply(m);
+        final String cube = KociembaLib.mapOurCubeModelToKociemba(m);
+        try {
+            input.write(cube + "\n");
+            input.flush();
+            Assert.assertTrue("The solution is flushed before the end of the"
+                              + " input", flushed.await(60, TimeUnit.SECONDS));
+        } finally {
+            input.close();
+            solver.join();
+        }
+        final String[] fields = out.toString().split("\t");
+        Assert.assertEquals("The cube is written", cube, fields[0]);
+        MoveSequence.parse(fields[1]).applyTo(m);
+        Assert.assertTrue("The solution solves the cube",
+                          RubikCubeModel.isSolved(m));
+    }
+}
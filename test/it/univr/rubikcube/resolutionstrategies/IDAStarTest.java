@@ -0,0 +1,321 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * IDA* resolution strategy test cases.
+ * @author Alessandro Menti
+ */
+public class IDAStarTest {
+    /**
+     * Number of face turns, the first ones in <tt>Turn</tt>.
+     */
+    private static final int FACE_TURNS = 12;
+    /**
+     * Number of threads of the parallel searches.
+     */
+    private static final int THREADS = 4;
+    /**
+     * Creates a new instance of the test class.
+     */
+    public IDAStarTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Creates a scramble of random face turns.
+     * @param rnd Random number generator.
+     * @param n Number of quarter turns.
+     * @return The scramble.
+     */
+    static MoveSequence scramble(final Random rnd, final int n) {
+        final MoveSequence s = new MoveSequence(n);
+        for (int i = 0; i < n; ++i) {
+            s.append(Turn.values()[rnd.nextInt(FACE_TURNS)]);
+        }
+        return s;
+    }
+    /**
+     * Checks that a sequence solves a cube, and that it is not longer than
+     * the scramble of the cube.
+     * @param cube Scrambled cube.
+     * @param scramble Scramble of the cube.
+     * @param solution Solution of the cube.
+     */
+    static void checkSolution(final RubikCubeModel cube,
+                              final MoveSequence scramble,
+                              final MoveSequence solution) {
+        final RubikCubeModel c = new RubikCubeModel(cube);
+        solution.applyTo(c);
+        Assert.assertTrue("The solution " + solution + " solves the cube"
+                          + " scrambled by " + scramble,
+                          RubikCubeModel.isInStandardConfiguration(c));
+        Assert.assertTrue("The solution " + solution + " is not longer than"
+                          + " the scramble " + scramble,
+                          solution.length() <= scramble.length());
+    }
+    /**
+     * Checks that a solved cube needs no moves.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void solvedCube() throws NoSolutionException,
+            TimeoutException {
+        Assert.assertTrue("A solved cube needs no moves",
+                          new IDAStar(new RubikCubeModel(3))
+                          .getNextMoveSequence().isEmpty());
+    }
+    /**
+     * Checks that scrambles of known length are solved by sequences which
+     * are not longer, since the solutions are optimal.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void scrambles() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(1);
+        for (int n = 1; n <= 10; ++n) {
+            for (int i = 0; i < 3; ++i) {
+                final MoveSequence s = scramble(rnd, n);
+                final RubikCubeModel c = new RubikCubeModel(3);
+                s.applyTo(c);
+                checkSolution(c, s, new IDAStar(c).getNextMoveSequence());
+            }
+        }
+    }
+    /**
+     * Checks that the optimal length is found for a scramble which can not
+     * be shortened.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void optimalLength() throws NoSolutionException,
+            TimeoutException {
+        final MoveSequence s = MoveSequence.parse("R U F' L D' B R' U");
+        final RubikCubeModel c = new RubikCubeModel(3);
+        s.applyTo(c);
+        Assert.assertEquals("The solution is as long as the scramble",
+                            s.length(),
+                            new IDAStar(c).getNextMoveSequence().length());
+    }
+    /**
+     * Checks that a cube with a flipped edge can not be solved.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void unsolvableCube() throws TimeoutException {
+        final RubikCubeModel c = new RubikCubeModel(3);
+        c.setFace(RubikCubeSide.UP, 2, 1, RubikCubeFaceColor.RED);
+        c.setFace(RubikCubeSide.FRONT, 0, 1, RubikCubeFaceColor.WHITE);
+        try {
+            new IDAStar(c).getNextMoveSequence();
+            Assert.fail("A cube with a flipped edge can not be solved");
+        } catch (NoSolutionException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that the solution of a cube whose centers are not in their
+     * standard position starts with the rotations bringing them back.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void rotatedCube() throws NoSolutionException,
+            TimeoutException {
+        final MoveSequence s = MoveSequence.parse("R U' F D");
+        final RubikCubeModel c = new RubikCubeModel(3);
+        s.applyTo(c);
+        Turn.X.apply(c);
+        Turn.Y.apply(c);
+        final MoveSequence rotations =
+            ResolutionStrategy.orient(new RubikCubeModel(c));
+        Assert.assertFalse("The centers have to be rotated",
+                           rotations.isEmpty());
+        final MoveSequence solution = new IDAStar(c).getNextMoveSequence();
+        Assert.assertTrue("The solution " + solution + " is longer than the"
+                          + " rotations",
+                          solution.length() > rotations.length());
+        for (int i = 0; i < rotations.length(); ++i) {
+            Assert.assertEquals("The solution starts with the rotations",
+                                rotations.get(i), solution.get(i));
+        }
+        Assert.assertEquals("The turns after the rotations are optimal",
+                            s.length(),
+                            solution.length() - rotations.length());
+        solution.applyTo(c);
+        Assert.assertTrue("The solution solves the cube",
+                          RubikCubeModel.isInStandardConfiguration(c));
+    }
+    /**
+     * Scrambles a solved cube and creates the searcher of its root.
+     * @param s Scramble.
+     * @return The searcher of the root of the scrambled cube.
+     * @throws NoSolutionException Thrown if there is no solution.
+     */
+    private static IDAStar.Searcher root(final MoveSequence s)
+            throws NoSolutionException {
+        final RubikCubeModel c = new RubikCubeModel(3);
+        s.applyTo(c);
+        return IDAStar.searcher(c, SearchBudget.UNLIMITED.start(), null);
+    }
+    /**
+     * Checks that the parallel search finds valid solutions as long as the
+     * ones of the sequential search.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void parallelLength() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(2);
+        for (int n = 1; n <= 11; ++n) {
+            final MoveSequence s = scramble(rnd, n);
+            final RubikCubeModel c = new RubikCubeModel(3);
+            s.applyTo(c);
+            final MoveSequence parallel =
+                new IDAStar(c, THREADS).getNextMoveSequence();
+            checkSolution(c, s, parallel);
+            Assert.assertEquals("The parallel solution of " + s + " is as"
+                                + " long as the sequential one",
+                                new IDAStar(c).getNextMoveSequence().length(),
+                                parallel.length());
+        }
+    }
+    /**
+     * Checks that the first subtree finding a solution stops the others:
+     * the tasks run after it, and the searches already running, do not
+     * visit any more nodes.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void firstSolutionStops() throws NoSolutionException,
+            TimeoutException {
+        final MoveSequence s = MoveSequence.parse("F R' U R L B' D F' U'");
+        // A threshold above the optimal length leaves more subtrees with
+        // solutions.
+        final int threshold = s.length() + 2;
+        final IDAStar.Searcher root = root(s);
+        root.subtrees = new ArrayList<IDAStar.Searcher>();
+        Assert.assertEquals("The subtrees are left to the tasks", -1,
+                            root.iterate(threshold));
+        final List<IDAStar.Searcher> subtrees = root.subtrees;
+        final IDAStar.Iteration it = new IDAStar.Iteration(threshold);
+        int first = -1;
+        for (int i = 0; i < subtrees.size(); ++i) {
+            final IDAStar.Searcher t = subtrees.get(i);
+            t.stop = it.stop;
+            new IDAStar.Subtree(t, it).invoke();
+            if (first < 0 && it.solution.get() != null) {
+                first = i;
+            }
+        }
+        Assert.assertTrue("A subtree finds a solution", first >= 0);
+        Assert.assertTrue("The solution is not in the last subtree",
+                          first < subtrees.size() - 1);
+        final RubikCubeModel c = new RubikCubeModel(3);
+        s.applyTo(c);
+        final MoveSequence solution = new MoveSequence();
+        for (int m : it.solution.get()) {
+            solution.append(Turn.values()[m]);
+        }
+        solution.applyTo(c);
+        Assert.assertTrue("The first solution " + solution + " solves the"
+                          + " cube",
+                          RubikCubeModel.isInStandardConfiguration(c));
+        Assert.assertTrue("The first solution is within the threshold",
+                          solution.length() <= threshold);
+        for (int i = first + 1; i < subtrees.size(); ++i) {
+            final IDAStar.Searcher t = subtrees.get(i);
+            Assert.assertEquals("A task run after the solution visits no"
+                                + " node", 0, t.monitor.getNodes());
+            Assert.assertEquals("A running search stops at the next node",
+                                -1, t.iterate(threshold));
+            Assert.assertEquals("A running search visits no more nodes", 0,
+                                t.monitor.getNodes());
+        }
+    }
+    /**
+     * Checks that the threshold of the next iteration of a parallel search
+     * is the minimum of the ones computed by the subtrees, i.e. the same as
+     * that of the sequential search.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void parallelThreshold() throws NoSolutionException,
+            TimeoutException {
+        final MoveSequence s = MoveSequence.parse("F R' U2 L B' D R");
+        final IDAStar.Searcher sequential = root(s);
+        final IDAStar.Searcher parallel = root(s);
+        final ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try {
+            int threshold = sequential.estimate();
+            while (threshold < s.length()) {
+                Assert.assertEquals("No solution is shorter than the"
+                                    + " scramble", -1,
+                                    sequential.iterate(threshold));
+                parallel.nextThreshold = Integer.MAX_VALUE;
+                Assert.assertEquals("No solution is found in parallel", -1,
+                                    IDAStar.parallelIterate(pool, parallel,
+                                                            threshold));
+                Assert.assertEquals("The next threshold after " + threshold
+                                    + " is the minimum of the subtrees",
+                                    sequential.nextThreshold,
+                                    parallel.nextThreshold);
+                Assert.assertTrue("The threshold grows",
+                                  sequential.nextThreshold > threshold);
+                threshold = sequential.nextThreshold;
+            }
+            Assert.assertEquals("The solution is found at the same threshold",
+                                s.length(), IDAStar.parallelIterate(
+                                    pool, parallel, threshold));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    /**
+     * Checks that the transposition table does not change the length of the
+     * solutions, either sequential or parallel, even when the table is
+     * shared by several searches.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void transpositionTable() throws NoSolutionException,
+            TimeoutException {
+        final TranspositionTable table = new TranspositionTable(16);
+        final Random rnd = new Random(3);
+        for (int n = 4; n <= 11; ++n) {
+            final MoveSequence s = scramble(rnd, n);
+            final RubikCubeModel c = new RubikCubeModel(3);
+            s.applyTo(c);
+            final int length = new IDAStar(c).getNextMoveSequence().length();
+            for (int threads : new int[] {1, THREADS}) {
+                final IDAStar ida = new IDAStar(c, threads);
+                ida.setTranspositionTable(table);
+                final MoveSequence solution = ida.getNextMoveSequence();
+                checkSolution(c, s, solution);
+                Assert.assertEquals("The solution of " + s + " on " + threads
+                                    + " threads is as long with the table",
+                                    length, solution.length());
+            }
+        }
+    }
+}
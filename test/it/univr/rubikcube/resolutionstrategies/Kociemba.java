@@ -68,6 +68,22 @@ public class Kociemba {
         
         Assert.assertTrue(RubikCubeModel.isSolved(m));
     }
+    /**
+     * Tests that a cube converted to a facelet string and back is unchanged.
+     */
+    @Test
+    public final void testFaceletString() {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        final SecureRandom secRand = new SecureRandom();
+        final char[] words = {'L', 'R', 'U', 'D', 'F', 'B'};
+        for (int i = 0; i < 40; ++i) {
+            this.performMove(m, words[secRand.nextInt(words.length)],
+                             secRand.nextBoolean());
+        }
+        Assert.assertEquals("The cube is converted back unchanged", m,
+                            KociembaLib.mapKociembaModelToOurCube(
+                                KociembaLib.mapOurCubeModelToKociemba(m)));
+    }
     /**
      * Performs a move on a cube given the identification character.
      * @param m Model to act on.
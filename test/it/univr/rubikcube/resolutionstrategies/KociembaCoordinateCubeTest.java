@@ -0,0 +1,88 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Test cases for the file of the tables of the coordinate cube.
+ * @author Alessandro Menti
+ */
+public class KociembaCoordinateCubeTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public KociembaCoordinateCubeTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Overwrites a byte of a file.
+     * @param file File.
+     * @param position Position of the byte.
+     * @throws IOException Thrown if the file can not be written.
+     */
+    static void corrupt(final Path file, final long position)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE)) {
+            final ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 1));
+            b.rewind();
+            ch.write(b, position);
+        }
+    }
+    /**
+     * Checks that the tables are saved and mapped back unchanged, and that
+     * corrupt or stale files are rejected and replaced.
+     * @throws IOException Thrown if the temporary files can not be used.
+     */
+    @Test
+    public final void saveAndRead() throws IOException {
+        final Path dir = Files.createTempDirectory("kociemba");
+        final Path file = dir.resolve(KociembaCoordinateCube.Tables.FILE);
+        try {
+            final ByteBuffer t = KociembaCoordinateCube.Tables.generate();
+            KociembaCoordinateCube.Tables.write(file, t);
+            final ByteBuffer read = KociembaCoordinateCube.Tables.read(file);
+            Assert.assertNotNull("The tables are read back", read);
+            Assert.assertEquals("The tables are read back unchanged", t,
+                                read);
+            Assert.assertEquals("The loaded tables are the mapped ones", t,
+                                KociembaCoordinateCube.Tables.load(file));
+            corrupt(file, Files.size(file) - 1);
+            Assert.assertNull("A corrupt file is rejected",
+                              KociembaCoordinateCube.Tables.read(file));
+            Assert.assertEquals("A corrupt file is generated again", t,
+                                KociembaCoordinateCube.Tables.load(file));
+            Assert.assertNotNull("The file generated again is valid",
+                                 KociembaCoordinateCube.Tables.read(file));
+            // The version follows the magic number.
+            corrupt(file, 7);
+            Assert.assertNull("A file of another version is rejected",
+                              KociembaCoordinateCube.Tables.read(file));
+            Assert.assertNull("A missing file is not read",
+                              KociembaCoordinateCube.Tables.read(
+                                  dir.resolve("none")));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+    /**
+     * Checks that the tables do not depend on the number of threads
+     * generating them.
+     */
+    @Test
+    public final void parallelGeneration() {
+        Assert.assertEquals("The tables do not depend on the threads",
+                            KociembaCoordinateCube.Tables.generate(1),
+                            KociembaCoordinateCube.Tables.generate(4));
+    }
+}
@@ -0,0 +1,230 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Two-phase search test cases.
+ * @author Alessandro Menti
+ */
+public class KociembaSearchTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public KociembaSearchTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that random cubes are solved within the maximum length.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void randomCubes() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(13);
+        for (int i = 0; i < 20; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            IDAStarTest.scramble(rnd, 60).applyTo(m);
+            // Move the centers, so that the solution starts with rotations.
+            Turn.Y.apply(m);
+            final MoveSequence s = new KociembaLib(m).getNextMoveSequence();
+            int turns = 0;
+            for (int j = 0; j < s.length(); ++j) {
+                if (!s.get(j).isCubeRotation()) {
+                    ++turns;
+                }
+            }
+            // Half turns are made of two quarter turns.
+            Assert.assertTrue("The solution is not longer than 21 moves",
+                              turns <= 2 * 21);
+            s.applyTo(m);
+            Assert.assertTrue("The solution solves the cube",
+                              RubikCubeModel.isSolved(m));
+        }
+    }
+    /**
+     * Checks that a solved cube needs no moves.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void solvedCube() throws NoSolutionException,
+            TimeoutException {
+        Assert.assertTrue("A solved cube needs no moves",
+                          new KociembaLib(new RubikCubeModel(3))
+                              .getNextMoveSequence().isEmpty());
+    }
+    /**
+     * Checks that a cube with a twisted corner is rejected.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void twistedCorner() throws TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        // Corner URF: facelets U9, R1 and F3.
+        final RubikCubeFaceColor u = m.getFace(RubikCubeSide.UP, 2, 2);
+        m.setFace(RubikCubeSide.UP, 2, 2, m.getFace(RubikCubeSide.FRONT, 0, 2));
+        m.setFace(RubikCubeSide.FRONT, 0, 2,
+                  m.getFace(RubikCubeSide.RIGHT, 0, 0));
+        m.setFace(RubikCubeSide.RIGHT, 0, 0, u);
+        try {
+            new KociembaLib(m).getNextMoveSequence();
+            Assert.fail("A cube with a twisted corner can not be solved");
+        } catch (NoSolutionException e) {
+            Assert.assertTrue("The twist is reported",
+                              e.getMessage().startsWith("Twist error"));
+        }
+    }
+    /**
+     * Checks that the search honors its budget.
+     * @throws NoSolutionException Thrown if there is no solution.
+     */
+    @Test(expected = TimeoutException.class)
+    public final void nodeLimit() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        IDAStarTest.scramble(new Random(14), 60).applyTo(m);
+        final KociembaLib k = new KociembaLib(m);
+        k.setBudget(new SearchBudget(0, 10, 0));
+        k.getNextMoveSequence();
+    }
+    /**
+     * Checks that the search from all the orientations solves random cubes
+     * and does not return longer solutions than the search from a single
+     * one.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void allOrientations() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(15);
+        for (int i = 0; i < 5; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            IDAStarTest.scramble(rnd, 60).applyTo(m);
+            Turn.X.apply(m);
+            final int single = KociembaLib.halfTurns(new KociembaLib(m)
+                .getNextMoveSequence());
+            // The search from the cube as it is finds the same solution, so
+            // a target as long as it (rotations excluded) is always reached.
+            final int rotations = KociembaLib.halfTurns(
+                ResolutionStrategy.orient(new RubikCubeModel(m)));
+            final MoveSequence s = new KociembaLib(m, single - rotations)
+                .getNextMoveSequence();
+            Assert.assertTrue("The solution is not longer than the one from"
+                              + " a single orientation",
+                              KociembaLib.halfTurns(s) <= single);
+            s.applyTo(m);
+            Assert.assertTrue("The solution solves the cube",
+                              RubikCubeModel.isSolved(m));
+        }
+    }
+    /**
+     * Checks that the search from all the orientations stops at the target
+     * length.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void targetLength() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        final Random rnd = new Random(16);
+        // Face turns only, so that no rotations precede the solution.
+        for (int i = 0; i < 60; ++i) {
+            Turn.values()[rnd.nextInt(12)].apply(m);
+        }
+        final MoveSequence s = new KociembaLib(m, 21).getNextMoveSequence();
+        Assert.assertTrue("The solution is not longer than the target",
+                          KociembaLib.halfTurns(s) <= 21);
+        s.applyTo(m);
+        Assert.assertTrue("The solution solves the cube",
+                          RubikCubeModel.isSolved(m));
+    }
+    /**
+     * Checks that the improving search reports shorter and shorter solutions
+     * and returns the last one when the budget is exhausted.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void improvingSolutions() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        IDAStarTest.scramble(new Random(17), 60).applyTo(m);
+        final KociembaLib k = new KociembaLib(m);
+        // Enough nodes for two solutions, far too few to prove that there
+        // is no shorter one.
+        k.setBudget(new SearchBudget(0, 30000000, 0));
+        final List<MoveSequence> found = new ArrayList<>();
+        final MoveSequence s = k.getImprovingMoveSequences(found::add);
+        Assert.assertFalse("A solution is reported", found.isEmpty());
+        Assert.assertEquals("The last solution reported is returned", s,
+                            found.get(found.size() - 1));
+        for (int i = 0; i < found.size(); ++i) {
+            if (i > 0) {
+                Assert.assertTrue("Every solution is shorter",
+                                  KociembaLib.halfTurns(found.get(i))
+                                  < KociembaLib.halfTurns(found.get(i - 1)));
+            }
+            final RubikCubeModel c = new RubikCubeModel(m);
+            found.get(i).applyTo(c);
+            Assert.assertTrue("Every solution solves the cube",
+                              RubikCubeModel.isSolved(c));
+        }
+    }
+    /**
+     * Checks that several threads solving different cubes at the same time
+     * find the same solutions as a single thread.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     * @throws ExecutionException Thrown if a solver fails.
+     */
+    @Test
+    public final void concurrentSolvers() throws NoSolutionException,
+            TimeoutException, InterruptedException, ExecutionException {
+        final Random rnd = new Random(21);
+        final List<RubikCubeModel> cubes = new ArrayList<>();
+        final List<MoveSequence> expected = new ArrayList<>();
+        for (int i = 0; i < 16; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            IDAStarTest.scramble(rnd, 60).applyTo(m);
+            cubes.add(m);
+            expected.add(new KociembaLib(m).getNextMoveSequence());
+        }
+        final List<Callable<MoveSequence>> solvers = new ArrayList<>();
+        for (RubikCubeModel m : cubes) {
+            solvers.add(() -> new KociembaLib(m).getNextMoveSequence());
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<MoveSequence>> solutions =
+                pool.invokeAll(solvers);
+            for (int i = 0; i < cubes.size(); ++i) {
+                Assert.assertEquals("The solution does not depend on the"
+                                    + " other threads", expected.get(i),
+                                    solutions.get(i).get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Pattern database test cases, run on small subsets of the cubies.
+ * @author Alessandro Menti
+ */
+public class PatternDatabaseTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public PatternDatabaseTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Creates the codes of the cubies of the solved cube.
+     * @param n Number of cubies.
+     * @param orientations Number of orientations of a cubie.
+     * @return Codes of the cubies, indexed by cubie.
+     */
+    private static int[] solved(final int n, final int orientations) {
+        final int[] codes = new int[n];
+        for (int i = 0; i < n; ++i) {
+            codes[i] = i * orientations;
+        }
+        return codes;
+    }
+    /**
+     * Performs a move on the cubies.
+     * @param codes Codes of the cubies.
+     * @param moves Move table (see <tt>PatternDatabase.CORNER_MOVES</tt>).
+     * @param m Index of the move.
+     * @return The codes after the move.
+     */
+    private static int[] move(final int[] codes, final int[][] moves,
+                              final int m) {
+        final int[] r = new int[codes.length];
+        for (int i = 0; i < codes.length; ++i) {
+            r[i] = moves[m][codes[i]];
+        }
+        return r;
+    }
+    /**
+     * Checks that the distances of a database are consistent with the moves:
+     * zero only for the solved cubies, and every other entry having a
+     * neighbor one move closer and none closer than that.
+     * @param db Database.
+     * @param moves Move table of the tracked kind of cubie.
+     * @param orientations Number of orientations of a cubie.
+     */
+    private static void checkDistances(final PatternDatabase db,
+                                       final int[][] moves,
+                                       final int orientations) {
+        final Random rnd = new Random(10);
+        int[] codes = solved(moves[0].length / orientations, orientations);
+        Assert.assertEquals("The solved cube has distance zero", 0,
+                            db.distance(codes));
+        for (int i = 0; i < 2000; ++i) {
+            codes = move(codes, moves, rnd.nextInt(PatternDatabase.NUM_MOVES));
+            final int d = db.distance(codes);
+            int closest = Integer.MAX_VALUE;
+            for (int m = 0; m < PatternDatabase.NUM_MOVES; ++m) {
+                closest = Math.min(closest, db.distance(move(codes, moves, m)));
+            }
+            if (d == 0) {
+                Assert.assertEquals("Solved cubies stay one move away", 1,
+                                    closest);
+            } else {
+                Assert.assertEquals("A neighbor is one move closer", d - 1,
+                                    closest);
+            }
+        }
+    }
+    /**
+     * Checks the size of the databases.
+     */
+    @Test
+    public final void entries() {
+        Assert.assertEquals("The corner database has 8! * 3^7 entries",
+                            88179840, PatternDatabase.entries(true, 8));
+        Assert.assertEquals("An edge database has 12!/6! * 2^6 entries",
+                            42577920, PatternDatabase.entries(false, 6));
+    }
+    /**
+     * Checks the distances of a database of some corners.
+     */
+    @Test
+    public final void cornerDistances() {
+        checkDistances(PatternDatabase.generate(true, 2, 4),
+                       PatternDatabase.CORNER_MOVES, 3);
+    }
+    /**
+     * Checks the distances of a database of some edges.
+     */
+    @Test
+    public final void edgeDistances() {
+        checkDistances(PatternDatabase.generate(false, 5, 4),
+                       PatternDatabase.EDGE_MOVES, 2);
+    }
+    /**
+     * Checks that a database is saved and mapped back unchanged, and that
+     * corrupt files and files holding other tables are rejected.
+     * @throws IOException Thrown if the temporary files can not be used.
+     */
+    @Test
+    public final void saveAndRead() throws IOException {
+        final Path dir = Files.createTempDirectory("pdb");
+        final Path file = dir.resolve("edges.pdb");
+        try {
+            final PatternDatabase db = PatternDatabase.generate(false, 0, 3);
+            db.write(file);
+            final PatternDatabase read = PatternDatabase.read(file, false, 0,
+                                                              3);
+            Assert.assertNotNull("The database is read back", read);
+            final Random rnd = new Random(11);
+            int[] codes = solved(PatternDatabase.EDGES, 2);
+            for (int i = 0; i < 500; ++i) {
+                codes = move(codes, PatternDatabase.EDGE_MOVES,
+                             rnd.nextInt(PatternDatabase.NUM_MOVES));
+                Assert.assertEquals("The distances are read back",
+                                    db.distance(codes), read.distance(codes));
+            }
+            Assert.assertNull("Another table is not read from the file",
+                              PatternDatabase.read(file, false, 1, 3));
+            KociembaCoordinateCubeTest.corrupt(file, Files.size(file) - 1);
+            Assert.assertNull("A corrupt file is rejected",
+                              PatternDatabase.read(file, false, 0, 3));
+            Assert.assertNull("A missing file is not read",
+                              PatternDatabase.read(dir.resolve("none.pdb"),
+                                                   false, 0, 3));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the 2x2x2 distance table solver.
+ * @author Alessandro Menti
+ */
+public class PocketCubeTest {
+    /**
+     * Turns acting on 2x2x2 cubes: face turns and rotations of the entire
+     * cube.
+     */
+    private static final Turn[] TURNS = {
+        Turn.U, Turn.U_PRIME, Turn.D, Turn.D_PRIME, Turn.L, Turn.L_PRIME,
+        Turn.R, Turn.R_PRIME, Turn.F, Turn.F_PRIME, Turn.B, Turn.B_PRIME,
+        Turn.X, Turn.X_PRIME, Turn.Y, Turn.Y_PRIME, Turn.Z, Turn.Z_PRIME,
+    };
+    /**
+     * Creates a new instance of the test class.
+     */
+    public PocketCubeTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that random cubes are solved within the maximum distance.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void randomCubes() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(22);
+        for (int i = 0; i < 200; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(2);
+            for (int j = 0; j < 40; ++j) {
+                TURNS[rnd.nextInt(TURNS.length)].apply(m);
+            }
+            final MoveSequence s = new PocketCube(m).getNextMoveSequence();
+            Assert.assertTrue("The solution is not longer than 14 turns",
+                              s.length() <= 14);
+            s.applyTo(m);
+            Assert.assertTrue("The solution solves the cube",
+                              RubikCubeModel.isSolved(m));
+        }
+    }
+    /**
+     * Checks that the solutions are optimal.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void optimalSolutions() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(2);
+        Assert.assertTrue("A solved cube needs no moves",
+                          new PocketCube(m).getNextMoveSequence().isEmpty());
+        // B, D and L move the DBL corner, so they are undone by turns of
+        // the other faces.
+        final String[] scrambles = {"B", "R U", "B D' L"};
+        for (int i = 0; i < scrambles.length; ++i) {
+            final RubikCubeModel c = new RubikCubeModel(2);
+            MoveSequence.parse(scrambles[i]).applyTo(c);
+            final MoveSequence s = new PocketCube(c).getNextMoveSequence();
+            Assert.assertEquals("The scramble is undone by as many turns",
+                                i + 1, s.length());
+            s.applyTo(c);
+            Assert.assertTrue("The solution solves the cube",
+                              RubikCubeModel.isSolved(c));
+        }
+    }
+    /**
+     * Checks the number of positions at every distance modulo three.
+     */
+    @Test
+    public final void distanceTable() {
+        // Positions at every distance, in the quarter turn metric.
+        final long[] positions = {
+            1, 6, 27, 120, 534, 2256, 8969, 33058, 114149, 360508, 930588,
+            1350852, 782536, 90280, 276,
+        };
+        final long[] expected = new long[3];
+        for (int d = 0; d < positions.length; ++d) {
+            expected[d % 3] += positions[d];
+        }
+        final long[] found = new long[4];
+        for (int i = 0; i < PocketCube.N_POSITIONS; ++i) {
+            ++found[PocketCube.Table.distance(i)];
+        }
+        for (int r = 0; r < 3; ++r) {
+            Assert.assertEquals("The positions at distance " + r
+                                + " modulo three are counted", expected[r],
+                                found[r]);
+        }
+        Assert.assertEquals("Every position is reached", 0, found[3]);
+    }
+    /**
+     * Checks that a cube with a twisted corner is not solved.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void twistedCorner() throws TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(2);
+        final RubikCubeFaceColor u = m.getFace(RubikCubeSide.UP, 1, 1);
+        m.setFace(RubikCubeSide.UP, 1, 1, m.getFace(RubikCubeSide.RIGHT, 0,
+                                                    0));
+        m.setFace(RubikCubeSide.RIGHT, 0, 0, m.getFace(RubikCubeSide.FRONT,
+                                                       0, 1));
+        m.setFace(RubikCubeSide.FRONT, 0, 1, u);
+        try {
+            new PocketCube(m).getNextMoveSequence();
+            Assert.fail("A twisted corner can not be solved");
+        } catch (NoSolutionException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that cubes of other dimensions are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void otherDimension() {
+        new PocketCube(new RubikCubeModel(3));
+    }
+}
@@ -0,0 +1,174 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeFaceColor;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.model.RubikCubeSide;
+import it.univr.rubikcube.moves.LayerMove;
+import it.univr.rubikcube.moves.MoveSequence;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the solver by reduction to a 3x3 cube.
+ * @author Alessandro Menti
+ */
+public class ReductionTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public ReductionTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Scrambles a solved cube with random turns of its layers.
+     * @param n Dimension of the cube.
+     * @param rnd Random number generator.
+     * @return The scrambled cube.
+     */
+    private static RubikCubeModel scramble(final int n, final Random rnd) {
+        final RubikCubeModel m = new RubikCubeModel(n);
+        final RubikCubeSide[] sides = RubikCubeSide.values();
+        for (int i = 0; i < 20 * n; ++i) {
+            new LayerMove(m, sides[rnd.nextInt(sides.length)],
+                          rnd.nextInt(n), rnd.nextBoolean()).perform();
+        }
+        return m;
+    }
+    /**
+     * Solves a cube, checking that it is solved.
+     * @param m Cube.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    private static void solve(final RubikCubeModel m)
+            throws NoSolutionException, TimeoutException {
+        final List<Move> moves = new Reduction(m).getNextMoves();
+        for (Move x : moves) {
+            x.perform();
+        }
+        Assert.assertTrue("The " + m.getDimension() + "x" + m.getDimension()
+                          + " cube is solved", RubikCubeModel.isSolved(m));
+    }
+    /**
+     * Checks that random even and odd cubes are solved, whatever the
+     * parities of their wings and corners.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void randomCubes() throws NoSolutionException,
+            TimeoutException {
+        final Random rnd = new Random(23);
+        for (int n = 4; n <= 8; ++n) {
+            for (int i = 0; i < 4; ++i) {
+                solve(scramble(n, rnd));
+            }
+        }
+    }
+    /**
+     * Checks that a big cube is solved.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void bigCube() throws NoSolutionException,
+            TimeoutException {
+        solve(scramble(20, new Random(24)));
+    }
+    /**
+     * Checks that a solved cube needs no moves.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void solvedCube() throws NoSolutionException,
+            TimeoutException {
+        Assert.assertTrue("A solved cube needs no moves",
+                          new Reduction(new RubikCubeModel(6)).getNextMoves()
+                          .isEmpty());
+    }
+    /**
+     * Checks that the solutions are also given as sequences, turning the
+     * inner layers.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void sequences() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = scramble(5, new Random(25));
+        final MoveSequence s =
+            new Reduction(m).getImprovingMoveSequences(x -> { });
+        Assert.assertTrue("The sequence turns the inner layers",
+                          s.hasInnerLayers());
+        s.applyTo(m);
+        Assert.assertTrue("The sequence solves the cube",
+                          RubikCubeModel.isSolved(m));
+    }
+    /**
+     * Checks that a solution can be performed again from its text, as shown
+     * by the interface.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void replayText() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = scramble(4, new Random(27));
+        final StringBuilder text = new StringBuilder();
+        for (Move x : new Reduction(m).getNextMoves()) {
+            text.append(x).append(' ');
+        }
+        Assert.assertTrue("The solution turns the inner layers",
+                          text.toString().contains("2"));
+        for (Move x : MoveSequence.parse(text.toString()).toMoves(m)) {
+            x.perform();
+        }
+        Assert.assertTrue("The text of the solution solves the cube",
+                          RubikCubeModel.isSolved(m));
+    }
+    /**
+     * Checks that the 3x3 stage does not get a budget of its own.
+     * @throws NoSolutionException Thrown if there is no solution.
+     */
+    @Test
+    public final void sharedBudget() throws NoSolutionException {
+        final RubikCubeModel m = scramble(6, new Random(26));
+        final Reduction r = new Reduction(m);
+        r.setBudget(new SearchBudget(1, 0, 0));
+        try {
+            r.getNextMoveSequence();
+            Assert.fail("The whole solution must fit in the budget");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that a cube with the wrong colors is not solved.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void wrongColors() throws TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(4);
+        m.setFace(RubikCubeSide.UP, 1, 1, RubikCubeFaceColor.RED);
+        try {
+            new Reduction(m).getNextMoves();
+            Assert.fail("A cube with the wrong colors can not be solved");
+        } catch (NoSolutionException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that smaller cubes are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void smallerCube() {
+        new Reduction(new RubikCubeModel(3));
+    }
+}
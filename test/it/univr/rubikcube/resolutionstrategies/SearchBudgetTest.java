@@ -0,0 +1,191 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.moves.MoveSequence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Search budget test cases.
+ * @author Alessandro Menti
+ */
+public class SearchBudgetTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public SearchBudgetTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that the search stops once the time limit is reached.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     * @throws TimeoutException Thrown if the limit is reached too early.
+     */
+    @Test
+    public final void timeLimit() throws InterruptedException,
+            TimeoutException {
+        final SearchBudget.Monitor m =
+            SearchBudget.ofTime(100, TimeUnit.MILLISECONDS).start();
+        m.check();
+        Assert.assertTrue("Some time is left",
+                          m.getRemainingMillis() > 0);
+        Thread.sleep(150);
+        Assert.assertEquals("No time is left", 0, m.getRemainingMillis());
+        try {
+            m.check();
+            Assert.fail("The time limit is reached");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that the search stops exactly when the node limit is exceeded.
+     * @throws TimeoutException Thrown if the limit is reached too early.
+     */
+    @Test
+    public final void nodeLimit() throws TimeoutException {
+        final SearchBudget.Monitor m = new SearchBudget(0, 100, 0).start();
+        for (int i = 0; i < 100; ++i) {
+            m.visit();
+        }
+        try {
+            m.visit();
+            Assert.fail("The node limit is exceeded");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that the search stops once the JVM uses more memory than
+     * allowed.
+     * @throws TimeoutException Thrown if a generous limit is reached.
+     */
+    @Test
+    public final void memoryLimit() throws TimeoutException {
+        new SearchBudget(0, 0, Long.MAX_VALUE).start().check();
+        try {
+            // The JVM always uses more than one byte.
+            new SearchBudget(0, 0, 1).start().check();
+            Assert.fail("The memory limit is reached");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that interrupting the thread stops the search.
+     */
+    @Test
+    public final void interruption() {
+        final SearchBudget.Monitor m = SearchBudget.UNLIMITED.start();
+        Thread.currentThread().interrupt();
+        try {
+            m.check();
+            Assert.fail("The interruption stops the search");
+        } catch (TimeoutException e) {
+            // Expected
+        } finally {
+            Thread.interrupted();
+        }
+    }
+    /**
+     * Checks that the nodes visited by the monitors of several threads are
+     * added up against the limit of the whole search.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     * @throws TimeoutException Thrown if the limit is reached too early.
+     */
+    @Test
+    public final void forkedMonitors() throws InterruptedException,
+            TimeoutException {
+        final SearchBudget.Monitor m = new SearchBudget(0, 10000, 0).start();
+        final AtomicReference<TimeoutException> error =
+            new AtomicReference<TimeoutException>();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            final SearchBudget.Monitor f = m.fork();
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 2000; ++n) {
+                            f.visit();
+                        }
+                        f.check();
+                    } catch (TimeoutException e) {
+                        error.set(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assert.assertNull("The threads stay within the limit", error.get());
+        Assert.assertEquals("The nodes of the threads are added up", 8000,
+                            m.getTotalNodes());
+        Assert.assertEquals("Every monitor counts its own nodes", 0,
+                            m.getNodes());
+        final SearchBudget.Monitor f = m.fork();
+        for (int n = 0; n < 2000; ++n) {
+            f.visit();
+        }
+        try {
+            f.visit();
+            f.check();
+            Assert.fail("The nodes of all the threads exceed the limit");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+    }
+    /**
+     * Checks that the remaining budget of a search is what is left of its
+     * limits.
+     * @throws TimeoutException Thrown if the limit is reached too early.
+     */
+    @Test
+    public final void remaining() throws TimeoutException {
+        final long memory = Runtime.getRuntime().maxMemory() * 2;
+        final SearchBudget.Monitor m =
+            new SearchBudget(60000, 1000, memory).start();
+        for (int i = 0; i < 400; ++i) {
+            m.visit();
+        }
+        final SearchBudget r = m.remaining();
+        Assert.assertEquals("The visited nodes are subtracted", 600,
+                            r.getNodeLimit());
+        Assert.assertTrue("The elapsed time is subtracted",
+                          r.getTimeLimit() > 0 && r.getTimeLimit() <= 60000);
+        Assert.assertEquals("The memory limit is kept", memory,
+                            r.getMemoryLimit());
+        Assert.assertEquals("Unlimited resources stay unlimited",
+                            SearchBudget.UNLIMITED.toString(),
+                            SearchBudget.UNLIMITED.start().remaining()
+                            .toString());
+    }
+    /**
+     * Checks that IDA* gives up on a scramble it can not solve within a
+     * small number of nodes, both on one and on several threads.
+     * @throws NoSolutionException Thrown if there is no solution.
+     */
+    @Test
+    public final void idaStarNodeLimit() throws NoSolutionException {
+        final RubikCubeModel c = new RubikCubeModel(3);
+        MoveSequence.parse("R U F' L D' B R' U F D' L B'").applyTo(c);
+        for (int threads : new int[] {1, 4}) {
+            final IDAStar ida = new IDAStar(c, threads);
+            ida.setBudget(new SearchBudget(0, 100, 0));
+            try {
+                ida.getNextMoveSequence();
+                Assert.fail("The search exceeds the node limit on " + threads
+                            + " threads");
+            } catch (TimeoutException e) {
+                // Expected
+            }
+        }
+    }
+}
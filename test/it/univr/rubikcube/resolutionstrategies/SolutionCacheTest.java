@@ -0,0 +1,184 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.Move;
+import it.univr.rubikcube.model.RubikCubeModel;
+import it.univr.rubikcube.moves.MoveSequence;
+import it.univr.rubikcube.moves.Turn;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the cache of the solutions.
+ * @author Alessandro Menti
+ */
+public class SolutionCacheTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public SolutionCacheTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks whether a sequence solves a cube.
+     * @param m Cube.
+     * @param s Sequence.
+     * @return <tt>true</tt> if and only if the sequence solves the cube.
+     */
+    private static boolean solves(final RubikCubeModel m,
+                                  final MoveSequence s) {
+        final RubikCubeModel c = new RubikCubeModel(m);
+        s.applyTo(c);
+        return RubikCubeModel.isSolved(c);
+    }
+    /**
+     * Checks that the solutions are mapped correctly by every symmetry.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void symmetries() throws NoSolutionException,
+            TimeoutException {
+        final RubikCubeModel m = new RubikCubeModel(3);
+        IDAStarTest.scramble(new Random(20), 40).applyTo(m);
+        // Rotations and slice moves included.
+        final MoveSequence extra = new MoveSequence(Turn.M, Turn.X, Turn.E,
+                                                    Turn.Y, Turn.S, Turn.Z);
+        final MoveSequence s = new KociembaLib(m).getNextMoveSequence()
+            .concat(extra).concat(extra.inverse());
+        Assert.assertEquals("The cube has 48 symmetries", CubeSymmetry.COUNT,
+                            CubeSymmetry.all().size());
+        final Set<RubikCubeModel> images = new HashSet<>();
+        for (CubeSymmetry sym : CubeSymmetry.all()) {
+            final RubikCubeModel t = sym.transform(m);
+            images.add(t);
+            Assert.assertTrue("The mapped solution solves the transformed"
+                              + " cube", solves(t, sym.fromCube(s)));
+            Assert.assertEquals("The solution is mapped back unchanged", s,
+                                sym.toCube(sym.fromCube(s)));
+        }
+        Assert.assertEquals("The images of the cube are different",
+                            CubeSymmetry.COUNT, images.size());
+    }
+    /**
+     * Checks that symmetric cubes share an entry of the cache.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void symmetricCubes() throws NoSolutionException,
+            TimeoutException {
+        final SolutionCache cache = new SolutionCache(1 << 20);
+        final RubikCubeModel m = new RubikCubeModel(3);
+        IDAStarTest.scramble(new Random(21), 40).applyTo(m);
+        Assert.assertTrue("The cube is solved", solves(m,
+            new CachingStrategy(new KociembaLib(m), cache)
+                .getNextMoveSequence()));
+        final RubikCubeModel rotated = new RubikCubeModel(m);
+        Turn.Y.apply(rotated);
+        Turn.X.apply(rotated);
+        final RubikCubeModel mirrored = CubeSymmetry.all()
+            .get(CubeSymmetry.COUNT - 1).transform(m);
+        for (RubikCubeModel c : new RubikCubeModel[] {m, rotated, mirrored}) {
+            final CachingStrategy s =
+                new CachingStrategy(new KociembaLib(c), cache);
+            Assert.assertTrue("The cached solution solves the cube",
+                              solves(c, s.getNextMoveSequence()));
+        }
+        Assert.assertEquals("The cube is searched once", 1,
+                            cache.getMisses());
+        Assert.assertEquals("The other cubes are found", 3, cache.getHits());
+        Assert.assertEquals("The cube has a single entry", 1,
+                            cache.getEntries());
+    }
+    /**
+     * Checks that the least recently used entries are evicted.
+     * @throws NoSolutionException Thrown if there is no solution.
+     * @throws TimeoutException Thrown if a timeout occurs.
+     */
+    @Test
+    public final void eviction() throws NoSolutionException,
+            TimeoutException {
+        final long bound = 2 * (SolutionCache.ENTRY_SIZE + 50);
+        final SolutionCache cache = new SolutionCache(bound);
+        final Random rnd = new Random(22);
+        final RubikCubeModel first = new RubikCubeModel(3);
+        IDAStarTest.scramble(rnd, 40).applyTo(first);
+        new CachingStrategy(new KociembaLib(first), cache)
+            .getNextMoveSequence();
+        for (int i = 0; i < 3; ++i) {
+            final RubikCubeModel m = new RubikCubeModel(3);
+            IDAStarTest.scramble(rnd, 40).applyTo(m);
+            new CachingStrategy(new KociembaLib(m), cache)
+                .getNextMoveSequence();
+        }
+        Assert.assertTrue("The cache is bounded", cache.getSize() <= bound);
+        Assert.assertEquals("Two entries fit in the cache", 2,
+                            cache.getEntries());
+        new CachingStrategy(new KociembaLib(first), cache)
+            .getNextMoveSequence();
+        Assert.assertEquals("The first cube was evicted", 5,
+                            cache.getMisses());
+    }
+    /**
+     * Checks that concurrent searches for the same cube are shared.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     */
+    @Test
+    public final void sharedSearch() throws InterruptedException {
+        final SolutionCache cache = new SolutionCache(1 << 20);
+        final RubikCubeModel m = new RubikCubeModel(3);
+        IDAStarTest.scramble(new Random(23), 40).applyTo(m);
+        final AtomicInteger searches = new AtomicInteger();
+        final AtomicInteger solved = new AtomicInteger();
+        final Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; ++i) {
+            final RubikCubeModel c = new RubikCubeModel(m);
+            Turn.values()[Turn.X.ordinal() + 2 * i].apply(c);
+            final ResolutionStrategy slow = new ResolutionStrategy(c) {
+                @Override
+                public List<Move> getNextMoves() throws NoSolutionException,
+                        TimeoutException {
+                    searches.incrementAndGet();
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        throw new TimeoutException("Execution interrupted");
+                    }
+                    return new KociembaLib(c).getNextMoves();
+                }
+                @Override
+                public String toString() {
+                    return "Slow";
+                }
+                @Override
+                public String getDescription() {
+                    return "Slow";
+                }
+            };
+            threads[i] = new Thread(() -> {
+                try {
+                    if (solves(c, new CachingStrategy(slow, cache)
+                                   .getNextMoveSequence())) {
+                        solved.incrementAndGet();
+                    }
+                } catch (NoSolutionException | TimeoutException e) {
+                    // Counted as not solved
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assert.assertEquals("The search is shared", 1, searches.get());
+        Assert.assertEquals("Both cubes are solved", 2, solved.get());
+    }
+}
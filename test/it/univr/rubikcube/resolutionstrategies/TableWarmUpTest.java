@@ -0,0 +1,52 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import it.univr.rubikcube.model.RubikCubeModel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test cases for the background loading of the tables.
+ * @author Alessandro Menti
+ */
+public class TableWarmUpTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public TableWarmUpTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks that the tables of Kociemba's algorithm are loaded once and
+     * become ready.
+     * @throws ExecutionException Thrown if the tables can not be loaded.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     * @throws TimeoutException Thrown if the tables are not loaded in time.
+     */
+    @Test
+    public final void kociembaReadiness() throws ExecutionException,
+            InterruptedException, TimeoutException {
+        final CompletableFuture<Void> ready =
+            new KociembaLib(new RubikCubeModel(3)).getReadiness();
+        Assert.assertSame("The tables are loaded only once", ready,
+                          new KociembaLib(new RubikCubeModel(3))
+                              .getReadiness());
+        ready.get(5, TimeUnit.MINUTES);
+        Assert.assertFalse("The tables are loaded",
+                           ready.isCompletedExceptionally());
+    }
+    /**
+     * Checks that a strategy without tables is always ready.
+     */
+    @Test
+    public final void noTables() {
+        Assert.assertTrue("A strategy without tables is ready",
+                          new Singmaster(new RubikCubeModel(3))
+                              .getReadiness().isDone());
+    }
+}
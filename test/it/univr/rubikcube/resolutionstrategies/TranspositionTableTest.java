@@ -0,0 +1,144 @@
+package it.univr.rubikcube.resolutionstrategies;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Transposition table test cases.
+ * @author Alessandro Menti
+ */
+public class TranspositionTableTest {
+    /**
+     * Creates a new instance of the test class.
+     */
+    public TranspositionTableTest() {
+        // Empty, nothing to do
+    }
+    /**
+     * Checks the size of the table.
+     */
+    @Test
+    public final void size() {
+        final TranspositionTable t = new TranspositionTable(3);
+        Assert.assertEquals("The slots are rounded down to a power of two",
+                            1 << 18, t.capacity());
+        Assert.assertEquals("The size is reported in megabytes", 2,
+                            t.getMegabytes());
+    }
+    /**
+     * Checks that a non-positive size is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public final void invalidSize() {
+        new TranspositionTable(0);
+    }
+    /**
+     * Checks storing and looking up entries.
+     */
+    @Test
+    public final void storeAndProbe() {
+        final TranspositionTable t = new TranspositionTable(1);
+        final long key = 0x123456789ABCDEFL;
+        Assert.assertEquals("Missing states are not found", -1, t.probe(key));
+        t.store(key, 5, 9);
+        Assert.assertEquals("Stored states are found", 9, t.probe(key));
+        Assert.assertEquals("States with the same slot are told apart", -1,
+                            t.probe(key ^ (1L << 40)));
+        t.store(key, 2, 7);
+        Assert.assertEquals("The best bound of a state is kept", 9,
+                            t.probe(key));
+        t.store(key, 6, 11);
+        Assert.assertEquals("The bound of a state is improved", 11,
+                            t.probe(key));
+        t.clear();
+        Assert.assertEquals("Clearing removes the entries", -1, t.probe(key));
+    }
+    /**
+     * Checks that the entry searched deeper is kept when two states compete
+     * for the same slot.
+     */
+    @Test
+    public final void depthPreferredReplacement() {
+        final TranspositionTable t = new TranspositionTable(1);
+        final long a = 42;
+        final long b = a | (1L << 50);
+        t.store(a, 6, 8);
+        t.store(b, 4, 9);
+        Assert.assertEquals("A shallower entry does not replace a deeper one",
+                            8, t.probe(a));
+        Assert.assertEquals("The shallower entry is dropped", -1,
+                            t.probe(b));
+        t.store(b, 7, 9);
+        Assert.assertEquals("A deeper entry replaces a shallower one", 9,
+                            t.probe(b));
+        Assert.assertEquals("The replaced entry is dropped", -1, t.probe(a));
+    }
+    /**
+     * Checks that several threads can use the table at the same time, even
+     * when they store different states with different depths in the same
+     * slots: a probe finds either nothing or one of the bounds stored for
+     * the very same state, never an entry mixing two of them.
+     * @throws InterruptedException Thrown if the test is interrupted.
+     */
+    @Test
+    public final void concurrentAccess() throws InterruptedException {
+        final TranspositionTable t = new TranspositionTable(1);
+        // Every slot is shared by several states, told apart by the high
+        // bits of the key; the bound stored for a state is
+        // 10 * variant + depth.
+        final int slots = 16;
+        final int variants = 8;
+        final int maxDepth = 9;
+        final long[] keys = new long[slots * variants];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = (long) (i % variants + 1) << 40 | (i / variants) * 7919L;
+        }
+        final AtomicReference<String> error = new AtomicReference<String>();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            final long seed = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Random rnd = new Random(seed);
+                    for (int n = 0; n < 200000 && error.get() == null; ++n) {
+                        final int k = rnd.nextInt(keys.length);
+                        final int variant = k % variants + 1;
+                        if (rnd.nextBoolean()) {
+                            final int depth = rnd.nextInt(maxDepth) + 1;
+                            t.store(keys[k], depth, 10 * variant + depth);
+                        } else {
+                            final int b = t.probe(keys[k]);
+                            if (b != -1 && (b / 10 != variant
+                                            || b % 10 == 0)) {
+                                error.compareAndSet(null, "Key " + keys[k]
+                                                    + " found bound " + b);
+                            }
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+        Assert.assertNull("Every probe finds a bound of its own state",
+                          error.get());
+        int found = 0;
+        for (int k = 0; k < keys.length; ++k) {
+            final int b = t.probe(keys[k]);
+            if (b != -1) {
+                ++found;
+                Assert.assertEquals("Every entry is stored whole",
+                                    k % variants + 1, b / 10);
+            }
+        }
+        Assert.assertTrue("The shared slots hold entries", found > 0);
+        Assert.assertTrue("The states compete for the slots",
+                          found <= slots);
+    }
+}